@@ -0,0 +1,41 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversione completa in entrambe le direzioni su specifiche sintetiche piccole, medie e grandi.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConversionBenchmark {
+
+  private final OpenApiUpdater updater = new OpenApiUpdaterImpl();
+  private final OpenApiDowngrader downgrader = new OpenApiDowngraderImpl();
+
+  @Benchmark
+  public String convertToV3(SpecState state) throws Exception {
+    return updater.convertToV3(state.swagger2, state.format);
+  }
+
+  @Benchmark
+  public String convertToV2(SpecState state) throws Exception {
+    return downgrader.convertToV2(state.openApi3, state.format);
+  }
+}
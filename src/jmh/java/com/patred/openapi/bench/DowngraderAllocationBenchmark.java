@@ -0,0 +1,51 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.model.Format;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Budget di allocazione per operazione API della conversione OpenAPI 3 → Swagger 2. Con
+ * {@code -prof gc} il valore {@code gc.alloc.rate.norm} è espresso in byte per operazione della
+ * specifica (parsing e serializzazione inclusi), non per documento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DowngraderAllocationBenchmark {
+
+  private static final int PATHS = 1000;
+  // SpecGenerator crea un GET per ogni path e un PUT per i path pari
+  private static final int OPERATIONS = PATHS + PATHS / 2;
+
+  private final OpenApiDowngrader downgrader = new OpenApiDowngraderImpl();
+
+  private String spec;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    spec = SpecGenerator.openApi3(PATHS, Format.JSON);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public String convertToV2() throws Exception {
+    return downgrader.convertToV2(spec, Format.JSON);
+  }
+}
@@ -0,0 +1,40 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.util.FormatUtils;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rilevamento del formato. La specifica è circondata da spazi, il caso peggiore per un rilevamento
+ * che copia l'input.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatUtilsBenchmark {
+
+  private String padded;
+
+  @Setup(Level.Trial)
+  public void setup(SpecState state) {
+    padded = "\n  " + state.openApi3 + "\n\n";
+  }
+
+  @Benchmark
+  public boolean isYaml() {
+    return FormatUtils.isYaml(padded);
+  }
+}
@@ -0,0 +1,82 @@
+package com.patred.openapi.bench;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.util.Mappers;
+import com.patred.openapi.util.ModelMappers;
+import io.swagger.v3.core.util.ObjectMapperFactory;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.converter.SwaggerConverter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.yaml.YAMLFactory;
+
+/**
+ * Confronta la creazione di un mapper per ogni chiamata con i reader/writer condivisi di
+ * {@link Mappers} e {@link ModelMappers}. Da eseguire con {@code -prof gc} per vedere
+ * l'allocazione per operazione.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperRegistryBenchmark {
+
+  private JsonNode tree;
+  private OpenAPI model;
+
+  @Setup
+  public void setup() throws IOException {
+    try (InputStream in = getClass().getClassLoader()
+        .getResourceAsStream("sample-openapi3.yaml")) {
+      tree = Mappers.reader(Format.YAML).readTree(in);
+    }
+    try (InputStream in = getClass().getClassLoader()
+        .getResourceAsStream("sample-swagger2.yaml")) {
+      String spec = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+      model = new SwaggerConverter().readContents(spec, null, null).getOpenAPI();
+    }
+    // Inizializza le classi del percorso di conversione prima delle misure
+    new OpenApiUpdaterImpl();
+  }
+
+  @Benchmark
+  public String treePerCallMapper() {
+    return new ObjectMapper(new YAMLFactory()).writerWithDefaultPrettyPrinter()
+        .writeValueAsString(tree);
+  }
+
+  @Benchmark
+  public String treeSharedWriter() {
+    return Mappers.writer(Format.YAML, true).writeValueAsString(tree);
+  }
+
+  @Benchmark
+  public String modelPerCallMapper() throws Exception {
+    com.fasterxml.jackson.databind.ObjectMapper mapper = ObjectMapperFactory.createYaml();
+    mapper.setSerializationInclusion(Include.NON_NULL);
+    return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(model);
+  }
+
+  @Benchmark
+  public String modelSharedWriter() throws Exception {
+    return ModelMappers.writer(Format.YAML, true).writeValueAsString(model);
+  }
+}
@@ -0,0 +1,52 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.bench.SpecGenerator.Size;
+import com.patred.openapi.metrics.ConversionMetrics;
+import com.patred.openapi.metrics.InMemoryConversionMetrics;
+import com.patred.openapi.model.Format;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo della strumentazione sulla conversione OpenAPI 3 → Swagger 2 di una specifica piccola,
+ * dove il peso relativo è massimo: {@link ConversionMetrics#NOOP} contro
+ * {@link InMemoryConversionMetrics}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+  @Param({"noop", "inMemory"})
+  public String metrics;
+
+  private OpenApiDowngrader downgrader;
+  private String spec;
+
+  @Setup
+  public void setup() {
+    downgrader = new OpenApiDowngraderImpl("noop".equals(metrics)
+        ? ConversionMetrics.NOOP : new InMemoryConversionMetrics());
+    spec = SpecGenerator.openApi3(Size.SMALL.paths, Format.JSON);
+  }
+
+  @Benchmark
+  public String convertToV2() throws Exception {
+    return downgrader.convertToV2(spec, Format.JSON);
+  }
+}
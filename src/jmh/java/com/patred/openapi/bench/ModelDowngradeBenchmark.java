@@ -0,0 +1,54 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.util.ModelMappers;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Downgrade di un modello OpenAPI 3 già in memoria: conversione diretta modello → albero contro
+ * il vecchio giro serializza → converti da testo.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModelDowngradeBenchmark {
+
+  private final OpenApiDowngrader downgrader = new OpenApiDowngraderImpl();
+
+  private OpenAPI model;
+
+  @Setup(Level.Trial)
+  public void setup(SpecState state) {
+    model = new OpenAPIV3Parser().readContents(state.openApi3).getOpenAPI();
+  }
+
+  @Benchmark
+  public JsonNode direct() throws Exception {
+    return downgrader.convertToV2(model);
+  }
+
+  @Benchmark
+  public String textRoundTrip() throws Exception {
+    String spec = ModelMappers.writer(Format.JSON, false).writeValueAsString(model);
+    return downgrader.convertToV2(spec);
+  }
+}
@@ -0,0 +1,69 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.OutputOptions.Compression;
+import com.patred.openapi.model.OutputOptions.Encoding;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Downgrade in streaming con le diverse opzioni di output. La dimensione prodotta da ciascuna
+ * variante viene stampata al setup, così tempi e byte si leggono insieme.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutputOptionsBenchmark {
+
+  @Param({"PRETTY", "COMPACT", "SORTED", "CBOR", "SMILE", "COMPACT_GZIP", "SMILE_ZSTD"})
+  public String output;
+
+  private final OpenApiDowngrader downgrader = new OpenApiDowngraderImpl();
+
+  private byte[] spec;
+  private OutputOptions options;
+
+  @Setup(Level.Trial)
+  public void setup(SpecState state) throws Exception {
+    spec = state.openApi3.getBytes(StandardCharsets.UTF_8);
+    options = switch (output) {
+      case "PRETTY" -> OutputOptions.DEFAULT;
+      case "COMPACT" -> OutputOptions.DEFAULT.compact();
+      case "SORTED" -> OutputOptions.DEFAULT.compact().sorted();
+      case "CBOR" -> OutputOptions.DEFAULT.withEncoding(Encoding.CBOR);
+      case "SMILE" -> OutputOptions.DEFAULT.withEncoding(Encoding.SMILE);
+      case "COMPACT_GZIP" -> OutputOptions.DEFAULT.compact().withCompression(Compression.GZIP);
+      case "SMILE_ZSTD" -> OutputOptions.DEFAULT.withEncoding(Encoding.SMILE)
+          .withCompression(Compression.ZSTD);
+      default -> throw new IllegalArgumentException("Output sconosciuto: " + output);
+    };
+    System.out.printf("%n%s %s/%s: %d byte%n", output, state.size, state.format,
+        convert().size());
+  }
+
+  @Benchmark
+  public ByteArrayOutputStream convert() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(spec.length);
+    downgrader.convertToV2(new ByteArrayInputStream(spec), out, options);
+    return out;
+  }
+}
@@ -0,0 +1,69 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.metrics.ConversionMetrics;
+import com.patred.openapi.util.Mappers;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Scalabilità della conversione a blocchi di un singolo documento al crescere dei thread del
+ * pool. L'input è già un albero, così si misura solo la conversione; {@code threads = 0} è la
+ * conversione sequenziale di riferimento.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelPathsBenchmark {
+
+  @Param({"0", "1", "2", "4", "8"})
+  public int threads;
+
+  @Param({"256"})
+  public int threshold;
+
+  private ForkJoinPool pool;
+  private OpenApiDowngrader downgrader;
+  private JsonNode openApi;
+
+  @Setup(Level.Trial)
+  public void setup(SpecState state) {
+    openApi = Mappers.reader(state.format).readTree(state.openApi3);
+    if (threads == 0) {
+      downgrader = new OpenApiDowngraderImpl();
+    } else {
+      pool = new ForkJoinPool(threads);
+      downgrader = new OpenApiDowngraderImpl(ConversionMetrics.NOOP, false, pool, threshold);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (pool != null) {
+      pool.shutdown();
+    }
+  }
+
+  @Benchmark
+  public JsonNode convert() throws Exception {
+    return downgrader.convertToV2(openApi);
+  }
+}
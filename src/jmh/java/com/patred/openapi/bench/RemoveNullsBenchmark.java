@@ -0,0 +1,93 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.model.Format;
+import com.patred.openapi.util.Mappers;
+import com.patred.openapi.util.OpenApiUtils;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.converter.SwaggerConverter;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * Pulizia dei valori null su modelli OpenAPI ottenuti dalla conversione delle specifiche
+ * sintetiche: visita diretta del modello sul posto, la variante pubblica che la applica a una
+ * copia e il vecchio giro serializza/deserializza.
+ *
+ * <p>La visita sul posto modifica il modello, quindi dopo la prima invocazione lavora su un
+ * modello già pulito: misura il costo dell'attraversamento, che è quello che conta perché i null
+ * da rimuovere sono pochi rispetto ai nodi da visitare.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RemoveNullsBenchmark {
+
+  private OpenAPI model;
+
+  @Setup(Level.Trial)
+  public void setup(SpecState state) {
+    model = new SwaggerConverter().readContents(state.swagger2, null, null).getOpenAPI();
+  }
+
+  @Benchmark
+  public OpenAPI removeNullsInPlace() {
+    return OpenApiUtils.removeNullsInPlace(model);
+  }
+
+  @Benchmark
+  public OpenAPI removeNulls() {
+    return OpenApiUtils.removeNulls(model);
+  }
+
+  @Benchmark
+  public OpenAPI roundTrip() {
+    return roundTripRemoveNulls(model);
+  }
+
+  /**
+   * Implementazione precedente: modello → albero JSON → modello.
+   */
+  private static OpenAPI roundTripRemoveNulls(OpenAPI openApi) {
+    ObjectMapper mapper = Mappers.mapper(Format.YAML);
+    JsonNode node = mapper.valueToTree(openApi);
+    removeNullsFromNode(node);
+    return mapper.treeToValue(node, OpenAPI.class);
+  }
+
+  private static void removeNullsFromNode(JsonNode node) {
+    if (node.isObject()) {
+      ObjectNode objectNode = (ObjectNode) node;
+      Iterator<Map.Entry<String, JsonNode>> fields = objectNode.properties().iterator();
+      while (fields.hasNext()) {
+        Map.Entry<String, JsonNode> entry = fields.next();
+        if (entry.getValue().isNull()) {
+          fields.remove();
+        } else {
+          removeNullsFromNode(entry.getValue());
+        }
+      }
+    } else if (node.isArray()) {
+      for (JsonNode child : node) {
+        removeNullsFromNode(child);
+      }
+    }
+  }
+}
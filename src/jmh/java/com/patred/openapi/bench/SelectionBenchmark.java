@@ -0,0 +1,79 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.bench.SpecGenerator.Size;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.Selection;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversione dell'intera specifica e di un solo tag, uno dei venti di {@link SpecGenerator}. La
+ * lettura dell'input resta per intero: la selezione risparmia conversione e scrittura.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelectionBenchmark {
+
+  private static final OutputOptions ONE_TAG =
+      OutputOptions.DEFAULT.withSelection(Selection.ALL.withTags("tag7"));
+
+  @Param({"MEDIUM", "LARGE"})
+  public Size size;
+
+  private final OpenApiDowngrader downgrader = new OpenApiDowngraderImpl();
+  private final OpenApiUpdater updater = new OpenApiUpdaterImpl();
+
+  private String openApi3;
+  private String swagger2;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    openApi3 = SpecGenerator.openApi3(size.paths, Format.JSON);
+    swagger2 = SpecGenerator.swagger2(size.paths, Format.JSON);
+    System.out.printf("%n%s: V2 %d → %d byte, V3 %d → %d byte%n", size,
+        downgrader.convertToV2(openApi3, OutputOptions.DEFAULT).length(),
+        downgrader.convertToV2(openApi3, ONE_TAG).length(),
+        updater.convertToV3(swagger2, OutputOptions.DEFAULT).length(),
+        updater.convertToV3(swagger2, ONE_TAG).length());
+  }
+
+  @Benchmark
+  public String downgradeAll() throws Exception {
+    return downgrader.convertToV2(openApi3, OutputOptions.DEFAULT);
+  }
+
+  @Benchmark
+  public String downgradeTag() throws Exception {
+    return downgrader.convertToV2(openApi3, ONE_TAG);
+  }
+
+  @Benchmark
+  public String updateAll() throws Exception {
+    return updater.convertToV3(swagger2, OutputOptions.DEFAULT);
+  }
+
+  @Benchmark
+  public String updateTag() throws Exception {
+    return updater.convertToV3(swagger2, ONE_TAG);
+  }
+}
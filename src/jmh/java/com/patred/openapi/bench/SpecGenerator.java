@@ -0,0 +1,194 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.model.Format;
+import com.patred.openapi.util.Mappers;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.JsonNodeFactory;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * Generatore deterministico di specifiche sintetiche per i benchmark: a parità di parametri
+ * produce sempre lo stesso documento, così le misure sulle specifiche grandi restano
+ * riproducibili.
+ *
+ * <p>Può essere eseguito anche da riga di comando per salvare le specifiche su file:
+ * {@code SpecGenerator <v2|v3> <paths> <json|yaml> <file>}.
+ */
+public final class SpecGenerator {
+
+  /**
+   * Dimensioni predefinite usate dai benchmark.
+   */
+  public enum Size {
+    SMALL(10), MEDIUM(500), LARGE(10_000);
+
+    final int paths;
+
+    Size(int paths) {
+      this.paths = paths;
+    }
+  }
+
+  private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+
+  private SpecGenerator() {
+  }
+
+  /**
+   * Genera una specifica OpenAPI 3.
+   *
+   * @param paths  numero di path
+   * @param format formato del testo prodotto
+   * @return la specifica serializzata
+   */
+  public static String openApi3(int paths, Format format) {
+    ObjectNode root = NODES.objectNode();
+    root.put("openapi", "3.0.3");
+    root.set("info", info(paths));
+    root.putArray("servers").addObject().put("url", "https://api.example.com/v1");
+
+    ObjectNode pathsNode = root.putObject("paths");
+    for (int i = 0; i < paths; i++) {
+      ObjectNode item = pathsNode.putObject("/resource" + i + "/{id}");
+      item.set("get", operation3(i, false));
+      if (i % 2 == 0) {
+        item.set("put", operation3(i, true));
+      }
+    }
+
+    ObjectNode components = root.putObject("components");
+    ObjectNode schemas = components.putObject("schemas");
+    for (int i = 0; i < schemaCount(paths); i++) {
+      schemas.set("Model" + i, schema(i));
+    }
+    components.putObject("securitySchemes").putObject("api_key").put("type", "apiKey")
+        .put("name", "api_key").put("in", "header");
+    return write(root, format);
+  }
+
+  /**
+   * Genera una specifica Swagger 2.
+   *
+   * @param paths  numero di path
+   * @param format formato del testo prodotto
+   * @return la specifica serializzata
+   */
+  public static String swagger2(int paths, Format format) {
+    ObjectNode root = NODES.objectNode();
+    root.put("swagger", "2.0");
+    root.set("info", info(paths));
+    root.put("host", "api.example.com");
+    root.put("basePath", "/v1");
+    root.putArray("schemes").add("https");
+
+    ObjectNode pathsNode = root.putObject("paths");
+    for (int i = 0; i < paths; i++) {
+      ObjectNode item = pathsNode.putObject("/resource" + i + "/{id}");
+      item.set("get", operation2(i, false));
+      if (i % 2 == 0) {
+        item.set("put", operation2(i, true));
+      }
+    }
+
+    ObjectNode definitions = root.putObject("definitions");
+    for (int i = 0; i < schemaCount(paths); i++) {
+      definitions.set("Model" + i, schema(i));
+    }
+    return write(root, format);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length != 4) {
+      System.err.println("Uso: SpecGenerator <v2|v3> <paths> <json|yaml> <file>");
+      System.exit(1);
+    }
+    int paths = Integer.parseInt(args[1]);
+    Format format = Format.valueOf(args[2].toUpperCase());
+    String spec = "v2".equals(args[0]) ? swagger2(paths, format) : openApi3(paths, format);
+    Files.writeString(Path.of(args[3]), spec);
+  }
+
+  private static ObjectNode info(int paths) {
+    ObjectNode info = NODES.objectNode();
+    info.put("title", "Synthetic API (" + paths + " paths)");
+    info.put("version", "1.0.0");
+    return info;
+  }
+
+  private static int schemaCount(int paths) {
+    return Math.max(1, paths / 10);
+  }
+
+  private static String ref(int i, String prefix) {
+    return prefix + "Model" + (i % 97 == 0 ? 0 : i / 10);
+  }
+
+  private static ObjectNode operation3(int i, boolean withBody) {
+    ObjectNode op = NODES.objectNode();
+    op.put("summary", "Operation " + i);
+    op.put("operationId", (withBody ? "update" : "get") + "Resource" + i);
+    op.putArray("tags").add("tag" + (i % 20));
+
+    ArrayNode params = op.putArray("parameters");
+    params.addObject().put("name", "id").put("in", "path").put("required", true)
+        .putObject("schema").put("type", "string");
+    params.addObject().put("name", "limit").put("in", "query")
+        .putObject("schema").put("type", "integer");
+
+    if (withBody) {
+      ObjectNode body = op.putObject("requestBody");
+      body.put("description", "Payload " + i);
+      body.putObject("content").putObject("application/json").putObject("schema")
+          .put("$ref", ref(i, "#/components/schemas/"));
+    }
+
+    ObjectNode responses = op.putObject("responses");
+    responses.putObject("200").put("description", "ok").putObject("content")
+        .putObject("application/json").putObject("schema")
+        .put("$ref", ref(i, "#/components/schemas/"));
+    responses.putObject("404").put("description", "not found");
+    return op;
+  }
+
+  private static ObjectNode operation2(int i, boolean withBody) {
+    ObjectNode op = NODES.objectNode();
+    op.put("summary", "Operation " + i);
+    op.put("operationId", (withBody ? "update" : "get") + "Resource" + i);
+    op.putArray("tags").add("tag" + (i % 20));
+    op.putArray("produces").add("application/json");
+
+    ArrayNode params = op.putArray("parameters");
+    params.addObject().put("name", "id").put("in", "path").put("required", true)
+        .put("type", "string");
+    params.addObject().put("name", "limit").put("in", "query").put("type", "integer");
+    if (withBody) {
+      params.addObject().put("name", "body").put("in", "body").putObject("schema")
+          .put("$ref", ref(i, "#/definitions/"));
+    }
+
+    ObjectNode responses = op.putObject("responses");
+    responses.putObject("200").put("description", "ok").putObject("schema")
+        .put("$ref", ref(i, "#/definitions/"));
+    responses.putObject("404").put("description", "not found");
+    return op;
+  }
+
+  private static ObjectNode schema(int i) {
+    ObjectNode schema = NODES.objectNode();
+    schema.put("type", "object");
+    schema.putArray("required").add("id");
+    ObjectNode props = schema.putObject("properties");
+    props.putObject("id").put("type", "string");
+    props.putObject("name").put("type", "string").put("description", "Name of model " + i);
+    props.putObject("count").put("type", "integer").put("format", "int32");
+    props.putObject("tags").put("type", "array").putObject("items").put("type", "string");
+    return schema;
+  }
+
+  private static String write(ObjectNode root, Format format) {
+    return Mappers.writer(format, true).writeValueAsString(root);
+  }
+}
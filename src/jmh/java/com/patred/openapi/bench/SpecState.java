@@ -0,0 +1,31 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.bench.SpecGenerator.Size;
+import com.patred.openapi.model.Format;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Specifiche sintetiche condivise dai benchmark, per ogni combinazione di dimensione e formato.
+ */
+@State(Scope.Benchmark)
+public class SpecState {
+
+  @Param({"SMALL", "MEDIUM", "LARGE"})
+  public Size size;
+
+  @Param({"JSON", "YAML"})
+  public Format format;
+
+  public String swagger2;
+  public String openApi3;
+
+  @Setup(Level.Trial)
+  public void generate() {
+    swagger2 = SpecGenerator.swagger2(size.paths, format);
+    openApi3 = SpecGenerator.openApi3(size.paths, format);
+  }
+}
@@ -0,0 +1,77 @@
+package com.patred.openapi.bench;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.model.Format;
+import io.swagger.v3.core.util.Json;
+import io.swagger.v3.parser.converter.SwaggerConverter;
+import io.swagger.v3.parser.core.models.SwaggerParseResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Confronta la conversione Swagger 2 → OpenAPI 3 in memoria con il vecchio percorso basato su file
+ * temporaneo ({@code createTempFile} + {@code readLocation}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UpdaterTempFileBenchmark {
+
+  @Param({"sample-swagger2.yaml"})
+  public String resource;
+
+  private final OpenApiUpdater updater = new OpenApiUpdaterImpl();
+
+  private String spec;
+
+  @Setup
+  public void setup() throws IOException {
+    try (InputStream in = getClass().getClassLoader().getResourceAsStream(resource)) {
+      if (in == null) {
+        throw new IllegalStateException("Risorsa non trovata: " + resource);
+      }
+      spec = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+
+  @Benchmark
+  public String inMemory() throws Exception {
+    return updater.convertToV3(spec, Format.JSON);
+  }
+
+  @Benchmark
+  public String tempFile() throws Exception {
+    Path tempFile = Files.createTempFile("swagger2-", ".json");
+    Files.writeString(tempFile, spec);
+
+    SwaggerConverter converter = new SwaggerConverter();
+    SwaggerParseResult result = converter.readLocation(tempFile.toAbsolutePath().toString(), null,
+        null);
+    Files.deleteIfExists(tempFile);
+
+    ObjectMapper mapper = Json.mapper();
+    mapper.setSerializationInclusion(Include.NON_NULL);
+    return mapper.writerWithDefaultPrettyPrinter().writeValueAsString(result.getOpenAPI());
+  }
+}
@@ -0,0 +1,68 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.model.SpecVersion;
+import com.patred.openapi.validation.SpecValidator;
+import com.patred.openapi.validation.ValidatingOpenApiUpdater;
+import com.patred.openapi.validation.ValidationError;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Costo della validazione preliminare: sugli input validi è un costo aggiunto alla conversione,
+ * su quelli non validi ({@code NO_VERSION}, senza il campo {@code swagger}) sostituisce una
+ * conversione completa, che il converter da solo porterebbe a termine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+  @Param({"VALID", "NO_VERSION"})
+  public String input;
+
+  private final OpenApiUpdater plain = new OpenApiUpdaterImpl();
+  private final OpenApiUpdater validating = new ValidatingOpenApiUpdater(new OpenApiUpdaterImpl());
+
+  private String spec;
+
+  @Setup(Level.Trial)
+  public void setup(SpecState state) {
+    spec = input.equals("VALID") ? state.swagger2 : state.swagger2.replaceFirst("swagger", "x");
+  }
+
+  @Benchmark
+  public List<ValidationError> validate() {
+    return SpecValidator.validate(spec, SpecVersion.SWAGGER_2);
+  }
+
+  @Benchmark
+  public String convert() throws Exception {
+    return plain.convertToV3(spec);
+  }
+
+  @Benchmark
+  public String convertValidated() throws Exception {
+    try {
+      return validating.convertToV3(spec);
+    } catch (IllegalArgumentException e) {
+      return e.getMessage();
+    }
+  }
+}
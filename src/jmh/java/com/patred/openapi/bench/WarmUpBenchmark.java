@@ -0,0 +1,56 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.model.Format;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Misura la prima conversione Swagger 2 → OpenAPI 3 in una JVM appena avviata, con e senza
+ * {@link OpenApiUpdater#warmUp()}. Ogni misura usa un fork dedicato, così il caso "cold" include
+ * davvero caricamento delle classi e inizializzazione dei mapper; il warm-up avviene nel setup e
+ * non entra nel tempo misurato.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+public class WarmUpBenchmark {
+
+  @Param({"false", "true"})
+  public boolean warmUp;
+
+  @Param({"JSON", "YAML"})
+  public Format format;
+
+  private final OpenApiUpdater updater = new OpenApiUpdaterImpl();
+
+  private String spec;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    spec = SpecGenerator.swagger2(SpecGenerator.Size.MEDIUM.paths, format);
+    if (warmUp) {
+      updater.warmUp();
+    }
+  }
+
+  @Benchmark
+  public String firstConversion() throws Exception {
+    return updater.convertToV3(spec, format);
+  }
+}
@@ -0,0 +1,100 @@
+package com.patred.openapi.bench;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.bench.SpecGenerator.Size;
+import com.patred.openapi.limits.ConversionLimits;
+import com.patred.openapi.limits.LimitedReaders;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.OutputOptions.YamlStyle;
+import com.patred.openapi.util.Mappers;
+import com.patred.openapi.util.OutputWriters;
+import com.patred.openapi.util.YamlTranscoder;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Lettura di specifiche YAML con il parser YAML e con la traduzione in JSON, nei diversi stili
+ * di scrittura: virgolette ovunque, virgolette minime, collezioni in linea. Lo stile in linea esce
+ * dal sottoinsieme traducibile e misura il costo del tentativo fallito.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class YamlFastPathBenchmark {
+
+  @Param({"SMALL", "MEDIUM", "LARGE"})
+  public Size size;
+
+  @Param({"QUOTED", "PLAIN", "FLOW"})
+  public String style;
+
+  private final LimitedReaders readers = LimitedReaders.of(ConversionLimits.DEFAULT);
+  private final OpenApiDowngrader downgrader = new OpenApiDowngraderImpl();
+  private final OpenApiUpdater updater = new OpenApiUpdaterImpl();
+
+  private String openApi3;
+  private String swagger2;
+
+  @Setup(Level.Trial)
+  public void setup() throws Exception {
+    openApi3 = restyle(SpecGenerator.openApi3(size.paths, Format.YAML));
+    swagger2 = restyle(SpecGenerator.swagger2(size.paths, Format.YAML));
+    System.out.printf("%n%s %s: traducibile %b%n", size, style,
+        YamlTranscoder.toJson(openApi3) != null);
+  }
+
+  private String restyle(String spec) throws Exception {
+    OutputOptions options = switch (style) {
+      case "QUOTED" -> OutputOptions.of(Format.YAML);
+      case "PLAIN" -> OutputOptions.of(Format.YAML).withMinimizedQuotes();
+      case "FLOW" -> OutputOptions.of(Format.YAML).withYamlStyle(YamlStyle.FLOW);
+      default -> throw new IllegalArgumentException("Stile sconosciuto: " + style);
+    };
+    return OutputWriters.writer(options, Format.YAML)
+        .writeValueAsString(Mappers.reader(Format.YAML).readTree(spec));
+  }
+
+  @Benchmark
+  public JsonNode yamlParser() {
+    return Mappers.reader(Format.YAML).readTree(openApi3);
+  }
+
+  @Benchmark
+  public JsonNode fastPath() {
+    return readers.readTree(openApi3, Format.YAML);
+  }
+
+  @Benchmark
+  public String transcodeOnly() {
+    return YamlTranscoder.toJson(openApi3);
+  }
+
+  @Benchmark
+  public String downgrade() throws Exception {
+    return downgrader.convertToV2(openApi3);
+  }
+
+  @Benchmark
+  public String update() throws Exception {
+    return updater.convertToV3(swagger2);
+  }
+}
@@ -0,0 +1,140 @@
+package com.patred.openapi;
+
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.OutputOptions.Encoding;
+import com.patred.openapi.model.Selection;
+import com.patred.openapi.resolver.BundledSpec;
+import com.patred.openapi.resolver.ExternalRefResolver;
+import com.patred.openapi.util.FormatUtils;
+import com.patred.openapi.util.Mappers;
+import com.patred.openapi.util.OutputWriters;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Implementazioni predefinite dei metodi di {@link OpenApiUpdater} e {@link OpenApiDowngrader}
+ * aggiunti dopo le varianti su {@code String}: chi implementa le interfacce fuori da questo
+ * progetto continua a compilare implementando solo {@code convertToV3(String, Format)} o
+ * {@code convertToV2(String, Format)}. Ogni variante passa dal testo e legge l'input per intero;
+ * le implementazioni del progetto le ridefiniscono tutte senza queste copie.
+ */
+final class ConverterDefaults {
+
+  private ConverterDefaults() {
+  }
+
+  /**
+   * Conversione di testo: la variante {@code (String, Format)} delle interfacce.
+   */
+  @FunctionalInterface
+  interface TextConversion {
+
+    /**
+     * @param spec   specifica da convertire
+     * @param format formato di output; null per mantenere quello dell'input
+     * @return specifica convertita
+     * @throws Exception se la conversione fallisce
+     */
+    String convert(String spec, Format format) throws Exception;
+  }
+
+  static String convert(String spec, OutputOptions options, TextConversion conversion)
+      throws Exception {
+    OutputWriters.requireText(options);
+    Format input = FormatUtils.detect(spec).format();
+    String selected = select(spec, input, options.selection());
+    Format format = options.encoding() == null ? null : options.encoding().format();
+    String converted = conversion.convert(selected, format);
+    if (options.withSelection(Selection.ALL).equals(OutputOptions.of(format))) {
+      return converted;
+    }
+    // Indentazione, ordine delle chiavi e stile YAML si applicano riscrivendo il risultato
+    Format written = format == null ? input : format;
+    return OutputWriters.writer(options, written)
+        .writeValueAsString(Mappers.reader(written).readTree(converted));
+  }
+
+  static void convert(InputStream spec, OutputStream out, OutputOptions options,
+      TextConversion conversion) throws Exception {
+    Encoding encoding = options.encoding();
+    boolean binary = encoding != null && encoding.isBinary();
+    OutputOptions text = new OutputOptions(binary ? Encoding.JSON : encoding, options.pretty(),
+        options.sortKeys(), options.yamlStyle(), options.minimizeQuotes(),
+        OutputOptions.Compression.NONE, options.selection());
+    String converted = convert(read(spec), text, conversion);
+    try (OutputStream framed = OutputWriters.frame(out, options.compression())) {
+      if (binary) {
+        OutputWriters.writer(options, Format.JSON)
+            .writeValue(framed, Mappers.reader(Format.JSON).readTree(converted));
+      } else {
+        framed.write(converted.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  static void convert(InputStream spec, OutputStream out, Format format,
+      TextConversion conversion) throws Exception {
+    out.write(conversion.convert(read(spec), format).getBytes(StandardCharsets.UTF_8));
+  }
+
+  static void convert(Reader spec, Writer out, Format format, TextConversion conversion)
+      throws Exception {
+    StringWriter text = new StringWriter();
+    spec.transferTo(text);
+    out.write(conversion.convert(text.toString(), format));
+  }
+
+  static void convert(Path spec, Path out, Format format, TextConversion conversion)
+      throws Exception {
+    Files.writeString(out, conversion.convert(Files.readString(spec), format));
+  }
+
+  static void convert(ByteBuffer spec, WritableByteChannel out, Format format,
+      TextConversion conversion) throws Exception {
+    String text = StandardCharsets.UTF_8.decode(spec.duplicate()).toString();
+    ByteBuffer converted = ByteBuffer.wrap(
+        conversion.convert(text, format).getBytes(StandardCharsets.UTF_8));
+    while (converted.hasRemaining()) {
+      out.write(converted);
+    }
+  }
+
+  static String convert(ExternalRefResolver resolver, String root, Format format,
+      TextConversion conversion) throws Exception {
+    BundledSpec bundled = resolver.bundle(root);
+    String text = Mappers.writer(bundled.info().format(), false)
+        .writeValueAsString(bundled.document());
+    return conversion.convert(text, format);
+  }
+
+  static String write(JsonNode spec) {
+    return Mappers.writer(Format.JSON, false).writeValueAsString(spec);
+  }
+
+  static JsonNode read(String json) {
+    return Mappers.reader(Format.JSON).readTree(json);
+  }
+
+  private static String read(InputStream spec) throws IOException {
+    return new String(spec.readAllBytes(), StandardCharsets.UTF_8);
+  }
+
+  private static String select(String spec, Format format, Selection selection) {
+    if (selection.isAll()) {
+      return spec;
+    }
+    JsonNode selected = SelectionFilter.select(Mappers.reader(format).readTree(spec), selection);
+    return Mappers.writer(format, true).writeValueAsString(selected);
+  }
+}
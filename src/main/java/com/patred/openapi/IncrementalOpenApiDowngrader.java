@@ -0,0 +1,143 @@
+package com.patred.openapi;
+
+import com.patred.openapi.metrics.MetricsRecorder;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.SpecInfo;
+import com.patred.openapi.util.FormatUtils;
+import com.patred.openapi.util.Mappers;
+import java.util.Map;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * Converter OpenAPI 3 → Swagger 2 incrementale, pensato per riconvertire più volte lo stesso
+ * documento dopo piccole modifiche. Conserva l'albero di input e di output dell'ultima conversione
+ * e, alla successiva, riconverte solo i path item cambiati riusando l'output precedente per gli
+ * altri. Anche gli schemi, in cui vanno riscritti i {@code $ref}, vengono riusati se
+ * {@code components.schemas} non è cambiato; {@code info} e {@code servers} non richiedono
+ * conversione e vengono sempre presi dal nuovo input.
+ *
+ * <p>Parsing e serializzazione restano proporzionali all'intero documento; il risparmio riguarda
+ * la conversione dei path. Thread-safe: le conversioni sulla stessa istanza sono serializzate.
+ */
+public class IncrementalOpenApiDowngrader {
+
+  private final OpenApiDowngraderImpl converter;
+
+  private JsonNode previousPaths;
+  private JsonNode previousOutputPaths;
+  private JsonNode previousSchemas;
+  private JsonNode previousDefinitions;
+  private IncrementalStats lastStats = new IncrementalStats(0, 0, 0);
+
+  /**
+   * Crea un converter incrementale con la configurazione predefinita.
+   */
+  public IncrementalOpenApiDowngrader() {
+    this(new OpenApiDowngraderImpl());
+  }
+
+  /**
+   * Crea un converter incrementale che legge e converte con il converter indicato, di cui usa i
+   * limiti sull'input; il resto della configurazione non riguarda la conversione per path item.
+   *
+   * @param converter converter configurato, ad esempio con {@link
+   *                  com.patred.openapi.limits.ConversionLimits#UNTRUSTED}
+   */
+  public IncrementalOpenApiDowngrader(OpenApiDowngraderImpl converter) {
+    this.converter = converter;
+  }
+
+  /**
+   * Converte la specifica mantenendo il formato dell'input.
+   *
+   * @param spec Contenuto della specifica OpenAPI 3 (JSON o YAML)
+   * @return Specifica convertita in 2 (Swagger), nello stesso formato dell'input
+   */
+  public synchronized String convertToV2(String spec) {
+    SpecInfo info = FormatUtils.detect(spec);
+    return convert(spec, info, info.format());
+  }
+
+  /**
+   * Converte la specifica forzando il formato di output.
+   *
+   * @param spec   Contenuto della specifica OpenAPI 3 (JSON o YAML)
+   * @param format YAML o JSON per forzare il formato di output
+   * @return Specifica convertita in 2 (Swagger), nel formato richiesto
+   */
+  public synchronized String convertToV2(String spec, Format format) {
+    return convert(spec, FormatUtils.detect(spec), format);
+  }
+
+  /**
+   * Contatori dell'ultima conversione.
+   *
+   * @return path riusati, riconvertiti e rimossi rispetto alla conversione precedente
+   */
+  public synchronized IncrementalStats lastStats() {
+    return lastStats;
+  }
+
+  /**
+   * Dimentica lo stato conservato: la conversione successiva riparte da zero.
+   */
+  public synchronized void reset() {
+    previousPaths = null;
+    previousOutputPaths = null;
+    previousSchemas = null;
+    previousDefinitions = null;
+    lastStats = new IncrementalStats(0, 0, 0);
+  }
+
+  private String convert(String spec, SpecInfo info, Format format) {
+    OpenApiDowngraderImpl.requireOpenApi3(info);
+    JsonNode openApiNode = converter.readTree(spec, info);
+
+    JsonNode oldPaths = previousPaths;
+    JsonNode oldOutput = previousOutputPaths;
+    JsonNode oldSchemas = previousSchemas;
+    JsonNode oldDefinitions = previousDefinitions;
+    RefIndex refs = RefIndex.rewriting(true);
+    OpenApiDowngraderImpl.PathItemConverter full = converter.pathItemConverter(refs);
+    int[] counters = new int[2];
+    ObjectNode swagger = converter.convertTree(openApiNode, (path, pathItem) -> {
+      JsonNode previous = oldPaths == null ? null : oldPaths.get(path);
+      JsonNode previousOutput = oldOutput == null ? null : oldOutput.get(path);
+      if (previousOutput != null && pathItem.equals(previous)) {
+        counters[0]++;
+        return previousOutput;
+      }
+      counters[1]++;
+      return full.convert(path, pathItem);
+    }, schemas -> oldDefinitions != null && schemas.equals(oldSchemas) ? oldDefinitions
+        : refs.rewrite(schemas), MetricsRecorder.disabled());
+
+    JsonNode paths = openApiNode.get("paths");
+    int removed = 0;
+    if (oldPaths instanceof ObjectNode oldObj) {
+      for (Map.Entry<String, JsonNode> entry : oldObj.properties()) {
+        if (paths == null || !paths.has(entry.getKey())) {
+          removed++;
+        }
+      }
+    }
+
+    previousPaths = paths;
+    previousOutputPaths = swagger.get("paths");
+    previousSchemas = openApiNode.path("components").get("schemas");
+    previousDefinitions = swagger.get("definitions");
+    lastStats = new IncrementalStats(counters[0], counters[1], removed);
+    return Mappers.writer(format, true).writeValueAsString(swagger);
+  }
+
+  /**
+   * Contatori di una conversione incrementale.
+   *
+   * @param reusedPaths    path item invariati, il cui output è stato riusato
+   * @param convertedPaths path item nuovi o modificati, riconvertiti
+   * @param removedPaths   path item presenti nella conversione precedente e non più nell'input
+   */
+  public record IncrementalStats(int reusedPaths, int convertedPaths, int removedPaths) {
+  }
+}
@@ -1,9 +1,31 @@
 package com.patred.openapi;
 
+import com.patred.openapi.async.Cancellation;
 import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.resolver.ExternalRefResolver;
+import com.patred.openapi.util.ModelMappers;
+import com.patred.openapi.util.TreeBridge;
+import io.swagger.models.Swagger;
+import io.swagger.parser.util.SwaggerDeserializer;
+import io.swagger.v3.oas.models.OpenAPI;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import tools.jackson.databind.JsonNode;
 
 /**
  * Converter da Swagger 2 (OpenAPI 2.0) a OpenAPI 3.x
+ *
+ * <p>Basta implementare le varianti su {@code String}: gli altri metodi hanno un'implementazione
+ * predefinita che passa dal testo e legge l'input per intero, da ridefinire per evitarlo.
  */
 public interface OpenApiDowngrader {
 
@@ -26,4 +48,288 @@ public interface OpenApiDowngrader {
    * @throws Exception se la conversione fallisce
    */
   String convertToV2(String spec, Format format) throws Exception;
+
+  /**
+   * Converte una specifica OpenAPI 3 in OpenAPI 2 (Swagger), con le opzioni di output indicate
+   * (indentazione, ordine delle chiavi, stile YAML).
+   *
+   * @param spec    Contenuto della specifica (JSON o YAML)
+   * @param options Opzioni di output; la codifica deve essere testuale e senza compressione
+   * @return Specifica convertita
+   * @throws IllegalArgumentException se le opzioni richiedono un output binario o compresso
+   * @throws Exception                se la conversione fallisce
+   */
+  default String convertToV2(String spec, OutputOptions options) throws Exception {
+    return ConverterDefaults.convert(spec, options, this::convertText);
+  }
+
+  /**
+   * Converte in streaming una specifica OpenAPI 3 in OpenAPI 2 (Swagger), senza materializzare
+   * l'intero documento in memoria. Mantiene il formato dell’input (JSON o YAML). Gli stream non
+   * vengono chiusi.
+   *
+   * @param spec Stream della specifica (JSON o YAML)
+   * @param out  Stream su cui scrivere la specifica convertita
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV2(InputStream spec, OutputStream out) throws Exception {
+    ConverterDefaults.convert(spec, out, (Format) null, this::convertText);
+  }
+
+  /**
+   * Converte in streaming una specifica OpenAPI 3 in OpenAPI 2 (Swagger), forzando l’output. Gli
+   * stream non vengono chiusi.
+   *
+   * @param spec   Stream della specifica (JSON o YAML)
+   * @param out    Stream su cui scrivere la specifica convertita
+   * @param format YAML o JSON per forzare il formato di output
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV2(InputStream spec, OutputStream out, Format format) throws Exception {
+    ConverterDefaults.convert(spec, out, format, this::convertText);
+  }
+
+  /**
+   * Converte una specifica OpenAPI 3 in OpenAPI 2 (Swagger) letta da stream, con le opzioni di
+   * output indicate, comprese le codifiche binarie (CBOR, Smile) e la compressione. Gli stream non
+   * vengono chiusi.
+   *
+   * @param spec    Stream della specifica (JSON o YAML)
+   * @param out     Stream su cui scrivere la specifica convertita
+   * @param options Opzioni di output
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV2(InputStream spec, OutputStream out, OutputOptions options)
+      throws Exception {
+    ConverterDefaults.convert(spec, out, options, this::convertText);
+  }
+
+  /**
+   * Converte in streaming una specifica OpenAPI 3 in OpenAPI 2 (Swagger). Mantiene il formato
+   * dell’input (JSON o YAML). Reader e writer non vengono chiusi.
+   *
+   * @param spec Reader della specifica (JSON o YAML)
+   * @param out  Writer su cui scrivere la specifica convertita
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV2(Reader spec, Writer out) throws Exception {
+    ConverterDefaults.convert(spec, out, null, this::convertText);
+  }
+
+  /**
+   * Converte in streaming una specifica OpenAPI 3 in OpenAPI 2 (Swagger), forzando l’output.
+   * Reader e writer non vengono chiusi.
+   *
+   * @param spec   Reader della specifica (JSON o YAML)
+   * @param out    Writer su cui scrivere la specifica convertita
+   * @param format YAML o JSON per forzare il formato di output
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV2(Reader spec, Writer out, Format format) throws Exception {
+    ConverterDefaults.convert(spec, out, format, this::convertText);
+  }
+
+  /**
+   * Converte una specifica OpenAPI 3 salvata su file in OpenAPI 2 (Swagger). Il file di input viene
+   * mappato in memoria; mantiene il formato dell’input (JSON o YAML).
+   *
+   * @param spec File della specifica (JSON o YAML)
+   * @param out  File su cui scrivere la specifica convertita (creato o sovrascritto)
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV2(Path spec, Path out) throws Exception {
+    ConverterDefaults.convert(spec, out, null, this::convertText);
+  }
+
+  /**
+   * Converte una specifica OpenAPI 3 salvata su file in OpenAPI 2 (Swagger), forzando l’output. Il
+   * file di input viene mappato in memoria.
+   *
+   * @param spec   File della specifica (JSON o YAML)
+   * @param out    File su cui scrivere la specifica convertita (creato o sovrascritto)
+   * @param format YAML o JSON per forzare il formato di output
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV2(Path spec, Path out, Format format) throws Exception {
+    ConverterDefaults.convert(spec, out, format, this::convertText);
+  }
+
+  /**
+   * Converte i byte rimanenti di un buffer da OpenAPI 3 a OpenAPI 2 (Swagger). Mantiene il formato
+   * dell’input (JSON o YAML). La posizione del buffer non viene modificata e il canale non viene
+   * chiuso.
+   *
+   * @param spec Buffer con la specifica (JSON o YAML), codificata in UTF-8
+   * @param out  Canale su cui scrivere la specifica convertita
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV2(ByteBuffer spec, WritableByteChannel out) throws Exception {
+    ConverterDefaults.convert(spec, out, null, this::convertText);
+  }
+
+  /**
+   * Converte i byte rimanenti di un buffer da OpenAPI 3 a OpenAPI 2 (Swagger), forzando l’output.
+   * La posizione del buffer non viene modificata e il canale non viene chiuso.
+   *
+   * @param spec   Buffer con la specifica (JSON o YAML), codificata in UTF-8
+   * @param out    Canale su cui scrivere la specifica convertita
+   * @param format YAML o JSON per forzare il formato di output
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV2(ByteBuffer spec, WritableByteChannel out, Format format)
+      throws Exception {
+    ConverterDefaults.convert(spec, out, format, this::convertText);
+  }
+
+  /**
+   * Converte una specifica OpenAPI 3 divisa su più file in OpenAPI 2 (Swagger). I {@code $ref}
+   * verso altri documenti vengono risolti dal resolver e inclusi nel risultato; mantiene il formato
+   * del documento principale.
+   *
+   * @param resolver resolver dei riferimenti esterni, da condividere tra le conversioni di un batch
+   * @param root     posizione canonica del documento principale nella sorgente del resolver
+   * @return Specifica convertita, in un unico documento
+   * @throws Exception se un documento non è leggibile o la conversione fallisce
+   */
+  default String convertToV2(ExternalRefResolver resolver, String root) throws Exception {
+    return ConverterDefaults.convert(resolver, root, null, this::convertText);
+  }
+
+  /**
+   * Converte una specifica OpenAPI 3 divisa su più file in OpenAPI 2 (Swagger), forzando l’output.
+   *
+   * @param resolver resolver dei riferimenti esterni, da condividere tra le conversioni di un batch
+   * @param root     posizione canonica del documento principale nella sorgente del resolver
+   * @param format   YAML o JSON per forzare il formato di output
+   * @return Specifica convertita, in un unico documento
+   * @throws Exception se un documento non è leggibile o la conversione fallisce
+   */
+  default String convertToV2(ExternalRefResolver resolver, String root, Format format)
+      throws Exception {
+    return ConverterDefaults.convert(resolver, root, format, this::convertText);
+  }
+
+  /**
+   * Converte l'albero di una specifica OpenAPI 3 già letta in quello della specifica OpenAPI 2
+   * (Swagger), senza passare dal testo. L'input non viene modificato e il risultato è un albero
+   * indipendente, che il chiamante può modificare.
+   *
+   * @param openApi Albero della specifica OpenAPI 3
+   * @return Albero della specifica convertita
+   * @throws Exception se la conversione fallisce
+   */
+  default JsonNode convertToV2(JsonNode openApi) throws Exception {
+    return ConverterDefaults.read(convertToV2(ConverterDefaults.write(openApi), Format.JSON));
+  }
+
+  /**
+   * Converte l'albero di una specifica OpenAPI 3 già letta in OpenAPI 2 (Swagger), serializzando
+   * solo il risultato.
+   *
+   * @param openApi Albero della specifica OpenAPI 3
+   * @param format  YAML o JSON
+   * @return Specifica convertita, nel formato richiesto
+   * @throws Exception se la conversione fallisce
+   */
+  default String convertToV2(JsonNode openApi, Format format) throws Exception {
+    return convertToV2(ConverterDefaults.write(openApi), format);
+  }
+
+  /**
+   * Converte un modello OpenAPI 3 (ad esempio quello prodotto dall'updater o da springdoc) senza
+   * serializzarlo in testo. Il modello non viene modificato e il risultato è un albero
+   * indipendente, che il chiamante può modificare.
+   *
+   * @param openApi Modello della specifica OpenAPI 3
+   * @return Albero della specifica convertita
+   * @throws Exception se la conversione fallisce
+   */
+  default JsonNode convertToV2(OpenAPI openApi) throws Exception {
+    return convertToV2(TreeBridge.fromModelTree(ModelMappers.toTree(openApi)));
+  }
+
+  /**
+   * Converte un modello OpenAPI 3 in OpenAPI 2 (Swagger), serializzando solo il risultato.
+   *
+   * @param openApi Modello della specifica OpenAPI 3
+   * @param format  YAML o JSON
+   * @return Specifica convertita, nel formato richiesto
+   * @throws Exception se la conversione fallisce
+   */
+  default String convertToV2(OpenAPI openApi, Format format) throws Exception {
+    return convertToV2(TreeBridge.fromModelTree(ModelMappers.toTree(openApi)), format);
+  }
+
+  /**
+   * Converte un modello OpenAPI 3 nel modello Swagger 2 ({@code io.swagger.models}), senza testo
+   * intermedio in nessuna delle due direzioni.
+   *
+   * @param openApi Modello della specifica OpenAPI 3
+   * @return Modello della specifica convertita
+   * @throws Exception se la conversione fallisce
+   */
+  default Swagger convertToV2Model(OpenAPI openApi) throws Exception {
+    return new SwaggerDeserializer().deserialize(TreeBridge.toModelTree(convertToV2(openApi)))
+        .getSwagger();
+  }
+
+  /**
+   * Converte in modo asincrono una specifica OpenAPI 3 in OpenAPI 2 (Swagger), con le opzioni di
+   * output indicate, sull'executor e con la scadenza indicati. Allo scadere del tempo il future
+   * fallisce con {@link java.util.concurrent.TimeoutException}; con la scadenza o con
+   * {@code cancel} sul future la conversione si interrompe al controllo successivo, tra una fase e
+   * l'altra o tra un blocco di path e il successivo.
+   *
+   * @param spec     Contenuto della specifica (JSON o YAML)
+   * @param options  Opzioni di output; la codifica deve essere testuale e senza compressione
+   * @param executor Executor su cui eseguire la conversione
+   * @param timeout  Tempo a disposizione della conversione, dalla chiamata
+   * @return Future della specifica convertita
+   */
+  default CompletableFuture<String> convertToV2Async(String spec, OutputOptions options,
+      Executor executor, Duration timeout) {
+    return Cancellation.supplyAsync(() -> convertToV2(spec, options), executor, timeout);
+  }
+
+  /**
+   * Converte in modo asincrono una specifica OpenAPI 3 letta da stream in OpenAPI 2 (Swagger), come
+   * {@link #convertToV2Async(String, OutputOptions, Executor, Duration)}. Gli stream non vengono
+   * chiusi e restano in uso fino all'interruzione della conversione, anche dopo la scadenza del
+   * future.
+   *
+   * @param spec     Stream della specifica (JSON o YAML)
+   * @param out      Stream su cui scrivere la specifica convertita
+   * @param options  Opzioni di output
+   * @param executor Executor su cui eseguire la conversione
+   * @param timeout  Tempo a disposizione della conversione, dalla chiamata
+   * @return Future completato al termine della scrittura
+   */
+  default CompletableFuture<Void> convertToV2Async(InputStream spec, OutputStream out,
+      OutputOptions options, Executor executor, Duration timeout) {
+    return Cancellation.supplyAsync(() -> {
+      convertToV2(spec, out, options);
+      return null;
+    }, executor, timeout);
+  }
+
+  /**
+   * Prepara il converter eseguendo alcune conversioni di prova, così le prime richieste dopo
+   * l'avvio non pagano il caricamento delle classi e l'inizializzazione dei mapper. Da chiamare
+   * all'avvio del servizio.
+   *
+   * L'implementazione predefinita non fa nulla.
+   *
+   * @throws Exception se la conversione di prova fallisce
+   */
+  default void warmUp() throws Exception {
+  }
+
+  /**
+   * Variante su {@code String} usata dai metodi predefiniti: senza formato richiesto chiama quella
+   * che mantiene il formato dell'input, perché {@code convertToV2(String, Format)} si aspetta YAML
+   * o JSON.
+   */
+  private String convertText(String spec, Format format) throws Exception {
+    return format == null ? convertToV2(spec) : convertToV2(spec, format);
+  }
 }
@@ -1,15 +1,61 @@
 package com.patred.openapi;
 
+import com.patred.openapi.async.Cancellation;
+import com.patred.openapi.limits.ConversionLimits;
+import com.patred.openapi.limits.LimitExceededException;
+import com.patred.openapi.limits.LimitedReaders;
+import com.patred.openapi.metrics.ConversionMetrics;
+import com.patred.openapi.metrics.MetricsRecorder;
+import com.patred.openapi.metrics.Phase;
+import com.patred.openapi.metrics.Target;
 import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.Selection;
+import com.patred.openapi.model.SpecInfo;
+import com.patred.openapi.model.SpecVersion;
+import com.patred.openapi.resolver.BundledSpec;
+import com.patred.openapi.resolver.ExternalRefResolver;
 import com.patred.openapi.util.FormatUtils;
+import com.patred.openapi.util.IoUtils;
+import com.patred.openapi.util.Mappers;
+import com.patred.openapi.util.ModelMappers;
+import com.patred.openapi.util.OutputWriters;
+import com.patred.openapi.util.TreeBridge;
+import com.patred.openapi.validation.InvalidSpecException;
+import com.patred.openapi.validation.ValidationError;
+import io.swagger.models.Swagger;
+import io.swagger.parser.util.SwaggerDeserializer;
+import io.swagger.v3.oas.models.OpenAPI;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
 import java.net.URI;
-import java.util.Iterator;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.UnaryOperator;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.exc.StreamConstraintsException;
 import tools.jackson.databind.JsonNode;
-import tools.jackson.databind.ObjectMapper;
 import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.JsonNodeFactory;
 import tools.jackson.databind.node.ObjectNode;
-import tools.jackson.dataformat.yaml.YAMLFactory;
 
 /**
  * Converter da OpenAPI 3.x → Swagger 2.0. Compatibile con tools.jackson 3.x (nessun uso di
@@ -17,24 +63,341 @@ import tools.jackson.dataformat.yaml.YAMLFactory;
  */
 public class OpenApiDowngraderImpl implements OpenApiDowngrader {
 
-  private final ObjectMapper jsonMapper = new ObjectMapper();
-  private final ObjectMapper yamlMapper = new ObjectMapper(new YAMLFactory());
+  private static final String[] HTTP_METHODS = {"get", "post", "put", "delete", "patch",
+      "options", "head"};
+  private static final Set<String> HTTP_METHOD_SET = Set.of(HTTP_METHODS);
+
+  /**
+   * Blocchi per thread del pool: qualche blocco in più dei thread bilancia path di peso diverso.
+   */
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private static final int WARM_UP_ROUNDS = 20;
+
+  private static final String WARM_UP_SPEC = """
+      openapi: 3.0.1
+      info:
+        title: Warm-up
+        version: "1.0"
+      servers:
+        - url: https://localhost/v1
+      paths:
+        /items/{id}:
+          get:
+            operationId: getItem
+            parameters:
+              - name: id
+                in: path
+                required: true
+                schema:
+                  type: string
+            responses:
+              "200":
+                description: ok
+                content:
+                  application/json:
+                    schema:
+                      $ref: "#/components/schemas/Item"
+      components:
+        schemas:
+          Item:
+            type: object
+            properties:
+              id:
+                type: string
+        securitySchemes:
+          key:
+            type: apiKey
+            name: X-Key
+            in: header
+      """;
+
+  private final ConversionMetrics metrics;
+  private final boolean dereference;
+  private final LimitedReaders readers;
+  private final ForkJoinPool pool;
+  private final int parallelThreshold;
+
+  public OpenApiDowngraderImpl() {
+    this(ConversionMetrics.NOOP);
+  }
+
+  /**
+   * Crea un converter strumentato.
+   *
+   * @param metrics destinazione di tempi per fase, dimensioni, conteggi e fallimenti
+   */
+  public OpenApiDowngraderImpl(ConversionMetrics metrics) {
+    this(metrics, false);
+  }
+
+  /**
+   * Crea un converter strumentato, con dereferenziamento opzionale degli schemi.
+   *
+   * @param metrics     destinazione di tempi per fase, dimensioni, conteggi e fallimenti
+   * @param dereference se true i riferimenti a {@code #/components/schemas} vengono sostituiti
+   *                    dallo schema puntato (tranne nei cicli) invece che riscritti verso
+   *                    {@code #/definitions}; le varianti a stream leggono allora l'intero
+   *                    documento come albero
+   */
+  public OpenApiDowngraderImpl(ConversionMetrics metrics, boolean dereference) {
+    this(metrics, dereference, ConversionLimits.DEFAULT);
+  }
+
+  /**
+   * Crea un converter che rifiuta con una {@link LimitExceededException} gli input oltre i limiti
+   * indicati, interrompendone la lettura.
+   *
+   * @param metrics     destinazione di tempi per fase, dimensioni, conteggi e fallimenti
+   * @param dereference se true gli schemi vengono dereferenziati, vedi
+   *                    {@link #OpenApiDowngraderImpl(ConversionMetrics, boolean)}
+   * @param limits      limiti su dimensione, profondità, token e stringhe dell'input
+   */
+  public OpenApiDowngraderImpl(ConversionMetrics metrics, boolean dereference,
+      ConversionLimits limits) {
+    this(metrics, dereference, limits, null, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Crea un converter che divide in blocchi i path e gli schemi dei documenti grandi e li converte
+   * sul pool indicato; il risultato mantiene l'ordine delle chiavi dell'input ed è identico a
+   * quello sequenziale, salvo che nel dereferenziamento di schemi ciclici il punto in cui il ciclo
+   * resta un {@code $ref} può cambiare, perché ogni blocco risolve gli schemi per conto proprio.
+   * Vale per le conversioni che passano dall'albero (stringa, albero, modello, più file,
+   * dereferenziamento): la conversione in streaming token per token resta sequenziale.
+   *
+   * @param metrics           destinazione di tempi per fase, dimensioni, conteggi e fallimenti
+   * @param dereference       se true gli schemi vengono dereferenziati, vedi
+   *                          {@link #OpenApiDowngraderImpl(ConversionMetrics, boolean)}
+   * @param pool              pool su cui convertire i blocchi, condivisibile tra converter
+   * @param parallelThreshold numero minimo di path (o di schemi) per la conversione a blocchi;
+   *                          sotto la soglia la conversione resta sequenziale
+   */
+  public OpenApiDowngraderImpl(ConversionMetrics metrics, boolean dereference, ForkJoinPool pool,
+      int parallelThreshold) {
+    this(metrics, dereference, ConversionLimits.DEFAULT, pool, parallelThreshold);
+  }
+
+  /**
+   * Crea un converter con limiti sull'input e conversione a blocchi dei documenti grandi.
+   *
+   * @param metrics           destinazione di tempi per fase, dimensioni, conteggi e fallimenti
+   * @param dereference       se true gli schemi vengono dereferenziati
+   * @param limits            limiti sull'input, vedi
+   *                          {@link #OpenApiDowngraderImpl(ConversionMetrics, boolean,
+   *                          ConversionLimits)}
+   * @param pool              pool su cui convertire i blocchi; null per restare sequenziale
+   * @param parallelThreshold numero minimo di path (o di schemi) per la conversione a blocchi
+   */
+  public OpenApiDowngraderImpl(ConversionMetrics metrics, boolean dereference,
+      ConversionLimits limits, ForkJoinPool pool, int parallelThreshold) {
+    if (parallelThreshold <= 0) {
+      throw new IllegalArgumentException("La soglia di parallelismo deve essere positiva");
+    }
+    this.metrics = metrics;
+    this.dereference = dereference;
+    this.readers = LimitedReaders.of(limits);
+    this.pool = pool;
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  /**
+   * Descrive la configurazione che influisce sul risultato, usata come chiave da
+   * {@link com.patred.openapi.cache.CachingOpenApiDowngrader}; pool e soglia di parallelismo non
+   * cambiano l'output.
+   */
+  @Override
+  public String toString() {
+    return "OpenApiDowngraderImpl[dereference=" + dereference + ", limits=" + readers.limits()
+        + "]";
+  }
 
   public String convertToV2(String spec) throws Exception {
-    Format format = FormatUtils.isYaml(spec) ? Format.YAML : Format.JSON;
-    return convertToV2(spec, format);
+    return convert(spec, OutputOptions.DEFAULT, recorder());
   }
 
   public String convertToV2(String spec, Format format) throws Exception {
-    ObjectMapper inputMapper = FormatUtils.isYaml(spec) ? yamlMapper : jsonMapper;
-    ObjectMapper outputMapper = format == Format.YAML ? yamlMapper : jsonMapper;
+    return convert(spec, OutputOptions.of(format), recorder());
+  }
+
+  @Override
+  public String convertToV2(String spec, OutputOptions options) {
+    return convert(spec, options, recorder());
+  }
+
+  @Override
+  public String convertToV2(ExternalRefResolver resolver, String root) throws Exception {
+    return convert(resolver, root, null, recorder());
+  }
+
+  @Override
+  public String convertToV2(ExternalRefResolver resolver, String root, Format format)
+      throws Exception {
+    return convert(resolver, root, format, recorder());
+  }
+
+  /**
+   * L'albero convertito condivide nodi con l'input e tra frammenti ripetuti: per restituirlo al
+   * chiamante, che può modificarlo, viene copiato. Le varianti che lo serializzano non copiano.
+   */
+  @Override
+  public JsonNode convertToV2(JsonNode openApi) {
+    return convert(openApi, recorder()).deepCopy();
+  }
+
+  @Override
+  public String convertToV2(JsonNode openApi, Format format) {
+    MetricsRecorder recorder = recorder();
+    return write(convert(openApi, recorder), format, recorder);
+  }
+
+  @Override
+  public JsonNode convertToV2(OpenAPI openApi) {
+    return convert(openApi, recorder()).deepCopy();
+  }
+
+  @Override
+  public String convertToV2(OpenAPI openApi, Format format) {
+    MetricsRecorder recorder = recorder();
+    return write(convert(openApi, recorder), format, recorder);
+  }
+
+  @Override
+  public Swagger convertToV2Model(OpenAPI openApi) {
+    MetricsRecorder recorder = recorder();
+    ObjectNode swagger = convert(openApi, recorder);
+    try {
+      Swagger model = new SwaggerDeserializer().deserialize(TreeBridge.toModelTree(swagger))
+          .getSwagger();
+      recorder.lap(Phase.SERIALIZE);
+      return model;
+    } catch (RuntimeException e) {
+      recorder.failed(e);
+      throw e;
+    }
+  }
+
+  private MetricsRecorder recorder() {
+    return MetricsRecorder.start(metrics, Target.V2);
+  }
+
+  /**
+   * Conversione da stringa; senza codifica nelle opzioni l'output mantiene il formato dell'input.
+   */
+  private String convert(String spec, OutputOptions options, MetricsRecorder recorder) {
+    try {
+      OutputWriters.requireText(options);
+      SpecInfo info = FormatUtils.detect(spec);
+      recorder.lap(Phase.DETECT);
+      requireOpenApi3(info);
+
+      JsonNode openApiNode = SelectionFilter.select(readers.readTree(spec, info.format()),
+          options.selection());
+      recorder.lap(Phase.PARSE);
+
+      Fragments fragments = new Fragments();
+      ObjectNode swagger = toSwagger(openApiNode, fragments, recorder);
+
+      String result = OutputWriters.writer(options, info.format()).writeValueAsString(swagger);
+      recorder.lap(Phase.SERIALIZE);
+
+      recorder.counts(fragments.paths, fragments.operations);
+      recorder.sizes(spec, result);
+      return result;
+    } catch (RuntimeException e) {
+      recorder.failed(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Conversione da modello: il modello passa ad albero senza testo intermedio.
+   */
+  private ObjectNode convert(OpenAPI openApi, MetricsRecorder recorder) {
+    JsonNode openApiNode;
+    try {
+      openApiNode = TreeBridge.fromModelTree(ModelMappers.toTree(openApi));
+      recorder.lap(Phase.PARSE);
+    } catch (RuntimeException e) {
+      recorder.failed(e);
+      throw e;
+    }
+    return convert(openApiNode, recorder);
+  }
+
+  private ObjectNode convert(JsonNode openApiNode, MetricsRecorder recorder) {
+    try {
+      Fragments fragments = new Fragments();
+      ObjectNode swagger = toSwagger(openApiNode, fragments, recorder);
+      recorder.counts(fragments.paths, fragments.operations);
+      return swagger;
+    } catch (RuntimeException e) {
+      recorder.failed(e);
+      throw e;
+    }
+  }
+
+  private static String write(ObjectNode swagger, Format format, MetricsRecorder recorder) {
+    try {
+      String result = Mappers.writer(format, true).writeValueAsString(swagger);
+      recorder.lap(Phase.SERIALIZE);
+      return result;
+    } catch (RuntimeException e) {
+      recorder.failed(e);
+      throw e;
+    }
+  }
+
+  private String convert(ExternalRefResolver resolver, String root, Format format,
+      MetricsRecorder recorder) throws Exception {
+    try {
+      BundledSpec bundle = resolver.bundle(root);
+      recorder.lap(Phase.PARSE);
+      requireOpenApi3(bundle.info());
+
+      Fragments fragments = new Fragments();
+      ObjectNode swagger = toSwagger(bundle.document(), fragments, recorder);
+
+      String result = Mappers.writer(format == null ? bundle.info().format() : format, true)
+          .writeValueAsString(swagger);
+      recorder.lap(Phase.SERIALIZE);
 
-    JsonNode openApiNode = inputMapper.readTree(spec);
+      recorder.counts(fragments.paths, fragments.operations);
+      return result;
+    } catch (Exception e) {
+      recorder.failed(e);
+      throw e;
+    }
+  }
+
+  private ObjectNode toSwagger(JsonNode openApiNode, Fragments fragments,
+      MetricsRecorder recorder) {
+    RefIndex refs = dereference ? RefIndex.dereferencing(openApiNode) : RefIndex.rewriting(true);
+    if (pool == null) {
+      return convertTree(openApiNode,
+          (path, pathItem) -> refs.rewrite(convertPathItem(pathItem, fragments)), refs::rewrite,
+          recorder);
+    }
+    return convertTree(openApiNode, paths -> convertPaths(paths, refs, fragments),
+        schemas -> rewriteSchemas(schemas, refs), recorder);
+  }
+
+  /**
+   * Converte l'albero di una specifica OpenAPI 3 delegando la conversione dei singoli path item e
+   * degli schemi. Le altre sezioni vengono riusate dall'input senza copiarle.
+   */
+  ObjectNode convertTree(JsonNode openApiNode, PathItemConverter pathItems,
+      UnaryOperator<JsonNode> schemas, MetricsRecorder recorder) {
+    return convertTree(openApiNode, paths -> convertPaths(paths, pathItems), schemas, recorder);
+  }
+
+  private ObjectNode convertTree(JsonNode openApiNode, UnaryOperator<JsonNode> paths,
+      UnaryOperator<JsonNode> schemas, MetricsRecorder recorder) {
     if (!openApiNode.has("openapi")) {
-      throw new IllegalArgumentException("Specifica non valida: manca il campo 'openapi'");
+      throw missingOpenApi();
     }
 
-    ObjectNode swagger = outputMapper.createObjectNode();
+    ObjectNode swagger = JsonNodeFactory.instance.objectNode();
     swagger.put("swagger", "2.0");
 
     // info
@@ -48,116 +411,552 @@ public class OpenApiDowngraderImpl implements OpenApiDowngrader {
       if (servers.isArray() && servers.size() > 0) {
         JsonNode server = servers.get(0);
         if (server.has("url")) {
-          parseServerUrl(swagger, server.get("url").asText());
+          parseServerUrl(swagger, server.get("url").asString(""));
         }
       }
     }
+    recorder.lap(Phase.SERVERS);
+    Cancellation.checkpoint();
 
     // paths
     if (openApiNode.has("paths")) {
-      swagger.set("paths", convertPaths(openApiNode.get("paths"), outputMapper));
+      swagger.set("paths", paths.apply(openApiNode.get("paths")));
     }
+    recorder.lap(Phase.PATHS);
+    Cancellation.checkpoint();
 
     // components.schemas → definitions
     if (openApiNode.path("components").has("schemas")) {
-      swagger.set("definitions", openApiNode.path("components").path("schemas"));
+      swagger.set("definitions", schemas.apply(openApiNode.path("components").path("schemas")));
     }
 
     // components.securitySchemes → securityDefinitions
     if (openApiNode.path("components").has("securitySchemes")) {
       swagger.set("securityDefinitions", openApiNode.path("components").path("securitySchemes"));
     }
+    recorder.lap(Phase.COMPONENTS);
+    Cancellation.checkpoint();
 
-    return outputMapper.writerWithDefaultPrettyPrinter().writeValueAsString(swagger);
+    return swagger;
   }
 
+  /**
+   * Legge la specifica con i limiti del converter.
+   */
+  JsonNode readTree(String spec, SpecInfo info) {
+    return readers.readTree(spec, info.format());
+  }
 
-  private ObjectNode convertPaths(JsonNode pathsNode, ObjectMapper mapper) {
-    ObjectNode paths = mapper.createObjectNode();
-    if (!(pathsNode instanceof ObjectNode pathObj)) {
-      return paths;
+  /**
+   * Restituisce un convertitore di path item con un proprio stato di frammenti condivisi, che
+   * riscrive i riferimenti con l'indice indicato.
+   */
+  PathItemConverter pathItemConverter(RefIndex refs) {
+    Fragments fragments = new Fragments();
+    return (path, pathItem) -> refs.rewrite(convertPathItem(pathItem, fragments));
+  }
+
+  @Override
+  public void convertToV2(InputStream spec, OutputStream out) throws Exception {
+    convert(spec, out, OutputOptions.DEFAULT, recorder());
+  }
+
+  @Override
+  public void convertToV2(InputStream spec, OutputStream out, Format format) throws Exception {
+    convert(spec, out, OutputOptions.of(format), recorder());
+  }
+
+  @Override
+  public void convertToV2(InputStream spec, OutputStream out, OutputOptions options)
+      throws Exception {
+    convert(spec, out, options, recorder());
+  }
+
+  @Override
+  public void convertToV2(Reader spec, Writer out) throws Exception {
+    convert(spec, out, null, recorder());
+  }
+
+  @Override
+  public void convertToV2(Reader spec, Writer out, Format format) throws Exception {
+    convert(spec, out, format, recorder());
+  }
+
+  @Override
+  public void convertToV2(Path spec, Path out) throws Exception {
+    convert(spec, out, OutputOptions.DEFAULT, recorder());
+  }
+
+  @Override
+  public void convertToV2(Path spec, Path out, Format format) throws Exception {
+    convert(spec, out, OutputOptions.of(format), recorder());
+  }
+
+  @Override
+  public void convertToV2(ByteBuffer spec, WritableByteChannel out) throws Exception {
+    convertToV2(IoUtils.asInputStream(spec), Channels.newOutputStream(out));
+  }
+
+  @Override
+  public void convertToV2(ByteBuffer spec, WritableByteChannel out, Format format)
+      throws Exception {
+    convertToV2(IoUtils.asInputStream(spec), Channels.newOutputStream(out), format);
+  }
+
+  /**
+   * Esegue alcune conversioni di prova in JSON e YAML, su stringa e su stream, così il caricamento
+   * delle classi e l'inizializzazione dei mapper avvengono all'avvio del servizio e non sulle prime
+   * richieste. Le conversioni di prova non compaiono nelle metriche. Può essere chiamato più volte.
+   */
+  @Override
+  public void warmUp() throws Exception {
+    byte[] yaml = WARM_UP_SPEC.getBytes(StandardCharsets.UTF_8);
+    String json = Mappers.writer(Format.JSON, false)
+        .writeValueAsString(Mappers.reader(Format.YAML).readTree(WARM_UP_SPEC));
+    for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+      convert(json, OutputOptions.DEFAULT, MetricsRecorder.disabled());
+      convert(WARM_UP_SPEC, OutputOptions.of(Format.JSON), MetricsRecorder.disabled());
+      convert(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+          OutputStream.nullOutputStream(), OutputOptions.DEFAULT, MetricsRecorder.disabled());
+      convert(new ByteArrayInputStream(yaml), OutputStream.nullOutputStream(),
+          OutputOptions.of(Format.YAML), MetricsRecorder.disabled());
+    }
+  }
+
+  private void convert(InputStream spec, OutputStream out, OutputOptions options,
+      MetricsRecorder recorder) throws Exception {
+    try {
+      InputStream in = IoUtils.markable(spec);
+      SpecInfo info = FormatUtils.detect(in);
+      recorder.lap(Phase.DETECT);
+      stream(in, out, info, options, recorder);
+    } catch (Exception e) {
+      recorder.failed(e);
+      throw e;
+    }
+  }
+
+  private void convert(Reader spec, Writer out, Format format, MetricsRecorder recorder)
+      throws Exception {
+    try {
+      Reader in = IoUtils.markable(spec);
+      SpecInfo info = FormatUtils.detect(in);
+      recorder.lap(Phase.DETECT);
+      requireOpenApi3(info);
+
+      Fragments fragments = new Fragments();
+      try (JsonParser parser = readers.createParser(recorder.count(in), info.format());
+          JsonGenerator generator = Mappers.writer(format == null ? info.format() : format, true)
+              .createGenerator(recorder.count(out))) {
+        stream(parser, generator, fragments, false, Selection.ALL);
+      }
+      finish(fragments, recorder);
+    } catch (Exception e) {
+      recorder.failed(e);
+      throw e;
+    }
+  }
+
+  private void convert(Path spec, Path out, OutputOptions options, MetricsRecorder recorder)
+      throws Exception {
+    try {
+      ByteBuffer mapped = IoUtils.map(spec);
+      readers.checkSize(mapped.remaining());
+      InputStream in = IoUtils.asInputStream(mapped);
+      SpecInfo info = FormatUtils.detect(in);
+      recorder.lap(Phase.DETECT);
+
+      // Il controllo precede l'apertura così un input rifiutato non lascia un file vuoto
+      requireOpenApi3(info);
+      try (OutputStream os = Files.newOutputStream(out)) {
+        stream(in, os, info, options, recorder);
+      }
+    } catch (Exception e) {
+      recorder.failed(e);
+      throw e;
+    }
+  }
+
+  private void stream(InputStream in, OutputStream out, SpecInfo info, OutputOptions options,
+      MetricsRecorder recorder) throws IOException {
+    requireOpenApi3(info);
+    Fragments fragments = new Fragments();
+    try (OutputStream framed = OutputWriters.frame(recorder.count(out), options.compression());
+        JsonParser parser = readers.createParser(recorder.count(in), info.format());
+        JsonGenerator generator = OutputWriters.writer(options, info.format())
+            .createGenerator(framed)) {
+      stream(parser, generator, fragments, options.sortKeys(), options.selection());
+    }
+    finish(fragments, recorder);
+  }
+
+  private void stream(JsonParser parser, JsonGenerator generator, Fragments fragments,
+      boolean sortKeys, Selection selection) {
+    try {
+      streamTree(parser, generator, fragments, sortKeys, selection);
+    } catch (StreamConstraintsException e) {
+      throw readers.exceeded(e);
+    }
+  }
+
+  private void streamTree(JsonParser parser, JsonGenerator generator, Fragments fragments,
+      boolean sortKeys, Selection selection) {
+    if (!dereference && !sortKeys && selection.isAll()) {
+      streamToV2(parser, generator, fragments, RefIndex.rewriting(false));
+      return;
+    }
+
+    // Dereferenziamento, ordinamento delle chiavi e selezione richiedono l'intero documento: si
+    // passa dall'albero
+    JsonNode openApiNode = parser.readValueAsTree();
+    if (!(openApiNode instanceof ObjectNode)) {
+      throw missingOpenApi();
+    }
+    openApiNode = SelectionFilter.select(openApiNode, selection);
+    generator.writeTree(toSwagger(openApiNode, fragments, MetricsRecorder.disabled()));
+  }
+
+  private static void finish(Fragments fragments, MetricsRecorder recorder) {
+    recorder.lap(Phase.STREAM);
+    recorder.counts(fragments.paths, fragments.operations);
+    recorder.finish();
+  }
+
+  private static InvalidSpecException missingOpenApi() {
+    return new InvalidSpecException("Specifica non valida: manca il campo 'openapi'",
+        List.of(ValidationError.at("/openapi", "campo obbligatorio mancante")));
+  }
+
+  /**
+   * Rifiuta subito, senza fare il parsing, gli input che dichiarano di essere Swagger 2.
+   */
+  static void requireOpenApi3(SpecInfo info) {
+    if (info.version() == SpecVersion.SWAGGER_2) {
+      throw missingOpenApi();
+    }
+  }
+
+  /**
+   * Conversione token per token: solo le singole operazioni (e il primo server) vengono
+   * materializzate come albero, il resto del documento passa direttamente dal parser al
+   * generator. Le sezioni di output seguono l'ordine in cui compaiono nell'input.
+   */
+  private void streamToV2(JsonParser parser, JsonGenerator generator, Fragments fragments,
+      RefIndex refs) {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw missingOpenApi();
     }
 
-    Iterator<Map.Entry<String, JsonNode>> it = pathObj.properties().iterator();
-    while (it.hasNext()) {
-      Map.Entry<String, JsonNode> entry = it.next();
-      String path = entry.getKey();
-      JsonNode pathItem = entry.getValue();
+    generator.writeStartObject();
+    generator.writeStringProperty("swagger", "2.0");
 
-      ObjectNode newPath = mapper.createObjectNode();
-      for (String method : new String[]{"get", "post", "put", "delete", "patch", "options",
-          "head"}) {
-        if (pathItem.has(method)) {
-          newPath.set(method, convertOperation(pathItem.get(method), mapper));
+    Cancellation cancellation = Cancellation.current();
+    boolean hasOpenApi = false;
+    String name;
+    while ((name = parser.nextName()) != null) {
+      cancellation.check();
+      parser.nextToken();
+      switch (name) {
+        case "openapi" -> {
+          hasOpenApi = true;
+          parser.skipChildren();
+        }
+        case "info" -> {
+          generator.writeName("info");
+          generator.copyCurrentStructure(parser);
         }
+        case "servers" -> streamServers(parser, generator, fragments);
+        case "paths" -> {
+          generator.writeName("paths");
+          streamPaths(parser, generator, fragments, refs);
+        }
+        case "components" -> streamComponents(parser, generator, refs);
+        default -> parser.skipChildren();
       }
-      paths.set(path, newPath);
     }
-    return paths;
+
+    // L'output già scritto resta parziale: il campo 'openapi' può comparire ovunque nell'input
+    if (!hasOpenApi) {
+      throw missingOpenApi();
+    }
+    generator.writeEndObject();
   }
 
-  private ObjectNode convertOperation(JsonNode operation, ObjectMapper mapper) {
-    ObjectNode newOp = mapper.createObjectNode();
+  private void streamServers(JsonParser parser, JsonGenerator generator, Fragments fragments) {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return;
+    }
 
-    copyIfPresent(operation, newOp, "summary");
-    copyIfPresent(operation, newOp, "description");
-    copyIfPresent(operation, newOp, "operationId");
-    copyIfPresent(operation, newOp, "tags");
+    boolean first = true;
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (first && parser.currentToken() == JsonToken.START_OBJECT) {
+        JsonNode server = parser.readValueAsTree();
+        if (server.has("url")) {
+          ObjectNode hostInfo = fragments.object(3);
+          parseServerUrl(hostInfo, server.get("url").asString(""));
+          for (Map.Entry<String, JsonNode> entry : hostInfo.properties()) {
+            generator.writeName(entry.getKey());
+            generator.writeTree(entry.getValue());
+          }
+        }
+      } else {
+        parser.skipChildren();
+      }
+      first = false;
+    }
+  }
 
-    ArrayNode parameters = mapper.createArrayNode();
+  private void streamPaths(JsonParser parser, JsonGenerator generator, Fragments fragments,
+      RefIndex refs) {
+    generator.writeStartObject();
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      generator.writeEndObject();
+      return;
+    }
 
-    // parameters (mantieni eventuali già esistenti)
-    if (operation.has("parameters") && operation.get("parameters").isArray()) {
-      for (JsonNode p : operation.get("parameters")) {
-        parameters.add(p);
+    Cancellation cancellation = Cancellation.current();
+    String path;
+    while ((path = parser.nextName()) != null) {
+      cancellation.check();
+      parser.nextToken();
+      fragments.paths++;
+      generator.writeName(path);
+      generator.writeStartObject();
+      if (parser.currentToken() == JsonToken.START_OBJECT) {
+        String key;
+        while ((key = parser.nextName()) != null) {
+          parser.nextToken();
+          if (!HTTP_METHOD_SET.contains(key)) {
+            parser.skipChildren();
+            continue;
+          }
+          generator.writeName(key);
+          if (parser.currentToken() == JsonToken.START_OBJECT) {
+            JsonNode operation = parser.readValueAsTree();
+            fragments.operations++;
+            generator.writeTree(refs.rewrite(convertOperation(operation, fragments)));
+          } else {
+            parser.skipChildren();
+            generator.writeStartObject();
+            generator.writeEndObject();
+          }
+        }
+      } else {
+        parser.skipChildren();
       }
+      generator.writeEndObject();
+    }
+    generator.writeEndObject();
+  }
+
+  private void streamComponents(JsonParser parser, JsonGenerator generator, RefIndex refs) {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return;
     }
 
-    // requestBody → body param
-    if (operation.has("requestBody")) {
-      JsonNode requestBody = operation.get("requestBody");
-      ObjectNode bodyParam = mapper.createObjectNode();
-      bodyParam.put("in", "body");
-      bodyParam.put("name", "body");
-      if (requestBody.has("description")) {
-        bodyParam.put("description", requestBody.get("description").asText());
+    String name;
+    while ((name = parser.nextName()) != null) {
+      parser.nextToken();
+      switch (name) {
+        case "schemas" -> {
+          generator.writeName("definitions");
+          streamSchemas(parser, generator, refs);
+        }
+        case "securitySchemes" -> {
+          generator.writeName("securityDefinitions");
+          generator.copyCurrentStructure(parser);
+        }
+        default -> parser.skipChildren();
       }
+    }
+  }
+
+  /**
+   * Copia gli schemi riscrivendo i riferimenti, uno schema alla volta.
+   */
+  private void streamSchemas(JsonParser parser, JsonGenerator generator, RefIndex refs) {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      generator.writeTree(refs.rewrite(parser.readValueAsTree()));
+      return;
+    }
+
+    Cancellation cancellation = Cancellation.current();
+    generator.writeStartObject();
+    String schema;
+    while ((schema = parser.nextName()) != null) {
+      cancellation.check();
+      parser.nextToken();
+      generator.writeName(schema);
+      generator.writeTree(refs.rewrite(parser.readValueAsTree()));
+    }
+    generator.writeEndObject();
+  }
+
+  /**
+   * Converte i path a blocchi sul pool se sono almeno quanti la soglia. Ogni blocco ha frammenti
+   * e indice dei riferimenti propri; i conteggi confluiscono in quelli della conversione.
+   */
+  private ObjectNode convertPaths(JsonNode pathsNode, RefIndex refs, Fragments fragments) {
+    if (!(pathsNode instanceof ObjectNode pathObj) || pathObj.size() < parallelThreshold) {
+      return convertPaths(pathsNode,
+          (path, pathItem) -> refs.rewrite(convertPathItem(pathItem, fragments)));
+    }
+
+    List<Map.Entry<String, JsonNode>> entries = new ArrayList<>(pathObj.properties());
+    JsonNode[] converted = new JsonNode[entries.size()];
+    List<ForkJoinTask<Fragments>> tasks = new ArrayList<>();
+    // I blocchi girano sul pool: l'annullamento della conversione va passato esplicitamente
+    Cancellation cancellation = Cancellation.current();
+    for (int[] range : chunks(entries.size())) {
+      tasks.add(pool.submit(() -> {
+        cancellation.check();
+        Fragments local = new Fragments();
+        RefIndex localRefs = refs.fork();
+        for (int i = range[0]; i < range[1]; i++) {
+          converted[i] = localRefs.rewrite(convertPathItem(entries.get(i).getValue(), local));
+        }
+        return local;
+      }));
+    }
+    for (ForkJoinTask<Fragments> task : tasks) {
+      Fragments local = task.join();
+      fragments.paths += local.paths;
+      fragments.operations += local.operations;
+    }
+
+    ObjectNode paths = Fragments.sized(converted.length);
+    for (int i = 0; i < converted.length; i++) {
+      paths.set(entries.get(i).getKey(), converted[i]);
+    }
+    return paths;
+  }
 
-      JsonNode content = requestBody.path("content");
-      if (content instanceof ObjectNode cObj && !cObj.isEmpty()) {
-        Map.Entry<String, JsonNode> firstEntry = cObj.properties().iterator().next();
-        JsonNode mediaTypeNode = firstEntry.getValue();
-        if (mediaTypeNode.has("schema")) {
-          bodyParam.set("schema", mediaTypeNode.get("schema"));
+  /**
+   * Riscrive i riferimenti degli schemi a blocchi sul pool se sono almeno quanti la soglia. Come
+   * per la riscrittura sequenziale, se nessuno schema cambia viene restituito il nodo originale.
+   */
+  private JsonNode rewriteSchemas(JsonNode schemasNode, RefIndex refs) {
+    if (!(schemasNode instanceof ObjectNode schemaObj) || schemaObj.size() < parallelThreshold) {
+      return refs.rewrite(schemasNode);
+    }
+
+    List<Map.Entry<String, JsonNode>> entries = new ArrayList<>(schemaObj.properties());
+    JsonNode[] rewritten = new JsonNode[entries.size()];
+    List<ForkJoinTask<Boolean>> tasks = new ArrayList<>();
+    Cancellation cancellation = Cancellation.current();
+    for (int[] range : chunks(entries.size())) {
+      tasks.add(pool.submit(() -> {
+        cancellation.check();
+        RefIndex localRefs = refs.fork();
+        boolean changed = false;
+        for (int i = range[0]; i < range[1]; i++) {
+          JsonNode schema = entries.get(i).getValue();
+          rewritten[i] = localRefs.rewrite(schema);
+          changed |= rewritten[i] != schema;
         }
+        return changed;
+      }));
+    }
+    boolean changed = false;
+    for (ForkJoinTask<Boolean> task : tasks) {
+      changed |= task.join();
+    }
+    if (!changed) {
+      return schemasNode;
+    }
+
+    ObjectNode schemas = Fragments.sized(rewritten.length);
+    for (int i = 0; i < rewritten.length; i++) {
+      schemas.set(entries.get(i).getKey(), rewritten[i]);
+    }
+    return schemas;
+  }
+
+  /**
+   * Intervalli [inizio, fine) contigui in cui dividere {@code size} elementi.
+   */
+  private List<int[]> chunks(int size) {
+    int count = Math.max(1, Math.min(size, pool.getParallelism() * CHUNKS_PER_THREAD));
+    List<int[]> ranges = new ArrayList<>(count);
+    for (int c = 0; c < count; c++) {
+      int from = (int) ((long) size * c / count);
+      int to = (int) ((long) size * (c + 1) / count);
+      ranges.add(new int[] {from, to});
+    }
+    return ranges;
+  }
+
+  private ObjectNode convertPaths(JsonNode pathsNode, PathItemConverter pathItems) {
+    if (!(pathsNode instanceof ObjectNode pathObj)) {
+      return Fragments.sized(0);
+    }
+
+    Cancellation cancellation = Cancellation.current();
+    ObjectNode paths = Fragments.sized(pathObj.size());
+    for (Map.Entry<String, JsonNode> entry : pathObj.properties()) {
+      cancellation.check();
+      paths.set(entry.getKey(), pathItems.convert(entry.getKey(), entry.getValue()));
+    }
+    return paths;
+  }
+
+  private ObjectNode convertPathItem(JsonNode pathItem, Fragments fragments) {
+    int methods = 0;
+    for (String method : HTTP_METHODS) {
+      if (pathItem.has(method)) {
+        methods++;
+      }
+    }
+
+    fragments.paths++;
+    fragments.operations += methods;
+    ObjectNode newPath = fragments.object(methods);
+    for (String method : HTTP_METHODS) {
+      JsonNode operation = pathItem.get(method);
+      if (operation != null) {
+        newPath.set(method, convertOperation(operation, fragments));
       }
-      parameters.add(bodyParam);
     }
+    return newPath;
+  }
+
+  private ObjectNode convertOperation(JsonNode operation, Fragments fragments) {
+    ObjectNode newOp = fragments.object(6);
 
-    if (parameters.size() > 0) {
+    copyIfPresent(operation, newOp, "summary");
+    copyIfPresent(operation, newOp, "description");
+    copyIfPresent(operation, newOp, "operationId");
+    copyIfPresent(operation, newOp, "tags");
+
+    // parameters (mantieni eventuali già esistenti)
+    JsonNode existing = operation.get("parameters");
+    ArrayNode existingParams = existing instanceof ArrayNode array ? array : null;
+    JsonNode requestBody = operation.get("requestBody");
+
+    if (requestBody == null) {
+      // Senza requestBody l'array dei parametri è già valido: viene condiviso, non copiato
+      if (existingParams != null && !existingParams.isEmpty()) {
+        newOp.set("parameters", existingParams);
+      }
+    } else {
+      // requestBody → body param
+      int size = existingParams == null ? 1 : existingParams.size() + 1;
+      ArrayNode parameters = new ArrayNode(fragments.nodes, size);
+      if (existingParams != null) {
+        parameters.addAll(existingParams);
+      }
+      parameters.add(convertRequestBody(requestBody, fragments));
       newOp.set("parameters", parameters);
     }
 
     // responses
-    if (operation.has("responses") && operation.get("responses") instanceof ObjectNode respObj) {
-      ObjectNode responses = mapper.createObjectNode();
-      Iterator<Map.Entry<String, JsonNode>> rfields = respObj.properties().iterator();
-
-      while (rfields.hasNext()) {
-        Map.Entry<String, JsonNode> resp = rfields.next();
-        ObjectNode newResp = mapper.createObjectNode();
-        copyIfPresent(resp.getValue(), newResp, "description");
-
-        JsonNode content = resp.getValue().path("content");
-        if (content instanceof ObjectNode cObj && !cObj.isEmpty()) {
-          Map.Entry<String, JsonNode> firstEntry = cObj.properties().iterator().next();
-          JsonNode media = firstEntry.getValue();
-          if (media.has("schema")) {
-            newResp.set("schema", media.get("schema"));
-          }
-        }
-
-        responses.set(resp.getKey(), newResp);
+    if (operation.get("responses") instanceof ObjectNode respObj) {
+      ObjectNode responses = fragments.object(respObj.size());
+      for (Map.Entry<String, JsonNode> resp : respObj.properties()) {
+        responses.set(resp.getKey(), convertResponse(resp.getValue(), fragments));
       }
       newOp.set("responses", responses);
     }
@@ -165,9 +964,70 @@ public class OpenApiDowngraderImpl implements OpenApiDowngrader {
     return newOp;
   }
 
+  private JsonNode convertRequestBody(JsonNode requestBody, Fragments fragments) {
+    JsonNode description = requestBody.get("description");
+    JsonNode schema = firstSchema(requestBody.path("content"));
+
+    FragmentKey key = FragmentKey.of("body", description, schema);
+    ObjectNode cached = fragments.cached(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    ObjectNode bodyParam = fragments.object(4);
+    bodyParam.put("in", "body");
+    bodyParam.put("name", "body");
+    if (description != null) {
+      bodyParam.put("description", description.asString(""));
+    }
+    if (schema != null) {
+      bodyParam.set("schema", schema);
+    }
+    fragments.remember(key, bodyParam);
+    return bodyParam;
+  }
+
+  private JsonNode convertResponse(JsonNode response, Fragments fragments) {
+    JsonNode description = response.get("description");
+    JsonNode schema = firstSchema(response.path("content"));
+
+    // Una risposta senza contenuto e con la sola 'description' è già valida in Swagger 2
+    if (schema == null && response instanceof ObjectNode obj
+        && obj.size() == (description == null ? 0 : 1)) {
+      return response;
+    }
+
+    FragmentKey key = FragmentKey.of("response", description, schema);
+    ObjectNode cached = fragments.cached(key);
+    if (cached != null) {
+      return cached;
+    }
+
+    ObjectNode newResp = fragments.object(2);
+    if (description != null) {
+      newResp.set("description", description);
+    }
+    if (schema != null) {
+      newResp.set("schema", schema);
+    }
+    fragments.remember(key, newResp);
+    return newResp;
+  }
+
+  /**
+   * Schema del primo media type di un nodo 'content', null se assente.
+   */
+  private static JsonNode firstSchema(JsonNode content) {
+    if (content instanceof ObjectNode cObj && !cObj.isEmpty()) {
+      return cObj.properties().iterator().next().getValue().get("schema");
+    }
+    return null;
+  }
+
   private void copyIfPresent(JsonNode from, ObjectNode to, String field) {
-    if (from.has(field)) {
-      to.set(field, from.get(field));
+    JsonNode value = from.get(field);
+    if (value != null) {
+      to.set(field, value);
     }
   }
 
@@ -187,4 +1047,76 @@ public class OpenApiDowngraderImpl implements OpenApiDowngrader {
     } catch (Exception ignored) {
     }
   }
+
+  /**
+   * Stato di una singola conversione. I frammenti di output che dipendono solo da descrizione e
+   * {@code $ref} dello schema (risposte e body parameter ricorrenti) vengono creati una volta e
+   * condivisi tra le operazioni; i contenitori sono dimensionati in anticipo. L'albero prodotto
+   * può quindi contenere nodi condivisi e non va modificato sul posto. Non è thread-safe.
+   */
+  private static final class Fragments {
+
+    // Limite ai frammenti memorizzati, così la conversione in streaming resta a memoria limitata
+    private static final int MAX_CACHED = 1024;
+
+    private final JsonNodeFactory nodes = JsonNodeFactory.instance;
+    private final Map<FragmentKey, ObjectNode> cache = new HashMap<>();
+
+    // Conteggi per le metriche
+    int paths;
+    int operations;
+
+    ObjectNode cached(FragmentKey key) {
+      return key == null ? null : cache.get(key);
+    }
+
+    void remember(FragmentKey key, ObjectNode fragment) {
+      if (key != null && cache.size() < MAX_CACHED) {
+        cache.put(key, fragment);
+      }
+    }
+
+    ObjectNode object(int expectedSize) {
+      return sized(expectedSize);
+    }
+
+    static ObjectNode sized(int expectedSize) {
+      return new ObjectNode(JsonNodeFactory.instance,
+          new LinkedHashMap<>(Math.max(2, expectedSize * 4 / 3 + 1)));
+    }
+  }
+
+  /**
+   * Conversione di un singolo path item OpenAPI 3 nel corrispondente Swagger 2.
+   */
+  @FunctionalInterface
+  interface PathItemConverter {
+
+    JsonNode convert(String path, JsonNode pathItem);
+  }
+
+  /**
+   * Chiave di un frammento condivisibile: tipo, descrizione testuale e {@code $ref} dello schema.
+   */
+  private record FragmentKey(String kind, String description, String ref) {
+
+    /**
+     * Restituisce la chiave, o null se il frammento non è condivisibile (descrizione non testuale
+     * o schema inline).
+     */
+    static FragmentKey of(String kind, JsonNode description, JsonNode schema) {
+      if (description != null && !description.isString()) {
+        return null;
+      }
+      String ref = null;
+      if (schema != null) {
+        JsonNode refNode = schema.get("$ref");
+        if (schema.size() != 1 || refNode == null || !refNode.isString()) {
+          return null;
+        }
+        ref = refNode.asString();
+      }
+      return new FragmentKey(kind, description == null ? null : description.asString(""), ref);
+    }
+  }
 }
@@ -1,9 +1,23 @@
 package com.patred.openapi;
 
+import com.patred.openapi.async.Cancellation;
 import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.resolver.ExternalRefResolver;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Converter da Swagger 2 (OpenAPI 2.0) a OpenAPI 3.x
+ *
+ * <p>Basta implementare le varianti su {@code String}: gli altri metodi hanno un'implementazione
+ * predefinita che passa dal testo e legge l'input per intero, da ridefinire per evitarlo.
  */
 public interface OpenApiUpdater {
 
@@ -27,7 +41,197 @@ public interface OpenApiUpdater {
    */
   String convertToV3(String spec, Format format) throws Exception;
 
+  /**
+   * Converte una specifica OpenAPI 2 (Swagger) in OpenAPI 3, con le opzioni di output indicate
+   * (indentazione, ordine delle chiavi, stile YAML).
+   *
+   * @param spec    Contenuto della specifica (JSON o YAML)
+   * @param options Opzioni di output; la codifica deve essere testuale e senza compressione
+   * @return Specifica convertita
+   * @throws IllegalArgumentException se le opzioni richiedono un output binario o compresso
+   * @throws Exception                se la conversione fallisce
+   */
+  default String convertToV3(String spec, OutputOptions options) throws Exception {
+    return ConverterDefaults.convert(spec, options, this::convertText);
+  }
+
+  /**
+   * Converte una specifica OpenAPI 2 (Swagger) letta da stream in OpenAPI 3, senza passare da una
+   * String. Mantiene il formato dell’input (JSON o YAML). Gli stream non vengono chiusi.
+   *
+   * @param spec Stream della specifica (JSON o YAML)
+   * @param out  Stream su cui scrivere la specifica convertita
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV3(InputStream spec, OutputStream out) throws Exception {
+    ConverterDefaults.convert(spec, out, (Format) null, this::convertText);
+  }
+
+  /**
+   * Converte una specifica OpenAPI 2 (Swagger) letta da stream in OpenAPI 3, forzando l’output.
+   * Gli stream non vengono chiusi.
+   *
+   * @param spec   Stream della specifica (JSON o YAML)
+   * @param out    Stream su cui scrivere la specifica convertita
+   * @param format YAML o JSON per forzare il formato di output
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV3(InputStream spec, OutputStream out, Format format) throws Exception {
+    ConverterDefaults.convert(spec, out, format, this::convertText);
+  }
+
+  /**
+   * Converte una specifica OpenAPI 2 (Swagger) in OpenAPI 3 letta da stream, con le opzioni di
+   * output indicate, comprese le codifiche binarie (CBOR, Smile) e la compressione. Gli stream non
+   * vengono chiusi.
+   *
+   * @param spec    Stream della specifica (JSON o YAML)
+   * @param out     Stream su cui scrivere la specifica convertita
+   * @param options Opzioni di output
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV3(InputStream spec, OutputStream out, OutputOptions options)
+      throws Exception {
+    ConverterDefaults.convert(spec, out, options, this::convertText);
+  }
+
+  /**
+   * Converte una specifica OpenAPI 2 (Swagger) salvata su file in OpenAPI 3. Il file di input
+   * viene mappato in memoria; mantiene il formato dell’input (JSON o YAML).
+   *
+   * @param spec File della specifica (JSON o YAML)
+   * @param out  File su cui scrivere la specifica convertita (creato o sovrascritto)
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV3(Path spec, Path out) throws Exception {
+    ConverterDefaults.convert(spec, out, null, this::convertText);
+  }
+
+  /**
+   * Converte una specifica OpenAPI 2 (Swagger) salvata su file in OpenAPI 3, forzando l’output. Il
+   * file di input viene mappato in memoria.
+   *
+   * @param spec   File della specifica (JSON o YAML)
+   * @param out    File su cui scrivere la specifica convertita (creato o sovrascritto)
+   * @param format YAML o JSON per forzare il formato di output
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV3(Path spec, Path out, Format format) throws Exception {
+    ConverterDefaults.convert(spec, out, format, this::convertText);
+  }
+
+  /**
+   * Converte i byte rimanenti di un buffer da OpenAPI 2 (Swagger) a OpenAPI 3. Mantiene il formato
+   * dell’input (JSON o YAML). La posizione del buffer non viene modificata e il canale non viene
+   * chiuso.
+   *
+   * @param spec Buffer con la specifica (JSON o YAML), codificata in UTF-8
+   * @param out  Canale su cui scrivere la specifica convertita
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV3(ByteBuffer spec, WritableByteChannel out) throws Exception {
+    ConverterDefaults.convert(spec, out, null, this::convertText);
+  }
+
+  /**
+   * Converte i byte rimanenti di un buffer da OpenAPI 2 (Swagger) a OpenAPI 3, forzando l’output.
+   * La posizione del buffer non viene modificata e il canale non viene chiuso.
+   *
+   * @param spec   Buffer con la specifica (JSON o YAML), codificata in UTF-8
+   * @param out    Canale su cui scrivere la specifica convertita
+   * @param format YAML o JSON per forzare il formato di output
+   * @throws Exception se la conversione fallisce
+   */
+  default void convertToV3(ByteBuffer spec, WritableByteChannel out, Format format)
+      throws Exception {
+    ConverterDefaults.convert(spec, out, format, this::convertText);
+  }
 
 
+  /**
+   * Converte una specifica Swagger 2 divisa su più file in OpenAPI 3. I {@code $ref} verso
+   * altri documenti vengono risolti dal resolver e inclusi nel risultato; mantiene il formato del
+   * documento principale.
+   *
+   * @param resolver resolver dei riferimenti esterni, da condividere tra le conversioni di un batch
+   * @param root     posizione canonica del documento principale nella sorgente del resolver
+   * @return Specifica convertita, in un unico documento
+   * @throws Exception se un documento non è leggibile o la conversione fallisce
+   */
+  default String convertToV3(ExternalRefResolver resolver, String root) throws Exception {
+    return ConverterDefaults.convert(resolver, root, null, this::convertText);
+  }
 
+  /**
+   * Converte una specifica Swagger 2 divisa su più file in OpenAPI 3, forzando l’output.
+   *
+   * @param resolver resolver dei riferimenti esterni, da condividere tra le conversioni di un batch
+   * @param root     posizione canonica del documento principale nella sorgente del resolver
+   * @param format   YAML o JSON per forzare il formato di output
+   * @return Specifica convertita, in un unico documento
+   * @throws Exception se un documento non è leggibile o la conversione fallisce
+   */
+  default String convertToV3(ExternalRefResolver resolver, String root, Format format)
+      throws Exception {
+    return ConverterDefaults.convert(resolver, root, format, this::convertText);
+  }
+  /**
+   * Converte in modo asincrono una specifica OpenAPI 2 (Swagger) in OpenAPI 3, con le opzioni di
+   * output indicate, sull'executor e con la scadenza indicati. Allo scadere del tempo il future
+   * fallisce con {@link java.util.concurrent.TimeoutException}; con la scadenza o con
+   * {@code cancel} sul future la conversione si interrompe al controllo successivo, tra una fase e
+   * l'altra o tra un blocco di path e il successivo.
+   *
+   * @param spec     Contenuto della specifica (JSON o YAML)
+   * @param options  Opzioni di output; la codifica deve essere testuale e senza compressione
+   * @param executor Executor su cui eseguire la conversione
+   * @param timeout  Tempo a disposizione della conversione, dalla chiamata
+   * @return Future della specifica convertita
+   */
+  default CompletableFuture<String> convertToV3Async(String spec, OutputOptions options,
+      Executor executor, Duration timeout) {
+    return Cancellation.supplyAsync(() -> convertToV3(spec, options), executor, timeout);
+  }
+
+  /**
+   * Converte in modo asincrono una specifica OpenAPI 2 (Swagger) letta da stream in OpenAPI 3, come
+   * {@link #convertToV3Async(String, OutputOptions, Executor, Duration)}. Gli stream non vengono
+   * chiusi e restano in uso fino all'interruzione della conversione, anche dopo la scadenza del
+   * future.
+   *
+   * @param spec     Stream della specifica (JSON o YAML)
+   * @param out      Stream su cui scrivere la specifica convertita
+   * @param options  Opzioni di output
+   * @param executor Executor su cui eseguire la conversione
+   * @param timeout  Tempo a disposizione della conversione, dalla chiamata
+   * @return Future completato al termine della scrittura
+   */
+  default CompletableFuture<Void> convertToV3Async(InputStream spec, OutputStream out,
+      OutputOptions options, Executor executor, Duration timeout) {
+    return Cancellation.supplyAsync(() -> {
+      convertToV3(spec, out, options);
+      return null;
+    }, executor, timeout);
+  }
+
+  /**
+   * Prepara il converter eseguendo alcune conversioni di prova, così le prime richieste dopo
+   * l'avvio non pagano il caricamento delle classi e l'inizializzazione dei mapper. Da chiamare
+   * all'avvio del servizio.
+   *
+   * L'implementazione predefinita non fa nulla.
+   *
+   * @throws Exception se la conversione di prova fallisce
+   */
+  default void warmUp() throws Exception {
+  }
+
+  /**
+   * Variante su {@code String} usata dai metodi predefiniti: senza formato richiesto chiama quella
+   * che mantiene il formato dell'input, perché {@code convertToV3(String, Format)} si aspetta YAML
+   * o JSON.
+   */
+  private String convertText(String spec, Format format) throws Exception {
+    return format == null ? convertToV3(spec) : convertToV3(spec, format);
+  }
 }
@@ -1,16 +1,47 @@
 package com.patred.openapi;
 
-import com.fasterxml.jackson.annotation.JsonInclude.Include;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JacksonException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.patred.openapi.async.Cancellation;
+import com.patred.openapi.limits.ConversionLimits;
+import com.patred.openapi.limits.LimitExceededException;
+import com.patred.openapi.limits.LimitedReaders;
+import com.patred.openapi.metrics.ConversionMetrics;
+import com.patred.openapi.metrics.MetricsRecorder;
+import com.patred.openapi.metrics.Phase;
+import com.patred.openapi.metrics.Target;
 import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.Selection;
+import com.patred.openapi.model.SpecInfo;
+import com.patred.openapi.model.SpecVersion;
 import com.patred.openapi.util.FormatUtils;
-import io.swagger.v3.core.util.Json;
-import io.swagger.v3.core.util.Yaml;
+import com.patred.openapi.resolver.BundledSpec;
+import com.patred.openapi.resolver.ExternalRefResolver;
+import com.patred.openapi.util.IoUtils;
+import com.patred.openapi.util.Mappers;
+import com.patred.openapi.util.ModelMappers;
+import com.patred.openapi.util.OutputWriters;
+import com.patred.openapi.util.TreeBridge;
+import com.patred.openapi.validation.InvalidSpecException;
+import com.patred.openapi.validation.ValidationError;
+import io.swagger.parser.Swagger20Parser;
+import io.swagger.parser.util.SwaggerDeserializationResult;
 import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
 import io.swagger.v3.parser.converter.SwaggerConverter;
 import io.swagger.v3.parser.core.models.SwaggerParseResult;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Implementazione stabile e funzionante di OpenApiConverter. Converte specifiche Swagger 2 (OpenAPI
@@ -18,33 +49,400 @@ import java.nio.file.Path;
  */
 public class OpenApiUpdaterImpl implements OpenApiUpdater {
 
+  /**
+   * Il parser Swagger 2 non ha stato ed è condiviso tra tutte le conversioni. Il
+   * {@link SwaggerConverter} invece accumula components e consumes/produces globali nei propri
+   * campi e non li azzera tra una chiamata e l'altra: va creato per ogni conversione (costa quattro
+   * campi), altrimenti le definizioni di una specifica finirebbero nella successiva.
+   */
+  private static final Swagger20Parser PARSER = new Swagger20Parser();
+
+  private static final String INVALID = "Specifica Swagger 2 non valida o conversione fallita.";
+
+  private static final int WARM_UP_ROUNDS = 20;
+
+  private static final String WARM_UP_SPEC = """
+      swagger: "2.0"
+      info:
+        title: Warm-up
+        version: "1.0"
+      host: localhost
+      basePath: /v1
+      schemes: [https]
+      consumes: [application/json]
+      produces: [application/json]
+      securityDefinitions:
+        key:
+          type: apiKey
+          name: X-Key
+          in: header
+      paths:
+        /items/{id}:
+          get:
+            operationId: getItem
+            parameters:
+              - name: id
+                in: path
+                required: true
+                type: string
+            responses:
+              "200":
+                description: ok
+                schema:
+                  $ref: "#/definitions/Item"
+          put:
+            parameters:
+              - name: id
+                in: path
+                required: true
+                type: string
+              - name: body
+                in: body
+                schema:
+                  $ref: "#/definitions/Item"
+            responses:
+              "204":
+                description: updated
+            security:
+              - key: []
+      definitions:
+        Item:
+          type: object
+          properties:
+            name:
+              type: string
+            tags:
+              type: array
+              items:
+                type: string
+      """;
+
+  private final ConversionMetrics metrics;
+  private final LimitedReaders readers;
+
+  public OpenApiUpdaterImpl() {
+    this(ConversionMetrics.NOOP);
+  }
+
+  /**
+   * Crea un converter strumentato.
+   *
+   * @param metrics destinazione di tempi per fase, dimensioni, conteggi e fallimenti
+   */
+  public OpenApiUpdaterImpl(ConversionMetrics metrics) {
+    this(metrics, ConversionLimits.DEFAULT);
+  }
+
+  /**
+   * Crea un converter che rifiuta con una {@link LimitExceededException} gli input oltre i limiti
+   * indicati, interrompendone la lettura prima della conversione del modello.
+   *
+   * @param metrics destinazione di tempi per fase, dimensioni, conteggi e fallimenti
+   * @param limits  limiti su dimensione, profondità, token e stringhe dell'input
+   */
+  public OpenApiUpdaterImpl(ConversionMetrics metrics, ConversionLimits limits) {
+    this.metrics = metrics;
+    this.readers = LimitedReaders.of(limits);
+  }
+
+  /**
+   * Descrive la configurazione che influisce sul risultato, usata come chiave da
+   * {@link com.patred.openapi.cache.CachingOpenApiUpdater}.
+   */
+  @Override
+  public String toString() {
+    return "OpenApiUpdaterImpl[limits=" + readers.limits() + "]";
+  }
+
   @Override
   public String convertToV3(String spec) throws Exception {
-    Format format = FormatUtils.isYaml(spec) ? Format.YAML : Format.JSON;
-    return convertToV3(spec, format);
+    return convert(spec, OutputOptions.DEFAULT, recorder());
   }
 
   @Override
   public String convertToV3(String spec,  Format format) throws Exception {
+    return convert(spec, OutputOptions.of(format), recorder());
+  }
 
-    // Scriviamo temporaneamente il contenuto su file perché SwaggerConverter lavora su path
-    Path tempFile = Files.createTempFile("swagger2-", format == Format.YAML ? ".yaml" : ".json");
-    Files.writeString(tempFile, spec);
+  @Override
+  public String convertToV3(String spec, OutputOptions options) throws Exception {
+    return convert(spec, options, recorder());
+  }
 
-    SwaggerConverter converter = new SwaggerConverter();
-    SwaggerParseResult result = converter.readLocation(tempFile.toAbsolutePath().toString(), null,
-        null);
-    Files.deleteIfExists(tempFile);
+  @Override
+  public String convertToV3(ExternalRefResolver resolver, String root) throws Exception {
+    return convert(resolver, root, null, recorder());
+  }
 
-    if (result == null || result.getOpenAPI() == null) {
-      throw new IllegalArgumentException("Specifica Swagger 2 non valida o conversione fallita.");
+  @Override
+  public String convertToV3(ExternalRefResolver resolver, String root, Format format)
+      throws Exception {
+    return convert(resolver, root, format, recorder());
+  }
+
+  @Override
+  public void convertToV3(InputStream spec, OutputStream out) throws Exception {
+    convert(spec, out, OutputOptions.DEFAULT, recorder());
+  }
+
+  @Override
+  public void convertToV3(InputStream spec, OutputStream out, Format format) throws Exception {
+    convert(spec, out, OutputOptions.of(format), recorder());
+  }
+
+  @Override
+  public void convertToV3(InputStream spec, OutputStream out, OutputOptions options)
+      throws Exception {
+    convert(spec, out, options, recorder());
+  }
+
+  @Override
+  public void convertToV3(Path spec, Path out) throws Exception {
+    convert(spec, out, OutputOptions.DEFAULT, recorder());
+  }
+
+  @Override
+  public void convertToV3(Path spec, Path out, Format format) throws Exception {
+    convert(spec, out, OutputOptions.of(format), recorder());
+  }
+
+  @Override
+  public void convertToV3(ByteBuffer spec, WritableByteChannel out) throws Exception {
+    convertToV3(IoUtils.asInputStream(spec), Channels.newOutputStream(out));
+  }
+
+  @Override
+  public void convertToV3(ByteBuffer spec, WritableByteChannel out, Format format)
+      throws Exception {
+    convertToV3(IoUtils.asInputStream(spec), Channels.newOutputStream(out), format);
+  }
+
+  /**
+   * Esegue alcune conversioni di prova in JSON e YAML, su stringa e su stream, così il caricamento
+   * delle classi di swagger-parser e l'inizializzazione dei mapper avvengono all'avvio del servizio
+   * e non sulle prime richieste. Le conversioni di prova non compaiono nelle metriche. Può essere
+   * chiamato più volte.
+   */
+  @Override
+  public void warmUp() throws Exception {
+    byte[] yaml = WARM_UP_SPEC.getBytes(StandardCharsets.UTF_8);
+    String json = ModelMappers.writer(Format.JSON, false)
+        .writeValueAsString(ModelMappers.reader(Format.YAML).readTree(WARM_UP_SPEC));
+    for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+      convert(json, OutputOptions.DEFAULT, MetricsRecorder.disabled());
+      convert(WARM_UP_SPEC, OutputOptions.of(Format.JSON), MetricsRecorder.disabled());
+      convert(new ByteArrayInputStream(yaml), OutputStream.nullOutputStream(),
+          OutputOptions.of(Format.YAML), MetricsRecorder.disabled());
     }
+  }
 
-    OpenAPI openAPI = result.getOpenAPI();
-    final ObjectMapper mapper = format == Format.YAML ? Yaml.mapper() : Json.mapper();
-    mapper.setSerializationInclusion(Include.NON_NULL);
+  private MetricsRecorder recorder() {
+    return MetricsRecorder.start(metrics, Target.V3);
+  }
+
+  /**
+   * Conversione da stringa; senza codifica nelle opzioni l'output mantiene il formato dell'input.
+   */
+  private String convert(String spec, OutputOptions options, MetricsRecorder recorder)
+      throws Exception {
+    try {
+      OutputWriters.requireText(options);
+      SpecInfo info = FormatUtils.detect(spec);
+      recorder.lap(Phase.DETECT);
+      requireSwagger2(info);
+
+      // La specifica viene letta direttamente dalla stringa: nessun file temporaneo su disco
+      JsonNode node;
+      try {
+        node = spec.isBlank() ? null : readers.readModelTree(spec, info.format());
+      } catch (JacksonException e) {
+        // Come con readContents, un documento illeggibile è una specifica non valida
+        InvalidSpecException invalid = invalid(new ValidationError("",
+            e.getLocation() == null ? -1 : e.getLocation().getLineNr(),
+            e.getLocation() == null ? -1 : e.getLocation().getColumnNr(),
+            "sintassi non valida: " + e.getOriginalMessage()));
+        invalid.initCause(e);
+        throw invalid;
+      }
+      node = select(node, options.selection());
+      recorder.lap(Phase.PARSE);
+      Cancellation.checkpoint();
+
+      OpenAPI openApi = toOpenApi(node);
+      recorder.lap(Phase.TRANSFORM);
+      Cancellation.checkpoint();
+
+      String result = ModelMappers.writeAsString(openApi, options, info.format());
+      recorder.lap(Phase.SERIALIZE);
+
+      recordCounts(openApi, recorder);
+      recorder.sizes(spec, result);
+      return result;
+    } catch (Exception e) {
+      recorder.failed(e);
+      throw e;
+    }
+  }
+
+  private String convert(ExternalRefResolver resolver, String root, Format format,
+      MetricsRecorder recorder) throws Exception {
+    try {
+      BundledSpec bundle = resolver.bundle(root);
+      recorder.lap(Phase.PARSE);
+      Cancellation.checkpoint();
+      requireSwagger2(bundle.info());
+
+      // Il modello di swagger-parser usa Jackson 2: il documento ricomposto passa dai byte
+      JsonNode node = ModelMappers.reader(Format.JSON)
+          .readTree(Mappers.writer(Format.JSON, false).writeValueAsBytes(bundle.document()));
+      OpenAPI openApi = toOpenApi(node);
+      recorder.lap(Phase.TRANSFORM);
+      Cancellation.checkpoint();
+
+      String result = ModelMappers.writer(format == null ? bundle.info().format() : format, true)
+          .writeValueAsString(openApi);
+      recorder.lap(Phase.SERIALIZE);
+
+      recordCounts(openApi, recorder);
+      return result;
+    } catch (Exception e) {
+      recorder.failed(e);
+      throw e;
+    }
+  }
+
+  private void convert(InputStream spec, OutputStream out, OutputOptions options,
+      MetricsRecorder recorder) throws Exception {
+    try {
+      InputStream in = IoUtils.markable(spec);
+      SpecInfo info = FormatUtils.detect(in);
+      recorder.lap(Phase.DETECT);
+      stream(in, out, info, options, recorder);
+    } catch (Exception e) {
+      recorder.failed(e);
+      throw e;
+    }
+  }
+
+  private void convert(Path spec, Path out, OutputOptions options, MetricsRecorder recorder)
+      throws Exception {
+    try {
+      ByteBuffer mapped = IoUtils.map(spec);
+      readers.checkSize(mapped.remaining());
+      InputStream in = IoUtils.asInputStream(mapped);
+      SpecInfo info = FormatUtils.detect(in);
+      recorder.lap(Phase.DETECT);
+
+      // Il controllo precede l'apertura così un input rifiutato non lascia un file vuoto
+      requireSwagger2(info);
+      try (OutputStream os = Files.newOutputStream(out)) {
+        stream(in, os, info, options, recorder);
+      }
+    } catch (Exception e) {
+      recorder.failed(e);
+      throw e;
+    }
+  }
+
+  private void stream(InputStream in, OutputStream out, SpecInfo info, OutputOptions options,
+      MetricsRecorder recorder) throws Exception {
+    requireSwagger2(info);
+
+    // Il documento viene letto come albero direttamente dai byte, senza passare da una String
+    JsonNode node = select(readers.readModelTree(recorder.count(in), info.format()),
+        options.selection());
+    recorder.lap(Phase.PARSE);
+    Cancellation.checkpoint();
+
+    OpenAPI openApi = toOpenApi(node);
+    recorder.lap(Phase.TRANSFORM);
+    Cancellation.checkpoint();
+
+    try (OutputStream framed = OutputWriters.frame(recorder.count(out), options.compression())) {
+      ModelMappers.write(openApi, options, info.format(), framed);
+    }
+    recorder.lap(Phase.SERIALIZE);
+
+    recordCounts(openApi, recorder);
+    recorder.finish();
+  }
+
+  /**
+   * Riduce l'albero alla selezione. Il filtro lavora sull'albero Jackson 3: la copia dell'intero
+   * documento costa poco rispetto alla conversione delle operazioni scartate, e torna indietro solo
+   * la parte selezionata.
+   */
+  private static JsonNode select(JsonNode node, Selection selection) {
+    if (node == null || selection.isAll()) {
+      return node;
+    }
+    return TreeBridge.toModelTree(
+        SelectionFilter.select(TreeBridge.fromModelTree(node), selection));
+  }
+
+  private static void recordCounts(OpenAPI openApi, MetricsRecorder recorder) {
+    if (!recorder.enabled()) {
+      return;
+    }
+    int paths = 0;
+    int operations = 0;
+    if (openApi.getPaths() != null) {
+      for (PathItem pathItem : openApi.getPaths().values()) {
+        paths++;
+        operations += pathItem.readOperations().size();
+      }
+    }
+    recorder.counts(paths, operations);
+  }
+
+  /**
+   * Rifiuta subito, senza fare il parsing, gli input che dichiarano di essere già OpenAPI 3.
+   */
+  private static void requireSwagger2(SpecInfo info) {
+    if (info.version() == SpecVersion.OPENAPI_3) {
+      throw invalid(ValidationError.at("/openapi",
+          "specifica OpenAPI 3: attesa una specifica Swagger 2"));
+    }
+  }
+
+  /**
+   * Converte l'albero Swagger 2 nel modello OpenAPI 3. Equivale a {@code readContents} senza
+   * risoluzione dei riferimenti, ma evita di ricreare parser ed estensioni a ogni chiamata.
+   */
+  private static OpenAPI toOpenApi(JsonNode node) {
+    if (node == null || !node.isObject()) {
+      throw invalid(ValidationError.at("", "il documento deve essere un oggetto"));
+    }
+
+    SwaggerDeserializationResult parsed;
+    SwaggerParseResult result;
+    try {
+      parsed = PARSER.readWithInfo(node);
+      result = parsed == null ? null : new SwaggerConverter().convert(parsed);
+    } catch (RuntimeException e) {
+      // Parser e converter non controllano tutte le forme: una risposta scritta come stringa, ad
+      // esempio, arriva al converter come null
+      InvalidSpecException invalid = invalid(ValidationError.at("",
+          "conversione fallita: " + e));
+      invalid.initCause(e);
+      throw invalid;
+    }
+    if (result == null || result.getOpenAPI() == null) {
+      // I messaggi del parser sono testo libero ("attribute paths is missing"): senza posizione
+      List<ValidationError> errors = new ArrayList<>();
+      if (parsed != null && parsed.getMessages() != null) {
+        parsed.getMessages().forEach(message -> errors.add(ValidationError.at("", message)));
+      }
+      if (errors.isEmpty()) {
+        errors.add(ValidationError.at("", "conversione fallita"));
+      }
+      throw new InvalidSpecException(INVALID, errors);
+    }
+    return result.getOpenAPI();
+  }
 
-    return mapper.writerWithDefaultPrettyPrinter().writeValueAsString((openAPI));
+  private static InvalidSpecException invalid(ValidationError error) {
+    return new InvalidSpecException(INVALID, List.of(error));
   }
 
 }
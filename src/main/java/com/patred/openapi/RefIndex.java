@@ -0,0 +1,207 @@
+package com.patred.openapi;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.JsonNodeFactory;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * Riscrittura dei {@code $ref} per la conversione OpenAPI 3 → Swagger 2. I riferimenti locali a
+ * {@code #/components/schemas/...} diventano {@code #/definitions/...}; con il dereferenziamento
+ * attivo vengono invece sostituiti dallo schema puntato. Gli altri riferimenti restano invariati.
+ *
+ * <p>La riscrittura è copy-on-write: i sottoalberi senza riferimenti da cambiare vengono
+ * restituiti così come sono e i nodi riscritti sono memorizzati per identità, così un frammento
+ * condiviso viene visitato una sola volta. Per il dereferenziamento l'indice dei puntatori JSON di
+ * {@code components} viene costruito una volta per documento e gli schemi risolti sono
+ * memorizzati; un riferimento a uno schema ancora in corso di risoluzione (ciclo) resta un
+ * {@code $ref} verso {@code definitions}. Non è thread-safe: appartiene a una singola conversione.
+ */
+final class RefIndex {
+
+  static final String SCHEMAS = "#/components/schemas/";
+  static final String DEFINITIONS = "#/definitions/";
+
+  private final JsonNode root;
+  private final Map<JsonNode, JsonNode> rewritten;
+  // Voci di components, immutabili e condivise tra gli indici di una conversione
+  private final Map<String, JsonNode> pointers;
+  // Puntatori più profondi (#/components/schemas/A/properties/b), trovati da questo indice
+  private final Map<String, JsonNode> nested = new HashMap<>();
+  private final Map<String, JsonNode> resolved = new HashMap<>();
+  private final Set<String> resolving = new HashSet<>();
+
+  private RefIndex(JsonNode root, boolean memoize, Map<String, JsonNode> pointers) {
+    this.root = root;
+    this.rewritten = memoize ? new IdentityHashMap<>() : null;
+    this.pointers = pointers;
+  }
+
+  /**
+   * Solo riscrittura dei riferimenti. Senza memoizzazione i nodi già visitati non vengono
+   * trattenuti, come serve alla conversione in streaming.
+   */
+  static RefIndex rewriting(boolean memoize) {
+    return new RefIndex(null, memoize, Map.of());
+  }
+
+  /**
+   * Dereferenziamento degli schemi del documento indicato.
+   */
+  static RefIndex dereferencing(JsonNode root) {
+    Map<String, JsonNode> pointers = new HashMap<>();
+    JsonNode components = root.get("components");
+    if (components instanceof ObjectNode sections) {
+      for (Map.Entry<String, JsonNode> section : sections.properties()) {
+        if (section.getValue() instanceof ObjectNode entries) {
+          String prefix = "#/components/" + escape(section.getKey()) + "/";
+          for (Map.Entry<String, JsonNode> entry : entries.properties()) {
+            pointers.put(prefix + escape(entry.getKey()), entry.getValue());
+          }
+        }
+      }
+    }
+    return new RefIndex(root, true, Map.copyOf(pointers));
+  }
+
+  /**
+   * Indice con gli stessi puntatori ma memoria propria, per riscrivere una parte del documento su
+   * un altro thread. Condivide solo l'indice immutabile di {@code components}; i puntatori più
+   * profondi e gli schemi risolti restano in memoria a ciascun indice.
+   */
+  RefIndex fork() {
+    return new RefIndex(root, rewritten != null, pointers);
+  }
+
+  /**
+   * Restituisce il nodo con i riferimenti riscritti, o il nodo stesso se non c'è nulla da
+   * cambiare.
+   */
+  JsonNode rewrite(JsonNode node) {
+    if (node == null || !node.isContainer()) {
+      return node;
+    }
+    if (rewritten != null) {
+      JsonNode done = rewritten.get(node);
+      if (done != null) {
+        return done;
+      }
+    }
+
+    JsonNode result = node instanceof ObjectNode object ? rewriteObject(object)
+        : rewriteArray((ArrayNode) node);
+    if (result != node && rewritten != null) {
+      rewritten.put(node, result);
+    }
+    return result;
+  }
+
+  private JsonNode rewriteObject(ObjectNode node) {
+    JsonNode ref = node.get("$ref");
+    if (ref != null && ref.isString() && ref.asString().startsWith(SCHEMAS)) {
+      if (root != null) {
+        JsonNode inline = resolve(ref.asString());
+        if (inline != null) {
+          return inline;
+        }
+      }
+      ObjectNode copy = copy(node);
+      copy.put("$ref", DEFINITIONS + ref.asString().substring(SCHEMAS.length()));
+      return copy;
+    }
+
+    ObjectNode copy = null;
+    for (Map.Entry<String, JsonNode> entry : node.properties()) {
+      JsonNode child = entry.getValue();
+      JsonNode result = rewrite(child);
+      if (result != child) {
+        if (copy == null) {
+          copy = copy(node);
+        }
+        copy.set(entry.getKey(), result);
+      }
+    }
+    return copy == null ? node : copy;
+  }
+
+  private JsonNode rewriteArray(ArrayNode node) {
+    ArrayNode copy = null;
+    for (int i = 0; i < node.size(); i++) {
+      JsonNode child = node.get(i);
+      JsonNode result = rewrite(child);
+      if (result != child && copy == null) {
+        copy = new ArrayNode(JsonNodeFactory.instance, node.size());
+        for (int j = 0; j < i; j++) {
+          copy.add(node.get(j));
+        }
+      }
+      if (copy != null) {
+        copy.add(result);
+      }
+    }
+    return copy == null ? node : copy;
+  }
+
+  /**
+   * Schema dereferenziato, o null se il riferimento chiude un ciclo o non punta a nulla: in quei
+   * casi resta un {@code $ref}.
+   */
+  private JsonNode resolve(String ref) {
+    JsonNode done = resolved.get(ref);
+    if (done != null) {
+      return done;
+    }
+    if (!resolving.add(ref)) {
+      return null;
+    }
+    try {
+      JsonNode target = lookup(ref);
+      if (target == null) {
+        return null;
+      }
+      JsonNode result = rewrite(target);
+      resolved.put(ref, result);
+      return result;
+    } finally {
+      resolving.remove(ref);
+    }
+  }
+
+  private JsonNode lookup(String ref) {
+    JsonNode target = pointers.get(ref);
+    if (target == null) {
+      target = nested.get(ref);
+    }
+    if (target == null) {
+      try {
+        target = root.at(ref.substring(1));
+      } catch (IllegalArgumentException e) {
+        return null;
+      }
+      if (target.isMissingNode()) {
+        return null;
+      }
+      nested.put(ref, target);
+    }
+    return target;
+  }
+
+  private static ObjectNode copy(ObjectNode node) {
+    ObjectNode copy = new ObjectNode(JsonNodeFactory.instance,
+        new LinkedHashMap<>(Math.max(2, node.size() * 4 / 3 + 1)));
+    for (Map.Entry<String, JsonNode> entry : node.properties()) {
+      copy.set(entry.getKey(), entry.getValue());
+    }
+    return copy;
+  }
+
+  private static String escape(String name) {
+    return name.replace("~", "~0").replace("/", "~1");
+  }
+}
@@ -0,0 +1,268 @@
+package com.patred.openapi;
+
+import com.patred.openapi.model.Selection;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.JsonNodeFactory;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * Riduce una specifica alle operazioni di una {@link Selection}, prima della conversione. Dei
+ * componenti restano solo quelli raggiungibili dalle operazioni selezionate seguendo i
+ * {@code $ref}, anche attraverso altri componenti: {@code components} in OpenAPI 3,
+ * {@code definitions}, {@code parameters} e {@code responses} in Swagger 2. Dei tag dichiarati
+ * restano quelli usati dalle operazioni selezionate. Security scheme, info e server restano interi;
+ * i {@code webhooks} vengono tolti.
+ *
+ * <p>Il documento originale non viene modificato e le parti che restano intere sono condivise. I
+ * riferimenti esterni non vengono seguiti; uno schema che estende con {@code allOf} uno schema
+ * raggiunto, senza comparire nel {@code mapping} del discriminator, non è raggiungibile e non
+ * viene incluso.
+ */
+final class SelectionFilter {
+
+  private static final Set<String> OPERATIONS = Set.of("get", "put", "post", "delete", "options",
+      "head", "patch", "trace");
+  private static final Set<String> SWAGGER_SECTIONS = Set.of("definitions", "parameters",
+      "responses");
+  private static final String COMPONENTS = "components/";
+
+  private final JsonNode root;
+  // Sezione ("definitions", "components/schemas", ...) → nomi dei componenti raggiunti
+  private final Map<String, Set<String>> reachable = new HashMap<>();
+  private final Deque<JsonNode> pending = new ArrayDeque<>();
+  private final Set<String> usedTags = new HashSet<>();
+
+  private SelectionFilter(JsonNode root) {
+    this.root = root;
+  }
+
+  /**
+   * Restituisce la parte selezionata del documento, o il documento stesso se la selezione lo
+   * comprende per intero.
+   *
+   * @param root      radice di una specifica OpenAPI 3 o Swagger 2
+   * @param selection operazioni da mantenere
+   * @return il documento ridotto
+   */
+  static JsonNode select(JsonNode root, Selection selection) {
+    if (selection.isAll() || !(root instanceof ObjectNode document)) {
+      return root;
+    }
+    return new SelectionFilter(document).apply(document, selection);
+  }
+
+  private ObjectNode apply(ObjectNode document, Selection selection) {
+    ObjectNode result = JsonNodeFactory.instance.objectNode();
+    for (Map.Entry<String, JsonNode> entry : document.properties()) {
+      result.set(entry.getKey(), entry.getValue());
+    }
+    result.remove("webhooks");
+
+    if (document.get("paths") instanceof ObjectNode paths) {
+      ObjectNode selected = JsonNodeFactory.instance.objectNode();
+      for (Map.Entry<String, JsonNode> entry : paths.properties()) {
+        JsonNode pathItem = pathItem(entry.getKey(), entry.getValue(), selection);
+        if (pathItem != null) {
+          selected.set(entry.getKey(), pathItem);
+          collect(pathItem);
+        }
+      }
+      result.set("paths", selected);
+    }
+
+    // Chiusura sui riferimenti: ogni componente raggiunto viene visitato una volta
+    JsonNode next;
+    while ((next = pending.poll()) != null) {
+      collect(next);
+    }
+
+    if (document.get("components") instanceof ObjectNode components) {
+      ObjectNode kept = JsonNodeFactory.instance.objectNode();
+      for (Map.Entry<String, JsonNode> section : components.properties()) {
+        String name = section.getKey();
+        JsonNode entries = section.getValue();
+        if (name.equals("securitySchemes") || name.startsWith("x-") || !entries.isObject()) {
+          kept.set(name, entries);
+        } else {
+          JsonNode reached = reachable((ObjectNode) entries, COMPONENTS + name);
+          if (reached != null) {
+            kept.set(name, reached);
+          }
+        }
+      }
+      result.set("components", kept);
+    }
+    for (String section : SWAGGER_SECTIONS) {
+      if (document.get(section) instanceof ObjectNode entries) {
+        JsonNode reached = reachable(entries, section);
+        if (reached == null) {
+          result.remove(section);
+        } else {
+          result.set(section, reached);
+        }
+      }
+    }
+
+    if (document.get("tags") instanceof ArrayNode tags) {
+      ArrayNode used = JsonNodeFactory.instance.arrayNode();
+      for (int i = 0; i < tags.size(); i++) {
+        if (usedTags.contains(tags.get(i).path("name").asString(""))) {
+          used.add(tags.get(i));
+        }
+      }
+      result.set("tags", used);
+    }
+    return result;
+  }
+
+  /**
+   * Path item con le sole operazioni selezionate; null se non ne resta nessuna. Un path item
+   * senza operazioni proprie (solo {@code $ref} o parametri) resta se la selezione filtra solo
+   * per path.
+   */
+  private JsonNode pathItem(String path, JsonNode pathItem, Selection selection) {
+    if (!(pathItem instanceof ObjectNode item) || !selection.matchesPath(path)) {
+      return null;
+    }
+
+    List<String> dropped = new ArrayList<>();
+    boolean hasOperations = false;
+    boolean kept = false;
+    for (Map.Entry<String, JsonNode> entry : item.properties()) {
+      JsonNode operation = entry.getValue();
+      if (!OPERATIONS.contains(entry.getKey()) || !operation.isObject()) {
+        continue;
+      }
+      hasOperations = true;
+      List<String> tags = tags(operation);
+      JsonNode operationId = operation.get("operationId");
+      if (selection.matches(path, operationId == null ? null : operationId.asString(""), tags)) {
+        usedTags.addAll(tags);
+        kept = true;
+      } else {
+        dropped.add(entry.getKey());
+      }
+    }
+
+    if (!hasOperations) {
+      return selection.pathsOnly() ? item : null;
+    }
+    if (!kept) {
+      return null;
+    }
+    if (dropped.isEmpty()) {
+      return item;
+    }
+    ObjectNode copy = JsonNodeFactory.instance.objectNode();
+    for (Map.Entry<String, JsonNode> entry : item.properties()) {
+      if (!dropped.contains(entry.getKey())) {
+        copy.set(entry.getKey(), entry.getValue());
+      }
+    }
+    return copy;
+  }
+
+  private static List<String> tags(JsonNode operation) {
+    JsonNode tags = operation.get("tags");
+    if (tags == null || !tags.isArray() || tags.isEmpty()) {
+      return List.of();
+    }
+    List<String> names = new ArrayList<>(tags.size());
+    for (int i = 0; i < tags.size(); i++) {
+      names.add(tags.get(i).asString(""));
+    }
+    return names;
+  }
+
+  /**
+   * Raccoglie i riferimenti locali di un sottoalbero, accodando i componenti non ancora visti.
+   */
+  private void collect(JsonNode node) {
+    if (node instanceof ArrayNode array) {
+      for (int i = 0; i < array.size(); i++) {
+        collect(array.get(i));
+      }
+      return;
+    }
+    if (!(node instanceof ObjectNode object)) {
+      return;
+    }
+
+    JsonNode ref = object.get("$ref");
+    if (ref != null && ref.isString()) {
+      reference(ref.asString());
+    }
+    // Il mapping del discriminator OpenAPI 3 indica i sottotipi con un riferimento o un nome
+    if (object.get("discriminator") instanceof ObjectNode discriminator
+        && discriminator.get("mapping") instanceof ObjectNode mapping) {
+      for (Map.Entry<String, JsonNode> entry : mapping.properties()) {
+        String target = entry.getValue().asString("");
+        reference(target.startsWith("#/") ? target : "#/" + COMPONENTS + "schemas/" + target);
+      }
+    }
+    for (Map.Entry<String, JsonNode> entry : object.properties()) {
+      collect(entry.getValue());
+    }
+  }
+
+  private void reference(String ref) {
+    if (!ref.startsWith("#/")) {
+      return;
+    }
+    String[] segments = ref.substring(2).split("/", 4);
+    String section;
+    JsonNode entries;
+    String name;
+    if (segments[0].equals("components") && segments.length >= 3) {
+      section = COMPONENTS + unescape(segments[1]);
+      entries = root.path("components").path(unescape(segments[1]));
+      name = unescape(segments[2]);
+    } else if (SWAGGER_SECTIONS.contains(segments[0]) && segments.length >= 2) {
+      section = segments[0];
+      entries = root.path(segments[0]);
+      name = unescape(segments[1]);
+    } else {
+      return;
+    }
+
+    if (reachable.computeIfAbsent(section, key -> new HashSet<>()).add(name)) {
+      JsonNode target = entries.get(name);
+      if (target != null) {
+        pending.push(target);
+      }
+    }
+  }
+
+  /**
+   * Sezione con i soli componenti raggiunti, nell'ordine originale; null se non ne resta nessuno.
+   */
+  private JsonNode reachable(ObjectNode entries, String section) {
+    Set<String> names = reachable.getOrDefault(section, Set.of());
+    if (names.isEmpty()) {
+      return null;
+    }
+    ObjectNode kept = JsonNodeFactory.instance.objectNode();
+    for (Map.Entry<String, JsonNode> entry : entries.properties()) {
+      if (names.contains(entry.getKey())) {
+        kept.set(entry.getKey(), entry.getValue());
+      }
+    }
+    if (kept.isEmpty()) {
+      return null;
+    }
+    return kept.size() == entries.size() ? entries : kept;
+  }
+
+  private static String unescape(String segment) {
+    return segment.replace("~1", "/").replace("~0", "~");
+  }
+}
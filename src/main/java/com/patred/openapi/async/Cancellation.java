@@ -0,0 +1,177 @@
+package com.patred.openapi.async;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Annullamento cooperativo di una conversione, con scadenza opzionale. Una conversione eseguita
+ * con {@link #call(Callable)} vede l'istanza come {@link #current()} e la controlla con
+ * {@link #checkpoint()} tra una fase e l'altra e tra un blocco di path e il successivo; il
+ * controllo lancia {@link ConversionCancelledException} se la conversione è stata annullata o è
+ * scaduta. I blocchi eseguiti su altri thread devono ricevere l'istanza dal thread della
+ * conversione.
+ *
+ * <p>Fuori da {@link #call(Callable)} l'istanza corrente non scade mai e i controlli non costano
+ * quasi nulla: le conversioni sincrone non cambiano comportamento.
+ */
+public final class Cancellation {
+
+  private static final Cancellation NONE = new Cancellation(false, 0);
+  private static final ThreadLocal<Cancellation> CURRENT = new ThreadLocal<>();
+
+  private final boolean hasDeadline;
+  private final long deadline;
+  private volatile boolean cancelled;
+
+  private Cancellation(boolean hasDeadline, long deadline) {
+    this.hasDeadline = hasDeadline;
+    this.deadline = deadline;
+  }
+
+  /**
+   * Crea un annullamento senza scadenza, da attivare con {@link #cancel()}.
+   *
+   * @return l'annullamento
+   */
+  public static Cancellation create() {
+    return new Cancellation(false, 0);
+  }
+
+  /**
+   * Crea un annullamento che scade dopo il tempo indicato, misurato da ora.
+   *
+   * @param timeout tempo a disposizione della conversione; deve essere positivo
+   * @return l'annullamento
+   */
+  public static Cancellation withTimeout(Duration timeout) {
+    if (timeout.isNegative() || timeout.isZero()) {
+      throw new IllegalArgumentException("Il timeout deve essere positivo");
+    }
+    return new Cancellation(true, System.nanoTime() + timeout.toNanos());
+  }
+
+  /**
+   * Annullamento della conversione in corso sul thread corrente.
+   *
+   * @return l'istanza passata a {@link #call(Callable)}, o una che non scade mai
+   */
+  public static Cancellation current() {
+    Cancellation current = CURRENT.get();
+    return current == null ? NONE : current;
+  }
+
+  /**
+   * Controlla l'annullamento della conversione in corso sul thread corrente.
+   *
+   * @throws ConversionCancelledException se la conversione è stata annullata o è scaduta
+   */
+  public static void checkpoint() {
+    current().check();
+  }
+
+  /**
+   * Annulla la conversione: si interrompe al controllo successivo. Può essere chiamato da
+   * qualunque thread, anche più volte.
+   */
+  public void cancel() {
+    if (this != NONE) {
+      cancelled = true;
+    }
+  }
+
+  public boolean isCancelled() {
+    return cancelled || expired();
+  }
+
+  /**
+   * Controlla questo annullamento.
+   *
+   * @throws ConversionCancelledException se la conversione è stata annullata o è scaduta
+   */
+  public void check() {
+    if (cancelled) {
+      throw new ConversionCancelledException(false);
+    }
+    if (expired()) {
+      throw new ConversionCancelledException(true);
+    }
+  }
+
+  private boolean expired() {
+    return hasDeadline && System.nanoTime() - deadline >= 0;
+  }
+
+  /**
+   * Esegue una conversione sul thread corrente con questa istanza come {@link #current()}.
+   *
+   * @param conversion conversione da eseguire
+   * @return il risultato della conversione
+   * @throws ConversionCancelledException se la conversione viene annullata o scade
+   * @throws Exception                    se la conversione fallisce
+   */
+  public <T> T call(Callable<T> conversion) throws Exception {
+    check();
+    Cancellation previous = CURRENT.get();
+    CURRENT.set(this);
+    try {
+      return conversion.call();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Esegue una conversione sull'executor con una scadenza. Il future fallisce con
+   * {@link TimeoutException} allo scadere del tempo, anche se la conversione è ancora in coda o
+   * tra due controlli; la conversione si ferma al controllo successivo. Allo stesso modo
+   * {@code cancel} sul future interrompe la conversione.
+   *
+   * @param conversion conversione da eseguire
+   * @param executor   executor su cui eseguirla
+   * @param timeout    tempo a disposizione, dalla chiamata; deve essere positivo
+   * @return il future del risultato
+   */
+  public static <T> CompletableFuture<T> supplyAsync(Callable<T> conversion, Executor executor,
+      Duration timeout) {
+    Objects.requireNonNull(conversion, "conversion");
+    Objects.requireNonNull(executor, "executor");
+    Cancellation cancellation = withTimeout(timeout);
+    CompletableFuture<T> future = new CompletableFuture<>();
+    // Scadenza, annullamento o esito: in ogni caso il lavoro non serve più
+    future.whenComplete((result, error) -> cancellation.cancel());
+    future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    try {
+      executor.execute(() -> {
+        if (future.isDone()) {
+          return;
+        }
+        try {
+          future.complete(cancellation.call(conversion));
+        } catch (ConversionCancelledException e) {
+          future.completeExceptionally(e.timedOut() ? timeout(e) : e);
+        } catch (Throwable e) {
+          future.completeExceptionally(e);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
+  private static TimeoutException timeout(ConversionCancelledException cause) {
+    TimeoutException timeout = new TimeoutException(cause.getMessage());
+    timeout.initCause(cause);
+    return timeout;
+  }
+}
@@ -0,0 +1,28 @@
+package com.patred.openapi.async;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Conversione interrotta a un controllo di {@link Cancellation}, perché annullata o perché il
+ * tempo a disposizione è scaduto. L'output eventualmente già scritto resta parziale.
+ */
+public class ConversionCancelledException extends CancellationException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final boolean timedOut;
+
+  /**
+   * Crea l'eccezione.
+   *
+   * @param timedOut true se la conversione ha superato la scadenza, false se è stata annullata
+   */
+  public ConversionCancelledException(boolean timedOut) {
+    super(timedOut ? "Conversione interrotta: tempo scaduto" : "Conversione annullata");
+    this.timedOut = timedOut;
+  }
+
+  public boolean timedOut() {
+    return timedOut;
+  }
+}
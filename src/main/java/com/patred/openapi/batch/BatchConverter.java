@@ -0,0 +1,261 @@
+package com.patred.openapi.batch;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.model.Format;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Converte molte specifiche in parallelo usando un {@link ForkJoinPool} dedicato. I risultati
+ * mantengono l'ordine dell'input e un elemento che fallisce, anche con un {@link Error} come
+ * {@link StackOverflowError}, non interrompe il batch. Gli input vengono letti man mano che si
+ * liberano i thread: da uno {@link Stream} ne restano in memoria al più il doppio del
+ * parallelismo, oltre ai risultati.
+ *
+ * <p>Gli stessi converter vengono usati da più thread insieme, quindi devono essere thread-safe
+ * (come {@code OpenApiUpdaterImpl} e {@code OpenApiDowngraderImpl}).
+ */
+public class BatchConverter {
+
+  private final OpenApiUpdater updater;
+  private final OpenApiDowngrader downgrader;
+  private final int parallelism;
+
+  /**
+   * Crea un converter batch con parallelismo pari ai core disponibili.
+   *
+   * @param updater    converter Swagger 2 → OpenAPI 3
+   * @param downgrader converter OpenAPI 3 → Swagger 2
+   */
+  public BatchConverter(OpenApiUpdater updater, OpenApiDowngrader downgrader) {
+    this(updater, downgrader, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Crea un converter batch.
+   *
+   * @param updater     converter Swagger 2 → OpenAPI 3
+   * @param downgrader  converter OpenAPI 3 → Swagger 2
+   * @param parallelism numero di conversioni eseguite contemporaneamente
+   */
+  public BatchConverter(OpenApiUpdater updater, OpenApiDowngrader downgrader, int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Il parallelismo deve essere positivo");
+    }
+    this.updater = updater;
+    this.downgrader = downgrader;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Converte un insieme di specifiche in OpenAPI 3, mantenendo il formato di ciascun input.
+   *
+   * @param specs specifiche Swagger 2 (JSON o YAML)
+   * @return esiti nello stesso ordine dell'input
+   */
+  public BatchResult<String> convertToV3(Iterable<String> specs) {
+    return run(specs.iterator(), spec -> () -> updater.convertToV3(spec));
+  }
+
+  /**
+   * Converte un insieme di specifiche in OpenAPI 3, forzando l'output.
+   *
+   * @param specs  specifiche Swagger 2 (JSON o YAML)
+   * @param format YAML o JSON per forzare il formato di output
+   * @return esiti nello stesso ordine dell'input
+   */
+  public BatchResult<String> convertToV3(Iterable<String> specs, Format format) {
+    return run(specs.iterator(), spec -> () -> updater.convertToV3(spec, format));
+  }
+
+  /**
+   * Converte in OpenAPI 3 le specifiche di uno stream, consumandolo man mano; lo stream non viene
+   * chiuso.
+   *
+   * @param specs  specifiche Swagger 2 (JSON o YAML)
+   * @param format YAML o JSON per forzare il formato di output, null per mantenere quello di
+   *               ciascun input
+   * @return esiti nello stesso ordine dello stream
+   */
+  public BatchResult<String> convertToV3(Stream<String> specs, Format format) {
+    return run(specs.iterator(), spec -> () -> format == null
+        ? updater.convertToV3(spec) : updater.convertToV3(spec, format));
+  }
+
+  /**
+   * Converte un insieme di specifiche in Swagger 2, mantenendo il formato di ciascun input.
+   *
+   * @param specs specifiche OpenAPI 3 (JSON o YAML)
+   * @return esiti nello stesso ordine dell'input
+   */
+  public BatchResult<String> convertToV2(Iterable<String> specs) {
+    return run(specs.iterator(), spec -> () -> downgrader.convertToV2(spec));
+  }
+
+  /**
+   * Converte un insieme di specifiche in Swagger 2, forzando l'output.
+   *
+   * @param specs  specifiche OpenAPI 3 (JSON o YAML)
+   * @param format YAML o JSON per forzare il formato di output
+   * @return esiti nello stesso ordine dell'input
+   */
+  public BatchResult<String> convertToV2(Iterable<String> specs, Format format) {
+    return run(specs.iterator(), spec -> () -> downgrader.convertToV2(spec, format));
+  }
+
+  /**
+   * Converte in Swagger 2 le specifiche di uno stream, consumandolo man mano; lo stream non viene
+   * chiuso.
+   *
+   * @param specs  specifiche OpenAPI 3 (JSON o YAML)
+   * @param format YAML o JSON per forzare il formato di output, null per mantenere quello di
+   *               ciascun input
+   * @return esiti nello stesso ordine dello stream
+   */
+  public BatchResult<String> convertToV2(Stream<String> specs, Format format) {
+    return run(specs.iterator(), spec -> () -> format == null
+        ? downgrader.convertToV2(spec) : downgrader.convertToV2(spec, format));
+  }
+
+  /**
+   * Converte in OpenAPI 3 tutti i file {@code .json}, {@code .yaml} e {@code .yml} di una
+   * directory (non ricorsivamente), scrivendo i risultati con lo stesso nome in un'altra
+   * directory.
+   *
+   * @param inputDir  directory delle specifiche Swagger 2
+   * @param outputDir directory di destinazione, creata se assente
+   * @param format    formato di output, null per mantenere quello di ciascun input
+   * @return per ogni file di input (in ordine di nome) il file scritto
+   * @throws IOException se le directory non sono accessibili
+   */
+  public BatchResult<Path> convertDirectoryToV3(Path inputDir, Path outputDir, Format format)
+      throws IOException {
+    return runDirectory(inputDir, outputDir, format, (in, out, f) -> {
+      if (f == null) {
+        updater.convertToV3(in, out);
+      } else {
+        updater.convertToV3(in, out, f);
+      }
+    });
+  }
+
+  /**
+   * Converte in Swagger 2 tutti i file {@code .json}, {@code .yaml} e {@code .yml} di una
+   * directory (non ricorsivamente), scrivendo i risultati con lo stesso nome in un'altra
+   * directory.
+   *
+   * @param inputDir  directory delle specifiche OpenAPI 3
+   * @param outputDir directory di destinazione, creata se assente
+   * @param format    formato di output, null per mantenere quello di ciascun input
+   * @return per ogni file di input (in ordine di nome) il file scritto
+   * @throws IOException se le directory non sono accessibili
+   */
+  public BatchResult<Path> convertDirectoryToV2(Path inputDir, Path outputDir, Format format)
+      throws IOException {
+    return runDirectory(inputDir, outputDir, format, (in, out, f) -> {
+      if (f == null) {
+        downgrader.convertToV2(in, out);
+      } else {
+        downgrader.convertToV2(in, out, f);
+      }
+    });
+  }
+
+  private BatchResult<Path> runDirectory(Path inputDir, Path outputDir, Format format,
+      FileConversion conversion) throws IOException {
+    List<Path> files;
+    try (Stream<Path> listing = Files.list(inputDir)) {
+      files = listing.filter(Files::isRegularFile).filter(BatchConverter::isSpecFile).sorted()
+          .toList();
+    }
+    Files.createDirectories(outputDir);
+
+    return run(files.iterator(), file -> () -> {
+      Path out = outputDir.resolve(outputName(file, format));
+      conversion.convert(file, out, format);
+      return out;
+    });
+  }
+
+  private <I, T> BatchResult<T> run(Iterator<I> inputs, Task<I, T> task) {
+    long start = System.nanoTime();
+
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      List<BatchItem<T>> items = new ArrayList<>();
+      // Finestra di task in volo: tiene occupati i thread senza leggere tutto l'input
+      Deque<Future<BatchItem<T>>> window = new ArrayDeque<>();
+      int index = 0;
+      while (inputs.hasNext()) {
+        if (window.size() == 2 * parallelism) {
+          items.add(window.poll().get());
+        }
+        window.add(pool.submit(item(index++, task.of(inputs.next()))));
+      }
+      while (!window.isEmpty()) {
+        items.add(window.poll().get());
+      }
+      return new BatchResult<>(items, Duration.ofNanos(System.nanoTime() - start));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Conversione batch interrotta", e);
+    } catch (ExecutionException e) {
+      // Non dovrebbe accadere: ogni task cattura le proprie eccezioni
+      throw new IllegalStateException("Conversione batch fallita", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Un errore della conversione, anche un {@link Error}, resta nell'esito dell'elemento.
+   */
+  private static <T> Callable<BatchItem<T>> item(int index, Callable<T> call) {
+    return () -> {
+      try {
+        return new BatchItem<>(index, call.call(), null);
+      } catch (Throwable e) {
+        return new BatchItem<>(index, null, e);
+      }
+    };
+  }
+
+  private static boolean isSpecFile(Path file) {
+    String name = file.getFileName().toString().toLowerCase();
+    return name.endsWith(".json") || name.endsWith(".yaml") || name.endsWith(".yml");
+  }
+
+  private static String outputName(Path file, Format format) {
+    String name = file.getFileName().toString();
+    if (format == null) {
+      return name;
+    }
+    String base = name.substring(0, name.lastIndexOf('.'));
+    return base + (format == Format.YAML ? ".yaml" : ".json");
+  }
+
+  @FunctionalInterface
+  private interface Task<I, T> {
+
+    Callable<T> of(I input);
+  }
+
+  @FunctionalInterface
+  private interface FileConversion {
+
+    void convert(Path in, Path out, Format format) throws Exception;
+  }
+}
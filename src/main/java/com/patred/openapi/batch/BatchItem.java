@@ -0,0 +1,21 @@
+package com.patred.openapi.batch;
+
+/**
+ * Esito della conversione di un singolo elemento di un batch.
+ *
+ * @param index posizione dell'elemento nell'input
+ * @param value risultato della conversione, null se fallita
+ * @param error errore della conversione, anche un {@link Error}; null se riuscita
+ * @param <T>   tipo del risultato
+ */
+public record BatchItem<T>(int index, T value, Throwable error) {
+
+  /**
+   * Indica se la conversione dell'elemento è riuscita.
+   *
+   * @return true se non ci sono errori
+   */
+  public boolean isSuccess() {
+    return error == null;
+  }
+}
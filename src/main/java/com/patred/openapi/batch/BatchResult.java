@@ -0,0 +1,49 @@
+package com.patred.openapi.batch;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Esito di una conversione batch. Gli elementi sono nello stesso ordine dell'input e quelli falliti
+ * riportano il proprio errore senza interrompere il resto del batch.
+ *
+ * @param items   esiti dei singoli elementi, in ordine di input
+ * @param elapsed durata complessiva del batch
+ * @param <T>     tipo del risultato dei singoli elementi
+ */
+public record BatchResult<T>(List<BatchItem<T>> items, Duration elapsed) {
+
+  /**
+   * Numero di elementi convertiti con successo.
+   *
+   * @return conteggio dei successi
+   */
+  public long successes() {
+    return items.stream().filter(BatchItem::isSuccess).count();
+  }
+
+  /**
+   * Elementi la cui conversione è fallita.
+   *
+   * @return esiti falliti, in ordine di input
+   */
+  public List<BatchItem<T>> failures() {
+    return items.stream().filter(item -> !item.isSuccess()).toList();
+  }
+
+  /**
+   * Throughput complessivo del batch.
+   *
+   * @return elementi processati al secondo
+   */
+  public double throughput() {
+    long nanos = elapsed.toNanos();
+    return nanos == 0 ? 0 : items.size() * 1_000_000_000d / nanos;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%d elementi (%d falliti) in %d ms, %.1f spec/s", items.size(),
+        items.size() - successes(), elapsed.toMillis(), throughput());
+  }
+}
@@ -0,0 +1,25 @@
+package com.patred.openapi.cache;
+
+/**
+ * Istantanea dei contatori di una {@link ConversionCache}.
+ *
+ * @param hits      richieste servite dalla cache (memoria o disco)
+ * @param misses    richieste che hanno richiesto una conversione
+ * @param evictions voci rimosse dalla memoria per rispettare i limiti
+ * @param diskHits  richieste servite dal livello su disco
+ * @param entries   voci attualmente in memoria
+ * @param bytes     dimensione stimata delle voci in memoria
+ */
+public record CacheStats(long hits, long misses, long evictions, long diskHits, int entries,
+                         long bytes) {
+
+  /**
+   * Percentuale di richieste servite dalla cache.
+   *
+   * @return valore tra 0 e 1, 0 se non ci sono state richieste
+   */
+  public double hitRate() {
+    long total = hits + misses;
+    return total == 0 ? 0 : (double) hits / total;
+  }
+}
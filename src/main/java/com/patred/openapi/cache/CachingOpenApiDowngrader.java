@@ -0,0 +1,189 @@
+package com.patred.openapi.cache;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.resolver.ExternalRefResolver;
+import com.patred.openapi.util.FormatUtils;
+import io.swagger.models.Swagger;
+import io.swagger.v3.oas.models.OpenAPI;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Decoratore di {@link OpenApiDowngrader} che memorizza i risultati delle conversioni su
+ * {@code String} in una {@link ConversionCache}. Le varianti a stream, file e buffer sono pensate
+ * per specifiche grandi e vengono delegate senza cache, come quelle su alberi e modelli.
+ */
+public class CachingOpenApiDowngrader implements OpenApiDowngrader {
+
+  private final OpenApiDowngrader delegate;
+  private final ConversionCache cache;
+  private final String configuration;
+
+  /**
+   * Crea il decoratore. Le voci della cache sono distinte per la configurazione del delegato
+   * descritta dal suo {@code toString()}, che per i converter del progetto comprende
+   * dereferenziamento e limiti; per un delegato che non la ridefinisce le voci non sopravvivono ai
+   * riavvii.
+   *
+   * @param delegate converter da decorare
+   * @param cache    cache dei risultati, condivisibile tra decoratori
+   */
+  public CachingOpenApiDowngrader(OpenApiDowngrader delegate, ConversionCache cache) {
+    this(delegate, cache, delegate.toString());
+  }
+
+  /**
+   * Crea il decoratore con una descrizione esplicita della configurazione del delegato.
+   *
+   * @param delegate      converter da decorare
+   * @param cache         cache dei risultati, condivisibile tra decoratori
+   * @param configuration descrizione stabile di ciò che nel delegato influisce sul risultato
+   */
+  public CachingOpenApiDowngrader(OpenApiDowngrader delegate, ConversionCache cache,
+      String configuration) {
+    this.delegate = delegate;
+    this.cache = cache;
+    this.configuration = configuration;
+  }
+
+  @Override
+  public String convertToV2(String spec) throws Exception {
+    Format format = FormatUtils.isYaml(spec) ? Format.YAML : Format.JSON;
+    return convertToV2(spec, format);
+  }
+
+  @Override
+  public String convertToV2(String spec, Format format) throws Exception {
+    return cache.getOrConvert("v2", configuration, format, spec,
+        () -> delegate.convertToV2(spec, format));
+  }
+
+  /**
+   * Solo le opzioni predefinite di un formato passano dalla cache, che distingue i risultati per
+   * formato; le altre vengono delegate.
+   */
+  @Override
+  public String convertToV2(String spec, OutputOptions options) throws Exception {
+    Format format = options.encoding() == null ? null : options.encoding().format();
+    if (options.equals(OutputOptions.of(format))) {
+      return format == null ? convertToV2(spec) : convertToV2(spec, format);
+    }
+    return delegate.convertToV2(spec, options);
+  }
+
+  @Override
+  public void convertToV2(InputStream spec, OutputStream out) throws Exception {
+    delegate.convertToV2(spec, out);
+  }
+
+  @Override
+  public void convertToV2(InputStream spec, OutputStream out, Format format) throws Exception {
+    delegate.convertToV2(spec, out, format);
+  }
+
+  @Override
+  public void convertToV2(InputStream spec, OutputStream out, OutputOptions options)
+      throws Exception {
+    delegate.convertToV2(spec, out, options);
+  }
+
+  @Override
+  public void convertToV2(Reader spec, Writer out) throws Exception {
+    delegate.convertToV2(spec, out);
+  }
+
+  @Override
+  public void convertToV2(Reader spec, Writer out, Format format) throws Exception {
+    delegate.convertToV2(spec, out, format);
+  }
+
+  @Override
+  public void convertToV2(Path spec, Path out) throws Exception {
+    delegate.convertToV2(spec, out);
+  }
+
+  @Override
+  public void convertToV2(Path spec, Path out, Format format) throws Exception {
+    delegate.convertToV2(spec, out, format);
+  }
+
+  @Override
+  public void convertToV2(ByteBuffer spec, WritableByteChannel out) throws Exception {
+    delegate.convertToV2(spec, out);
+  }
+
+  @Override
+  public void convertToV2(ByteBuffer spec, WritableByteChannel out, Format format)
+      throws Exception {
+    delegate.convertToV2(spec, out, format);
+  }
+
+  /**
+   * Delega senza cache: il risultato dipende anche dai documenti riferiti, che possono cambiare.
+   */
+  @Override
+  public String convertToV2(ExternalRefResolver resolver, String root) throws Exception {
+    return delegate.convertToV2(resolver, root);
+  }
+
+  @Override
+  public String convertToV2(ExternalRefResolver resolver, String root, Format format)
+      throws Exception {
+    return delegate.convertToV2(resolver, root, format);
+  }
+
+  /**
+   * Delega senza cache: alberi e modelli sono mutabili e non hanno una chiave di contenuto
+   * economica da calcolare.
+   */
+  @Override
+  public JsonNode convertToV2(JsonNode openApi) throws Exception {
+    return delegate.convertToV2(openApi);
+  }
+
+  @Override
+  public String convertToV2(JsonNode openApi, Format format) throws Exception {
+    return delegate.convertToV2(openApi, format);
+  }
+
+  @Override
+  public JsonNode convertToV2(OpenAPI openApi) throws Exception {
+    return delegate.convertToV2(openApi);
+  }
+
+  @Override
+  public String convertToV2(OpenAPI openApi, Format format) throws Exception {
+    return delegate.convertToV2(openApi, format);
+  }
+
+  @Override
+  public Swagger convertToV2Model(OpenAPI openApi) throws Exception {
+    return delegate.convertToV2Model(openApi);
+  }
+
+  /**
+   * Delega il warm-up senza passare dalla cache, che altrimenti servirebbe le conversioni di prova
+   * dopo la prima.
+   */
+  @Override
+  public void warmUp() throws Exception {
+    delegate.warmUp();
+  }
+
+  /**
+   * Restituisce la cache usata dal decoratore.
+   *
+   * @return la cache condivisa
+   */
+  public ConversionCache getCache() {
+    return cache;
+  }
+}
@@ -0,0 +1,145 @@
+package com.patred.openapi.cache;
+
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.resolver.ExternalRefResolver;
+import com.patred.openapi.util.FormatUtils;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Decoratore di {@link OpenApiUpdater} che memorizza i risultati delle conversioni su
+ * {@code String} in una {@link ConversionCache}. Le varianti a stream, file e buffer sono pensate
+ * per specifiche grandi e vengono delegate senza cache.
+ */
+public class CachingOpenApiUpdater implements OpenApiUpdater {
+
+  private final OpenApiUpdater delegate;
+  private final ConversionCache cache;
+  private final String configuration;
+
+  /**
+   * Crea il decoratore. Le voci della cache sono distinte per la configurazione del delegato
+   * descritta dal suo {@code toString()}, che per i converter del progetto comprende
+   * dereferenziamento e limiti; per un delegato che non la ridefinisce le voci non sopravvivono ai
+   * riavvii.
+   *
+   * @param delegate converter da decorare
+   * @param cache    cache dei risultati, condivisibile tra decoratori
+   */
+  public CachingOpenApiUpdater(OpenApiUpdater delegate, ConversionCache cache) {
+    this(delegate, cache, delegate.toString());
+  }
+
+  /**
+   * Crea il decoratore con una descrizione esplicita della configurazione del delegato.
+   *
+   * @param delegate      converter da decorare
+   * @param cache         cache dei risultati, condivisibile tra decoratori
+   * @param configuration descrizione stabile di ciò che nel delegato influisce sul risultato
+   */
+  public CachingOpenApiUpdater(OpenApiUpdater delegate, ConversionCache cache,
+      String configuration) {
+    this.delegate = delegate;
+    this.cache = cache;
+    this.configuration = configuration;
+  }
+
+  @Override
+  public String convertToV3(String spec) throws Exception {
+    Format format = FormatUtils.isYaml(spec) ? Format.YAML : Format.JSON;
+    return convertToV3(spec, format);
+  }
+
+  @Override
+  public String convertToV3(String spec, Format format) throws Exception {
+    return cache.getOrConvert("v3", configuration, format, spec,
+        () -> delegate.convertToV3(spec, format));
+  }
+
+  /**
+   * Solo le opzioni predefinite di un formato passano dalla cache, che distingue i risultati per
+   * formato; le altre vengono delegate.
+   */
+  @Override
+  public String convertToV3(String spec, OutputOptions options) throws Exception {
+    Format format = options.encoding() == null ? null : options.encoding().format();
+    if (options.equals(OutputOptions.of(format))) {
+      return format == null ? convertToV3(spec) : convertToV3(spec, format);
+    }
+    return delegate.convertToV3(spec, options);
+  }
+
+  @Override
+  public void convertToV3(InputStream spec, OutputStream out) throws Exception {
+    delegate.convertToV3(spec, out);
+  }
+
+  @Override
+  public void convertToV3(InputStream spec, OutputStream out, Format format) throws Exception {
+    delegate.convertToV3(spec, out, format);
+  }
+
+  @Override
+  public void convertToV3(InputStream spec, OutputStream out, OutputOptions options)
+      throws Exception {
+    delegate.convertToV3(spec, out, options);
+  }
+
+  @Override
+  public void convertToV3(Path spec, Path out) throws Exception {
+    delegate.convertToV3(spec, out);
+  }
+
+  @Override
+  public void convertToV3(Path spec, Path out, Format format) throws Exception {
+    delegate.convertToV3(spec, out, format);
+  }
+
+  @Override
+  public void convertToV3(ByteBuffer spec, WritableByteChannel out) throws Exception {
+    delegate.convertToV3(spec, out);
+  }
+
+  @Override
+  public void convertToV3(ByteBuffer spec, WritableByteChannel out, Format format)
+      throws Exception {
+    delegate.convertToV3(spec, out, format);
+  }
+
+  /**
+   * Delega senza cache: il risultato dipende anche dai documenti riferiti, che possono cambiare.
+   */
+  @Override
+  public String convertToV3(ExternalRefResolver resolver, String root) throws Exception {
+    return delegate.convertToV3(resolver, root);
+  }
+
+  @Override
+  public String convertToV3(ExternalRefResolver resolver, String root, Format format)
+      throws Exception {
+    return delegate.convertToV3(resolver, root, format);
+  }
+
+  /**
+   * Delega il warm-up senza passare dalla cache, che altrimenti servirebbe le conversioni di prova
+   * dopo la prima.
+   */
+  @Override
+  public void warmUp() throws Exception {
+    delegate.warmUp();
+  }
+
+  /**
+   * Restituisce la cache usata dal decoratore.
+   *
+   * @return la cache condivisa
+   */
+  public ConversionCache getCache() {
+    return cache;
+  }
+}
@@ -0,0 +1,340 @@
+package com.patred.openapi.cache;
+
+import com.patred.openapi.model.Format;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Cache delle conversioni indirizzata per contenuto. La chiave è l'hash SHA-256 della specifica di
+ * input, della configurazione del converter e della versione della libreria, insieme alla
+ * direzione e al formato di output: specifiche identiche condividono lo stesso risultato
+ * indipendentemente da chi le invia, ma non tra converter configurati diversamente né tra una
+ * release e l'altra.
+ *
+ * <p>In memoria le voci sono limitate per numero e per dimensione stimata ed eliminate in ordine
+ * LRU. Se è indicata una directory, i risultati vengono anche salvati su disco e sopravvivono ai
+ * riavvii; oltre lo spazio indicato vengono eliminati i file letti o scritti meno di recente,
+ * comprese le voci delle versioni precedenti. La classe è thread-safe: le conversioni vengono
+ * eseguite fuori dal lock, per cui due richieste concorrenti della stessa specifica possono
+ * convertirla entrambe.
+ */
+public final class ConversionCache {
+
+  /**
+   * Spazio predefinito del livello su disco.
+   */
+  public static final long DEFAULT_DISK_BYTES = 1L << 30;
+
+  // Blocco di caratteri digeriti per volta, per non copiare l'intera specifica in un byte[]
+  private static final int DIGEST_CHUNK = 4096;
+  // Una release può cambiare l'output dei converter; fuori da un jar (IDE, test) non c'è versione
+  private static final String VERSION = version();
+  // Solo i file con il nome di una voce vengono contati e potati
+  private static final Pattern ENTRY = Pattern.compile("v\\d-(json|yaml)-[0-9a-f]{64}");
+
+  private final int maxEntries;
+  private final long maxBytes;
+  private final Path directory;
+  private final long maxDiskBytes;
+
+  private final LinkedHashMap<String, String> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long bytes;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  private final AtomicLong diskHits = new AtomicLong();
+  private final AtomicLong diskBytes = new AtomicLong();
+  private final Object diskLock = new Object();
+
+  /**
+   * Crea una cache solo in memoria.
+   *
+   * @param maxEntries numero massimo di voci in memoria
+   * @param maxBytes   dimensione massima stimata delle voci in memoria
+   */
+  public ConversionCache(int maxEntries, long maxBytes) {
+    this(maxEntries, maxBytes, null);
+  }
+
+  /**
+   * Crea una cache con un livello persistente su disco di al più {@link #DEFAULT_DISK_BYTES}.
+   *
+   * @param maxEntries numero massimo di voci in memoria
+   * @param maxBytes   dimensione massima stimata delle voci in memoria
+   * @param directory  directory del livello su disco, null per la sola memoria
+   */
+  public ConversionCache(int maxEntries, long maxBytes, Path directory) {
+    this(maxEntries, maxBytes, directory, DEFAULT_DISK_BYTES);
+  }
+
+  /**
+   * Crea una cache con un livello persistente su disco di dimensione limitata. I file già presenti
+   * nella directory vengono contati, e potati se eccedono il limite.
+   *
+   * @param maxEntries   numero massimo di voci in memoria
+   * @param maxBytes     dimensione massima stimata delle voci in memoria
+   * @param directory    directory del livello su disco, null per la sola memoria
+   * @param maxDiskBytes dimensione massima dei file nella directory
+   */
+  public ConversionCache(int maxEntries, long maxBytes, Path directory, long maxDiskBytes) {
+    if (maxEntries <= 0 || maxBytes <= 0 || maxDiskBytes <= 0) {
+      throw new IllegalArgumentException("I limiti della cache devono essere positivi");
+    }
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+    this.directory = directory;
+    this.maxDiskBytes = maxDiskBytes;
+    if (directory != null) {
+      try {
+        Files.createDirectories(directory);
+      } catch (IOException e) {
+        throw new UncheckedIOException("Directory della cache non utilizzabile: " + directory, e);
+      }
+      prune();
+    }
+  }
+
+  /**
+   * Come {@link #getOrConvert(String, String, Format, String, Callable)} con una configurazione
+   * vuota, per chi usa la cache con un solo converter.
+   *
+   * @param target     direzione della conversione (ad esempio "v2" o "v3")
+   * @param format     formato di output
+   * @param spec       specifica di input
+   * @param conversion conversione da eseguire in caso di miss
+   * @return la specifica convertita
+   * @throws Exception se la conversione fallisce
+   */
+  public String getOrConvert(String target, Format format, String spec,
+      Callable<String> conversion) throws Exception {
+    return getOrConvert(target, "", format, spec, conversion);
+  }
+
+  /**
+   * Restituisce il risultato in cache per la specifica o, se assente, esegue la conversione e lo
+   * memorizza. Le conversioni che falliscono non vengono memorizzate.
+   *
+   * @param target        direzione della conversione (ad esempio "v2" o "v3")
+   * @param configuration descrizione della configurazione del converter che influisce sul
+   *                      risultato (dereferenziamento, limiti); converter con configurazioni
+   *                      diverse non condividono le voci
+   * @param format        formato di output
+   * @param spec          specifica di input
+   * @param conversion    conversione da eseguire in caso di miss
+   * @return la specifica convertita
+   * @throws Exception se la conversione fallisce
+   */
+  public String getOrConvert(String target, String configuration, Format format, String spec,
+      Callable<String> conversion) throws Exception {
+    String key = target + '-' + format.name().toLowerCase()
+        + '-' + digest(VERSION + '\0' + configuration, spec);
+
+    String cached = get(key);
+    if (cached != null) {
+      hits.incrementAndGet();
+      return cached;
+    }
+
+    if (directory != null) {
+      cached = readDisk(key);
+      if (cached != null) {
+        hits.incrementAndGet();
+        diskHits.incrementAndGet();
+        put(key, cached);
+        return cached;
+      }
+    }
+
+    misses.incrementAndGet();
+    String result = conversion.call();
+    put(key, result);
+    if (directory != null) {
+      writeDisk(key, result);
+    }
+    return result;
+  }
+
+  /**
+   * Restituisce un'istantanea dei contatori.
+   *
+   * @return statistiche correnti
+   */
+  public synchronized CacheStats stats() {
+    return new CacheStats(hits.get(), misses.get(), evictions.get(), diskHits.get(),
+        entries.size(), bytes);
+  }
+
+  /**
+   * Svuota il livello in memoria; il livello su disco resta invariato.
+   */
+  public synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  private synchronized String get(String key) {
+    return entries.get(key);
+  }
+
+  private synchronized void put(String key, String value) {
+    long size = sizeOf(value);
+    if (size > maxBytes) {
+      return;
+    }
+    String previous = entries.put(key, value);
+    if (previous != null) {
+      bytes -= sizeOf(previous);
+    }
+    bytes += size;
+
+    Iterator<Map.Entry<String, String>> it = entries.entrySet().iterator();
+    while ((entries.size() > maxEntries || bytes > maxBytes) && it.hasNext()) {
+      Map.Entry<String, String> eldest = it.next();
+      bytes -= sizeOf(eldest.getValue());
+      it.remove();
+      evictions.incrementAndGet();
+    }
+  }
+
+  private String readDisk(String key) {
+    try {
+      Path file = directory.resolve(key);
+      String value = Files.readString(file, StandardCharsets.UTF_8);
+      // La data di modifica ordina le voci per la potatura: una lettura le rende recenti
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      return value;
+    } catch (IOException e) {
+      // Il livello su disco è un'ottimizzazione: un file assente o illeggibile equivale a un miss
+      return null;
+    }
+  }
+
+  private void writeDisk(String key, String value) {
+    Path tmp = null;
+    try {
+      // Scrittura su file temporaneo e rename atomico: un lettore non vede mai file parziali
+      tmp = Files.createTempFile(directory, key, ".tmp");
+      Files.writeString(tmp, value, StandardCharsets.UTF_8);
+      long size = Files.size(tmp);
+      Files.move(tmp, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      if (diskBytes.addAndGet(size) > maxDiskBytes) {
+        prune();
+      }
+    } catch (IOException e) {
+      deleteQuietly(tmp);
+    }
+  }
+
+  /**
+   * Ricalcola lo spazio occupato e, se supera il limite, elimina le voci meno recenti fino a
+   * scendere ai nove decimi, così la scansione non si ripete a ogni scrittura.
+   */
+  private void prune() {
+    synchronized (diskLock) {
+      record DiskEntry(Path path, long size, FileTime modified) {
+      }
+
+      List<DiskEntry> files = new ArrayList<>();
+      try (Stream<Path> list = Files.list(directory)) {
+        for (Path path : (Iterable<Path>) list::iterator) {
+          if (!ENTRY.matcher(path.getFileName().toString()).matches()) {
+            continue;
+          }
+          try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            files.add(new DiskEntry(path, attributes.size(), attributes.lastModifiedTime()));
+          } catch (IOException e) {
+            // Voce eliminata nel frattempo da un'altra istanza
+          }
+        }
+      } catch (IOException | UncheckedIOException e) {
+        return;
+      }
+
+      long total = 0;
+      for (DiskEntry file : files) {
+        total += file.size();
+      }
+      if (total > maxDiskBytes) {
+        files.sort(Comparator.comparing(DiskEntry::modified));
+        long target = maxDiskBytes / 10 * 9;
+        for (Iterator<DiskEntry> it = files.iterator(); total > target && it.hasNext(); ) {
+          DiskEntry eldest = it.next();
+          deleteQuietly(eldest.path());
+          total -= eldest.size();
+        }
+      }
+      diskBytes.set(total);
+    }
+  }
+
+  private static void deleteQuietly(Path path) {
+    if (path == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException ignored) {
+    }
+  }
+
+  private static long sizeOf(String value) {
+    return 2L * value.length();
+  }
+
+  private static String digest(String namespace, String spec) {
+    MessageDigest sha;
+    try {
+      sha = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 non disponibile", e);
+    }
+
+    byte[] chunk = new byte[DIGEST_CHUNK * 2];
+    update(sha, chunk, namespace);
+    // Il separatore impedisce che spazio dei nomi e specifica si confondano
+    sha.update(new byte[] {0, 0});
+    update(sha, chunk, spec);
+    return HexFormat.of().formatHex(sha.digest());
+  }
+
+  private static void update(MessageDigest sha, byte[] chunk, String text) {
+    int length = text.length();
+    for (int start = 0; start < length; start += DIGEST_CHUNK) {
+      int end = Math.min(length, start + DIGEST_CHUNK);
+      int n = 0;
+      for (int i = start; i < end; i++) {
+        char c = text.charAt(i);
+        chunk[n++] = (byte) (c >> 8);
+        chunk[n++] = (byte) c;
+      }
+      sha.update(chunk, 0, n);
+    }
+  }
+
+  private static String version() {
+    String version = ConversionCache.class.getPackage().getImplementationVersion();
+    return version == null ? "dev" : version;
+  }
+}
@@ -0,0 +1,402 @@
+package com.patred.openapi.cli;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.metrics.Target;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.Selection;
+import com.patred.openapi.validation.InvalidSpecException;
+import com.patred.openapi.validation.ValidatingOpenApiDowngrader;
+import com.patred.openapi.validation.ValidatingOpenApiUpdater;
+import com.patred.openapi.validation.ValidationError;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Punto di ingresso a riga di comando, pensato per gli script di build che convertono molte
+ * specifiche: ogni invocazione converte tutti i file indicati in un solo processo. L'avvio della
+ * JVM pesa più della conversione; l'archivio CDS e l'immagine nativa prodotti dai profili
+ * {@code cli} e {@code native} lo riducono.
+ *
+ * <p>Codici di uscita: {@value #OK} se tutte le conversioni riescono, {@value #FAILED} se almeno
+ * una fallisce (le altre vengono comunque eseguite), {@value #USAGE} per argomenti non validi.
+ */
+public final class ConverterCli {
+
+  static final int OK = 0;
+  static final int FAILED = 1;
+  static final int USAGE = 2;
+
+  private static final String USAGE_TEXT = """
+      Uso: openapi-converter <v3|v2> [opzioni] [file o glob ...]
+           openapi-converter warmup
+
+      Converte specifiche Swagger 2 in OpenAPI 3 (v3) o OpenAPI 3 in Swagger 2 (v2). Senza file,
+      o con "-", legge da stdin e scrive su stdout. I glob tra virgolette ("specs/**/*.yaml")
+      vengono espansi anche se la shell non lo fa; nella directory di output i file trovati
+      mantengono il percorso relativo alla parte del glob che precede il primo carattere speciale.
+      Un output viene scritto solo se la conversione riesce. Le opzioni di selezione sono
+      ripetibili; con una selezione restano solo i componenti usati dalle operazioni selezionate.
+
+      Opzioni:
+        -o, --output <percorso>   file di output, o directory se gli input sono più di uno
+        -f, --format <json|yaml>  formato di output; predefinito quello di ciascun input
+            --compact             output senza indentazione
+            --sorted              chiavi in ordine alfabetico
+            --tag <tag>           solo le operazioni con il tag indicato
+            --path <prefisso>     solo le operazioni sotto il prefisso di path indicato
+            --operation-id <id>   solo l'operazione indicata
+        -h, --help                mostra questo messaggio
+
+      warmup esegue solo le conversioni di prova, per registrare le classi usate in un archivio
+      CDS (-XX:ArchiveClassesAtExit).
+      """;
+
+  private final OpenApiUpdater updater;
+  private final OpenApiDowngrader downgrader;
+  private final InputStream stdin;
+  private final PrintStream stdout;
+  private final PrintStream stderr;
+
+  ConverterCli(OpenApiUpdater updater, OpenApiDowngrader downgrader, InputStream stdin,
+      PrintStream stdout, PrintStream stderr) {
+    this.updater = updater;
+    this.downgrader = downgrader;
+    this.stdin = stdin;
+    this.stdout = stdout;
+    this.stderr = stderr;
+  }
+
+  public static void main(String[] args) {
+    // Come il server, la CLI valida l'input prima di convertirlo: gli errori hanno una posizione
+    ConverterCli cli = new ConverterCli(new ValidatingOpenApiUpdater(new OpenApiUpdaterImpl()),
+        new ValidatingOpenApiDowngrader(new OpenApiDowngraderImpl()), System.in, System.out,
+        System.err);
+    int status = cli.run(args);
+    System.out.flush();
+    System.exit(status);
+  }
+
+  /**
+   * Esegue il comando.
+   *
+   * @param args argomenti della riga di comando
+   * @return codice di uscita
+   */
+  int run(String[] args) {
+    Command command;
+    try {
+      command = Command.parse(args);
+    } catch (IllegalArgumentException e) {
+      stderr.println(e.getMessage());
+      stderr.println();
+      stderr.print(USAGE_TEXT);
+      return USAGE;
+    }
+    if (command.help()) {
+      stdout.print(USAGE_TEXT);
+      return OK;
+    }
+    if (command.warmUp()) {
+      try {
+        updater.warmUp();
+        downgrader.warmUp();
+        return OK;
+      } catch (Exception e) {
+        stderr.println("warmup: " + e.getMessage());
+        return FAILED;
+      }
+    }
+
+    if (command.inputs().isEmpty() || command.inputs().equals(List.of("-"))) {
+      return command.output() == null
+          ? convert("-", stdin, stdout, command)
+          : convert("-", stdin, command.output(), command);
+    }
+
+    // File di input → percorso relativo che avrà nella directory di output
+    Map<Path, Path> files = new LinkedHashMap<>();
+    try {
+      for (String input : command.inputs()) {
+        Path base = globBase(input);
+        for (Path file : expand(input)) {
+          files.putIfAbsent(file, base == null ? file.getFileName() : base.relativize(file));
+        }
+      }
+    } catch (IllegalArgumentException | IOException e) {
+      stderr.println(e.getMessage());
+      return USAGE;
+    }
+
+    Path output = command.output();
+    boolean toDirectory = output != null && (files.size() > 1 || Files.isDirectory(output));
+    if (output == null && files.size() > 1) {
+      stderr.println("Con più input serve --output <directory>");
+      return USAGE;
+    }
+    Map<Path, Path> targets = new HashMap<>();
+    if (toDirectory) {
+      for (Map.Entry<Path, Path> entry : files.entrySet()) {
+        Path target = output.resolve(outputName(entry.getValue(), command.format()));
+        Path previous = targets.put(target.normalize(), entry.getKey());
+        if (previous != null) {
+          stderr.println(previous + " e " + entry.getKey() + " hanno lo stesso output: " + target);
+          return USAGE;
+        }
+        entry.setValue(target);
+      }
+    }
+
+    int status = OK;
+    for (Map.Entry<Path, Path> entry : files.entrySet()) {
+      Path file = entry.getKey();
+      int result;
+      try (InputStream in = Files.newInputStream(file)) {
+        if (output == null) {
+          result = convert(file.toString(), in, stdout, command);
+        } else {
+          Path target = toDirectory ? entry.getValue() : output;
+          if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+          }
+          result = convert(file.toString(), in, target, command);
+        }
+      } catch (IOException e) {
+        stderr.println(file + ": " + e.getMessage());
+        result = FAILED;
+      }
+      status = Math.max(status, result);
+    }
+    return status;
+  }
+
+  /**
+   * Converte in un file temporaneo accanto al target e lo sposta al suo posto solo se la
+   * conversione riesce: un input non valido non lascia file vuoti o parziali, né tronca un output
+   * precedente.
+   */
+  private int convert(String name, InputStream in, Path target, Command command) {
+    Path temp = target.resolveSibling("." + target.getFileName() + "." + ProcessHandle.current()
+        .pid() + ".tmp");
+    try {
+      int result;
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+        result = convert(name, in, out, command);
+      }
+      if (result == OK) {
+        move(temp, target);
+      }
+      return result;
+    } catch (IOException e) {
+      stderr.println(target + ": " + e.getMessage());
+      return FAILED;
+    } finally {
+      try {
+        Files.deleteIfExists(temp);
+      } catch (IOException e) {
+        stderr.println(temp + ": " + e.getMessage());
+      }
+    }
+  }
+
+  private static void move(Path source, Path target) throws IOException {
+    try {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  private int convert(String name, InputStream in, OutputStream out, Command command) {
+    try {
+      if (command.target() == Target.V3) {
+        updater.convertToV3(in, out, command.options());
+      } else {
+        downgrader.convertToV2(in, out, command.options());
+      }
+      out.flush();
+      return OK;
+    } catch (InvalidSpecException e) {
+      for (ValidationError error : e.errors()) {
+        stderr.println(name + ": " + error);
+      }
+      return FAILED;
+    } catch (Exception e) {
+      stderr.println(name + ": " + e.getMessage());
+      return FAILED;
+    }
+  }
+
+  /**
+   * Espande un glob relativo alla directory corrente; gli altri argomenti sono percorsi di file.
+   */
+  static List<Path> expand(String input) throws IOException {
+    int wildcard = firstWildcard(input);
+    if (wildcard < 0) {
+      Path file = Path.of(input);
+      if (!Files.isRegularFile(file)) {
+        throw new IllegalArgumentException("File non trovato: " + input);
+      }
+      return List.of(file);
+    }
+
+    // Si visita solo la parte del percorso che precede il primo carattere speciale
+    int slash = input.lastIndexOf('/', wildcard);
+    Path base = Path.of(slash < 0 ? "." : input.substring(0, slash + 1));
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + input);
+    List<Path> files;
+    try (Stream<Path> walk = Files.walk(base)) {
+      files = walk.filter(Files::isRegularFile)
+          .map(path -> slash < 0 ? base.relativize(path) : path)
+          .filter(matcher::matches)
+          .sorted()
+          .toList();
+    }
+    if (files.isEmpty()) {
+      throw new IllegalArgumentException("Nessun file corrisponde a " + input);
+    }
+    return files;
+  }
+
+  /**
+   * Directory da cui parte la visita di un glob, quella che precede il primo carattere speciale;
+   * null se l'argomento non è un glob. I file trovati sono relativi a questa directory, o alla
+   * directory corrente se il glob non ne indica una.
+   */
+  private static Path globBase(String input) {
+    int wildcard = firstWildcard(input);
+    if (wildcard < 0) {
+      return null;
+    }
+    int slash = input.lastIndexOf('/', wildcard);
+    return slash < 0 ? Path.of("") : Path.of(input.substring(0, slash + 1));
+  }
+
+  private static int firstWildcard(String input) {
+    for (int i = 0; i < input.length(); i++) {
+      if ("*?[{".indexOf(input.charAt(i)) >= 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static Path outputName(Path file, Format format) {
+    String name = file.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    if (format == null || dot < 0) {
+      return file;
+    }
+    return file.resolveSibling(name.substring(0, dot)
+        + (format == Format.YAML ? ".yaml" : ".json"));
+  }
+
+  /**
+   * Argomenti della riga di comando.
+   *
+   * @param target  direzione della conversione; null per {@code warmup} e {@code --help}
+   * @param warmUp  true per il comando {@code warmup}
+   * @param help    true per {@code --help}
+   * @param inputs  file, glob o {@code -}
+   * @param output  file o directory di output; null per stdout
+   * @param format  formato di output forzato; null per mantenere quello dell'input
+   * @param options opzioni di output
+   */
+  record Command(Target target, boolean warmUp, boolean help, List<String> inputs, Path output,
+                 Format format, OutputOptions options) {
+
+    static Command parse(String[] args) {
+      if (args.length == 0) {
+        throw new IllegalArgumentException("Comando mancante");
+      }
+      String name = args[0];
+      if (name.equals("-h") || name.equals("--help")) {
+        return new Command(null, false, true, List.of(), null, null, OutputOptions.DEFAULT);
+      }
+      if (name.equals("warmup")) {
+        if (args.length > 1) {
+          throw new IllegalArgumentException("warmup non accetta argomenti");
+        }
+        return new Command(null, true, false, List.of(), null, null, OutputOptions.DEFAULT);
+      }
+      Target target = switch (name) {
+        case "v3" -> Target.V3;
+        case "v2" -> Target.V2;
+        default -> throw new IllegalArgumentException("Comando sconosciuto: " + name);
+      };
+
+      List<String> inputs = new ArrayList<>();
+      Path output = null;
+      Format format = null;
+      boolean compact = false;
+      boolean sorted = false;
+      Selection selection = Selection.ALL;
+      for (int i = 1; i < args.length; i++) {
+        String arg = args[i];
+        switch (arg) {
+          case "-o", "--output" -> output = Path.of(value(args, ++i, arg));
+          case "-f", "--format" -> format = format(value(args, ++i, arg));
+          case "--compact" -> compact = true;
+          case "--sorted" -> sorted = true;
+          case "--tag" -> selection = selection.withTags(value(args, ++i, arg));
+          case "--path" -> selection = selection.withPathPrefixes(value(args, ++i, arg));
+          case "--operation-id" -> selection = selection.withOperationIds(value(args, ++i, arg));
+          case "-h", "--help" -> {
+            return new Command(null, false, true, List.of(), null, null, OutputOptions.DEFAULT);
+          }
+          default -> {
+            if (arg.startsWith("-") && !arg.equals("-")) {
+              throw new IllegalArgumentException("Opzione sconosciuta: " + arg);
+            }
+            inputs.add(arg);
+          }
+        }
+      }
+
+      OutputOptions options = (format == null ? OutputOptions.DEFAULT : OutputOptions.of(format))
+          .withSelection(selection);
+      if (compact) {
+        options = options.compact();
+      }
+      if (sorted) {
+        options = options.sorted();
+      }
+      return new Command(target, false, false, List.copyOf(inputs), output, format, options);
+    }
+
+    private static String value(String[] args, int index, String option) {
+      if (index >= args.length) {
+        throw new IllegalArgumentException("Valore mancante per " + option);
+      }
+      return args[index];
+    }
+
+    private static Format format(String value) {
+      return switch (value.toLowerCase(Locale.ROOT)) {
+        case "json" -> Format.JSON;
+        case "yaml", "yml" -> Format.YAML;
+        default -> throw new IllegalArgumentException("Formato sconosciuto: " + value);
+      };
+    }
+  }
+}
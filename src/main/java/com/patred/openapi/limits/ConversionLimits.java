@@ -0,0 +1,98 @@
+package com.patred.openapi.limits;
+
+/**
+ * Limiti applicati alla lettura delle specifiche, per contenere tempo e memoria di ogni
+ * conversione anche con input ostili o sbagliati. Le istanze sono immutabili: i metodi
+ * {@code with...} restituiscono una copia modificata. Un limite pari a {@link #NONE} è
+ * disattivato.
+ *
+ * <p>Gli alias YAML non hanno un limite proprio. Il downgrader li lascia come singoli token, senza
+ * espandere il nodo a cui puntano, quindi un "alias bomb" non moltiplica la memoria e resta coperto
+ * da {@link #maxTokens()}. L'updater li risolve per il modello swagger copiando il nodo ancorato: i
+ * nodi copiati contano come token, fino a un milione se i token non hanno limite, e rispettano
+ * {@link #maxNestingDepth()}.
+ *
+ * @param maxInputBytes   byte letti al massimo dall'input (caratteri per le stringhe)
+ * @param maxNestingDepth profondità massima di oggetti e array annidati
+ * @param maxTokens       numero massimo di token del documento
+ * @param maxStringLength lunghezza massima di un valore o di un nome in JSON, e in YAML quando il
+ *                        documento viene tradotto in JSON; con il parser YAML, e nelle sezioni che
+ *                        la conversione in streaming copia senza costruire l'albero, le stringhe
+ *                        sono contenute solo dal limite sull'input
+ */
+public record ConversionLimits(long maxInputBytes, int maxNestingDepth, long maxTokens,
+                               int maxStringLength) {
+
+  public static final int NONE = -1;
+
+  /**
+   * I limiti storici, quelli predefiniti di Jackson: profondità 500 e stringhe di 20 milioni di
+   * caratteri, nessun limite su input e token. Il YAML resta soggetto al limite di circa 3 milioni
+   * di caratteri di SnakeYAML.
+   */
+  public static final ConversionLimits DEFAULT = new ConversionLimits(NONE, 500, NONE,
+      20_000_000);
+
+  /**
+   * Limiti per input non fidati, ad esempio quelli ricevuti dal server: 32 MB, profondità 100,
+   * 2 milioni di token, stringhe di 1 milione di caratteri. Sono ampi per qualunque specifica
+   * reale: quelle pubbliche più grandi restano sotto i 10 MB e i 20 livelli.
+   */
+  public static final ConversionLimits UNTRUSTED = new ConversionLimits(32L << 20, 100,
+      2_000_000, 1 << 20);
+
+  public ConversionLimits {
+    if (maxInputBytes < NONE || maxNestingDepth < NONE || maxTokens < NONE
+        || maxStringLength < NONE) {
+      throw new IllegalArgumentException("I limiti devono essere positivi o NONE");
+    }
+  }
+
+  public ConversionLimits withMaxInputBytes(long maxInputBytes) {
+    return new ConversionLimits(maxInputBytes, maxNestingDepth, maxTokens, maxStringLength);
+  }
+
+  public ConversionLimits withMaxNestingDepth(int maxNestingDepth) {
+    return new ConversionLimits(maxInputBytes, maxNestingDepth, maxTokens, maxStringLength);
+  }
+
+  public ConversionLimits withMaxTokens(long maxTokens) {
+    return new ConversionLimits(maxInputBytes, maxNestingDepth, maxTokens, maxStringLength);
+  }
+
+  public ConversionLimits withMaxStringLength(int maxStringLength) {
+    return new ConversionLimits(maxInputBytes, maxNestingDepth, maxTokens, maxStringLength);
+  }
+
+  /**
+   * Valore del limite indicato.
+   *
+   * @param limit limite richiesto
+   * @return il valore, o {@link #NONE}
+   */
+  public long max(Limit limit) {
+    return switch (limit) {
+      case INPUT_BYTES -> maxInputBytes;
+      case NESTING_DEPTH -> maxNestingDepth;
+      case TOKENS -> maxTokens;
+      case STRING_LENGTH -> maxStringLength;
+    };
+  }
+
+  public enum Limit {
+    INPUT_BYTES("dimensione dell'input"),
+    NESTING_DEPTH("profondità di annidamento"),
+    TOKENS("numero di token"),
+    STRING_LENGTH("lunghezza di una stringa");
+
+    private final String description;
+
+    Limit(String description) {
+      this.description = description;
+    }
+
+    public String description() {
+      return description;
+    }
+  }
+}
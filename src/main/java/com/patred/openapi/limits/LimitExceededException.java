@@ -0,0 +1,37 @@
+package com.patred.openapi.limits;
+
+import com.patred.openapi.limits.ConversionLimits.Limit;
+
+/**
+ * Specifica rifiutata perché supera uno dei {@link ConversionLimits}. La lettura si interrompe
+ * appena il limite viene superato, senza consumare il resto dell'input.
+ */
+public class LimitExceededException extends IllegalArgumentException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final Limit limit;
+  private final long max;
+
+  /**
+   * Crea l'eccezione.
+   *
+   * @param limit limite superato
+   * @param max   valore del limite
+   * @param cause eccezione del parser che ha rilevato il superamento; può essere null
+   */
+  public LimitExceededException(Limit limit, long max, Throwable cause) {
+    super("Specifica troppo grande: " + limit.description() + " oltre il limite di " + max,
+        cause);
+    this.limit = limit;
+    this.max = max;
+  }
+
+  public Limit limit() {
+    return limit;
+  }
+
+  public long max() {
+    return max;
+  }
+}
@@ -0,0 +1,423 @@
+package com.patred.openapi.limits;
+
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactoryBuilder;
+import com.patred.openapi.limits.ConversionLimits.Limit;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.util.Mappers;
+import com.patred.openapi.util.ModelMappers;
+import com.patred.openapi.util.YamlTranscoder;
+import io.swagger.v3.core.util.ObjectMapperFactory;
+import java.io.FilterInputStream;
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import org.snakeyaml.engine.v2.api.LoadSettings;
+import org.yaml.snakeyaml.LoaderOptions;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.StreamReadConstraints;
+import tools.jackson.core.StreamReadFeature;
+import tools.jackson.core.exc.StreamConstraintsException;
+import tools.jackson.core.json.JsonFactory;
+import tools.jackson.core.json.JsonReadFeature;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+/**
+ * Reader delle specifiche che applicano un insieme di {@link ConversionLimits}, sia con Jackson 3
+ * (alberi e stream del downgrader) sia con Jackson 2 (alberi del modello swagger dell'updater).
+ * Profondità, token e lunghezza delle stringhe sono controllati dal parser tramite
+ * {@code StreamReadConstraints}; la dimensione dell'input viene contata sui byte letti. Ogni
+ * superamento diventa una {@link LimitExceededException}.
+ *
+ * <p>I documenti YAML ricevuti come {@code String} passano prima da {@link YamlTranscoder}:
+ * quelli nel sottoinsieme che sa tradurre vengono letti dal parser JSON, più veloce, gli altri dal
+ * parser YAML. Quelli letti da stream, compresi i parser a token creati da {@code createParser},
+ * restano sul parser YAML, che non richiede di tenere in memoria il testo del documento. Gli
+ * alberi YAML per il modello swagger vengono costruiti da {@link ModelYamlReader}, che risolve
+ * ancore e alias.
+ *
+ * <p>Con i limiti {@link ConversionLimits#DEFAULT} si usano i reader condivisi di {@link Mappers}
+ * e {@link ModelMappers}: il comportamento è quello storico. Le istanze sono immutabili e
+ * thread-safe; vanno create una volta per converter, perché ognuna costruisce i propri mapper.
+ */
+public final class LimitedReaders {
+
+  private static final LimitedReaders DEFAULT = new LimitedReaders(ConversionLimits.DEFAULT,
+      Mappers.reader(Format.JSON), Mappers.reader(Format.YAML), ModelMappers.reader(Format.JSON),
+      YAMLFactory.builder());
+
+  private final ConversionLimits limits;
+  private final ObjectReader json;
+  private final ObjectReader yaml;
+  private final ObjectReader yamlAsJson;
+  private final com.fasterxml.jackson.databind.ObjectReader modelJson;
+  private final ModelYamlReader modelYaml;
+  private final com.fasterxml.jackson.databind.ObjectReader modelYamlAsJson;
+
+  private LimitedReaders(ConversionLimits limits, ObjectReader json, ObjectReader yaml,
+      com.fasterxml.jackson.databind.ObjectReader modelJson, YAMLFactoryBuilder modelYaml) {
+    this.limits = limits;
+    this.json = json;
+    this.yaml = yaml;
+    this.yamlAsJson = json.with(JsonReadFeature.ALLOW_YAML_COMMENTS);
+    this.modelJson = modelJson;
+    this.modelYaml = new ModelYamlReader(modelYaml, modelJson.getConfig(), limits);
+    this.modelYamlAsJson = modelJson.with(
+        com.fasterxml.jackson.core.json.JsonReadFeature.ALLOW_YAML_COMMENTS);
+  }
+
+  /**
+   * Reader che applicano i limiti indicati.
+   *
+   * @param limits limiti da applicare
+   * @return l'istanza condivisa per {@link ConversionLimits#DEFAULT}, altrimenti una nuova
+   */
+  public static LimitedReaders of(ConversionLimits limits) {
+    if (limits.equals(ConversionLimits.DEFAULT)) {
+      return DEFAULT;
+    }
+    StreamReadConstraints constraints = StreamReadConstraints.builder()
+        .maxNestingDepth(orMax(limits.maxNestingDepth()))
+        .maxTokenCount(limits.maxTokens())
+        .maxStringLength(orMax(limits.maxStringLength()))
+        .build();
+    com.fasterxml.jackson.core.StreamReadConstraints modelConstraints =
+        com.fasterxml.jackson.core.StreamReadConstraints.builder()
+            .maxNestingDepth(orMax(limits.maxNestingDepth()))
+            .maxTokenCount(limits.maxTokens())
+            .maxStringLength(orMax(limits.maxStringLength()))
+            .build();
+
+    // SnakeYAML rifiuta di suo i documenti oltre circa 3 milioni di caratteri: qui il limite
+    // sull'input è già contato sui byte, quindi il suo viene alzato per non sovrapporsi
+    int codePoints = (int) Math.min(Integer.MAX_VALUE,
+        limits.maxInputBytes() == ConversionLimits.NONE ? Long.MAX_VALUE
+            : limits.maxInputBytes());
+    ObjectMapper json = new ObjectMapper(JsonFactory.builder()
+        .streamReadConstraints(constraints).build());
+    ObjectMapper yaml = new ObjectMapper(tools.jackson.dataformat.yaml.YAMLFactory.builder()
+        .streamReadConstraints(constraints)
+        .loadSettings(LoadSettings.builder().setCodePointLimit(codePoints)
+            .setAllowRecursiveKeys(false).build())
+        .build());
+    LoaderOptions options = new LoaderOptions();
+    options.setCodePointLimit(codePoints);
+    options.setAllowRecursiveKeys(false);
+    com.fasterxml.jackson.databind.ObjectMapper modelJson = ObjectMapperFactory.createJson(
+        com.fasterxml.jackson.core.JsonFactory.builder()
+            .streamReadConstraints(modelConstraints).build());
+
+    com.fasterxml.jackson.core.JsonParser.Feature autoClose =
+        com.fasterxml.jackson.core.JsonParser.Feature.AUTO_CLOSE_SOURCE;
+    return new LimitedReaders(limits,
+        json.reader().without(StreamReadFeature.AUTO_CLOSE_SOURCE),
+        yaml.reader().without(StreamReadFeature.AUTO_CLOSE_SOURCE),
+        modelJson.reader().without(autoClose),
+        YAMLFactory.builder().loaderOptions(options).streamReadConstraints(modelConstraints));
+  }
+
+  public ConversionLimits limits() {
+    return limits;
+  }
+
+  /**
+   * Legge un albero Jackson 3 da una stringa.
+   *
+   * @param spec   contenuto della specifica
+   * @param format formato della specifica
+   * @return radice del documento
+   * @throws LimitExceededException se la specifica supera un limite
+   */
+  public JsonNode readTree(String spec, Format format) {
+    checkSize(spec.length());
+    try {
+      if (format == Format.YAML) {
+        String json = YamlTranscoder.toJson(spec);
+        if (json != null) {
+          try {
+            return yamlAsJson.readTree(json);
+          } catch (StreamConstraintsException e) {
+            throw e;
+          } catch (JacksonException e) {
+            // Radice in linea che non è JSON: la legge il parser YAML
+          }
+        }
+      }
+      return reader(format).readTree(spec);
+    } catch (StreamConstraintsException e) {
+      throw exceeded(e);
+    }
+  }
+
+  /**
+   * Legge un albero Jackson 3 da uno stream, con il parser del formato indicato.
+   *
+   * @param in     stream posizionato all'inizio della specifica; non viene chiuso
+   * @param format formato della specifica
+   * @return radice del documento, {@code null} o un nodo mancante se è vuoto
+   * @throws LimitExceededException se la specifica supera un limite
+   */
+  public JsonNode readTree(InputStream in, Format format) {
+    try {
+      return reader(format).readTree(bound(in));
+    } catch (StreamConstraintsException e) {
+      throw exceeded(e);
+    }
+  }
+
+  /**
+   * Crea un parser Jackson 3 che smette di leggere oltre il limite sull'input. Gli altri limiti
+   * scattano durante la lettura dei token: chi legge deve tradurre le
+   * {@link StreamConstraintsException} con {@link #exceeded(StreamConstraintsException)}.
+   *
+   * @param in     stream posizionato all'inizio della specifica
+   * @param format formato della specifica
+   * @return parser da chiudere a cura del chiamante; lo stream non viene chiuso
+   */
+  public JsonParser createParser(InputStream in, Format format) {
+    return reader(format).createParser(bound(in));
+  }
+
+  /**
+   * Come {@link #createParser(InputStream, Format)}, con il limite contato in caratteri.
+   *
+   * @param in     reader posizionato all'inizio della specifica
+   * @param format formato della specifica
+   * @return parser da chiudere a cura del chiamante; il reader non viene chiuso
+   */
+  public JsonParser createParser(Reader in, Format format) {
+    return reader(format).createParser(bound(in));
+  }
+
+  /**
+   * Legge un albero Jackson 2, per il modello swagger, da una stringa.
+   *
+   * @param spec   contenuto della specifica
+   * @param format formato della specifica
+   * @return radice del documento
+   * @throws com.fasterxml.jackson.core.JsonProcessingException se il documento non è leggibile
+   * @throws LimitExceededException se la specifica supera un limite
+   */
+  public com.fasterxml.jackson.databind.JsonNode readModelTree(String spec, Format format)
+      throws com.fasterxml.jackson.core.JsonProcessingException {
+    checkSize(spec.length());
+    try {
+      if (format == Format.YAML) {
+        com.fasterxml.jackson.databind.JsonNode node = readModelYamlAsJson(spec);
+        if (node != null) {
+          return node;
+        }
+        return modelYaml.read(new StringReader(spec));
+      }
+      return modelJson.readTree(spec);
+    } catch (com.fasterxml.jackson.core.exc.StreamConstraintsException e) {
+      throw exceeded(e.getMessage(), e);
+    } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+      throw e;
+    } catch (IOException e) {
+      // Un reader su una stringa non fallisce in lettura
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Legge un albero Jackson 2, per il modello swagger, da uno stream; lo stream non viene chiuso.
+   * Il testo non viene mai tenuto in memoria per intero, quindi un YAML non passa dalla traduzione
+   * in JSON.
+   *
+   * @param in     stream posizionato all'inizio della specifica
+   * @param format formato della specifica
+   * @return radice del documento
+   * @throws IOException se la lettura fallisce o il documento non è leggibile
+   * @throws LimitExceededException se la specifica supera un limite
+   */
+  public com.fasterxml.jackson.databind.JsonNode readModelTree(InputStream in, Format format)
+      throws IOException {
+    try {
+      return format == Format.YAML ? modelYaml.read(bound(in)) : modelJson.readTree(bound(in));
+    } catch (com.fasterxml.jackson.core.exc.StreamConstraintsException e) {
+      throw exceeded(e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Controlla in anticipo la dimensione di un input già noto, ad esempio un file.
+   *
+   * @param size dimensione in byte (o in caratteri)
+   * @throws LimitExceededException se supera il limite sull'input
+   */
+  public void checkSize(long size) {
+    if (limits.maxInputBytes() != ConversionLimits.NONE && size > limits.maxInputBytes()) {
+      throw new LimitExceededException(Limit.INPUT_BYTES, limits.maxInputBytes(), null);
+    }
+  }
+
+  /**
+   * Traduce il superamento di un vincolo del parser Jackson 3 nel limite corrispondente.
+   *
+   * @param e eccezione del parser
+   * @return eccezione da lanciare
+   */
+  public LimitExceededException exceeded(StreamConstraintsException e) {
+    return exceeded(e.getMessage(), e);
+  }
+
+  private LimitExceededException exceeded(String message, Exception cause) {
+    // I due Jackson non indicano il vincolo se non nel messaggio, identico tra le versioni
+    Limit limit;
+    if (message.contains("nesting depth")) {
+      limit = Limit.NESTING_DEPTH;
+    } else if (message.startsWith("Token count")) {
+      limit = Limit.TOKENS;
+    } else if (message.startsWith("Document length")) {
+      limit = Limit.INPUT_BYTES;
+    } else {
+      limit = Limit.STRING_LENGTH;
+    }
+    return new LimitExceededException(limit, limits.max(limit), cause);
+  }
+
+  private com.fasterxml.jackson.databind.JsonNode readModelYamlAsJson(String spec)
+      throws com.fasterxml.jackson.core.exc.StreamConstraintsException {
+    String json = YamlTranscoder.toJson(spec);
+    if (json == null) {
+      return null;
+    }
+    try {
+      return modelYamlAsJson.readTree(json);
+    } catch (com.fasterxml.jackson.core.exc.StreamConstraintsException e) {
+      throw e;
+    } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+      // Radice in linea che non è JSON: la legge il parser YAML
+      return null;
+    }
+  }
+
+  private ObjectReader reader(Format format) {
+    return format == Format.YAML ? yaml : json;
+  }
+
+  /**
+   * Avvolge uno stream in modo che la lettura si interrompa con una {@link LimitExceededException}
+   * oltre il limite sull'input, contato in byte.
+   *
+   * @param in input da limitare
+   * @return lo stesso input se non c'è limite, altrimenti un wrapper senza mark/reset
+   */
+  public InputStream bound(InputStream in) {
+    return limits.maxInputBytes() == ConversionLimits.NONE ? in
+        : new BoundedInputStream(in, limits.maxInputBytes());
+  }
+
+  /**
+   * Avvolge un reader in modo che la lettura si interrompa con una {@link LimitExceededException}
+   * oltre il limite sull'input, contato in caratteri.
+   *
+   * @param in input da limitare
+   * @return lo stesso input se non c'è limite, altrimenti un wrapper senza mark/reset
+   */
+  public Reader bound(Reader in) {
+    return limits.maxInputBytes() == ConversionLimits.NONE ? in
+        : new BoundedReader(in, limits.maxInputBytes());
+  }
+
+  private static int orMax(int limit) {
+    return limit == ConversionLimits.NONE ? Integer.MAX_VALUE : limit;
+  }
+
+  private static final class BoundedInputStream extends FilterInputStream {
+
+    private final long max;
+    private long count;
+
+    BoundedInputStream(InputStream in, long max) {
+      super(in);
+      this.max = max;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        add(1);
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      add(n);
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      add(skipped);
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    private void add(long n) {
+      if (n > 0 && (count += n) > max) {
+        throw new LimitExceededException(Limit.INPUT_BYTES, max, null);
+      }
+    }
+  }
+
+  private static final class BoundedReader extends FilterReader {
+
+    private final long max;
+    private long count;
+
+    BoundedReader(Reader in, long max) {
+      super(in);
+      this.max = max;
+    }
+
+    @Override
+    public int read() throws IOException {
+      int c = super.read();
+      if (c >= 0) {
+        add(1);
+      }
+      return c;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+      int n = super.read(cbuf, off, len);
+      add(n);
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      add(skipped);
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+
+    private void add(long n) {
+      if (n > 0 && (count += n) > max) {
+        throw new LimitExceededException(Limit.INPUT_BYTES, max, null);
+      }
+    }
+  }
+}
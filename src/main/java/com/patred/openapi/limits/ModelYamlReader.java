@@ -0,0 +1,303 @@
+package com.patred.openapi.limits;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.StreamReadFeature;
+import com.fasterxml.jackson.core.io.IOContext;
+import com.fasterxml.jackson.databind.DeserializationConfig;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.MissingNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactoryBuilder;
+import com.fasterxml.jackson.dataformat.yaml.YAMLParser;
+import com.patred.openapi.limits.ConversionLimits.Limit;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.events.NodeEvent;
+
+/**
+ * Legge un albero Jackson 2, per il modello swagger, da un documento YAML risolvendo ancore,
+ * alias e chiavi di merge {@code <<}. Il parser YAML di Jackson restituisce un alias come una
+ * stringa con il nome dell'ancora, e il modello swagger lo scambierebbe per il valore: una risposta
+ * riusata con {@code *ok} diventerebbe la stringa {@code "ok"}. Il loader di swagger-parser
+ * risolve gli alias con SnakeYAML, ma solo su un testo tenuto in memoria per intero.
+ *
+ * <p>L'albero viene costruito token per token senza ricorsione, con gli stessi nodi di
+ * {@code ObjectReader.readTree}. Ogni alias diventa una copia del nodo ancorato, perché il modello
+ * non veda lo stesso nodo in due punti; i nodi copiati contano come token del documento e la
+ * profondità raggiunta con le copie è soggetta al limite di annidamento. Senza limite sui token
+ * si copiano al massimo {@link #ALIAS_NODES} nodi.
+ */
+final class ModelYamlReader {
+
+  static final long ALIAS_NODES = 1_000_000;
+
+  private static final String MERGE = "<<";
+
+  private final Factory factory;
+  private final JsonNodeFactory nodes;
+  private final boolean bigDecimals;
+  private final ConversionLimits limits;
+  private final long maxAliasNodes;
+
+  /**
+   * @param builder factory YAML con vincoli e opzioni di SnakeYAML già impostati
+   * @param config  configurazione del mapper del modello, per il tipo dei nodi numerici
+   * @param limits  limiti su token e profondità, applicati anche ai nodi copiati dagli alias
+   */
+  ModelYamlReader(YAMLFactoryBuilder builder, DeserializationConfig config,
+      ConversionLimits limits) {
+    this.factory = new Factory(builder.disable(StreamReadFeature.AUTO_CLOSE_SOURCE));
+    this.nodes = config.getNodeFactory();
+    this.bigDecimals = config.isEnabled(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS);
+    this.limits = limits;
+    this.maxAliasNodes = limits.maxTokens() == ConversionLimits.NONE ? ALIAS_NODES
+        : limits.maxTokens();
+  }
+
+  /**
+   * @param in stream posizionato all'inizio del documento; non viene chiuso
+   * @return radice del documento, {@link MissingNode} se è vuoto
+   * @throws IOException se la lettura fallisce o il documento non è leggibile
+   */
+  JsonNode read(InputStream in) throws IOException {
+    try (Parser parser = (Parser) factory.createParser(in)) {
+      return read(parser);
+    }
+  }
+
+  /**
+   * @param in reader posizionato all'inizio del documento; non viene chiuso
+   * @return radice del documento, {@link MissingNode} se è vuoto
+   * @throws IOException se la lettura fallisce o il documento non è leggibile
+   */
+  JsonNode read(Reader in) throws IOException {
+    try (Parser parser = (Parser) factory.createParser(in)) {
+      return read(parser);
+    }
+  }
+
+  private JsonNode read(Parser parser) throws IOException {
+    JsonToken token = parser.nextToken();
+    if (token == null) {
+      return MissingNode.getInstance();
+    }
+    Map<String, Anchored> anchors = new HashMap<>();
+    Deque<Container> open = new ArrayDeque<>();
+    long copied = 0;
+    while (true) {
+      if (token == null) {
+        throw new JsonParseException(parser, "documento YAML incompleto");
+      }
+      if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+        open.push(new Container(token == JsonToken.START_OBJECT ? nodes.objectNode()
+            : nodes.arrayNode(), parser.anchor()));
+        token = parser.nextToken();
+        continue;
+      }
+      if (token == JsonToken.FIELD_NAME) {
+        open.peek().field = parser.currentName();
+        token = parser.nextToken();
+        continue;
+      }
+
+      Anchored value;
+      String anchor;
+      if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+        Container done = open.pop();
+        value = new Anchored(done.node, done.size, done.height);
+        anchor = done.anchor;
+      } else if (parser.isCurrentAlias()) {
+        Anchored target = anchors.get(parser.getText());
+        if (target == null) {
+          throw new JsonParseException(parser, "alias senza ancora: *" + parser.getText());
+        }
+        copied += target.size;
+        if (copied > maxAliasNodes) {
+          throw new LimitExceededException(Limit.TOKENS, maxAliasNodes, null);
+        }
+        if (limits.maxNestingDepth() != ConversionLimits.NONE
+            && open.size() + target.height > limits.maxNestingDepth()) {
+          throw new LimitExceededException(Limit.NESTING_DEPTH, limits.maxNestingDepth(), null);
+        }
+        value = new Anchored(target.node.deepCopy(), target.size, target.height);
+        anchor = null;
+      } else {
+        value = new Anchored(scalar(parser, token), 1, 0);
+        anchor = parser.anchor();
+      }
+
+      if (anchor != null) {
+        anchors.put(anchor, value);
+      }
+      Container parent = open.peek();
+      if (parent == null) {
+        return value.node;
+      }
+      parent.add(value);
+      token = parser.nextToken();
+    }
+  }
+
+  /**
+   * Nodo scalare, come lo crea {@code JsonNodeDeserializer} con la configurazione del mapper.
+   */
+  private JsonNode scalar(JsonParser parser, JsonToken token) throws IOException {
+    switch (token) {
+      case VALUE_STRING:
+        return nodes.textNode(parser.getText());
+      case VALUE_NUMBER_INT:
+        return switch (parser.getNumberType()) {
+          case INT -> nodes.numberNode(parser.getIntValue());
+          case LONG -> nodes.numberNode(parser.getLongValue());
+          default -> nodes.numberNode(parser.getBigIntegerValue());
+        };
+      case VALUE_NUMBER_FLOAT:
+        if (bigDecimals || parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL) {
+          return nodes.numberNode(parser.getDecimalValue());
+        }
+        return nodes.numberNode(parser.getDoubleValue());
+      case VALUE_TRUE:
+      case VALUE_FALSE:
+        return nodes.booleanNode(token == JsonToken.VALUE_TRUE);
+      case VALUE_NULL:
+        return nodes.nullNode();
+      case VALUE_EMBEDDED_OBJECT:
+        Object embedded = parser.getEmbeddedObject();
+        if (embedded == null) {
+          return nodes.nullNode();
+        }
+        return embedded instanceof byte[] bytes ? nodes.binaryNode(bytes)
+            : nodes.pojoNode(embedded);
+      default:
+        throw new JsonParseException(parser, "token inatteso: " + token);
+    }
+  }
+
+  /**
+   * Nodo completato, con il numero di nodi e l'altezza del sottoalbero.
+   */
+  private record Anchored(JsonNode node, long size, int height) {
+  }
+
+  /**
+   * Oggetto o array ancora aperto.
+   */
+  private static final class Container {
+
+    final JsonNode node;
+    final String anchor;
+    String field;
+    long size = 1;
+    int height = 1;
+
+    Container(JsonNode node, String anchor) {
+      this.node = node;
+      this.anchor = anchor;
+    }
+
+    void add(Anchored value) {
+      size += value.size;
+      height = Math.max(height, value.height + 1);
+      if (node instanceof ArrayNode array) {
+        array.add(value.node);
+      } else if (!(MERGE.equals(field) && merge((ObjectNode) node, value.node))) {
+        ((ObjectNode) node).set(field, value.node);
+      }
+    }
+
+    /**
+     * Chiave di merge di YAML 1.1: le chiavi dell'oggetto, o degli oggetti in ordine, si
+     * aggiungono a quelle non dichiarate esplicitamente, prima o dopo il merge.
+     */
+    private static boolean merge(ObjectNode target, JsonNode value) {
+      if (value instanceof ArrayNode sources) {
+        for (JsonNode source : sources) {
+          if (!source.isObject()) {
+            return false;
+          }
+        }
+        sources.forEach(source -> mergeMissing(target, source));
+        return true;
+      }
+      if (value.isObject()) {
+        mergeMissing(target, value);
+        return true;
+      }
+      return false;
+    }
+
+    private static void mergeMissing(ObjectNode target, JsonNode source) {
+      for (Map.Entry<String, JsonNode> entry : source.properties()) {
+        target.putIfAbsent(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Factory che crea {@link Parser}; le opzioni sono quelle del builder.
+   */
+  private static final class Factory extends YAMLFactory {
+
+    private static final long serialVersionUID = 1L;
+
+    Factory(YAMLFactoryBuilder builder) {
+      super(builder);
+    }
+
+    @Override
+    protected YAMLParser _createParser(InputStream in, IOContext ctxt) throws IOException {
+      return new Parser(ctxt, _parserFeatures, _yamlParserFeatures, _loaderOptions,
+          _objectCodec, _createReader(in, null, ctxt));
+    }
+
+    @Override
+    protected YAMLParser _createParser(Reader r, IOContext ctxt) {
+      return new Parser(ctxt, _parserFeatures, _yamlParserFeatures, _loaderOptions,
+          _objectCodec, r);
+    }
+
+    @Override
+    protected YAMLParser _createParser(char[] data, int offset, int len, IOContext ctxt,
+        boolean recyclable) {
+      return new Parser(ctxt, _parserFeatures, _yamlParserFeatures, _loaderOptions,
+          _objectCodec, new CharArrayReader(data, offset, len));
+    }
+
+    @Override
+    protected YAMLParser _createParser(byte[] data, int offset, int len, IOContext ctxt)
+        throws IOException {
+      return new Parser(ctxt, _parserFeatures, _yamlParserFeatures, _loaderOptions,
+          _objectCodec, _createReader(data, offset, len, null, ctxt));
+    }
+  }
+
+  /**
+   * Parser che espone l'ancora dell'ultimo nodo letto: quello di Jackson la restituisce da
+   * {@code getObjectId()} per oggetti e array, ma non per gli scalari.
+   */
+  private static final class Parser extends YAMLParser {
+
+    Parser(IOContext ctxt, int parserFeatures, int formatFeatures, LoaderOptions options,
+        ObjectCodec codec, Reader reader) {
+      super(ctxt, parserFeatures, formatFeatures, options, codec, reader);
+    }
+
+    String anchor() {
+      return _lastEvent instanceof NodeEvent event ? event.getAnchor() : null;
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package com.patred.openapi.metrics;
+
+/**
+ * SPI per la strumentazione delle conversioni. Tutti i metodi hanno un'implementazione vuota, così
+ * un'implementazione può ridefinire solo quello che le interessa. I metodi vengono chiamati dal
+ * thread che esegue la conversione e devono essere thread-safe e veloci.
+ *
+ * <p>Con {@link #NOOP}, il default dei converter, non vengono letti orologi né avvolti stream.
+ */
+public interface ConversionMetrics {
+
+  /**
+   * Implementazione che non registra nulla.
+   */
+  ConversionMetrics NOOP = new ConversionMetrics() {
+  };
+
+  /**
+   * Durata di una fase conclusa.
+   *
+   * @param target destinazione della conversione
+   * @param phase  fase conclusa
+   * @param nanos  durata in nanosecondi
+   */
+  default void recordPhase(Target target, Phase phase, long nanos) {
+  }
+
+  /**
+   * Dimensioni di input e output di una conversione riuscita: byte UTF-8 per stringhe, stream,
+   * file e buffer, caratteri per {@code Reader}/{@code Writer}.
+   *
+   * @param target      destinazione della conversione
+   * @param inputBytes  dimensione dell'input
+   * @param outputBytes dimensione dell'output
+   */
+  default void recordSizes(Target target, long inputBytes, long outputBytes) {
+  }
+
+  /**
+   * Numero di path e operazioni di una conversione riuscita.
+   *
+   * @param target     destinazione della conversione
+   * @param paths      path item convertiti
+   * @param operations operazioni convertite
+   */
+  default void recordCounts(Target target, int paths, int operations) {
+  }
+
+  /**
+   * Conversione fallita.
+   *
+   * @param target destinazione della conversione
+   * @param error  eccezione che ha interrotto la conversione
+   */
+  default void recordFailure(Target target, Throwable error) {
+  }
+}
@@ -0,0 +1,108 @@
+package com.patred.openapi.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Istogramma log-lineare di valori non negativi, a dimensione fissa e senza lock. I valori fino a
+ * 15 hanno un bucket ciascuno; oltre, ogni potenza di due è divisa in 16 bucket, per un errore
+ * relativo sui percentili inferiore al 6,25%. Registrare un valore costa qualche operazione
+ * atomica e nessuna allocazione.
+ */
+public final class Histogram {
+
+  private static final int SUB_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BITS;
+  private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+  private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+  /**
+   * Registra un valore; i valori negativi vengono contati come zero.
+   *
+   * @param value valore da registrare
+   */
+  public void record(long value) {
+    long v = Math.max(0, value);
+    buckets.incrementAndGet(index(v));
+    count.incrementAndGet();
+    sum.addAndGet(v);
+    min.accumulate(v);
+    max.accumulate(v);
+  }
+
+  public long count() {
+    return count.get();
+  }
+
+  /**
+   * Valore al percentile richiesto, approssimato per eccesso al limite superiore del bucket.
+   *
+   * @param percentile percentile tra 0 e 100
+   * @return il valore, o 0 se l'istogramma è vuoto
+   */
+  public long percentile(double percentile) {
+    long total = count.get();
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += buckets.get(i);
+      if (seen >= rank) {
+        return Math.min(upperBound(i), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /**
+   * Istantanea dei valori principali. Con registrazioni concorrenti i campi possono riferirsi a
+   * momenti leggermente diversi.
+   */
+  public HistogramSnapshot snapshot() {
+    long total = count.get();
+    if (total == 0) {
+      return new HistogramSnapshot(0, 0, 0, 0, 0, 0, 0);
+    }
+    return new HistogramSnapshot(total, min.get(), max.get(), (double) sum.get() / total,
+        percentile(50), percentile(90), percentile(99));
+  }
+
+  public void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      buckets.set(i, 0);
+    }
+    count.set(0);
+    sum.set(0);
+    min.reset();
+    max.reset();
+  }
+
+  private static int index(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BITS;
+    int sub = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+    return SUB_BUCKETS + shift * SUB_BUCKETS + sub;
+  }
+
+  private static long upperBound(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+    int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+    long lower = (long) (SUB_BUCKETS + sub) << shift;
+    long width = 1L << shift;
+    return lower > Long.MAX_VALUE - width ? Long.MAX_VALUE : lower + width - 1;
+  }
+}
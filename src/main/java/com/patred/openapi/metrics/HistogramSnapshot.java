@@ -0,0 +1,16 @@
+package com.patred.openapi.metrics;
+
+/**
+ * Istantanea di un {@link Histogram}.
+ *
+ * @param count numero di valori registrati
+ * @param min   valore minimo
+ * @param max   valore massimo
+ * @param mean  media
+ * @param p50   mediana
+ * @param p90   90° percentile
+ * @param p99   99° percentile
+ */
+public record HistogramSnapshot(long count, long min, long max, double mean, long p50, long p90,
+                                long p99) {
+}
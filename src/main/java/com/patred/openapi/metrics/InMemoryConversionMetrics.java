@@ -0,0 +1,111 @@
+package com.patred.openapi.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementazione di {@link ConversionMetrics} che accumula tutto in memoria: un
+ * {@link Histogram} per ogni fase, per le dimensioni e per i conteggi, e un contatore dei
+ * fallimenti per tipo di eccezione. Thread-safe; gli istogrammi sono creati tutti nel costruttore,
+ * quindi la registrazione non alloca.
+ */
+public class InMemoryConversionMetrics implements ConversionMetrics {
+
+  private final Map<Target, Series> series = new EnumMap<>(Target.class);
+
+  public InMemoryConversionMetrics() {
+    for (Target target : Target.values()) {
+      series.put(target, new Series());
+    }
+  }
+
+  @Override
+  public void recordPhase(Target target, Phase phase, long nanos) {
+    series.get(target).phases.get(phase).record(nanos);
+  }
+
+  @Override
+  public void recordSizes(Target target, long inputBytes, long outputBytes) {
+    Series s = series.get(target);
+    s.inputBytes.record(inputBytes);
+    s.outputBytes.record(outputBytes);
+  }
+
+  @Override
+  public void recordCounts(Target target, int paths, int operations) {
+    Series s = series.get(target);
+    s.paths.record(paths);
+    s.operations.record(operations);
+  }
+
+  @Override
+  public void recordFailure(Target target, Throwable error) {
+    series.get(target).failures.computeIfAbsent(error.getClass().getName(), k -> new LongAdder())
+        .increment();
+  }
+
+  /**
+   * Durate di una fase, in nanosecondi.
+   */
+  public HistogramSnapshot phase(Target target, Phase phase) {
+    return series.get(target).phases.get(phase).snapshot();
+  }
+
+  public HistogramSnapshot inputBytes(Target target) {
+    return series.get(target).inputBytes.snapshot();
+  }
+
+  public HistogramSnapshot outputBytes(Target target) {
+    return series.get(target).outputBytes.snapshot();
+  }
+
+  public HistogramSnapshot paths(Target target) {
+    return series.get(target).paths.snapshot();
+  }
+
+  public HistogramSnapshot operations(Target target) {
+    return series.get(target).operations.snapshot();
+  }
+
+  /**
+   * Fallimenti per nome della classe dell'eccezione, in ordine alfabetico.
+   */
+  public Map<String, Long> failures(Target target) {
+    Map<String, Long> result = new TreeMap<>();
+    series.get(target).failures.forEach((type, count) -> result.put(type, count.sum()));
+    return result;
+  }
+
+  /**
+   * Azzera tutte le metriche.
+   */
+  public void reset() {
+    for (Series s : series.values()) {
+      s.phases.values().forEach(Histogram::reset);
+      s.inputBytes.reset();
+      s.outputBytes.reset();
+      s.paths.reset();
+      s.operations.reset();
+      s.failures.clear();
+    }
+  }
+
+  private static final class Series {
+
+    private final Map<Phase, Histogram> phases = new EnumMap<>(Phase.class);
+    private final Histogram inputBytes = new Histogram();
+    private final Histogram outputBytes = new Histogram();
+    private final Histogram paths = new Histogram();
+    private final Histogram operations = new Histogram();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    Series() {
+      for (Phase phase : Phase.values()) {
+        phases.put(phase, new Histogram());
+      }
+    }
+  }
+}
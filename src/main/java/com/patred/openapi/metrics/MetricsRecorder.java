@@ -0,0 +1,259 @@
+package com.patred.openapi.metrics;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.FilterReader;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * Registra le metriche di una singola conversione su un {@link ConversionMetrics}. Con
+ * {@link ConversionMetrics#NOOP} viene restituita un'istanza condivisa i cui metodi non fanno
+ * nulla. Non è thread-safe: appartiene al thread che esegue la conversione.
+ */
+public final class MetricsRecorder {
+
+  private static final MetricsRecorder DISABLED = new MetricsRecorder(ConversionMetrics.NOOP, null);
+
+  private final ConversionMetrics metrics;
+  private final Target target;
+
+  private long last;
+  private boolean counting;
+  private long inputSize;
+  private long outputSize;
+
+  private MetricsRecorder(ConversionMetrics metrics, Target target) {
+    this.metrics = metrics;
+    this.target = target;
+  }
+
+  /**
+   * Avvia la misura di una conversione.
+   *
+   * @param metrics destinazione delle metriche
+   * @param target  destinazione della conversione
+   * @return il recorder, inattivo se {@code metrics} è {@link ConversionMetrics#NOOP}
+   */
+  public static MetricsRecorder start(ConversionMetrics metrics, Target target) {
+    if (metrics == ConversionMetrics.NOOP) {
+      return DISABLED;
+    }
+    MetricsRecorder recorder = new MetricsRecorder(metrics, target);
+    recorder.last = System.nanoTime();
+    return recorder;
+  }
+
+  /**
+   * Recorder inattivo, per le conversioni non strumentate.
+   *
+   * @return l'istanza condivisa che non registra nulla
+   */
+  public static MetricsRecorder disabled() {
+    return DISABLED;
+  }
+
+  public boolean enabled() {
+    return this != DISABLED;
+  }
+
+  /**
+   * Chiude la fase in corso, che inizia alla chiamata precedente (o all'avvio).
+   *
+   * @param phase fase conclusa
+   */
+  public void lap(Phase phase) {
+    if (this == DISABLED) {
+      return;
+    }
+    long now = System.nanoTime();
+    metrics.recordPhase(target, phase, now - last);
+    last = now;
+  }
+
+  /**
+   * Registra le dimensioni in byte UTF-8 di input e output testuali.
+   */
+  public void sizes(CharSequence input, CharSequence output) {
+    if (this != DISABLED) {
+      metrics.recordSizes(target, utf8Length(input), utf8Length(output));
+    }
+  }
+
+  public void counts(int paths, int operations) {
+    if (this != DISABLED) {
+      metrics.recordCounts(target, paths, operations);
+    }
+  }
+
+  public void failed(Throwable error) {
+    if (this != DISABLED) {
+      metrics.recordFailure(target, error);
+    }
+  }
+
+  /**
+   * Registra le dimensioni contate dagli stream restituiti da {@code count}, se ce ne sono.
+   */
+  public void finish() {
+    if (counting) {
+      metrics.recordSizes(target, inputSize, outputSize);
+    }
+  }
+
+  /**
+   * Conta i byte letti dallo stream. Va applicato dopo il riconoscimento del formato: lo stream
+   * restituito non supporta mark/reset.
+   *
+   * @param in stream di input
+   * @return lo stesso stream se il recorder è inattivo
+   */
+  public InputStream count(InputStream in) {
+    if (this == DISABLED) {
+      return in;
+    }
+    counting = true;
+    return new FilterInputStream(in) {
+      @Override
+      public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+          inputSize++;
+        }
+        return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+          inputSize += n;
+        }
+        return n;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        inputSize += skipped;
+        return skipped;
+      }
+
+      @Override
+      public boolean markSupported() {
+        return false;
+      }
+    };
+  }
+
+  public OutputStream count(OutputStream out) {
+    if (this == DISABLED) {
+      return out;
+    }
+    counting = true;
+    return new FilterOutputStream(out) {
+      @Override
+      public void write(int b) throws IOException {
+        out.write(b);
+        outputSize++;
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+        outputSize += len;
+      }
+    };
+  }
+
+  /**
+   * Conta i caratteri letti dal reader. Va applicato dopo il riconoscimento del formato.
+   */
+  public Reader count(Reader in) {
+    if (this == DISABLED) {
+      return in;
+    }
+    counting = true;
+    return new FilterReader(in) {
+      @Override
+      public int read() throws IOException {
+        int c = super.read();
+        if (c >= 0) {
+          inputSize++;
+        }
+        return c;
+      }
+
+      @Override
+      public int read(char[] cbuf, int off, int len) throws IOException {
+        int n = super.read(cbuf, off, len);
+        if (n > 0) {
+          inputSize += n;
+        }
+        return n;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        inputSize += skipped;
+        return skipped;
+      }
+
+      @Override
+      public boolean markSupported() {
+        return false;
+      }
+    };
+  }
+
+  public Writer count(Writer out) {
+    if (this == DISABLED) {
+      return out;
+    }
+    counting = true;
+    return new FilterWriter(out) {
+      @Override
+      public void write(int c) throws IOException {
+        out.write(c);
+        outputSize++;
+      }
+
+      @Override
+      public void write(char[] cbuf, int off, int len) throws IOException {
+        out.write(cbuf, off, len);
+        outputSize += len;
+      }
+
+      @Override
+      public void write(String str, int off, int len) throws IOException {
+        out.write(str, off, len);
+        outputSize += len;
+      }
+    };
+  }
+
+  private static long utf8Length(CharSequence text) {
+    long length = 0;
+    int n = text.length();
+    for (int i = 0; i < n; i++) {
+      char c = text.charAt(i);
+      if (c < 0x80) {
+        length++;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < n
+          && Character.isLowSurrogate(text.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+}
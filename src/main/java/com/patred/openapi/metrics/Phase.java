@@ -0,0 +1,26 @@
+package com.patred.openapi.metrics;
+
+/**
+ * Fasi di una conversione di cui viene misurata la durata.
+ */
+public enum Phase {
+  /** Riconoscimento di formato e versione dal prefisso dell'input. */
+  DETECT,
+  /** Lettura del documento come albero. */
+  PARSE,
+  /** Conversione di {@code servers} in host/basePath/schemes (solo verso V2). */
+  SERVERS,
+  /** Conversione di {@code paths} (solo verso V2). */
+  PATHS,
+  /** Conversione di {@code components} (solo verso V2). */
+  COMPONENTS,
+  /** Lettura del modello Swagger 2 e conversione in OpenAPI 3 (solo verso V3). */
+  TRANSFORM,
+  /** Scrittura del documento convertito. */
+  SERIALIZE,
+  /**
+   * Conversione in streaming verso V2: lettura, conversione e scrittura sono interlacciate e
+   * vengono misurate insieme.
+   */
+  STREAM
+}
@@ -0,0 +1,11 @@
+package com.patred.openapi.metrics;
+
+/**
+ * Versione di destinazione di una conversione.
+ */
+public enum Target {
+  /** Swagger 2 → OpenAPI 3 ({@code OpenApiUpdater}). */
+  V3,
+  /** OpenAPI 3 → Swagger 2 ({@code OpenApiDowngrader}). */
+  V2
+}
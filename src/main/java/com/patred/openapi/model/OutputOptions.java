@@ -0,0 +1,168 @@
+package com.patred.openapi.model;
+
+/**
+ * Opzioni di scrittura della specifica convertita. Le istanze sono immutabili: i metodi
+ * {@code with...} restituiscono una copia modificata.
+ *
+ * @param encoding       codifica dell'output; null per mantenere il formato dell'input
+ * @param pretty         true per l'output indentato (solo JSON e YAML)
+ * @param sortKeys       true per ordinare alfabeticamente le chiavi di ogni oggetto
+ * @param yamlStyle      stile delle collezioni YAML
+ * @param minimizeQuotes true per omettere in YAML le virgolette non necessarie; false lascia lo
+ *                       stile predefinito del writer
+ * @param compression    compressione applicata ai byte scritti
+ * @param selection      operazioni da convertire, con i soli componenti che usano
+ */
+public record OutputOptions(Encoding encoding, boolean pretty, boolean sortKeys,
+                            YamlStyle yamlStyle, boolean minimizeQuotes,
+                            Compression compression, Selection selection) {
+
+  /**
+   * Le opzioni storiche: formato dell'input, indentato, chiavi nell'ordine originale.
+   */
+  public static final OutputOptions DEFAULT = new OutputOptions(null, true, false,
+      YamlStyle.BLOCK, false, Compression.NONE, Selection.ALL);
+
+  public OutputOptions {
+    if (yamlStyle == null) {
+      yamlStyle = YamlStyle.BLOCK;
+    }
+    if (compression == null) {
+      compression = Compression.NONE;
+    }
+    if (selection == null) {
+      selection = Selection.ALL;
+    }
+  }
+
+  /**
+   * Opzioni per l'intera specifica, come prima dell'introduzione di {@link Selection}.
+   */
+  public OutputOptions(Encoding encoding, boolean pretty, boolean sortKeys, YamlStyle yamlStyle,
+      boolean minimizeQuotes, Compression compression) {
+    this(encoding, pretty, sortKeys, yamlStyle, minimizeQuotes, compression, Selection.ALL);
+  }
+
+  /**
+   * Opzioni predefinite con il formato di output indicato.
+   *
+   * @param format YAML o JSON; null per mantenere il formato dell'input
+   * @return opzioni equivalenti alle varianti con {@link Format}
+   */
+  public static OutputOptions of(Format format) {
+    return DEFAULT.withEncoding(Encoding.of(format));
+  }
+
+  public OutputOptions withEncoding(Encoding encoding) {
+    return new OutputOptions(encoding, pretty, sortKeys, yamlStyle, minimizeQuotes, compression,
+        selection);
+  }
+
+  public OutputOptions compact() {
+    return new OutputOptions(encoding, false, sortKeys, yamlStyle, minimizeQuotes, compression,
+        selection);
+  }
+
+  public OutputOptions sorted() {
+    return new OutputOptions(encoding, pretty, true, yamlStyle, minimizeQuotes, compression,
+        selection);
+  }
+
+  public OutputOptions withYamlStyle(YamlStyle yamlStyle) {
+    return new OutputOptions(encoding, pretty, sortKeys, yamlStyle, minimizeQuotes, compression,
+        selection);
+  }
+
+  public OutputOptions withMinimizedQuotes() {
+    return new OutputOptions(encoding, pretty, sortKeys, yamlStyle, true, compression, selection);
+  }
+
+  public OutputOptions withCompression(Compression compression) {
+    return new OutputOptions(encoding, pretty, sortKeys, yamlStyle, minimizeQuotes, compression,
+        selection);
+  }
+
+  /**
+   * Limita la conversione alle operazioni selezionate e ai componenti che raggiungono, vedi
+   * {@link Selection}.
+   *
+   * @param selection operazioni da convertire
+   * @return opzioni con la selezione indicata
+   */
+  public OutputOptions withSelection(Selection selection) {
+    return new OutputOptions(encoding, pretty, sortKeys, yamlStyle, minimizeQuotes, compression,
+        selection);
+  }
+
+  /**
+   * Codifica effettiva per un input nel formato indicato.
+   *
+   * @param input formato dell'input
+   * @return la codifica richiesta, o quella dell'input se non indicata
+   */
+  public Encoding resolve(Format input) {
+    return encoding == null ? Encoding.of(input) : encoding;
+  }
+
+  /**
+   * Indica se l'output è testo non compresso, e quindi rappresentabile come {@code String}.
+   *
+   * @return true se la codifica non è binaria e non c'è compressione
+   */
+  public boolean isText() {
+    return (encoding == null || !encoding.isBinary()) && compression == Compression.NONE;
+  }
+
+  public enum Encoding {
+    JSON, YAML, CBOR, SMILE;
+
+    /**
+     * Codifica testuale corrispondente a un formato.
+     *
+     * @param format YAML o JSON; può essere null
+     * @return la codifica, o null se il formato è null
+     */
+    public static Encoding of(Format format) {
+      if (format == null) {
+        return null;
+      }
+      return format == Format.YAML ? YAML : JSON;
+    }
+
+    public boolean isBinary() {
+      return this == CBOR || this == SMILE;
+    }
+
+    /**
+     * Formato testuale corrispondente.
+     *
+     * @return YAML o JSON, o null per le codifiche binarie
+     */
+    public Format format() {
+      return switch (this) {
+        case JSON -> Format.JSON;
+        case YAML -> Format.YAML;
+        default -> null;
+      };
+    }
+  }
+
+  public enum YamlStyle {
+    /**
+     * Collezioni su più righe con indentazione.
+     */
+    BLOCK,
+    /**
+     * Collezioni in linea, come in JSON.
+     */
+    FLOW
+  }
+
+  public enum Compression {
+    NONE, GZIP,
+    /**
+     * Richiede {@code com.github.luben:zstd-jni} nel classpath.
+     */
+    ZSTD
+  }
+}
@@ -0,0 +1,124 @@
+package com.patred.openapi.model;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Parte di una specifica da convertire: le operazioni con uno dei tag indicati, sotto uno dei
+ * prefissi di path indicati o con uno degli operationId indicati. I criteri non vuoti devono essere
+ * soddisfatti tutti; un criterio vuoto non filtra. Le istanze sono immutabili: i metodi
+ * {@code with...} restituiscono una copia con i valori aggiunti.
+ *
+ * @param tags         tag ammessi
+ * @param pathPrefixes prefissi di path ammessi, confrontati per segmenti: {@code /pets} comprende
+ *                     {@code /pets} e {@code /pets/{id}} ma non {@code /petshop}
+ * @param operationIds operationId ammessi
+ */
+public record Selection(Set<String> tags, Set<String> pathPrefixes, Set<String> operationIds) {
+
+  /**
+   * L'intera specifica.
+   */
+  public static final Selection ALL = new Selection(Set.of(), Set.of(), Set.of());
+
+  public Selection {
+    tags = tags == null ? Set.of() : copy(tags);
+    pathPrefixes = pathPrefixes == null ? Set.of() : copy(pathPrefixes);
+    operationIds = operationIds == null ? Set.of() : copy(operationIds);
+    for (String prefix : pathPrefixes) {
+      if (!prefix.startsWith("/")) {
+        throw new IllegalArgumentException("Il prefisso di path deve iniziare con '/': " + prefix);
+      }
+    }
+  }
+
+  public Selection withTags(String... tags) {
+    return new Selection(union(this.tags, tags), pathPrefixes, operationIds);
+  }
+
+  public Selection withPathPrefixes(String... pathPrefixes) {
+    return new Selection(tags, union(this.pathPrefixes, pathPrefixes), operationIds);
+  }
+
+  public Selection withOperationIds(String... operationIds) {
+    return new Selection(tags, pathPrefixes, union(this.operationIds, operationIds));
+  }
+
+  /**
+   * Indica se la selezione comprende l'intera specifica.
+   *
+   * @return true se nessun criterio filtra
+   */
+  public boolean isAll() {
+    return tags.isEmpty() && pathPrefixes.isEmpty() && operationIds.isEmpty();
+  }
+
+  /**
+   * Indica se le operazioni di un path possono essere selezionate, in base ai soli prefissi.
+   *
+   * @param path chiave di {@code paths}
+   * @return true se il path ricade sotto uno dei prefissi, o se non ci sono prefissi
+   */
+  public boolean matchesPath(String path) {
+    if (pathPrefixes.isEmpty()) {
+      return true;
+    }
+    for (String prefix : pathPrefixes) {
+      if (path.startsWith(prefix) && (prefix.endsWith("/") || path.length() == prefix.length()
+          || path.charAt(prefix.length()) == '/')) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Indica se un'operazione è selezionata.
+   *
+   * @param path        chiave di {@code paths} dell'operazione
+   * @param operationId operationId dell'operazione; null se assente
+   * @param tags        tag dell'operazione
+   * @return true se l'operazione soddisfa tutti i criteri non vuoti
+   */
+  public boolean matches(String path, String operationId, Collection<String> tags) {
+    if (!matchesPath(path)) {
+      return false;
+    }
+    if (!operationIds.isEmpty() && (operationId == null || !operationIds.contains(operationId))) {
+      return false;
+    }
+    if (this.tags.isEmpty()) {
+      return true;
+    }
+    for (String tag : tags) {
+      if (this.tags.contains(tag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Indica se la selezione filtra solo per path, e quindi vale anche per i path item che non
+   * dichiarano le proprie operazioni (un {@code $ref} a un path item esterno).
+   *
+   * @return true se tag e operationId non filtrano
+   */
+  public boolean pathsOnly() {
+    return tags.isEmpty() && operationIds.isEmpty();
+  }
+
+  private static Set<String> union(Set<String> current, String... values) {
+    Set<String> union = new LinkedHashSet<>(current);
+    union.addAll(List.of(values));
+    return union;
+  }
+
+  private static Set<String> copy(Set<String> values) {
+    // List.copyOf rifiuta i null; l'ordine di inserimento resta quello indicato
+    return Collections.unmodifiableSet(new LinkedHashSet<>(List.copyOf(values)));
+  }
+}
@@ -0,0 +1,11 @@
+package com.patred.openapi.model;
+
+/**
+ * Formato e versione di una specifica, rilevati una sola volta all'inizio della conversione.
+ *
+ * @param format  formato dell'input (YAML o JSON)
+ * @param version versione dichiarata nei primi byte, {@link SpecVersion#UNKNOWN} se non trovata
+ */
+public record SpecInfo(Format format, SpecVersion version) {
+
+}
@@ -0,0 +1,5 @@
+package com.patred.openapi.model;
+
+public enum SpecVersion {
+  SWAGGER_2, OPENAPI_3, UNKNOWN
+}
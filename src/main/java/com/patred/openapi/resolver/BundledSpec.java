@@ -0,0 +1,14 @@
+package com.patred.openapi.resolver;
+
+import com.patred.openapi.model.SpecInfo;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Specifica divisa su più file, ricomposta in un unico documento senza riferimenti esterni.
+ *
+ * @param document albero del documento; può condividere nodi con la cache del resolver e non va
+ *                 modificato
+ * @param info     formato e versione del documento principale
+ */
+public record BundledSpec(JsonNode document, SpecInfo info) {
+}
@@ -0,0 +1,42 @@
+package com.patred.openapi.resolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Origine dei documenti di una specifica divisa su più file. Le posizioni sono stringhe opache per
+ * i converter: la sorgente decide come risolvere un riferimento relativo e come leggere il
+ * documento. Le implementazioni devono essere thread-safe, perché i documenti vengono caricati in
+ * parallelo.
+ */
+public interface DocumentSource {
+
+  /**
+   * Risolve un riferimento relativo rispetto al documento che lo contiene.
+   *
+   * @param base     posizione canonica del documento che contiene il riferimento
+   * @param relative parte del {@code $ref} che precede il {@code #}
+   * @return posizione canonica del documento riferito, usata come chiave di cache
+   * @throws IOException se la posizione non è risolvibile
+   */
+  String resolve(String base, String relative) throws IOException;
+
+  /**
+   * Versione corrente del documento, per esempio la data di modifica del file. Un documento in
+   * cache viene riletto quando la versione cambia.
+   *
+   * @param location posizione canonica
+   * @return versione del documento
+   * @throws IOException se il documento non esiste
+   */
+  long version(String location) throws IOException;
+
+  /**
+   * Apre il documento in lettura.
+   *
+   * @param location posizione canonica
+   * @return stream del contenuto (JSON o YAML), chiuso dal chiamante
+   * @throws IOException se il documento non è leggibile
+   */
+  InputStream open(String location) throws IOException;
+}
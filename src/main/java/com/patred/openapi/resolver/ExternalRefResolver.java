@@ -0,0 +1,461 @@
+package com.patred.openapi.resolver;
+
+import com.patred.openapi.limits.ConversionLimits;
+import com.patred.openapi.limits.LimitExceededException;
+import com.patred.openapi.limits.LimitedReaders;
+import com.patred.openapi.model.SpecInfo;
+import com.patred.openapi.model.SpecVersion;
+import com.patred.openapi.util.FormatUtils;
+import com.patred.openapi.util.IoUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.JsonNodeFactory;
+import tools.jackson.databind.node.MissingNode;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * Risolve i {@code $ref} verso altri documenti di una specifica divisa su più file e la ricompone
+ * in un unico albero. I documenti raggiungibili dalla radice vengono caricati in parallelo, un
+ * livello di riferimenti alla volta, su un {@link ForkJoinPool} dedicato.
+ *
+ * <p>I documenti letti restano in cache, indicizzati per posizione canonica e versione (per i file,
+ * la data di modifica): usando lo stesso resolver per tutte le conversioni di un batch, un
+ * frammento condiviso viene letto e parsato una volta sola anche se richiesto da più thread
+ * insieme. Thread-safe.
+ *
+ * <p>I riferimenti esterni vengono sostituiti dal contenuto puntato; quelli locali di un documento
+ * esterno puntano al documento stesso e vengono trattati allo stesso modo. Un riferimento che
+ * torna al documento principale diventa locale. Se un riferimento richiama un frammento ancora in
+ * corso di inclusione (schema ricorsivo), il frammento viene aggiunto agli schemi del documento
+ * principale e referenziato da lì: {@code definitions} se il documento principale è Swagger 2,
+ * {@code components.schemas} altrimenti. I riferimenti remoti ({@code http://...}) restano
+ * invariati.
+ */
+public class ExternalRefResolver {
+
+  private final DocumentSource source;
+  private final int parallelism;
+  private final LimitedReaders readers;
+  private final Map<String, Entry> cache = new ConcurrentHashMap<>();
+  private final AtomicLong loads = new AtomicLong();
+
+  /**
+   * Crea un resolver con parallelismo pari ai core disponibili.
+   *
+   * @param source origine dei documenti
+   */
+  public ExternalRefResolver(DocumentSource source) {
+    this(source, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Crea un resolver.
+   *
+   * @param source      origine dei documenti
+   * @param parallelism numero massimo di documenti caricati contemporaneamente
+   */
+  public ExternalRefResolver(DocumentSource source, int parallelism) {
+    this(source, parallelism, ConversionLimits.DEFAULT);
+  }
+
+  /**
+   * Crea un resolver che applica i limiti a ogni documento letto: un frammento esterno non deve
+   * poter aggirare quelli del converter a cui viene passato il documento ricomposto.
+   *
+   * @param source      origine dei documenti
+   * @param parallelism numero massimo di documenti caricati contemporaneamente
+   * @param limits      limiti su dimensione, profondità, token e stringhe di ciascun documento
+   */
+  public ExternalRefResolver(DocumentSource source, int parallelism, ConversionLimits limits) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("Il parallelismo deve essere positivo");
+    }
+    this.source = source;
+    this.parallelism = parallelism;
+    this.readers = LimitedReaders.of(limits);
+  }
+
+  /**
+   * Carica il documento principale e quelli che riferisce e li ricompone in un unico albero.
+   *
+   * @param root posizione canonica del documento principale nella sorgente
+   * @return il documento senza riferimenti esterni
+   * @throws IOException              se un documento non è leggibile
+   * @throws IllegalArgumentException se un riferimento non punta a nulla
+   * @throws LimitExceededException   se un documento supera i limiti del resolver
+   */
+  public BundledSpec bundle(String root) throws IOException {
+    Map<String, Document> documents = loadAll(root);
+    Document main = documents.get(root);
+    JsonNode bundled = new Bundler(root, documents, main.info().version() == SpecVersion.SWAGGER_2)
+        .run(main.node());
+    return new BundledSpec(bundled, main.info());
+  }
+
+  /**
+   * Numero di documenti letti e parsati dalla sorgente, cioè non serviti dalla cache.
+   */
+  public long loads() {
+    return loads.get();
+  }
+
+  /**
+   * Numero di documenti attualmente in cache.
+   */
+  public int cachedDocuments() {
+    return cache.size();
+  }
+
+  /**
+   * Svuota la cache dei documenti.
+   */
+  public void clear() {
+    cache.clear();
+  }
+
+  private Map<String, Document> loadAll(String root) throws IOException {
+    Map<String, Document> documents = new HashMap<>();
+    List<String> pending = List.of(root);
+    ForkJoinPool pool = null;
+    try {
+      while (!pending.isEmpty()) {
+        List<Document> loaded;
+        if (pending.size() == 1) {
+          loaded = List.of(load(pending.get(0)));
+        } else {
+          if (pool == null) {
+            pool = new ForkJoinPool(parallelism);
+          }
+          loaded = loadParallel(pool, pending);
+        }
+
+        Set<String> next = new LinkedHashSet<>();
+        for (int i = 0; i < pending.size(); i++) {
+          documents.put(pending.get(i), loaded.get(i));
+        }
+        for (Document document : loaded) {
+          for (String target : document.references().values()) {
+            if (!documents.containsKey(target)) {
+              next.add(target);
+            }
+          }
+        }
+        pending = new ArrayList<>(next);
+      }
+    } finally {
+      if (pool != null) {
+        pool.shutdownNow();
+      }
+    }
+    return documents;
+  }
+
+  private List<Document> loadParallel(ForkJoinPool pool, List<String> locations)
+      throws IOException {
+    List<Callable<Document>> calls = new ArrayList<>(locations.size());
+    for (String location : locations) {
+      calls.add(() -> load(location));
+    }
+    try {
+      List<Document> loaded = new ArrayList<>(locations.size());
+      for (Future<Document> future : pool.invokeAll(calls)) {
+        loaded.add(future.get());
+      }
+      return loaded;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Caricamento dei riferimenti interrotto", e);
+    } catch (ExecutionException e) {
+      throw rethrow(e.getCause());
+    }
+  }
+
+  /**
+   * Restituisce il documento dalla cache se la versione coincide, altrimenti lo legge. Un solo
+   * thread legge un dato documento; gli altri attendono il suo risultato.
+   */
+  private Document load(String location) throws IOException {
+    long version = source.version(location);
+    CompletableFuture<Document> created = new CompletableFuture<>();
+    Entry entry = cache.compute(location, (key, old) ->
+        old != null && old.version() == version && !old.document().isCompletedExceptionally()
+            ? old : new Entry(version, created));
+
+    if (entry.document() == created) {
+      try {
+        created.complete(parse(location));
+        loads.incrementAndGet();
+      } catch (IOException | RuntimeException e) {
+        created.completeExceptionally(e);
+        cache.remove(location, entry);
+        throw e;
+      }
+    }
+    try {
+      return entry.document().join();
+    } catch (CompletionException e) {
+      throw rethrow(e.getCause());
+    }
+  }
+
+  private Document parse(String location) throws IOException {
+    JsonNode node;
+    SpecInfo info;
+    try (InputStream in = IoUtils.markable(source.open(location))) {
+      info = FormatUtils.detect(in);
+      node = readers.readTree(in, info.format());
+    }
+    if (node == null) {
+      node = MissingNode.getInstance();
+    }
+
+    Map<String, String> references = new HashMap<>();
+    collectReferences(location, node, references);
+    return new Document(node, info, references);
+  }
+
+  private void collectReferences(String location, JsonNode node, Map<String, String> references)
+      throws IOException {
+    if (node instanceof ObjectNode object) {
+      String file = filePart(object.get("$ref"));
+      if (file != null && !references.containsKey(file)) {
+        references.put(file, source.resolve(location, file));
+      }
+      for (Map.Entry<String, JsonNode> entry : object.properties()) {
+        collectReferences(location, entry.getValue(), references);
+      }
+    } else if (node instanceof ArrayNode array) {
+      for (JsonNode child : array) {
+        collectReferences(location, child, references);
+      }
+    }
+  }
+
+  /**
+   * Parte del riferimento che indica un altro documento, o null per i riferimenti locali, remoti
+   * o non testuali.
+   */
+  private static String filePart(JsonNode ref) {
+    if (ref == null || !ref.isString()) {
+      return null;
+    }
+    String value = ref.asString();
+    int hash = value.indexOf('#');
+    String file = hash < 0 ? value : value.substring(0, hash);
+    return file.isEmpty() || file.contains("://") ? null : file;
+  }
+
+  private static IOException rethrow(Throwable cause) {
+    if (cause instanceof IOException io) {
+      return io;
+    }
+    if (cause instanceof UncheckedIOException io) {
+      return io.getCause();
+    }
+    if (cause instanceof RuntimeException runtime) {
+      throw runtime;
+    }
+    if (cause instanceof Error error) {
+      throw error;
+    }
+    return new IOException(cause);
+  }
+
+  private record Entry(long version, CompletableFuture<Document> document) {
+  }
+
+  /**
+   * Documento parsato, con i suoi riferimenti esterni già risolti in posizioni canoniche.
+   */
+  private record Document(JsonNode node, SpecInfo info, Map<String, String> references) {
+  }
+
+  /**
+   * Ricomposizione di un singolo documento principale. Copy-on-write: i nodi in cache non vengono
+   * mai modificati. Non è thread-safe.
+   */
+  private static final class Bundler {
+
+    private final String root;
+    private final Map<String, Document> documents;
+    private final Map<String, JsonNode> included = new HashMap<>();
+    private final Set<String> including = new HashSet<>();
+    private final Map<String, String> hoisted = new LinkedHashMap<>();
+    // Percorso degli schemi nel documento principale: definitions o components/schemas
+    private final List<String> schemasPath;
+
+    Bundler(String root, Map<String, Document> documents, boolean swagger) {
+      this.root = root;
+      this.documents = documents;
+      this.schemasPath = swagger ? List.of("definitions") : List.of("components", "schemas");
+    }
+
+    JsonNode run(JsonNode node) {
+      JsonNode bundled = rewrite(root, node);
+      if (hoisted.isEmpty() || !(bundled instanceof ObjectNode document)) {
+        return bundled;
+      }
+
+      ObjectNode result = copy(document);
+      ObjectNode parent = result;
+      for (String segment : schemasPath) {
+        ObjectNode child = parent.get(segment) instanceof ObjectNode existing
+            ? copy(existing) : JsonNodeFactory.instance.objectNode();
+        parent.set(segment, child);
+        parent = child;
+      }
+      ObjectNode schemas = parent;
+      hoisted.forEach((key, name) -> schemas.set(name, included.get(key)));
+      return result;
+    }
+
+    private JsonNode rewrite(String location, JsonNode node) {
+      if (node instanceof ObjectNode object) {
+        JsonNode ref = object.get("$ref");
+        if (ref != null && ref.isString() && !ref.asString().contains("://")) {
+          JsonNode replaced = include(location, object, ref.asString());
+          if (replaced != null) {
+            return replaced;
+          }
+        }
+
+        ObjectNode copy = null;
+        for (Map.Entry<String, JsonNode> entry : object.properties()) {
+          JsonNode child = entry.getValue();
+          JsonNode result = rewrite(location, child);
+          if (result != child) {
+            if (copy == null) {
+              copy = copy(object);
+            }
+            copy.set(entry.getKey(), result);
+          }
+        }
+        return copy == null ? object : copy;
+      }
+
+      if (node instanceof ArrayNode array) {
+        ArrayNode copy = null;
+        for (int i = 0; i < array.size(); i++) {
+          JsonNode child = array.get(i);
+          JsonNode result = rewrite(location, child);
+          if (result != child && copy == null) {
+            copy = new ArrayNode(JsonNodeFactory.instance, array.size());
+            for (int j = 0; j < i; j++) {
+              copy.add(array.get(j));
+            }
+          }
+          if (copy != null) {
+            copy.add(result);
+          }
+        }
+        return copy == null ? array : copy;
+      }
+      return node;
+    }
+
+    /**
+     * Nodo che sostituisce il riferimento, o null se il riferimento resta invariato (riferimento
+     * locale del documento principale).
+     */
+    private JsonNode include(String location, ObjectNode refNode, String ref) {
+      int hash = ref.indexOf('#');
+      String file = hash < 0 ? ref : ref.substring(0, hash);
+      String fragment = hash < 0 ? "" : ref.substring(hash + 1);
+      String target = file.isEmpty() ? location : documents.get(location).references().get(file);
+
+      if (target.equals(root)) {
+        if (file.isEmpty()) {
+          return null;
+        }
+        ObjectNode local = copy(refNode);
+        local.put("$ref", "#" + fragment);
+        return local;
+      }
+
+      String key = target + "#" + fragment;
+      JsonNode done = included.get(key);
+      if (done != null) {
+        return done;
+      }
+      if (!including.add(key)) {
+        String name = hoisted.computeIfAbsent(key, k -> hoistedName(target, fragment));
+        ObjectNode cyclic = JsonNodeFactory.instance.objectNode();
+        cyclic.put("$ref", "#/" + String.join("/", schemasPath) + "/"
+            + name.replace("~", "~0").replace("/", "~1"));
+        return cyclic;
+      }
+      try {
+        JsonNode content = documents.get(target).node();
+        JsonNode pointed;
+        try {
+          pointed = fragment.isEmpty() ? content : content.at(fragment);
+        } catch (IllegalArgumentException e) {
+          pointed = MissingNode.getInstance();
+        }
+        if (pointed.isMissingNode()) {
+          throw new IllegalArgumentException(
+              "Riferimento non risolvibile: " + ref + " in " + location);
+        }
+        JsonNode result = rewrite(target, pointed);
+        included.put(key, result);
+        return result;
+      } finally {
+        including.remove(key);
+      }
+    }
+
+    /**
+     * Nome libero tra gli schemi del documento principale per un frammento incluso: l'ultimo
+     * segmento del puntatore o, in sua assenza, il nome del file senza estensione.
+     */
+    private String hoistedName(String target, String fragment) {
+      String base;
+      if (fragment.isEmpty() || fragment.equals("/")) {
+        base = target.substring(Math.max(target.lastIndexOf('/'), target.lastIndexOf('\\')) + 1);
+        int dot = base.lastIndexOf('.');
+        base = dot > 0 ? base.substring(0, dot) : base;
+      } else {
+        base = fragment.substring(fragment.lastIndexOf('/') + 1).replace("~1", "/")
+            .replace("~0", "~");
+      }
+
+      JsonNode existing = documents.get(root).node();
+      for (String segment : schemasPath) {
+        existing = existing.path(segment);
+      }
+      String name = base;
+      for (int i = 2; existing.has(name) || hoisted.containsValue(name); i++) {
+        name = base + "_" + i;
+      }
+      return name;
+    }
+
+    private static ObjectNode copy(ObjectNode node) {
+      ObjectNode copy = new ObjectNode(JsonNodeFactory.instance,
+          new LinkedHashMap<>(Math.max(2, node.size() * 4 / 3 + 1)));
+      for (Map.Entry<String, JsonNode> entry : node.properties()) {
+        copy.set(entry.getKey(), entry.getValue());
+      }
+      return copy;
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package com.patred.openapi.resolver;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Documenti sul file system locale. Le posizioni sono percorsi reali (simboli risolti), così lo
+ * stesso file raggiunto per strade diverse viene letto una volta sola; la versione è la data di
+ * ultima modifica.
+ */
+public class FileSystemSource implements DocumentSource {
+
+  /**
+   * Posizione canonica di un file, da passare come radice ai converter.
+   *
+   * @param file file della specifica principale
+   * @return percorso reale del file
+   * @throws IOException se il file non esiste
+   */
+  public static String location(Path file) throws IOException {
+    return file.toRealPath().toString();
+  }
+
+  @Override
+  public String resolve(String base, String relative) throws IOException {
+    Path parent = Path.of(base).getParent();
+    Path target = parent == null ? Path.of(relative) : parent.resolve(relative);
+    return target.toRealPath().toString();
+  }
+
+  @Override
+  public long version(String location) throws IOException {
+    return Files.getLastModifiedTime(Path.of(location)).toMillis();
+  }
+
+  @Override
+  public InputStream open(String location) throws IOException {
+    return Files.newInputStream(Path.of(location));
+  }
+}
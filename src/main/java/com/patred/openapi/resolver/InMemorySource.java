@@ -0,0 +1,73 @@
+package com.patred.openapi.resolver;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * Documenti in memoria, indicizzati per nome con percorsi in stile Unix (per esempio
+ * {@code api/root.yaml} e {@code api/schemas/pet.yaml}). I riferimenti relativi vengono risolti
+ * come percorsi e normalizzati; i contenuti sono immutabili, quindi la versione è sempre 0.
+ */
+public class InMemorySource implements DocumentSource {
+
+  private final Map<String, String> documents;
+
+  /**
+   * Crea la sorgente.
+   *
+   * @param documents contenuto (JSON o YAML) per nome del documento
+   */
+  public InMemorySource(Map<String, String> documents) {
+    this.documents = Map.copyOf(documents);
+  }
+
+  @Override
+  public String resolve(String base, String relative) throws IOException {
+    int slash = base.lastIndexOf('/');
+    String joined = relative.startsWith("/") || slash < 0 ? relative
+        : base.substring(0, slash + 1) + relative;
+
+    Deque<String> segments = new ArrayDeque<>();
+    for (String segment : joined.split("/")) {
+      if (segment.isEmpty() || segment.equals(".")) {
+        continue;
+      }
+      if (segment.equals("..")) {
+        if (segments.isEmpty()) {
+          throw new NoSuchFileException(relative, base, "fuori dalla radice");
+        }
+        segments.removeLast();
+      } else {
+        segments.addLast(segment);
+      }
+    }
+    String location = (joined.startsWith("/") ? "/" : "") + String.join("/", segments);
+    if (!documents.containsKey(location)) {
+      throw new NoSuchFileException(location);
+    }
+    return location;
+  }
+
+  @Override
+  public long version(String location) throws IOException {
+    if (!documents.containsKey(location)) {
+      throw new NoSuchFileException(location);
+    }
+    return 0;
+  }
+
+  @Override
+  public InputStream open(String location) throws IOException {
+    String content = documents.get(location);
+    if (content == null) {
+      throw new NoSuchFileException(location);
+    }
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
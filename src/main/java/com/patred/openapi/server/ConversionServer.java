@@ -0,0 +1,431 @@
+package com.patred.openapi.server;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.limits.ConversionLimits;
+import com.patred.openapi.limits.LimitExceededException;
+import com.patred.openapi.metrics.HistogramSnapshot;
+import com.patred.openapi.metrics.InMemoryConversionMetrics;
+import com.patred.openapi.metrics.Phase;
+import com.patred.openapi.metrics.Target;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.OutputOptions.Compression;
+import com.patred.openapi.model.Selection;
+import com.patred.openapi.util.FormatUtils;
+import com.patred.openapi.util.IoUtils;
+import com.patred.openapi.util.Mappers;
+import com.patred.openapi.validation.InvalidSpecException;
+import com.patred.openapi.validation.SpecValidator;
+import com.patred.openapi.validation.ValidatingOpenApiDowngrader;
+import com.patred.openapi.validation.ValidatingOpenApiUpdater;
+import com.patred.openapi.validation.ValidationError;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.JsonNodeFactory;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * Server HTTP di conversione basato su {@link HttpServer} del JDK, pensato per restare attivo e
+ * ammortizzare avvio e warm-up della JVM su molte conversioni.
+ *
+ * <p>Endpoint:
+ * <ul>
+ *   <li>{@code POST /v3}: Swagger 2 → OpenAPI 3</li>
+ *   <li>{@code POST /v2}: OpenAPI 3 → Swagger 2</li>
+ *   <li>{@code GET /metrics}: contatori del server e metriche delle conversioni, in JSON</li>
+ *   <li>{@code GET /health}: risponde {@code ok} se il server accetta richieste</li>
+ * </ul>
+ * Le conversioni accettano i parametri di query {@code format} ({@code json} o {@code yaml}, per
+ * forzare il formato di output), {@code compact} e {@code sorted}; {@code tag}, {@code path} e
+ * {@code operationId}, ripetibili, limitano la conversione alle operazioni indicate (vedi
+ * {@link Selection}). Con {@code Accept-Encoding: gzip} la risposta viene compressa.
+ *
+ * <p>Il corpo della richiesta è passato in streaming al converter e l'output viene inviato man mano
+ * che è prodotto. Se la conversione fallisce prima che siano stati prodotti {@value #COMMIT_BYTES}
+ * byte, il client riceve un errore 400, 413 o 500 con un messaggio JSON; dopo, la connessione viene
+ * chiusa senza completare la risposta.
+ *
+ * <p>Le conversioni contemporanee sono limitate a {@code maxConcurrent}. Fino a {@code maxQueued}
+ * richieste attendono il proprio turno senza che il loro corpo venga letto; se il turno non arriva
+ * entro {@code queueTimeout} la risposta è 503 con {@code Retry-After}. Oltre questo limite le
+ * nuove richieste ricevono subito 503, senza occupare un thread in attesa: quello che resta è
+ * riservato a {@code /metrics} e {@code /health}. Java 17 non ha i virtual thread: le richieste
+ * girano su un pool di thread dimensionato di conseguenza.
+ */
+public class ConversionServer implements AutoCloseable {
+
+  // Byte di output trattenuti prima di inviare gli header della risposta
+  static final int COMMIT_BYTES = 64 * 1024;
+
+  private static final int STOP_DELAY_SECONDS = 1;
+
+  private final OpenApiUpdater updater;
+  private final OpenApiDowngrader downgrader;
+  private final InMemoryConversionMetrics metrics;
+  private final int maxConcurrent;
+  private final int maxQueued;
+  private final Duration queueTimeout;
+  private final Semaphore permits;
+  private final ThreadPoolExecutor executor;
+  private final HttpServer server;
+
+  private final AtomicInteger active = new AtomicInteger();
+  private final AtomicInteger waiting = new AtomicInteger();
+  private final LongAdder completed = new LongAdder();
+  private final LongAdder failed = new LongAdder();
+  private final LongAdder rejected = new LongAdder();
+
+  /**
+   * Crea un server con i converter predefiniti, che registrano le proprie metriche e sono
+   * preceduti dalla validazione strutturale di {@link SpecValidator}: gli input non validi vengono
+   * rifiutati dopo aver letto solo i byte necessari. Input e validazione sono soggetti ai limiti
+   * {@link ConversionLimits#UNTRUSTED}; chi li supera riceve 413.
+   *
+   * @param address       indirizzo di ascolto; porta 0 per sceglierne una libera
+   * @param maxConcurrent numero massimo di conversioni contemporanee
+   * @param maxQueued     numero massimo di richieste in attesa di un turno
+   * @param queueTimeout  attesa massima di una richiesta prima del rifiuto con 503
+   * @throws IOException se il socket non può essere aperto
+   */
+  public ConversionServer(InetSocketAddress address, int maxConcurrent, int maxQueued,
+                          Duration queueTimeout) throws IOException {
+    this(new InMemoryConversionMetrics(), address, maxConcurrent, maxQueued, queueTimeout);
+  }
+
+  private ConversionServer(InMemoryConversionMetrics metrics, InetSocketAddress address,
+                           int maxConcurrent, int maxQueued, Duration queueTimeout)
+      throws IOException {
+    this(new ValidatingOpenApiUpdater(new OpenApiUpdaterImpl(metrics, ConversionLimits.UNTRUSTED),
+            ConversionLimits.UNTRUSTED),
+        new ValidatingOpenApiDowngrader(new OpenApiDowngraderImpl(metrics, false,
+            ConversionLimits.UNTRUSTED), ConversionLimits.UNTRUSTED),
+        metrics, address, maxConcurrent, maxQueued, queueTimeout);
+  }
+
+  /**
+   * Crea un server con converter forniti dal chiamante, che devono essere thread-safe.
+   *
+   * @param updater       converter Swagger 2 → OpenAPI 3
+   * @param downgrader    converter OpenAPI 3 → Swagger 2
+   * @param metrics       metriche esposte da {@code /metrics}, di solito le stesse passate ai
+   *                      converter; null per esporre solo i contatori del server
+   * @param address       indirizzo di ascolto; porta 0 per sceglierne una libera
+   * @param maxConcurrent numero massimo di conversioni contemporanee
+   * @param maxQueued     numero massimo di richieste in attesa di un turno
+   * @param queueTimeout  attesa massima di una richiesta prima del rifiuto con 503
+   * @throws IOException se il socket non può essere aperto
+   */
+  public ConversionServer(OpenApiUpdater updater, OpenApiDowngrader downgrader,
+                          InMemoryConversionMetrics metrics, InetSocketAddress address,
+                          int maxConcurrent, int maxQueued, Duration queueTimeout)
+      throws IOException {
+    if (maxConcurrent <= 0) {
+      throw new IllegalArgumentException("Il numero di conversioni contemporanee deve essere "
+          + "positivo");
+    }
+    if (maxQueued < 0) {
+      throw new IllegalArgumentException("Il numero di richieste in attesa non può essere "
+          + "negativo");
+    }
+    this.updater = updater;
+    this.downgrader = downgrader;
+    this.metrics = metrics;
+    this.maxConcurrent = maxConcurrent;
+    this.maxQueued = maxQueued;
+    this.queueTimeout = queueTimeout;
+    this.permits = new Semaphore(maxConcurrent, true);
+    // Un thread per ogni conversione e ogni richiesta in attesa, più uno per /metrics e /health,
+    // che le conversioni in eccesso occupano solo per il tempo di rispondere 503;
+    // la coda assorbe i picchi di connessioni, oltre i quali HttpServer chiude la connessione
+    int threads = maxConcurrent + maxQueued + 1;
+    AtomicInteger ids = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(Math.max(1, maxQueued)), r -> {
+          Thread thread = new Thread(r, "conversion-server-" + ids.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    this.server = HttpServer.create(address, 0);
+    server.setExecutor(executor);
+    server.createContext("/v3", exchange -> convert(exchange, Target.V3));
+    server.createContext("/v2", exchange -> convert(exchange, Target.V2));
+    server.createContext("/metrics", this::metrics);
+    server.createContext("/health", this::health);
+  }
+
+  /**
+   * Esegue il warm-up dei converter e inizia ad accettare richieste.
+   *
+   * @throws Exception se il warm-up fallisce
+   */
+  public void start() throws Exception {
+    updater.warmUp();
+    downgrader.warmUp();
+    server.start();
+  }
+
+  /**
+   * Indirizzo effettivo di ascolto, utile se il server è stato creato sulla porta 0.
+   *
+   * @return indirizzo del socket
+   */
+  public InetSocketAddress address() {
+    return server.getAddress();
+  }
+
+  /**
+   * Smette di accettare richieste, attende brevemente quelle in corso e libera i thread.
+   */
+  @Override
+  public void close() {
+    server.stop(STOP_DELAY_SECONDS);
+    executor.shutdownNow();
+  }
+
+  private void convert(HttpExchange exchange, Target target) throws IOException {
+    try (exchange) {
+      if (!"POST".equals(exchange.getRequestMethod())) {
+        exchange.getResponseHeaders().set("Allow", "POST");
+        error(exchange, 405, "Metodo non consentito: usare POST");
+        return;
+      }
+      OutputOptions options;
+      try {
+        options = options(exchange);
+      } catch (IllegalArgumentException e) {
+        error(exchange, 400, e.getMessage());
+        return;
+      }
+      if (!acquire()) {
+        rejected.increment();
+        exchange.getResponseHeaders().set("Retry-After",
+            Long.toString(Math.max(1, queueTimeout.toSeconds())));
+        error(exchange, 503, "Server occupato: riprovare più tardi");
+        return;
+      }
+      active.incrementAndGet();
+      try {
+        run(exchange, target, options);
+      } finally {
+        active.decrementAndGet();
+        permits.release();
+      }
+    }
+  }
+
+  /**
+   * Attende un turno se i posti in coda non sono esauriti, altrimenti rifiuta subito.
+   */
+  private boolean acquire() {
+    try {
+      if (permits.tryAcquire(0, TimeUnit.NANOSECONDS)) {
+        return true;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+    if (waiting.incrementAndGet() > maxQueued) {
+      waiting.decrementAndGet();
+      return false;
+    }
+    try {
+      return permits.tryAcquire(queueTimeout.toNanos(), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      waiting.decrementAndGet();
+    }
+  }
+
+  private void run(HttpExchange exchange, Target target, OutputOptions options)
+      throws IOException {
+    ResponseStream out = new ResponseStream(exchange, COMMIT_BYTES);
+    boolean converted = false;
+    try {
+      InputStream in = IoUtils.markable(exchange.getRequestBody());
+      Format format = options.encoding() == null
+          ? FormatUtils.detect(in).format() : options.encoding().format();
+      exchange.getResponseHeaders().set("Content-Type", contentType(format));
+      if (options.compression() == Compression.GZIP) {
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+      }
+      if (target == Target.V3) {
+        updater.convertToV3(in, out, options);
+      } else {
+        downgrader.convertToV2(in, out, options);
+      }
+      // Contata prima di chiudere: il client può chiedere le metriche appena ha la risposta
+      completed.increment();
+      converted = true;
+      out.close();
+    } catch (Exception e) {
+      if (!converted) {
+        failed.increment();
+      }
+      if (out.isCommitted()) {
+        // Gli header sono già partiti: chiudere la connessione è l'unico modo di segnalarlo
+        throw e instanceof IOException io ? io : new IOException(e);
+      }
+      exchange.getResponseHeaders().remove("Content-Encoding");
+      if (e instanceof InvalidSpecException invalid) {
+        error(exchange, invalid);
+      } else if (e instanceof LimitExceededException) {
+        error(exchange, 413, e.getMessage());
+      } else {
+        boolean invalid = e instanceof IllegalArgumentException || e instanceof JacksonException;
+        error(exchange, invalid ? 400 : 500, String.valueOf(e.getMessage()));
+      }
+    }
+  }
+
+  private static OutputOptions options(HttpExchange exchange) {
+    OutputOptions options = OutputOptions.DEFAULT;
+    String query = exchange.getRequestURI().getRawQuery();
+    if (query != null) {
+      for (String param : query.split("&")) {
+        int eq = param.indexOf('=');
+        String name = eq < 0 ? param : param.substring(0, eq);
+        String value = eq < 0 ? "" : URLDecoder.decode(param.substring(eq + 1),
+            StandardCharsets.UTF_8);
+        switch (name) {
+          case "format" -> options = options.withEncoding(OutputOptions.Encoding.of(format(value)));
+          case "compact" -> options = options.compact();
+          case "sorted" -> options = options.sorted();
+          case "tag" -> options = options.withSelection(options.selection().withTags(value));
+          case "path" ->
+              options = options.withSelection(options.selection().withPathPrefixes(value));
+          case "operationId" ->
+              options = options.withSelection(options.selection().withOperationIds(value));
+          default -> throw new IllegalArgumentException("Parametro sconosciuto: " + name);
+        }
+      }
+    }
+    String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    if (accept != null && accept.toLowerCase(Locale.ROOT).contains("gzip")) {
+      options = options.withCompression(Compression.GZIP);
+    }
+    return options;
+  }
+
+  private static Format format(String value) {
+    try {
+      return Format.valueOf(value.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Formato non supportato: " + value);
+    }
+  }
+
+  private static String contentType(Format format) {
+    return format == Format.YAML ? "application/yaml" : "application/json";
+  }
+
+  private void metrics(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      JsonNodeFactory nodes = JsonNodeFactory.instance;
+      ObjectNode root = nodes.objectNode();
+      root.putObject("server")
+          .put("active", active.get())
+          .put("waiting", waiting.get())
+          .put("maxConcurrent", maxConcurrent)
+          .put("completed", completed.sum())
+          .put("failed", failed.sum())
+          .put("rejected", rejected.sum());
+      if (metrics != null) {
+        ObjectNode conversions = root.putObject("conversions");
+        for (Target target : Target.values()) {
+          ObjectNode series = conversions.putObject(target.name().toLowerCase(Locale.ROOT));
+          ObjectNode phases = series.putObject("phases");
+          for (Phase phase : Phase.values()) {
+            phases.set(phase.name().toLowerCase(Locale.ROOT),
+                histogram(nodes, metrics.phase(target, phase)));
+          }
+          series.set("inputBytes", histogram(nodes, metrics.inputBytes(target)));
+          series.set("outputBytes", histogram(nodes, metrics.outputBytes(target)));
+          series.set("paths", histogram(nodes, metrics.paths(target)));
+          series.set("operations", histogram(nodes, metrics.operations(target)));
+          ObjectNode failures = series.putObject("failures");
+          metrics.failures(target).forEach(failures::put);
+        }
+      }
+      send(exchange, 200, "application/json",
+          Mappers.writer(Format.JSON, true).writeValueAsBytes(root));
+    }
+  }
+
+  private static ObjectNode histogram(JsonNodeFactory nodes, HistogramSnapshot snapshot) {
+    return nodes.objectNode()
+        .put("count", snapshot.count())
+        .put("min", snapshot.min())
+        .put("max", snapshot.max())
+        .put("mean", snapshot.mean())
+        .put("p50", snapshot.p50())
+        .put("p90", snapshot.p90())
+        .put("p99", snapshot.p99());
+  }
+
+  private void health(HttpExchange exchange) throws IOException {
+    try (exchange) {
+      send(exchange, 200, "text/plain", "ok".getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  private static void error(HttpExchange exchange, int status, String message)
+      throws IOException {
+    ObjectNode body = JsonNodeFactory.instance.objectNode()
+        .put("status", status)
+        .put("error", message);
+    send(exchange, status, "application/json",
+        Mappers.writer(Format.JSON, false).writeValueAsBytes(body));
+  }
+
+  /**
+   * Risposta 400 con l'elenco degli errori strutturali e la loro posizione.
+   */
+  private static void error(HttpExchange exchange, InvalidSpecException invalid)
+      throws IOException {
+    ObjectNode body = JsonNodeFactory.instance.objectNode()
+        .put("status", 400)
+        .put("error", invalid.getMessage());
+    ArrayNode errors = body.putArray("errors");
+    for (ValidationError error : invalid.errors()) {
+      ObjectNode item = errors.addObject()
+          .put("pointer", error.pointer())
+          .put("message", error.message());
+      if (error.line() >= 0) {
+        item.put("line", error.line()).put("column", error.column());
+      }
+    }
+    send(exchange, 400, "application/json",
+        Mappers.writer(Format.JSON, false).writeValueAsBytes(body));
+  }
+
+  private static void send(HttpExchange exchange, int status, String contentType, byte[] body)
+      throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -0,0 +1,78 @@
+package com.patred.openapi.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Corpo della risposta che rimanda l'invio degli header finché l'output resta sotto la soglia.
+ * Così un errore nei primi byte si può ancora trasformare in una risposta di errore; un output più
+ * lungo viene inviato a blocchi ({@code chunked}) man mano che il converter lo produce.
+ */
+final class ResponseStream extends OutputStream {
+
+  private final HttpExchange exchange;
+  private byte[] buffer;
+  private int count;
+  private OutputStream body;
+
+  ResponseStream(HttpExchange exchange, int threshold) {
+    this.exchange = exchange;
+    this.buffer = new byte[threshold];
+  }
+
+  /**
+   * Indica se status e header sono già stati inviati, e quindi non si può più rispondere con un
+   * errore.
+   *
+   * @return true dopo il primo invio
+   */
+  boolean isCommitted() {
+    return body != null;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (body == null && count + len <= buffer.length) {
+      System.arraycopy(b, off, buffer, count, len);
+      count += len;
+      return;
+    }
+    if (body == null) {
+      commit(0);
+    }
+    body.write(b, off, len);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (body != null) {
+      body.flush();
+    }
+  }
+
+  /**
+   * Completa la risposta: se l'output è rimasto nel buffer lo invia con la lunghezza esatta.
+   */
+  @Override
+  public void close() throws IOException {
+    if (body == null) {
+      commit(count == 0 ? -1 : count);
+    }
+    body.close();
+  }
+
+  private void commit(long length) throws IOException {
+    exchange.sendResponseHeaders(200, length);
+    body = exchange.getResponseBody();
+    if (count > 0) {
+      body.write(buffer, 0, count);
+    }
+    buffer = null;
+  }
+}
@@ -1,10 +1,26 @@
 package com.patred.openapi.util;
 
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.SpecInfo;
+import com.patred.openapi.model.SpecVersion;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+
 /**
  * Utility class per rilevare il formato di una specifica OpenAPI.
+ *
+ * <p>Il rilevamento non copia né accorcia l'input: salta gli spazi iniziali (e l'eventuale BOM),
+ * usa il primo carattere significativo per distinguere JSON da YAML e cerca la chiave
+ * {@code swagger}/{@code openapi} solo nei primi {@value #SNIFF_LIMIT} caratteri.
  */
 public final class FormatUtils {
 
+  // Numero massimo di caratteri esaminati per rilevare formato e versione
+  private static final int SNIFF_LIMIT = 4096;
+
   // Costruttore privato per impedire l'instanziazione
   private FormatUtils() {
   }
@@ -15,11 +31,229 @@ public final class FormatUtils {
    * @param spec La specifica OpenAPI come stringa
    * @return true se la stringa sembra YAML, false se JSON
    */
-  public static boolean isYaml(String spec) {
-    if (spec == null || spec.isBlank()) {
+  public static boolean isYaml(CharSequence spec) {
+    return spec != null && detect(spec).format() == Format.YAML;
+  }
+
+  /**
+   * Determina se uno stream rappresenta YAML. Lo stream deve supportare mark/reset e viene
+   * riportato alla posizione iniziale.
+   *
+   * @param in La specifica OpenAPI come stream di byte
+   * @return true se lo stream sembra YAML, false se JSON
+   * @throws IOException se la lettura fallisce
+   */
+  public static boolean isYaml(InputStream in) throws IOException {
+    return detect(in).format() == Format.YAML;
+  }
+
+  /**
+   * Determina se un reader rappresenta YAML. Il reader deve supportare mark/reset e viene
+   * riportato alla posizione iniziale.
+   *
+   * @param in La specifica OpenAPI come stream di caratteri
+   * @return true se il contenuto sembra YAML, false se JSON
+   * @throws IOException se la lettura fallisce
+   */
+  public static boolean isYaml(Reader in) throws IOException {
+    return detect(in).format() == Format.YAML;
+  }
+
+  /**
+   * Rileva formato e versione di una specifica in un solo passaggio sui primi caratteri.
+   *
+   * @param spec La specifica OpenAPI
+   * @return formato e versione; una specifica vuota risulta JSON di versione sconosciuta
+   */
+  public static SpecInfo detect(CharSequence spec) {
+    int length = spec.length();
+    int start = bomLength(spec);
+    while (start < length && Character.isWhitespace(spec.charAt(start))) {
+      start++;
+    }
+    if (start == length) {
+      return new SpecInfo(Format.JSON, SpecVersion.UNKNOWN);
+    }
+
+    char first = spec.charAt(start);
+    Format format = first == '{' || first == '[' ? Format.JSON : Format.YAML;
+    return new SpecInfo(format, sniffVersion(spec, start, Math.min(length, start + SNIFF_LIMIT)));
+  }
+
+  /**
+   * Rileva formato e versione di una specifica codificata in UTF-8 (o ASCII).
+   *
+   * @param spec La specifica OpenAPI come byte
+   * @return formato e versione
+   */
+  public static SpecInfo detect(byte[] spec) {
+    return detect(spec, Math.min(spec.length, SNIFF_LIMIT));
+  }
+
+  /**
+   * Rileva formato e versione leggendo al massimo {@value #SNIFF_LIMIT} byte. Lo stream deve
+   * supportare mark/reset e viene riportato alla posizione iniziale.
+   *
+   * @param in La specifica OpenAPI come stream di byte
+   * @return formato e versione
+   * @throws IOException se la lettura fallisce
+   */
+  public static SpecInfo detect(InputStream in) throws IOException {
+    if (!in.markSupported()) {
+      throw new IllegalArgumentException("Lo stream deve supportare mark/reset");
+    }
+    in.mark(SNIFF_LIMIT);
+    try {
+      byte[] prefix = in.readNBytes(SNIFF_LIMIT);
+      return detect(prefix, prefix.length);
+    } finally {
+      in.reset();
+    }
+  }
+
+  /**
+   * Rileva formato e versione leggendo al massimo {@value #SNIFF_LIMIT} caratteri. Il reader deve
+   * supportare mark/reset e viene riportato alla posizione iniziale.
+   *
+   * @param in La specifica OpenAPI come stream di caratteri
+   * @return formato e versione
+   * @throws IOException se la lettura fallisce
+   */
+  public static SpecInfo detect(Reader in) throws IOException {
+    if (!in.markSupported()) {
+      throw new IllegalArgumentException("Il reader deve supportare mark/reset");
+    }
+    in.mark(SNIFF_LIMIT);
+    try {
+      char[] prefix = new char[SNIFF_LIMIT];
+      int n = 0;
+      int read;
+      while (n < prefix.length && (read = in.read(prefix, n, prefix.length - n)) != -1) {
+        n += read;
+      }
+      return detect(CharBuffer.wrap(prefix, 0, n));
+    } finally {
+      in.reset();
+    }
+  }
+
+  private static SpecInfo detect(byte[] spec, int length) {
+    // Le chiavi cercate sono ASCII: i byte si possono esaminare come caratteri Latin-1
+    return detect(new Latin1Sequence(spec, length));
+  }
+
+  private static int bomLength(CharSequence spec) {
+    if (spec.length() > 0 && spec.charAt(0) == '\uFEFF') {
+      return 1;
+    }
+    // BOM UTF-8 (EF BB BF) letto come Latin-1
+    if (spec.length() > 2 && spec.charAt(0) == '\u00EF' && spec.charAt(1) == '\u00BB'
+        && spec.charAt(2) == '\u00BF') {
+      return 3;
+    }
+    return 0;
+  }
+
+  /**
+   * Cerca la prima chiave {@code swagger} o {@code openapi} di primo livello: in YAML a inizio
+   * riga, in JSON tra virgolette subito dopo '{' o ','. Il valore deve iniziare con 2 o 3.
+   */
+  private static SpecVersion sniffVersion(CharSequence spec, int from, int to) {
+    for (int i = from; i < to; i++) {
+      char c = spec.charAt(i);
+      if (c != 's' && c != 'o') {
+        continue;
+      }
+      boolean swagger = regionMatches(spec, i, to, "swagger");
+      if (!swagger && !regionMatches(spec, i, to, "openapi")) {
+        continue;
+      }
+      if (!isKeyStart(spec, from, i)) {
+        continue;
+      }
+
+      int j = i + 7;
+      if (j < to && (spec.charAt(j) == '"' || spec.charAt(j) == '\'')) {
+        j++;
+      }
+      j = skipBlanks(spec, j, to);
+      if (j >= to || spec.charAt(j) != ':') {
+        continue;
+      }
+      j = skipBlanks(spec, j + 1, to);
+      if (j < to && (spec.charAt(j) == '"' || spec.charAt(j) == '\'')) {
+        j++;
+      }
+      if (j < to) {
+        char major = spec.charAt(j);
+        if (swagger && major == '2') {
+          return SpecVersion.SWAGGER_2;
+        }
+        if (!swagger && major == '3') {
+          return SpecVersion.OPENAPI_3;
+        }
+      }
+    }
+    return SpecVersion.UNKNOWN;
+  }
+
+  private static boolean isKeyStart(CharSequence spec, int from, int keyIndex) {
+    int i = keyIndex - 1;
+    boolean quoted = i >= from && (spec.charAt(i) == '"' || spec.charAt(i) == '\'');
+    if (quoted) {
+      i--;
+    }
+    if (i < from || spec.charAt(i) == '\n' || spec.charAt(i) == '\r') {
+      // Inizio documento o inizio riga (YAML)
+      return true;
+    }
+    if (!quoted) {
       return false;
     }
-    String trimmed = spec.trim();
-    return !(trimmed.startsWith("{") || trimmed.startsWith("["));
+    while (i >= from && Character.isWhitespace(spec.charAt(i))) {
+      i--;
+    }
+    return i >= from && (spec.charAt(i) == '{' || spec.charAt(i) == ',');
+  }
+
+  private static boolean regionMatches(CharSequence spec, int offset, int to, String key) {
+    if (offset + key.length() > to) {
+      return false;
+    }
+    for (int k = 0; k < key.length(); k++) {
+      if (spec.charAt(offset + k) != key.charAt(k)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int skipBlanks(CharSequence spec, int from, int to) {
+    int i = from;
+    while (i < to && (spec.charAt(i) == ' ' || spec.charAt(i) == '\t')) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Vista di sola lettura su un array di byte come sequenza di caratteri Latin-1, senza copie.
+   */
+  private record Latin1Sequence(byte[] bytes, int length) implements CharSequence {
+
+    @Override
+    public char charAt(int index) {
+      return (char) (bytes[index] & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+    }
+
+    @Override
+    public String toString() {
+      return subSequence(0, length).toString();
+    }
   }
 }
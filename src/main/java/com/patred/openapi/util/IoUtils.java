@@ -0,0 +1,130 @@
+package com.patred.openapi.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Utility per l'I/O a byte delle specifiche: stream con mark/reset, buffer e file mappati in
+ * memoria.
+ */
+public final class IoUtils {
+
+  private IoUtils() {
+  }
+
+  /**
+   * Restituisce uno stream che supporta mark/reset, avvolgendo l'originale solo se necessario.
+   *
+   * @param in stream di partenza
+   * @return lo stesso stream o un {@link BufferedInputStream} che lo avvolge
+   */
+  public static InputStream markable(InputStream in) {
+    return in.markSupported() ? in : new BufferedInputStream(in);
+  }
+
+  /**
+   * Restituisce un reader che supporta mark/reset, avvolgendo l'originale solo se necessario.
+   *
+   * @param in reader di partenza
+   * @return lo stesso reader o un {@link BufferedReader} che lo avvolge
+   */
+  public static Reader markable(Reader in) {
+    return in.markSupported() ? in : new BufferedReader(in);
+  }
+
+  /**
+   * Espone i byte rimanenti di un buffer come stream, senza copiarli. La posizione del buffer
+   * originale non viene modificata.
+   *
+   * @param buffer buffer con il contenuto della specifica
+   * @return stream che supporta mark/reset
+   */
+  public static InputStream asInputStream(ByteBuffer buffer) {
+    if (buffer.hasArray()) {
+      return new ByteArrayInputStream(buffer.array(), buffer.arrayOffset() + buffer.position(),
+          buffer.remaining());
+    }
+    return new ByteBufferInputStream(buffer.duplicate());
+  }
+
+  /**
+   * Mappa in memoria un file in sola lettura. Il canale viene chiuso subito: la mappatura resta
+   * valida finché il buffer è raggiungibile.
+   *
+   * @param path file da mappare
+   * @return buffer mappato sull'intero file
+   * @throws IOException se il file non è leggibile o supera i 2 GB
+   */
+  public static ByteBuffer map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File troppo grande per essere mappato in memoria: " + path);
+      }
+      return channel.map(MapMode.READ_ONLY, 0, size);
+    }
+  }
+
+  private static final class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int n = Math.min(len, buffer.remaining());
+      buffer.get(b, off, n);
+      return n;
+    }
+
+    @Override
+    public long skip(long n) {
+      int skipped = (int) Math.max(0, Math.min(n, buffer.remaining()));
+      buffer.position(buffer.position() + skipped);
+      return skipped;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+      return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+      buffer.mark();
+    }
+
+    @Override
+    public synchronized void reset() {
+      buffer.reset();
+    }
+  }
+}
@@ -0,0 +1,75 @@
+package com.patred.openapi.util;
+
+import com.patred.openapi.model.Format;
+import tools.jackson.core.StreamReadFeature;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.dataformat.yaml.YAMLFactory;
+
+/**
+ * Registro condiviso dei mapper Jackson 3 usati per leggere e scrivere gli alberi delle
+ * specifiche. Mapper, reader e writer sono immutabili e thread-safe: vengono creati una sola volta
+ * e riusati da tutte le conversioni.
+ *
+ * <p>Reader e writer non chiudono mai gli stream ricevuti: la chiusura resta al chiamante.
+ */
+public final class Mappers {
+
+  private static final ObjectMapper JSON = new ObjectMapper();
+  private static final ObjectMapper YAML = new ObjectMapper(new YAMLFactory());
+
+  private static final ObjectReader JSON_READER = reader(JSON);
+  private static final ObjectReader YAML_READER = reader(YAML);
+
+  private static final ObjectWriter JSON_PRETTY = writer(JSON).withDefaultPrettyPrinter();
+  private static final ObjectWriter JSON_COMPACT = writer(JSON);
+  private static final ObjectWriter YAML_PRETTY = writer(YAML).withDefaultPrettyPrinter();
+  private static final ObjectWriter YAML_COMPACT = writer(YAML);
+
+  private Mappers() {
+  }
+
+  /**
+   * Restituisce il mapper condiviso per il formato indicato.
+   *
+   * @param format YAML o JSON
+   * @return mapper immutabile
+   */
+  public static ObjectMapper mapper(Format format) {
+    return format == Format.YAML ? YAML : JSON;
+  }
+
+  /**
+   * Restituisce il reader condiviso per il formato indicato.
+   *
+   * @param format YAML o JSON
+   * @return reader immutabile
+   */
+  public static ObjectReader reader(Format format) {
+    return format == Format.YAML ? YAML_READER : JSON_READER;
+  }
+
+  /**
+   * Restituisce il writer condiviso per il formato indicato.
+   *
+   * @param format YAML o JSON
+   * @param pretty true per l'output indentato, false per quello compatto
+   * @return writer immutabile
+   */
+  public static ObjectWriter writer(Format format, boolean pretty) {
+    if (format == Format.YAML) {
+      return pretty ? YAML_PRETTY : YAML_COMPACT;
+    }
+    return pretty ? JSON_PRETTY : JSON_COMPACT;
+  }
+
+  private static ObjectReader reader(ObjectMapper mapper) {
+    return mapper.reader().without(StreamReadFeature.AUTO_CLOSE_SOURCE);
+  }
+
+  private static ObjectWriter writer(ObjectMapper mapper) {
+    return mapper.writer().without(StreamWriteFeature.AUTO_CLOSE_TARGET);
+  }
+}
@@ -0,0 +1,153 @@
+package com.patred.openapi.util;
+
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.OutputOptions.Encoding;
+import com.patred.openapi.model.OutputOptions.YamlStyle;
+import io.swagger.v3.core.util.ObjectMapperFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Registro dei mapper Jackson 2 configurati da swagger-core per i modelli
+ * {@code io.swagger.v3.oas.models}. Sono istanze private, configurate una sola volta: i singleton
+ * globali {@code Json.mapper()} e {@code Yaml.mapper()} non vengono mai modificati.
+ *
+ * <p>Reader e writer sono thread-safe e non chiudono mai gli stream ricevuti.
+ */
+public final class ModelMappers {
+
+  private static final ObjectMapper JSON = configure(ObjectMapperFactory.createJson());
+  private static final ObjectMapper YAML = configure(ObjectMapperFactory.createYaml());
+
+  private static final ObjectReader JSON_READER = reader(JSON);
+  private static final ObjectReader YAML_READER = reader(YAML);
+
+  private static final ObjectWriter JSON_PRETTY = writer(JSON).withDefaultPrettyPrinter();
+  private static final ObjectWriter JSON_COMPACT = writer(JSON);
+  private static final ObjectWriter YAML_PRETTY = writer(YAML).withDefaultPrettyPrinter();
+  private static final ObjectWriter YAML_COMPACT = writer(YAML);
+
+  private ModelMappers() {
+  }
+
+  /**
+   * Restituisce il reader condiviso per il formato indicato.
+   *
+   * @param format YAML o JSON
+   * @return reader immutabile
+   */
+  public static ObjectReader reader(Format format) {
+    return format == Format.YAML ? YAML_READER : JSON_READER;
+  }
+
+  /**
+   * Restituisce il writer condiviso per il formato indicato; i campi null vengono omessi.
+   *
+   * @param format YAML o JSON
+   * @param pretty true per l'output indentato, false per quello compatto
+   * @return writer immutabile
+   */
+  public static ObjectWriter writer(Format format, boolean pretty) {
+    if (format == Format.YAML) {
+      return pretty ? YAML_PRETTY : YAML_COMPACT;
+    }
+    return pretty ? JSON_PRETTY : JSON_COMPACT;
+  }
+
+  /**
+   * Scrive un modello con le opzioni indicate. JSON e YAML in blocchi passano dai writer dei
+   * modelli; YAML in linea, CBOR e Smile passano dall'albero del modello ai writer di
+   * {@link OutputWriters}. Lo stream non viene chiuso né compresso.
+   *
+   * @param model   modello da scrivere
+   * @param options opzioni di scrittura
+   * @param input   formato dell'input, usato se le opzioni non indicano una codifica
+   * @param out     stream di destinazione
+   * @throws IOException se la scrittura fallisce
+   */
+  public static void write(Object model, OutputOptions options, Format input, OutputStream out)
+      throws IOException {
+    Encoding encoding = options.resolve(input);
+    if (encoding.isBinary() || encoding == Encoding.YAML && options.yamlStyle() == YamlStyle.FLOW) {
+      OutputWriters.writer(options, input).writeValue(out, TreeBridge.fromModelTree(toTree(model)));
+    } else {
+      textWriter(options, encoding).writeValue(out, sortable(model, options));
+    }
+  }
+
+  /**
+   * Scrive un modello come testo con le opzioni indicate.
+   *
+   * @param model   modello da scrivere
+   * @param options opzioni di scrittura, con output testuale non compresso
+   * @param input   formato dell'input, usato se le opzioni non indicano una codifica
+   * @return il modello serializzato
+   * @throws IOException se la serializzazione fallisce
+   */
+  public static String writeAsString(Object model, OutputOptions options, Format input)
+      throws IOException {
+    Encoding encoding = options.resolve(input);
+    if (encoding == Encoding.YAML && options.yamlStyle() == YamlStyle.FLOW) {
+      return OutputWriters.writer(options, input)
+          .writeValueAsString(TreeBridge.fromModelTree(toTree(model)));
+    }
+    return textWriter(options, encoding).writeValueAsString(sortable(model, options));
+  }
+
+  private static ObjectWriter textWriter(OutputOptions options, Encoding encoding) {
+    ObjectWriter writer = writer(encoding == Encoding.YAML ? Format.YAML : Format.JSON,
+        options.pretty());
+    if (options.sortKeys()) {
+      writer = writer.with(JsonNodeFeature.WRITE_PROPERTIES_SORTED)
+          .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+    if (options.minimizeQuotes() && encoding == Encoding.YAML) {
+      writer = writer.with(YAMLGenerator.Feature.MINIMIZE_QUOTES)
+          .with(YAMLGenerator.Feature.ALWAYS_QUOTE_NUMBERS_AS_STRINGS);
+    }
+    return writer;
+  }
+
+  /**
+   * L'ordinamento delle chiavi vale per gli alberi, non per le proprietà dei modelli: con
+   * {@code sortKeys} si scrive l'albero del modello.
+   */
+  private static Object sortable(Object model, OutputOptions options) {
+    return options.sortKeys() ? toTree(model) : model;
+  }
+
+  /**
+   * Converte un modello nel corrispondente albero JSON, con la stessa configurazione usata per la
+   * serializzazione ma senza passare dal testo.
+   *
+   * @param model modello da convertire
+   * @return albero Jackson 2 del modello
+   */
+  public static JsonNode toTree(Object model) {
+    return JSON.valueToTree(model);
+  }
+
+  private static ObjectMapper configure(ObjectMapper mapper) {
+    mapper.setSerializationInclusion(Include.NON_NULL);
+    return mapper;
+  }
+
+  private static ObjectReader reader(ObjectMapper mapper) {
+    return mapper.reader().without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+  }
+
+  private static ObjectWriter writer(ObjectMapper mapper) {
+    return mapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+  }
+}
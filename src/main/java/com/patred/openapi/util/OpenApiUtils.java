@@ -1,62 +1,153 @@
 package com.patred.openapi.util;
 
+import com.patred.openapi.model.Format;
 import io.swagger.v3.oas.models.OpenAPI;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
-import tools.jackson.databind.JsonNode;
-import tools.jackson.databind.ObjectMapper;
-import tools.jackson.databind.node.ObjectNode;
-import tools.jackson.dataformat.yaml.YAMLFactory;
+import java.util.Set;
 
 /**
  * Utility per operazioni su oggetti OpenAPI.
  */
 public final class OpenApiUtils {
 
+  private static final String MODELS_PACKAGE = "io.swagger.v3.oas.models";
+
+  /**
+   * Campi non statici e non primitivi delle classi del modello, risolti una volta per classe.
+   */
+  private static final ClassValue<Field[]> MODEL_FIELDS = new ClassValue<>() {
+    @Override
+    protected Field[] computeValue(Class<?> type) {
+      List<Field> fields = new ArrayList<>();
+      for (Class<?> c = type; c != null && isModel(c); c = c.getSuperclass()) {
+        for (Field field : c.getDeclaredFields()) {
+          if (!Modifier.isStatic(field.getModifiers()) && !field.getType().isPrimitive()) {
+            field.setAccessible(true);
+            fields.add(field);
+          }
+        }
+      }
+      return fields.toArray(new Field[0]);
+    }
+  };
+
   private OpenApiUtils() {
   }
 
   /**
    * Rimuove tutti i campi null (ricorsivamente) da un oggetto OpenAPI.
    *
+   * <p>L'oggetto ricevuto non viene modificato: il risultato è una copia, ottenuta passando
+   * dall'albero JSON del modello e poi pulita con {@link #removeNullsInPlace(OpenAPI)}. La copia
+   * costa una serializzazione e una deserializzazione complete ed è ricorsiva come quelle di
+   * Jackson: schemi annidati molto in profondità possono esaurire lo stack. Per un modello non
+   * condiviso va usato {@link #removeNullsInPlace(OpenAPI)}, che non copia e regge qualunque
+   * profondità.
+   *
    * @param openApi l'oggetto OpenAPI da pulire
    * @return una nuova istanza di OpenAPI senza campi null
+   * @throws UncheckedIOException se il modello non può essere copiato
    */
   public static OpenAPI removeNulls(OpenAPI openApi) {
     if (openApi == null) {
       return null;
     }
+    OpenAPI copy;
+    try {
+      copy = ModelMappers.reader(Format.JSON)
+          .treeToValue(ModelMappers.toTree(openApi), OpenAPI.class);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Copia del modello OpenAPI non riuscita", e);
+    }
+    return removeNullsInPlace(copy);
+  }
 
-    ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
-    //mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
-
-    // Converti in JsonNode
-    JsonNode node = mapper.valueToTree(openApi);
+  /**
+   * Rimuove tutti i valori null (ricorsivamente) dalle mappe di un oggetto OpenAPI: path,
+   * proprietà degli schemi, estensioni e così via. I campi null del modello restano tali e gli
+   * elementi null delle liste vengono mantenuti.
+   *
+   * <p>Il modello viene modificato sul posto, senza copie né passaggi da un albero JSON: va usato
+   * solo su modelli che nessun altro sta leggendo. La visita è iterativa, quindi regge schemi
+   * annidati a qualunque profondità, e ogni oggetto viene visitato una sola volta anche se
+   * condiviso.
+   *
+   * @param openApi l'oggetto OpenAPI da pulire
+   * @return lo stesso oggetto, senza valori null nelle mappe
+   */
+  public static OpenAPI removeNullsInPlace(OpenAPI openApi) {
+    if (openApi == null) {
+      return null;
+    }
 
-    // Rimuovi i campi null
-    removeNullsFromNode(node);
+    Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    Deque<Object> pending = new ArrayDeque<>();
+    pending.push(openApi);
+    while (!pending.isEmpty()) {
+      Object current = pending.pop();
+      if (!visited.add(current)) {
+        continue;
+      }
 
-    // 3Riconverti in OpenAPI
-    return mapper.treeToValue(node, OpenAPI.class);
+      if (current instanceof Map<?, ?> map) {
+        pruneMap(map, pending);
+      } else if (current instanceof Collection<?> collection) {
+        for (Object element : collection) {
+          push(element, pending);
+        }
+      }
+      if (isModel(current.getClass())) {
+        for (Field field : MODEL_FIELDS.get(current.getClass())) {
+          try {
+            push(field.get(current), pending);
+          } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Campo non accessibile: " + field, e);
+          }
+        }
+      }
+    }
+    return openApi;
   }
 
-  private static void removeNullsFromNode(JsonNode node) {
-    if (node instanceof ObjectNode objectNode) {
-      Iterator<Map.Entry<String, JsonNode>> fields = objectNode.properties().iterator();
-      while (fields.hasNext()) {
-        Map.Entry<String, JsonNode> entry = fields.next();
-        JsonNode value = entry.getValue();
-
-        if (value == null || value.isNull()) {
-          fields.remove();
-        } else {
-          removeNullsFromNode(value);
+  private static void pruneMap(Map<?, ?> map, Deque<Object> pending) {
+    Iterator<? extends Map.Entry<?, ?>> entries = map.entrySet().iterator();
+    while (entries.hasNext()) {
+      Object value = entries.next().getValue();
+      if (value == null) {
+        try {
+          entries.remove();
+        } catch (UnsupportedOperationException e) {
+          // Mappa immutabile: il valore null resta
         }
+      } else {
+        push(value, pending);
       }
-    } else if (node.isArray()) {
-      for (JsonNode element : node) {
-        removeNullsFromNode(element);
-      }
     }
   }
+
+  /**
+   * Accoda solo ciò che può contenere mappe: collezioni, mappe e oggetti del modello.
+   */
+  private static void push(Object value, Deque<Object> pending) {
+    if (value instanceof Map<?, ?> || value instanceof Collection<?>
+        || value != null && isModel(value.getClass())) {
+      pending.push(value);
+    }
+  }
+
+  private static boolean isModel(Class<?> type) {
+    return type.getName().startsWith(MODELS_PACKAGE);
+  }
 }
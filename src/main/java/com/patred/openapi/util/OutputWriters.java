@@ -0,0 +1,121 @@
+package com.patred.openapi.util;
+
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.OutputOptions.Compression;
+import com.patred.openapi.model.OutputOptions.Encoding;
+import com.patred.openapi.model.OutputOptions.YamlStyle;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+import org.snakeyaml.engine.v2.api.DumpSettings;
+import org.snakeyaml.engine.v2.common.FlowStyle;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.cfg.JsonNodeFeature;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+import tools.jackson.dataformat.yaml.YAMLFactory;
+import tools.jackson.dataformat.yaml.YAMLWriteFeature;
+
+/**
+ * Writer Jackson 3 per le {@link OutputOptions}: JSON e YAML in blocchi riusano quelli di
+ * {@link Mappers}, YAML in linea, CBOR e Smile hanno mapper propri creati una sola volta. Come in
+ * {@link Mappers}, i writer non chiudono mai gli stream ricevuti.
+ */
+public final class OutputWriters {
+
+  private static final ObjectMapper YAML_FLOW = new ObjectMapper(YAMLFactory.builder()
+      .dumperOptions(DumpSettings.builder().setDefaultFlowStyle(FlowStyle.FLOW).build())
+      .build());
+  private static final ObjectMapper CBOR = new CBORMapper();
+  private static final ObjectMapper SMILE = new SmileMapper();
+
+  private static final int GZIP_BUFFER = 8192;
+
+  private OutputWriters() {
+  }
+
+  /**
+   * Restituisce il writer per le opzioni indicate.
+   *
+   * @param options opzioni di scrittura
+   * @param input   formato dell'input, usato se le opzioni non indicano una codifica
+   * @return writer immutabile
+   */
+  public static ObjectWriter writer(OutputOptions options, Format input) {
+    Encoding encoding = options.resolve(input);
+    ObjectWriter writer = switch (encoding) {
+      case JSON -> Mappers.writer(Format.JSON, options.pretty());
+      case YAML -> options.yamlStyle() == YamlStyle.FLOW
+          ? YAML_FLOW.writer().without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+          : Mappers.writer(Format.YAML, options.pretty());
+      case CBOR -> CBOR.writer().without(StreamWriteFeature.AUTO_CLOSE_TARGET);
+      case SMILE -> SMILE.writer().without(StreamWriteFeature.AUTO_CLOSE_TARGET);
+    };
+    if (options.sortKeys()) {
+      writer = writer.with(JsonNodeFeature.WRITE_PROPERTIES_SORTED)
+          .with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+    if (options.minimizeQuotes() && encoding == Encoding.YAML) {
+      // Senza virgolette "2.0" verrebbe riletto come numero
+      writer = writer.with(YAMLWriteFeature.MINIMIZE_QUOTES)
+          .with(YAMLWriteFeature.ALWAYS_QUOTE_NUMBERS_AS_STRINGS);
+    }
+    return writer;
+  }
+
+  /**
+   * Verifica che le opzioni producano testo non compresso, l'unico output rappresentabile come
+   * {@code String}.
+   *
+   * @param options opzioni da verificare
+   * @throws IllegalArgumentException se l'output richiesto è binario o compresso
+   */
+  public static void requireText(OutputOptions options) {
+    if (!options.isText()) {
+      throw new IllegalArgumentException(
+          "Output binario o compresso: usare la conversione su stream");
+    }
+  }
+
+  /**
+   * Avvolge lo stream di output con la compressione richiesta. Lo stream restituito va chiuso per
+   * completare il frame compresso; la chiusura non si propaga a {@code out}.
+   *
+   * @param out         stream di destinazione, che resta aperto
+   * @param compression compressione da applicare
+   * @return stream su cui scrivere i byte non compressi
+   * @throws IOException se l'intestazione del frame non può essere scritta
+   */
+  public static OutputStream frame(OutputStream out, Compression compression) throws IOException {
+    OutputStream shielded = new FilterOutputStream(out) {
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+      }
+
+      @Override
+      public void close() throws IOException {
+        flush();
+      }
+    };
+    return switch (compression) {
+      case NONE -> shielded;
+      case GZIP -> new GZIPOutputStream(shielded, GZIP_BUFFER);
+      case ZSTD -> zstd(shielded);
+    };
+  }
+
+  private static OutputStream zstd(OutputStream out) throws IOException {
+    try {
+      return new com.github.luben.zstd.ZstdOutputStream(out);
+    } catch (NoClassDefFoundError e) {
+      throw new IllegalStateException("Compressione zstd non disponibile: aggiungere "
+          + "com.github.luben:zstd-jni al classpath", e);
+    }
+  }
+}
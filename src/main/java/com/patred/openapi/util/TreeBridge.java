@@ -0,0 +1,134 @@
+package com.patred.openapi.util;
+
+import java.io.IOException;
+import java.util.Map;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.node.ArrayNode;
+import tools.jackson.databind.node.JsonNodeFactory;
+import tools.jackson.databind.node.ObjectNode;
+
+/**
+ * Copia alberi JSON tra Jackson 2 ({@code com.fasterxml}), usato dai modelli swagger, e Jackson 3
+ * ({@code tools.jackson}), usato dal downgrader. La copia passa nodo per nodo, senza testo
+ * intermedio; i valori numerici mantengono il tipo originale.
+ */
+public final class TreeBridge {
+
+  private static final JsonNodeFactory NODES = JsonNodeFactory.instance;
+  private static final com.fasterxml.jackson.databind.node.JsonNodeFactory MODEL_NODES =
+      com.fasterxml.jackson.databind.node.JsonNodeFactory.instance;
+
+  private TreeBridge() {
+  }
+
+  /**
+   * Copia un albero Jackson 2 in un albero Jackson 3.
+   *
+   * @param node albero di partenza
+   * @return copia indipendente, o null se l'input è null
+   */
+  public static JsonNode fromModelTree(com.fasterxml.jackson.databind.JsonNode node) {
+    if (node == null) {
+      return null;
+    }
+    switch (node.getNodeType()) {
+      case OBJECT -> {
+        ObjectNode copy = NODES.objectNode();
+        for (Map.Entry<String, com.fasterxml.jackson.databind.JsonNode> field :
+            node.properties()) {
+          copy.set(field.getKey(), fromModelTree(field.getValue()));
+        }
+        return copy;
+      }
+      case ARRAY -> {
+        ArrayNode copy = NODES.arrayNode(node.size());
+        for (com.fasterxml.jackson.databind.JsonNode element : node) {
+          copy.add(fromModelTree(element));
+        }
+        return copy;
+      }
+      case STRING -> {
+        return NODES.stringNode(node.textValue());
+      }
+      case BOOLEAN -> {
+        return NODES.booleanNode(node.booleanValue());
+      }
+      case NUMBER -> {
+        return switch (node.numberType()) {
+          case INT -> NODES.numberNode(node.intValue());
+          case LONG -> NODES.numberNode(node.longValue());
+          case BIG_INTEGER -> NODES.numberNode(node.bigIntegerValue());
+          case FLOAT -> NODES.numberNode(node.floatValue());
+          case DOUBLE -> NODES.numberNode(node.doubleValue());
+          case BIG_DECIMAL -> NODES.numberNode(node.decimalValue());
+        };
+      }
+      case BINARY -> {
+        try {
+          return NODES.binaryNode(node.binaryValue());
+        } catch (IOException e) {
+          throw new IllegalStateException("Nodo binario non leggibile", e);
+        }
+      }
+      case POJO -> {
+        return NODES.pojoNode(((com.fasterxml.jackson.databind.node.POJONode) node).getPojo());
+      }
+      default -> {
+        return NODES.nullNode();
+      }
+    }
+  }
+
+  /**
+   * Copia un albero Jackson 3 in un albero Jackson 2.
+   *
+   * @param node albero di partenza
+   * @return copia indipendente, o null se l'input è null
+   */
+  public static com.fasterxml.jackson.databind.JsonNode toModelTree(JsonNode node) {
+    if (node == null) {
+      return null;
+    }
+    switch (node.getNodeType()) {
+      case OBJECT -> {
+        com.fasterxml.jackson.databind.node.ObjectNode copy = MODEL_NODES.objectNode();
+        for (Map.Entry<String, JsonNode> field : node.properties()) {
+          copy.set(field.getKey(), toModelTree(field.getValue()));
+        }
+        return copy;
+      }
+      case ARRAY -> {
+        com.fasterxml.jackson.databind.node.ArrayNode copy = MODEL_NODES.arrayNode(node.size());
+        for (JsonNode element : node) {
+          copy.add(toModelTree(element));
+        }
+        return copy;
+      }
+      case STRING -> {
+        return MODEL_NODES.textNode(node.stringValue());
+      }
+      case BOOLEAN -> {
+        return MODEL_NODES.booleanNode(node.booleanValue());
+      }
+      case NUMBER -> {
+        return switch (node.numberType()) {
+          case INT -> MODEL_NODES.numberNode(node.intValue());
+          case LONG -> MODEL_NODES.numberNode(node.longValue());
+          case BIG_INTEGER -> MODEL_NODES.numberNode(node.bigIntegerValue());
+          case FLOAT -> MODEL_NODES.numberNode(node.floatValue());
+          case DOUBLE -> MODEL_NODES.numberNode(node.doubleValue());
+          case BIG_DECIMAL -> MODEL_NODES.numberNode(node.decimalValue());
+        };
+      }
+      case BINARY -> {
+        return MODEL_NODES.binaryNode(node.binaryValue());
+      }
+      case POJO -> {
+        return MODEL_NODES.pojoNode(((tools.jackson.databind.node.POJONode) node).getPojo());
+      }
+      default -> {
+        return MODEL_NODES.nullNode();
+      }
+    }
+  }
+}
@@ -0,0 +1,938 @@
+package com.patred.openapi.util;
+
+/**
+ * Traduce in testo JSON i documenti YAML che usano solo il sottoinsieme comune delle specifiche
+ * scritte a mano o generate: mappe e liste a blocchi, scalari semplici o tra virgolette anche su
+ * più righe, blocchi {@code |} e {@code >}, collezioni in linea su una riga e commenti. Il JSON
+ * viene poi letto dal parser JSON, molto più veloce del motore YAML generale, e produce lo stesso
+ * albero.
+ *
+ * <p>Ogni costrutto fuori dal sottoinsieme (ancore e alias, tag, chiavi complesse, più documenti,
+ * tabulazioni nell'indentazione) fa restituire {@code null}, e il chiamante ripiega sul parser
+ * YAML. Lo stesso vale per gli scalari semplici il cui tipo dipende dalla versione di YAML:
+ * Jackson 2 segue YAML 1.1 ({@code yes}, {@code 0x1F}, {@code ~}), Jackson 3 lo schema core di
+ * YAML 1.2, e la traduzione deve valere per entrambi.
+ *
+ * <p>Un documento la cui radice è una collezione in linea, anche dopo commenti o {@code ---}, è
+ * già JSON con commenti YAML: viene restituito senza traduzione, da leggere con
+ * {@code ALLOW_YAML_COMMENTS}. Se non è JSON valido il parser JSON fallisce e il chiamante ripiega
+ * sul parser YAML.
+ */
+public final class YamlTranscoder {
+
+  private YamlTranscoder() {
+  }
+
+  /**
+   * Traduce un documento YAML in JSON.
+   *
+   * @param yaml documento YAML
+   * @return testo JSON equivalente, o null se il documento esce dal sottoinsieme supportato
+   */
+  public static String toJson(CharSequence yaml) {
+    try {
+      return new Transcoder(yaml).document();
+    } catch (Unsupported e) {
+      return null;
+    }
+  }
+
+  /**
+   * Interrompe la traduzione: il documento va letto dal parser YAML. Senza stack trace, perché
+   * serve solo come controllo di flusso.
+   */
+  private static final class Unsupported extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Unsupported INSTANCE = new Unsupported();
+
+    private Unsupported() {
+      super(null, null, false, false);
+    }
+  }
+
+  private static Unsupported unsupported() {
+    return Unsupported.INSTANCE;
+  }
+
+  /**
+   * Una traduzione. Il documento viene letto riga per riga; la riga corrente è descritta da
+   * inizio, fine (esclusi i terminatori) e indentazione, e {@link #pos} è il cursore al suo
+   * interno.
+   */
+  private static final class Transcoder {
+
+    private final CharSequence src;
+    private final int length;
+    private final StringBuilder out;
+
+    private int next;
+    private int lineStart;
+    private int lineEnd;
+    private int indent;
+    private int pos;
+    private boolean eof;
+
+    Transcoder(CharSequence src) {
+      this.src = src;
+      this.length = src.length();
+      // Il JSON prodotto ha circa la stessa lunghezza del YAML, più virgolette e parentesi
+      this.out = new StringBuilder(length + (length >> 2));
+      this.next = length > 0 && src.charAt(0) == '\uFEFF' ? 1 : 0;
+    }
+
+    String document() {
+      nextContentLine();
+      if (!eof && startsWith("---") && isBlankOrComment(lineStart + 3)) {
+        nextContentLine();
+      }
+      if (eof || src.charAt(pos) == '%') {
+        throw unsupported();
+      }
+      char first = src.charAt(pos);
+      if (first == '{' || first == '[') {
+        return src.subSequence(pos, length).toString();
+      }
+      if (indent != 0) {
+        throw unsupported();
+      }
+      block(0);
+      if (!eof) {
+        throw unsupported();
+      }
+      return out.toString();
+    }
+
+    // --- Righe ---
+
+    /**
+     * Avanza alla prossima riga con contenuto, saltando righe vuote e commenti.
+     */
+    private void nextContentLine() {
+      while (readLine()) {
+        if (pos < lineEnd && src.charAt(pos) != '#') {
+          return;
+        }
+      }
+    }
+
+    /**
+     * Legge la riga successiva e ne calcola l'indentazione.
+     *
+     * @return false alla fine del documento
+     */
+    private boolean readLine() {
+      if (next >= length) {
+        eof = true;
+        lineStart = lineEnd = pos = length;
+        return false;
+      }
+      lineStart = next;
+      int end = lineStart;
+      while (end < length && src.charAt(end) != '\n') {
+        // Un CR isolato è un a capo per YAML
+        if (src.charAt(end) == '\r' && (end + 1 == length || src.charAt(end + 1) != '\n')) {
+          throw unsupported();
+        }
+        end++;
+      }
+      next = end + 1;
+      if (end > lineStart && src.charAt(end - 1) == '\r') {
+        end--;
+      }
+      lineEnd = end;
+      int i = lineStart;
+      while (i < lineEnd && src.charAt(i) == ' ') {
+        i++;
+      }
+      if (i < lineEnd && src.charAt(i) == '\t') {
+        throw unsupported();
+      }
+      indent = i - lineStart;
+      pos = i;
+      return true;
+    }
+
+    private boolean startsWith(String prefix) {
+      if (pos + prefix.length() > lineEnd) {
+        return false;
+      }
+      for (int k = 0; k < prefix.length(); k++) {
+        if (src.charAt(pos + k) != prefix.charAt(k)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean isBlankOrComment(int from) {
+      int i = skipSpaces(from);
+      return i >= lineEnd || src.charAt(i) == '#' && i > from;
+    }
+
+    private int skipSpaces(int from) {
+      int i = from;
+      while (i < lineEnd && src.charAt(i) == ' ') {
+        i++;
+      }
+      return i;
+    }
+
+    private boolean isSequenceItem() {
+      return src.charAt(pos) == '-' && (pos + 1 == lineEnd || src.charAt(pos + 1) == ' ');
+    }
+
+    /**
+     * Dopo uno scalare o una collezione in linea il resto della riga può contenere solo un
+     * commento; la riga successiva non può essere più indentata del genitore, altrimenti sarebbe
+     * la continuazione di uno scalare su più righe.
+     */
+    private void endOfValue(int from, int parentIndent) {
+      if (!isBlankOrComment(from)) {
+        throw unsupported();
+      }
+      nextContentLine();
+      if (!eof && indent > parentIndent) {
+        throw unsupported();
+      }
+    }
+
+    // --- Struttura a blocchi ---
+
+    private void block(int blockIndent) {
+      if (isSequenceItem()) {
+        sequence(blockIndent);
+      } else {
+        mapping(blockIndent);
+      }
+    }
+
+    private void mapping(int mapIndent) {
+      out.append('{');
+      boolean first = true;
+      while (!eof && indent == mapIndent && !isSequenceItem()) {
+        if (!first) {
+          out.append(',');
+        }
+        first = false;
+        key();
+        out.append(':');
+        value(mapIndent, true);
+      }
+      if (!eof && indent >= mapIndent) {
+        throw unsupported();
+      }
+      out.append('}');
+    }
+
+    private void sequence(int seqIndent) {
+      out.append('[');
+      boolean first = true;
+      while (!eof && indent == seqIndent && isSequenceItem()) {
+        if (!first) {
+          out.append(',');
+        }
+        first = false;
+        int item = skipSpaces(pos + 1);
+        if (item < lineEnd && src.charAt(item) != '#' && isMappingEntry(item)) {
+          // "- chiave: valore" apre una mappa indentata alla colonna della chiave
+          indent = item - lineStart;
+          pos = item;
+          mapping(indent);
+        } else {
+          pos = item;
+          value(seqIndent, false);
+        }
+      }
+      if (!eof && indent > seqIndent) {
+        throw unsupported();
+      }
+      out.append(']');
+    }
+
+    /**
+     * Valore dopo {@code chiave:} o {@code -}.
+     *
+     * @param parentIndent indentazione della chiave o del trattino
+     * @param inMapping    true per i valori di una mappa, che ammettono una lista alla stessa
+     *                     indentazione della chiave
+     */
+    private void value(int parentIndent, boolean inMapping) {
+      pos = skipSpaces(pos);
+      if (pos >= lineEnd || src.charAt(pos) == '#') {
+        nextContentLine();
+        if (!eof && indent > parentIndent) {
+          block(indent);
+        } else if (!eof && inMapping && indent == parentIndent && isSequenceItem()) {
+          sequence(indent);
+        } else {
+          out.append("null");
+        }
+        return;
+      }
+
+      char c = src.charAt(pos);
+      switch (c) {
+        case '"' -> endOfValue(doubleQuoted(pos, parentIndent), parentIndent);
+        case '\'' -> endOfValue(singleQuoted(pos, parentIndent), parentIndent);
+        case '[', '{' -> endOfValue(flow(pos), parentIndent);
+        case '|', '>' -> blockScalar(parentIndent, c == '>');
+        default -> plain(parentIndent);
+      }
+    }
+
+    // --- Chiavi ---
+
+    private void key() {
+      char c = src.charAt(pos);
+      int end;
+      if (c == '"') {
+        end = doubleQuoted(pos, -1);
+      } else if (c == '\'') {
+        end = singleQuoted(pos, -1);
+      } else {
+        if (isIndicator(c)) {
+          throw unsupported();
+        }
+        int colon = plainKeyEnd(pos);
+        if (colon < 0) {
+          throw unsupported();
+        }
+        string(pos, trimEnd(pos, colon));
+        pos = colon + 1;
+        return;
+      }
+      end = skipSpaces(end);
+      if (end >= lineEnd || src.charAt(end) != ':'
+          || end + 1 < lineEnd && src.charAt(end + 1) != ' ') {
+        throw unsupported();
+      }
+      pos = end + 1;
+    }
+
+    /**
+     * Posizione del {@code :} che chiude una chiave semplice, seguito da spazio o fine riga.
+     *
+     * @return la posizione, o -1 se la riga non contiene una chiave prima di un commento
+     */
+    private int plainKeyEnd(int from) {
+      for (int i = from; i < lineEnd; i++) {
+        char c = src.charAt(i);
+        if (c == ':' && (i + 1 == lineEnd || src.charAt(i + 1) == ' ')) {
+          return i;
+        }
+        if (c == '\t') {
+          throw unsupported();
+        }
+        if (c == '#' && src.charAt(i - 1) == ' ') {
+          return -1;
+        }
+      }
+      return -1;
+    }
+
+    private boolean isMappingEntry(int from) {
+      char c = src.charAt(from);
+      if (c == '"' || c == '\'') {
+        // Una chiave implicita non può andare a capo: senza chiusura sulla riga è uno scalare
+        int end = c == '"' ? doubleQuotedEnd(from) : singleQuotedEnd(from);
+        end = end < 0 ? end : skipSpaces(end);
+        return end >= 0 && end < lineEnd && src.charAt(end) == ':';
+      }
+      return !isIndicator(c) && plainKeyEnd(from) >= 0;
+    }
+
+    // --- Scalari ---
+
+    private static boolean isIndicator(char c) {
+      return switch (c) {
+        case '-', '?', ':', ',', '[', ']', '{', '}', '#', '&', '*', '!', '|', '>', '\'', '"',
+            '%', '@', '`' -> true;
+        default -> false;
+      };
+    }
+
+    /**
+     * Fine di uno scalare semplice a blocchi: fine riga o commento, spazi finali esclusi.
+     */
+    private int plainEnd(int from) {
+      char c = src.charAt(from);
+      if (isIndicator(c) && !(c == '-' || c == '?' || c == ':')
+          || (c == '-' || c == '?' || c == ':')
+          && (from + 1 == lineEnd || src.charAt(from + 1) == ' ')) {
+        throw unsupported();
+      }
+      int end = lineEnd;
+      for (int i = from; i < lineEnd; i++) {
+        char d = src.charAt(i);
+        if (d == '\t') {
+          // Le tabulazioni separano anche i commenti: meglio lasciarle al parser YAML
+          throw unsupported();
+        }
+        if (d == '#' && i > from && src.charAt(i - 1) == ' ') {
+          end = i;
+          break;
+        }
+        if (d == ':' && (i + 1 == lineEnd || src.charAt(i + 1) == ' ')) {
+          // "a: b: c" non è YAML valido
+          throw unsupported();
+        }
+      }
+      return trimEnd(from, end);
+    }
+
+    /**
+     * Scrive uno scalare semplice, anche su più righe. Le righe di continuazione sono più
+     * indentate del genitore e vengono unite con uno spazio, o con un a capo per ogni riga vuota
+     * intermedia; uno scalare su più righe è sempre una stringa. Alla fine la riga corrente è la
+     * prima dopo lo scalare.
+     *
+     * @param parentIndent indentazione della chiave o del trattino
+     */
+    private void plain(int parentIndent) {
+      int from = pos;
+      int end = plainEnd(from);
+      if (skipSpaces(end) < lineEnd) {
+        // Un commento chiude lo scalare
+        scalar(from, end);
+        endOfValue(end, parentIndent);
+        return;
+      }
+      StringBuilder text = null;
+      int empties = 0;
+      while (readLine()) {
+        if (pos >= lineEnd) {
+          empties++;
+          continue;
+        }
+        if (indent <= parentIndent || src.charAt(pos) == '#') {
+          break;
+        }
+        if (isIndicator(src.charAt(pos))) {
+          throw unsupported();
+        }
+        int segment = plainEnd(pos);
+        if (text == null) {
+          text = new StringBuilder().append(src, from, end);
+        }
+        text.append(empties == 0 ? " " : "\n".repeat(empties)).append(src, pos, segment);
+        empties = 0;
+        if (skipSpaces(segment) < lineEnd) {
+          nextContentLine();
+          break;
+        }
+      }
+      if (text == null) {
+        scalar(from, end);
+      } else {
+        out.append('"');
+        for (int k = 0; k < text.length(); k++) {
+          escaped(text.charAt(k));
+        }
+        out.append('"');
+      }
+      if (!eof && (pos >= lineEnd || src.charAt(pos) == '#')) {
+        nextContentLine();
+      }
+      if (!eof && indent > parentIndent) {
+        throw unsupported();
+      }
+    }
+
+    private int trimEnd(int from, int end) {
+      int e = end;
+      while (e > from && src.charAt(e - 1) == ' ') {
+        e--;
+      }
+      return e;
+    }
+
+    /**
+     * Scrive uno scalare semplice con il tipo che gli danno entrambe le versioni di Jackson.
+     */
+    private void scalar(int from, int to) {
+      int len = to - from;
+      if (regionEquals(from, to, "true") || regionEquals(from, to, "false")
+          || regionEquals(from, to, "null")) {
+        out.append(src, from, to);
+        return;
+      }
+      if (isJsonNumber(from, to)) {
+        out.append(src, from, to);
+        return;
+      }
+      char c = src.charAt(from);
+      if (c >= '0' && c <= '9' || c == '-' || c == '+' || c == '.') {
+        if (mayBeYamlNumber(from, to)) {
+          throw unsupported();
+        }
+      } else if (len <= 5 && isYamlKeyword(from, to)) {
+        throw unsupported();
+      }
+      string(from, to);
+    }
+
+    private boolean regionEquals(int from, int to, String word) {
+      if (to - from != word.length()) {
+        return false;
+      }
+      for (int k = 0; k < word.length(); k++) {
+        if (src.charAt(from + k) != word.charAt(k)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Numero JSON: {@code -?(0|[1-9][0-9]*)(\.[0-9]+)?([eE][+-]?[0-9]+)?}.
+     */
+    private boolean isJsonNumber(int from, int to) {
+      int i = from;
+      if (i < to && src.charAt(i) == '-') {
+        i++;
+      }
+      if (i >= to) {
+        return false;
+      }
+      if (src.charAt(i) == '0') {
+        i++;
+      } else {
+        int start = i;
+        i = digits(i, to);
+        if (i == start) {
+          return false;
+        }
+      }
+      if (i < to && src.charAt(i) == '.') {
+        int start = ++i;
+        i = digits(i, to);
+        if (i == start) {
+          return false;
+        }
+      }
+      if (i < to && (src.charAt(i) == 'e' || src.charAt(i) == 'E')) {
+        i++;
+        if (i < to && (src.charAt(i) == '+' || src.charAt(i) == '-')) {
+          i++;
+        }
+        int start = i;
+        i = digits(i, to);
+        if (i == start) {
+          return false;
+        }
+      }
+      return i == to;
+    }
+
+    private int digits(int from, int to) {
+      int i = from;
+      while (i < to && src.charAt(i) >= '0' && src.charAt(i) <= '9') {
+        i++;
+      }
+      return i;
+    }
+
+    /**
+     * Scalari che sembrano numeri ma non sono JSON: ottali, esadecimali, binari, con trattini
+     * bassi, {@code .5}, {@code +1}, {@code .inf}, date. Una delle due versioni di Jackson potrebbe
+     * leggerli come numeri; con due o più punti ({@code 1.0.0}) restano stringhe per entrambe.
+     */
+    private boolean mayBeYamlNumber(int from, int to) {
+      int dots = 0;
+      boolean numeric = true;
+      for (int i = from; i < to; i++) {
+        char c = src.charAt(i);
+        if (c == '.') {
+          dots++;
+        } else if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F'
+            || c == 'x' || c == 'X' || c == 'o' || c == 'O' || c == '_' || c == '+' || c == '-'
+            || c == ':')) {
+          numeric = false;
+        }
+      }
+      if (dots >= 2) {
+        return false;
+      }
+      // .inf, -.Inf, .nan
+      int i = from;
+      if (i < to && (src.charAt(i) == '+' || src.charAt(i) == '-')) {
+        i++;
+      }
+      return numeric || i + 1 < to && src.charAt(i) == '.' && Character.isLetter(src.charAt(i + 1));
+    }
+
+    /**
+     * Parole che YAML 1.1 legge come booleani o null.
+     */
+    private boolean isYamlKeyword(int from, int to) {
+      String word = src.subSequence(from, to).toString();
+      return switch (word.toLowerCase(java.util.Locale.ROOT)) {
+        case "true", "false", "null", "yes", "no", "on", "off", "~" -> true;
+        default -> false;
+      };
+    }
+
+    private int doubleQuotedEnd(int from) {
+      for (int i = from + 1; i < lineEnd; i++) {
+        char c = src.charAt(i);
+        if (c == '\\') {
+          i++;
+        } else if (c == '"') {
+          return i + 1;
+        }
+      }
+      return -1;
+    }
+
+    private int singleQuotedEnd(int from) {
+      for (int i = from + 1; i < lineEnd; i++) {
+        if (src.charAt(i) == '\'') {
+          if (i + 1 < lineEnd && src.charAt(i + 1) == '\'') {
+            i++;
+          } else {
+            return i + 1;
+          }
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Scrive una stringa tra virgolette doppie; gli escape comuni a YAML e JSON vengono copiati,
+     * gli altri interrompono la traduzione.
+     *
+     * @param parentIndent indentazione del genitore, che le righe di continuazione devono
+     *                     superare; -1 se la stringa deve chiudersi sulla riga
+     * @return posizione dopo la virgoletta di chiusura, sulla riga corrente
+     */
+    private int doubleQuoted(int from, int parentIndent) {
+      out.append('"');
+      int kept = out.length();
+      for (int i = from + 1; ; i++) {
+        if (i >= lineEnd) {
+          // Gli spazi prima dell'interruzione di riga non fanno parte del valore
+          out.setLength(kept);
+          i = quotedLineBreak(parentIndent, false) - 1;
+          kept = out.length();
+          continue;
+        }
+        char c = src.charAt(i);
+        if (c == '"') {
+          out.append('"');
+          return i + 1;
+        }
+        if (c == '\\') {
+          if (i + 1 >= lineEnd) {
+            // Interruzione di riga con escape: le righe si uniscono senza spazio
+            i = quotedLineBreak(parentIndent, true) - 1;
+            kept = out.length();
+            continue;
+          }
+          char e = src.charAt(++i);
+          switch (e) {
+            // "\/" è di YAML 1.2: il parser YAML di Jackson 2 lo rifiuta, come deve fare anche qui
+            case '"', '\\', 'b', 'f', 'n', 'r', 't' -> out.append('\\').append(e);
+            // Usato da SnakeYAML all'inizio delle righe di continuazione
+            case ' ' -> out.append(' ');
+            case 'u' -> {
+              if (i + 4 >= lineEnd) {
+                throw unsupported();
+              }
+              out.append('\\').append(src, i, i + 5);
+              i += 4;
+            }
+            default -> throw unsupported();
+          }
+          kept = out.length();
+        } else {
+          escaped(c);
+          if (c != ' ' && c != '\t') {
+            kept = out.length();
+          }
+        }
+      }
+    }
+
+    /**
+     * Scrive una stringa tra apici.
+     *
+     * @param parentIndent come per {@link #doubleQuoted(int, int)}
+     * @return posizione dopo l'apice di chiusura, sulla riga corrente
+     */
+    private int singleQuoted(int from, int parentIndent) {
+      out.append('"');
+      int kept = out.length();
+      for (int i = from + 1; ; i++) {
+        if (i >= lineEnd) {
+          out.setLength(kept);
+          i = quotedLineBreak(parentIndent, false) - 1;
+          kept = out.length();
+          continue;
+        }
+        char c = src.charAt(i);
+        if (c == '\'') {
+          if (i + 1 < lineEnd && src.charAt(i + 1) == '\'') {
+            out.append('\'');
+            i++;
+            continue;
+          }
+          out.append('"');
+          return i + 1;
+        }
+        escaped(c);
+        if (c != ' ' && c != '\t') {
+          kept = out.length();
+        }
+      }
+    }
+
+    /**
+     * Passa alla riga successiva dentro una stringa tra virgolette. L'interruzione diventa uno
+     * spazio, o un a capo per ogni riga vuota che segue; con l'escape scompare.
+     *
+     * @return posizione del primo carattere non vuoto della nuova riga
+     */
+    private int quotedLineBreak(int parentIndent, boolean escapedBreak) {
+      if (parentIndent < 0) {
+        throw unsupported();
+      }
+      int empties = 0;
+      while (true) {
+        if (!readLine()) {
+          throw unsupported();
+        }
+        if (pos < lineEnd) {
+          break;
+        }
+        empties++;
+      }
+      if (indent <= parentIndent || escapedBreak && empties > 0) {
+        throw unsupported();
+      }
+      if (!escapedBreak) {
+        out.append(empties == 0 ? " " : "\\n".repeat(empties));
+      }
+      return pos;
+    }
+
+    private void string(int from, int to) {
+      out.append('"');
+      for (int i = from; i < to; i++) {
+        escaped(src.charAt(i));
+      }
+      out.append('"');
+    }
+
+    private void escaped(char c) {
+      if (c == '"' || c == '\\') {
+        out.append('\\').append(c);
+      } else if (c < 0x20) {
+        out.append(switch (c) {
+          case '\t' -> "\\t";
+          case '\n' -> "\\n";
+          case '\r' -> "\\r";
+          default -> String.format("\\u%04x", (int) c);
+        });
+      } else {
+        out.append(c);
+      }
+    }
+
+    // --- Collezioni in linea ---
+
+    /**
+     * Scrive una collezione in linea che si chiude sulla stessa riga.
+     *
+     * @return posizione dopo la parentesi di chiusura
+     */
+    private int flow(int from) {
+      char open = src.charAt(from);
+      char close = open == '[' ? ']' : '}';
+      out.append(open);
+      int i = skipSpaces(from + 1);
+      if (i < lineEnd && src.charAt(i) == close) {
+        out.append(close);
+        return i + 1;
+      }
+      while (true) {
+        if (open == '{') {
+          i = flowKey(i);
+          out.append(':');
+          i = skipSpaces(i);
+        }
+        i = skipSpaces(flowNode(i));
+        if (i >= lineEnd) {
+          throw unsupported();
+        }
+        char c = src.charAt(i);
+        if (c == close) {
+          out.append(close);
+          return i + 1;
+        }
+        if (c != ',') {
+          throw unsupported();
+        }
+        out.append(',');
+        i = skipSpaces(i + 1);
+      }
+    }
+
+    private int flowKey(int from) {
+      if (from >= lineEnd) {
+        throw unsupported();
+      }
+      char c = src.charAt(from);
+      int end;
+      if (c == '"') {
+        end = doubleQuoted(from, -1);
+      } else if (c == '\'') {
+        end = singleQuoted(from, -1);
+      } else {
+        if (isIndicator(c)) {
+          throw unsupported();
+        }
+        end = from;
+        while (end < lineEnd && src.charAt(end) != ':') {
+          char d = src.charAt(end);
+          if (d == ',' || d == '}' || d == '[' || d == ']' || d == '{' || d == '#') {
+            throw unsupported();
+          }
+          end++;
+        }
+        string(from, trimEnd(from, end));
+      }
+      end = skipSpaces(end);
+      if (end + 1 >= lineEnd || src.charAt(end) != ':' || src.charAt(end + 1) != ' ') {
+        throw unsupported();
+      }
+      return end + 1;
+    }
+
+    private int flowNode(int from) {
+      if (from >= lineEnd) {
+        throw unsupported();
+      }
+      char c = src.charAt(from);
+      switch (c) {
+        case '"':
+          return doubleQuoted(from, -1);
+        case '\'':
+          return singleQuoted(from, -1);
+        case '[', '{':
+          return flow(from);
+        default:
+          break;
+      }
+      if (isIndicator(c) && !(c == '-' && from + 1 < lineEnd && src.charAt(from + 1) != ' ')) {
+        throw unsupported();
+      }
+      int end = from;
+      while (end < lineEnd) {
+        char d = src.charAt(end);
+        if (d == ',' || d == ']' || d == '}') {
+          break;
+        }
+        if (d == '\t') {
+          throw unsupported();
+        }
+        if (d == '[' || d == '{' || d == '#' && src.charAt(end - 1) == ' '
+            || d == ':' && (end + 1 == lineEnd || " ,]}".indexOf(src.charAt(end + 1)) >= 0)) {
+          throw unsupported();
+        }
+        end++;
+      }
+      int trimmed = trimEnd(from, end);
+      if (trimmed == from) {
+        throw unsupported();
+      }
+      scalar(from, trimmed);
+      return end;
+    }
+
+    // --- Blocchi letterali e ripiegati ---
+
+    /**
+     * Scrive un blocco {@code |} o {@code >} con indicatore di chomping opzionale. Il blocco deve
+     * iniziare sulla riga successiva all'indicatore, senza righe vuote iniziali; nei blocchi
+     * ripiegati non sono ammesse righe più indentate, che YAML tratta a parte.
+     */
+    private void blockScalar(int parentIndent, boolean folded) {
+      int i = pos + 1;
+      char chomp = ' ';
+      if (i < lineEnd && (src.charAt(i) == '-' || src.charAt(i) == '+')) {
+        chomp = src.charAt(i++);
+      }
+      if (i < lineEnd && src.charAt(i) != ' ' || !isBlankOrComment(i)) {
+        throw unsupported();
+      }
+
+      if (!readLine() || pos >= lineEnd || indent <= parentIndent) {
+        throw unsupported();
+      }
+      int blockIndent = indent;
+      StringBuilder text = new StringBuilder();
+      int empties = 0;
+      boolean firstLine = true;
+      boolean lastHasNewline;
+      while (true) {
+        if (folded && pos < lineEnd && src.charAt(lineStart + blockIndent) == ' ') {
+          throw unsupported();
+        }
+        if (firstLine) {
+          firstLine = false;
+        } else if (folded) {
+          text.append(empties == 0 ? " " : "\n".repeat(empties));
+        } else {
+          text.append("\n".repeat(empties + 1));
+        }
+        text.append(src, lineStart + blockIndent, lineEnd);
+        empties = 0;
+        lastHasNewline = next <= length;
+
+        // Righe successive: vuote o indentate almeno quanto il blocco
+        boolean more = false;
+        while (readLine()) {
+          if (pos >= lineEnd) {
+            if (indent > blockIndent) {
+              throw unsupported();
+            }
+            empties++;
+            continue;
+          }
+          if (indent >= blockIndent) {
+            more = true;
+          }
+          break;
+        }
+        if (!more) {
+          break;
+        }
+      }
+      if (!lastHasNewline) {
+        throw unsupported();
+      }
+      switch (chomp) {
+        case '-' -> {
+        }
+        case '+' -> text.append("\n".repeat(empties + 1));
+        default -> text.append('\n');
+      }
+
+      out.append('"');
+      for (int k = 0; k < text.length(); k++) {
+        escaped(text.charAt(k));
+      }
+      out.append('"');
+
+      // La riga corrente è la prima dopo il blocco: commenti e righe vuote vanno saltati
+      if (!eof && (pos >= lineEnd || src.charAt(pos) == '#')) {
+        nextContentLine();
+      }
+      if (!eof && indent > parentIndent) {
+        throw unsupported();
+      }
+    }
+  }
+}
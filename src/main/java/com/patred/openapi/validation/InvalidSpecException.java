@@ -0,0 +1,49 @@
+package com.patred.openapi.validation;
+
+import java.util.List;
+
+/**
+ * Specifica rifiutata perché strutturalmente non valida. Estende
+ * {@link IllegalArgumentException}, l'eccezione storica dei converter per gli input non validi, e
+ * aggiunge l'elenco degli errori con la loro posizione.
+ */
+public class InvalidSpecException extends IllegalArgumentException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final List<ValidationError> errors;
+
+  /**
+   * Crea l'eccezione con un messaggio esplicito.
+   *
+   * @param message messaggio dell'eccezione
+   * @param errors  errori trovati, almeno uno
+   */
+  public InvalidSpecException(String message, List<ValidationError> errors) {
+    super(message);
+    this.errors = List.copyOf(errors);
+  }
+
+  /**
+   * Crea l'eccezione con un messaggio che riassume gli errori.
+   *
+   * @param errors errori trovati, almeno uno
+   */
+  public InvalidSpecException(List<ValidationError> errors) {
+    this(summary(errors), errors);
+  }
+
+  /**
+   * Errori trovati, nell'ordine in cui compaiono nell'input.
+   *
+   * @return elenco immutabile, mai vuoto
+   */
+  public List<ValidationError> errors() {
+    return errors;
+  }
+
+  private static String summary(List<ValidationError> errors) {
+    String first = "Specifica non valida: " + errors.get(0);
+    return errors.size() == 1 ? first : first + " (e altri " + (errors.size() - 1) + " errori)";
+  }
+}
@@ -0,0 +1,402 @@
+package com.patred.openapi.validation;
+
+import com.patred.openapi.limits.ConversionLimits;
+import com.patred.openapi.limits.LimitedReaders;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.SpecVersion;
+import com.patred.openapi.util.FormatUtils;
+import com.patred.openapi.util.IoUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import tools.jackson.core.JacksonException;
+import tools.jackson.core.JsonParser;
+import tools.jackson.core.JsonToken;
+import tools.jackson.core.TokenStreamLocation;
+import tools.jackson.core.exc.StreamConstraintsException;
+
+/**
+ * Validazione strutturale veloce di una specifica, da eseguire prima della conversione completa.
+ *
+ * <p>Il documento viene letto come flusso di token senza costruire l'albero: si controllano campo
+ * della versione, campi obbligatori di primo livello e forma di {@code info}, {@code paths} e
+ * delle sezioni principali; il contenuto di path e schemi viene saltato. Un errore di sintassi,
+ * una radice che non è un oggetto o una versione errata interrompono subito la lettura, così un
+ * input non valido costa solo i byte letti fino all'errore. Gli altri errori vengono raccolti,
+ * fino a {@value #MAX_ERRORS}.
+ *
+ * <p>La validazione non sostituisce quella del converter: un documento che la supera può ancora
+ * fallire nella conversione.
+ */
+public final class SpecValidator {
+
+  /**
+   * Numero massimo di errori raccolti prima di interrompere la lettura.
+   */
+  public static final int MAX_ERRORS = 20;
+
+  private static final LimitedReaders DEFAULT = LimitedReaders.of(ConversionLimits.DEFAULT);
+
+  private SpecValidator() {
+  }
+
+  /**
+   * Valida una specifica in formato testo, rilevandone il formato.
+   *
+   * @param spec     specifica JSON o YAML
+   * @param expected versione attesa, {@code SWAGGER_2} o {@code OPENAPI_3}
+   * @return errori trovati; vuoto se la specifica è valida
+   */
+  public static List<ValidationError> validate(String spec, SpecVersion expected) {
+    return validate(new StringReader(spec), FormatUtils.detect(spec).format(), expected);
+  }
+
+  /**
+   * Valida una specifica letta da uno stream, che resta aperto e viene consumato fino al primo
+   * errore bloccante o alla fine del documento.
+   *
+   * @param in       specifica JSON o YAML
+   * @param format   formato dell'input
+   * @param expected versione attesa, {@code SWAGGER_2} o {@code OPENAPI_3}
+   * @return errori trovati; vuoto se la specifica è valida
+   */
+  public static List<ValidationError> validate(InputStream in, Format format,
+      SpecVersion expected) {
+    return validate(in, format, expected, DEFAULT);
+  }
+
+  /**
+   * Valida una specifica letta da un reader, che resta aperto e viene consumato fino al primo
+   * errore bloccante o alla fine del documento.
+   *
+   * @param in       specifica JSON o YAML
+   * @param format   formato dell'input
+   * @param expected versione attesa, {@code SWAGGER_2} o {@code OPENAPI_3}
+   * @return errori trovati; vuoto se la specifica è valida
+   */
+  public static List<ValidationError> validate(Reader in, Format format, SpecVersion expected) {
+    return validate(in, format, expected, DEFAULT);
+  }
+
+  /**
+   * Come {@link #validate(InputStream, Format, SpecVersion)}, con i limiti dei reader indicati.
+   *
+   * @throws com.patred.openapi.limits.LimitExceededException se l'input supera un limite
+   */
+  static List<ValidationError> validate(InputStream in, Format format, SpecVersion expected,
+      LimitedReaders readers) {
+    try (JsonParser parser = readers.createParser(in, format)) {
+      return new Scan(parser, expected, readers).run();
+    }
+  }
+
+  /**
+   * Come {@link #validate(Reader, Format, SpecVersion)}, con i limiti dei reader indicati.
+   *
+   * @throws com.patred.openapi.limits.LimitExceededException se l'input supera un limite
+   */
+  static List<ValidationError> validate(Reader in, Format format, SpecVersion expected,
+      LimitedReaders readers) {
+    try (JsonParser parser = readers.createParser(in, format)) {
+      return new Scan(parser, expected, readers).run();
+    }
+  }
+
+  /**
+   * Lancia {@link InvalidSpecException} se ci sono errori.
+   *
+   * @param errors esito di una validazione
+   * @throws InvalidSpecException se l'elenco non è vuoto
+   */
+  public static void require(List<ValidationError> errors) {
+    if (!errors.isEmpty()) {
+      throw new InvalidSpecException(errors);
+    }
+  }
+
+  /**
+   * Valida una specifica testuale.
+   *
+   * @throws InvalidSpecException se la specifica non è valida
+   */
+  static void requireValid(String spec, SpecVersion expected, LimitedReaders readers) {
+    readers.checkSize(spec.length());
+    require(validate(new StringReader(spec), FormatUtils.detect(spec).format(), expected,
+        readers));
+  }
+
+  /**
+   * Valida uno stream e lo restituisce riportato all'inizio. Per poter tornare indietro lo stream
+   * trattiene in memoria i byte letti dalla validazione, cioè tutto il documento se è valido, ma
+   * non oltre il limite sull'input.
+   *
+   * @return stream da passare al converter al posto di {@code spec}
+   * @throws InvalidSpecException se la specifica non è valida
+   */
+  static InputStream requireValid(InputStream spec, SpecVersion expected,
+      LimitedReaders readers) throws IOException {
+    InputStream in = IoUtils.markable(readers.bound(spec));
+    Format format = FormatUtils.detect(in).format();
+    in.mark(Integer.MAX_VALUE);
+    require(validate(in, format, expected, readers));
+    in.reset();
+    return in;
+  }
+
+  /**
+   * Come {@link #requireValid(InputStream, SpecVersion, LimitedReaders)}, per un reader. Il
+   * contenuto viene letto per intero: {@code BufferedReader} allocherebbe subito tutto il limite di
+   * {@code mark}.
+   */
+  static Reader requireValid(Reader spec, SpecVersion expected, LimitedReaders readers)
+      throws IOException {
+    StringWriter buffer = new StringWriter();
+    readers.bound(spec).transferTo(buffer);
+    String text = buffer.toString();
+    requireValid(text, expected, readers);
+    return new StringReader(text);
+  }
+
+  /**
+   * Valida un file; il converter lo rilegge poi dall'inizio.
+   *
+   * @throws InvalidSpecException se la specifica non è valida
+   */
+  static void requireValid(Path spec, SpecVersion expected, LimitedReaders readers)
+      throws IOException {
+    readers.checkSize(Files.size(spec));
+    try (InputStream in = IoUtils.markable(Files.newInputStream(spec))) {
+      Format format = FormatUtils.detect(in).format();
+      require(validate(in, format, expected, readers));
+    }
+  }
+
+  /**
+   * Valida il contenuto di un buffer senza modificarne la posizione.
+   *
+   * @throws InvalidSpecException se la specifica non è valida
+   */
+  static void requireValid(ByteBuffer spec, SpecVersion expected, LimitedReaders readers)
+      throws IOException {
+    readers.checkSize(spec.remaining());
+    InputStream in = IoUtils.asInputStream(spec);
+    Format format = FormatUtils.detect(in).format();
+    require(validate(in, format, expected, readers));
+  }
+
+  /**
+   * Una singola lettura del documento. Interrompe la scansione lanciando {@link Stop}, così i
+   * controlli annidati non devono propagare lo stato.
+   */
+  private static final class Scan {
+
+    private final JsonParser parser;
+    private final LimitedReaders readers;
+    private final boolean swagger2;
+    private final List<ValidationError> errors = new ArrayList<>();
+
+    Scan(JsonParser parser, SpecVersion expected, LimitedReaders readers) {
+      if (expected != SpecVersion.SWAGGER_2 && expected != SpecVersion.OPENAPI_3) {
+        throw new IllegalArgumentException("Versione attesa non supportata: " + expected);
+      }
+      this.parser = parser;
+      this.readers = readers;
+      this.swagger2 = expected == SpecVersion.SWAGGER_2;
+    }
+
+    List<ValidationError> run() {
+      try {
+        document();
+      } catch (Stop e) {
+        // Errore bloccante o troppi errori: quelli raccolti bastano
+      } catch (StreamConstraintsException e) {
+        throw readers.exceeded(e);
+      } catch (JacksonException e) {
+        TokenStreamLocation location = e.getLocation();
+        errors.add(new ValidationError(pointer(), location == null ? -1 : location.getLineNr(),
+            location == null ? -1 : location.getColumnNr(),
+            "sintassi non valida: " + e.getOriginalMessage()));
+      }
+      return List.copyOf(errors);
+    }
+
+    private void document() {
+      JsonToken token = parser.nextToken();
+      if (token == null) {
+        fatal("", "documento vuoto");
+      }
+      if (token != JsonToken.START_OBJECT) {
+        fatal("", "il documento deve essere un oggetto");
+      }
+      TokenStreamLocation start = parser.currentTokenLocation();
+      String version = null;
+      Set<String> seen = new HashSet<>();
+      while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+        String name = parser.currentName();
+        seen.add(name);
+        parser.nextToken();
+        String pointer = "/" + escape(name);
+        switch (name) {
+          case "swagger", "openapi" -> version = version(name, pointer);
+          case "info" -> info(pointer);
+          case "paths" -> paths(pointer);
+          case "definitions", "parameters", "responses", "securityDefinitions", "components",
+               "webhooks" -> shape(pointer, JsonToken.START_OBJECT, "un oggetto");
+          case "schemes", "consumes", "produces", "servers", "security", "tags" ->
+              shape(pointer, JsonToken.START_ARRAY, "un array");
+          case "host", "basePath" -> shape(pointer, JsonToken.VALUE_STRING, "una stringa");
+          default -> {
+          }
+        }
+        // Nessun effetto se il valore è già stato letto per intero
+        parser.skipChildren();
+      }
+
+      String versionField = swagger2 ? "swagger" : "openapi";
+      if (!seen.contains(versionField)) {
+        error("/" + versionField, start, "campo obbligatorio mancante");
+      }
+      if (!seen.contains("info")) {
+        error("/info", start, "campo obbligatorio mancante");
+      }
+      boolean openApi31 = version != null && version.startsWith("3.1");
+      if (openApi31) {
+        if (!seen.contains("paths") && !seen.contains("components")
+            && !seen.contains("webhooks")) {
+          error("", start, "serve almeno uno tra 'paths', 'components' e 'webhooks'");
+        }
+      } else if (!seen.contains("paths")) {
+        error("/paths", start, "campo obbligatorio mancante");
+      }
+    }
+
+    private String version(String name, String pointer) {
+      if (swagger2 && name.equals("openapi")) {
+        fatal(pointer, "specifica OpenAPI 3: attesa una specifica Swagger 2");
+      }
+      if (!swagger2 && name.equals("swagger")) {
+        fatal(pointer, "specifica Swagger 2: attesa una specifica OpenAPI 3");
+      }
+      // In YAML "swagger: 2.0" senza virgolette è un numero: conta il testo, come per i converter
+      JsonToken token = parser.currentToken();
+      if (token != JsonToken.VALUE_STRING && !token.isNumeric()) {
+        fatal(pointer, "la versione deve essere una stringa");
+      }
+      String version = parser.getString();
+      if (swagger2 ? !version.equals("2.0") : !version.startsWith("3.")) {
+        fatal(pointer, "versione non supportata: " + version);
+      }
+      return version;
+    }
+
+    private void info(String pointer) {
+      if (!shape(pointer, JsonToken.START_OBJECT, "un oggetto")) {
+        return;
+      }
+      TokenStreamLocation start = parser.currentTokenLocation();
+      boolean title = false;
+      boolean version = false;
+      while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+        String name = parser.currentName();
+        JsonToken value = parser.nextToken();
+        if (name.equals("title")) {
+          title = true;
+          if (value != JsonToken.VALUE_STRING) {
+            error(pointer + "/title", "deve essere una stringa");
+          }
+        } else if (name.equals("version")) {
+          version = true;
+          if (!value.isScalarValue() || value == JsonToken.VALUE_NULL) {
+            error(pointer + "/version", "deve essere una stringa");
+          }
+        }
+        parser.skipChildren();
+      }
+      if (!title) {
+        error(pointer + "/title", start, "campo obbligatorio mancante");
+      }
+      if (!version) {
+        error(pointer + "/version", start, "campo obbligatorio mancante");
+      }
+    }
+
+    private void paths(String pointer) {
+      if (!shape(pointer, JsonToken.START_OBJECT, "un oggetto")) {
+        return;
+      }
+      while (parser.nextToken() == JsonToken.PROPERTY_NAME) {
+        String name = parser.currentName();
+        JsonToken value = parser.nextToken();
+        String item = pointer + "/" + escape(name);
+        if (name.startsWith("x-")) {
+          // Estensione: nessun vincolo
+        } else if (!name.startsWith("/")) {
+          error(item, "il path deve iniziare con '/'");
+        } else if (value != JsonToken.START_OBJECT) {
+          error(item, "il path deve essere un oggetto");
+        }
+        parser.skipChildren();
+      }
+    }
+
+    /**
+     * Controlla il tipo del valore corrente; se è sbagliato registra l'errore e lo salta.
+     *
+     * @return true se il valore ha il tipo atteso, che resta da leggere
+     */
+    private boolean shape(String pointer, JsonToken expected, String description) {
+      if (parser.currentToken() == expected) {
+        return true;
+      }
+      error(pointer, "deve essere " + description);
+      parser.skipChildren();
+      return false;
+    }
+
+    private void error(String pointer, String message) {
+      error(pointer, parser.currentTokenLocation(), message);
+    }
+
+    private void error(String pointer, TokenStreamLocation location, String message) {
+      errors.add(new ValidationError(pointer, location.getLineNr(), location.getColumnNr(),
+          message));
+      if (errors.size() >= MAX_ERRORS) {
+        throw new Stop();
+      }
+    }
+
+    private void fatal(String pointer, String message) {
+      error(pointer, message);
+      throw new Stop();
+    }
+
+    private String pointer() {
+      return parser.streamReadContext().pathAsPointer().toString();
+    }
+
+    private static String escape(String name) {
+      return name.replace("~", "~0").replace("/", "~1");
+    }
+  }
+
+  /**
+   * Interrompe la scansione; non porta informazioni e non costruisce lo stack trace.
+   */
+  private static final class Stop extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    Stop() {
+      super(null, null, false, false);
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package com.patred.openapi.validation;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.limits.ConversionLimits;
+import com.patred.openapi.limits.LimitedReaders;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.SpecVersion;
+import com.patred.openapi.resolver.ExternalRefResolver;
+import io.swagger.models.Swagger;
+import io.swagger.v3.oas.models.OpenAPI;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Decoratore di {@link OpenApiDowngrader} che esegue {@link SpecValidator} prima di ogni
+ * conversione testuale e rifiuta gli input non validi con {@link InvalidSpecException}, prima di
+ * costruire l'albero o di scrivere output. Gli stream vengono trattenuti in memoria durante la
+ * validazione per poterli rileggere; alberi, modelli e conversioni con resolver esterno vengono
+ * delegati senza validazione.
+ */
+public class ValidatingOpenApiDowngrader implements OpenApiDowngrader {
+
+  private static final SpecVersion EXPECTED = SpecVersion.OPENAPI_3;
+
+  private final OpenApiDowngrader delegate;
+  private final LimitedReaders readers;
+
+  public ValidatingOpenApiDowngrader(OpenApiDowngrader delegate) {
+    this(delegate, ConversionLimits.DEFAULT);
+  }
+
+  /**
+   * Crea il decoratore con limiti sull'input: la validazione si interrompe con una
+   * {@link com.patred.openapi.limits.LimitExceededException} appena l'input li supera, senza
+   * trattenerne in memoria più del limite sulla dimensione.
+   *
+   * @param delegate converter a cui passare gli input validi
+   * @param limits   limiti da applicare, di solito gli stessi del converter
+   */
+  public ValidatingOpenApiDowngrader(OpenApiDowngrader delegate, ConversionLimits limits) {
+    this.delegate = delegate;
+    this.readers = LimitedReaders.of(limits);
+  }
+
+  @Override
+  public String convertToV2(String spec) throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    return delegate.convertToV2(spec);
+  }
+
+  @Override
+  public String convertToV2(String spec, Format format) throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    return delegate.convertToV2(spec, format);
+  }
+
+  @Override
+  public String convertToV2(String spec, OutputOptions options) throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    return delegate.convertToV2(spec, options);
+  }
+
+  @Override
+  public void convertToV2(InputStream spec, OutputStream out) throws Exception {
+    delegate.convertToV2(SpecValidator.requireValid(spec, EXPECTED, readers), out);
+  }
+
+  @Override
+  public void convertToV2(InputStream spec, OutputStream out, Format format) throws Exception {
+    delegate.convertToV2(SpecValidator.requireValid(spec, EXPECTED, readers), out, format);
+  }
+
+  @Override
+  public void convertToV2(InputStream spec, OutputStream out, OutputOptions options)
+      throws Exception {
+    delegate.convertToV2(SpecValidator.requireValid(spec, EXPECTED, readers), out, options);
+  }
+
+  @Override
+  public void convertToV2(Reader spec, Writer out) throws Exception {
+    delegate.convertToV2(SpecValidator.requireValid(spec, EXPECTED, readers), out);
+  }
+
+  @Override
+  public void convertToV2(Reader spec, Writer out, Format format) throws Exception {
+    delegate.convertToV2(SpecValidator.requireValid(spec, EXPECTED, readers), out, format);
+  }
+
+  @Override
+  public void convertToV2(Path spec, Path out) throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    delegate.convertToV2(spec, out);
+  }
+
+  @Override
+  public void convertToV2(Path spec, Path out, Format format) throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    delegate.convertToV2(spec, out, format);
+  }
+
+  @Override
+  public void convertToV2(ByteBuffer spec, WritableByteChannel out) throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    delegate.convertToV2(spec, out);
+  }
+
+  @Override
+  public void convertToV2(ByteBuffer spec, WritableByteChannel out, Format format)
+      throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    delegate.convertToV2(spec, out, format);
+  }
+
+  /**
+   * Delega senza validazione: i documenti vengono letti dal resolver, non dal chiamante.
+   */
+  @Override
+  public String convertToV2(ExternalRefResolver resolver, String root) throws Exception {
+    return delegate.convertToV2(resolver, root);
+  }
+
+  @Override
+  public String convertToV2(ExternalRefResolver resolver, String root, Format format)
+      throws Exception {
+    return delegate.convertToV2(resolver, root, format);
+  }
+
+  /**
+   * Delega senza validazione: alberi e modelli sono già stati letti, quindi non c'è lettura da
+   * risparmiare.
+   */
+  @Override
+  public JsonNode convertToV2(JsonNode openApi) throws Exception {
+    return delegate.convertToV2(openApi);
+  }
+
+  @Override
+  public String convertToV2(JsonNode openApi, Format format) throws Exception {
+    return delegate.convertToV2(openApi, format);
+  }
+
+  @Override
+  public JsonNode convertToV2(OpenAPI openApi) throws Exception {
+    return delegate.convertToV2(openApi);
+  }
+
+  @Override
+  public String convertToV2(OpenAPI openApi, Format format) throws Exception {
+    return delegate.convertToV2(openApi, format);
+  }
+
+  @Override
+  public Swagger convertToV2Model(OpenAPI openApi) throws Exception {
+    return delegate.convertToV2Model(openApi);
+  }
+
+  @Override
+  public void warmUp() throws Exception {
+    delegate.warmUp();
+  }
+
+  /**
+   * La validazione non cambia il risultato: la configurazione è quella del delegato.
+   */
+  @Override
+  public String toString() {
+    return "ValidatingOpenApiDowngrader[" + delegate + "]";
+  }
+}
@@ -0,0 +1,131 @@
+package com.patred.openapi.validation;
+
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.limits.ConversionLimits;
+import com.patred.openapi.limits.LimitedReaders;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.SpecVersion;
+import com.patred.openapi.resolver.ExternalRefResolver;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * Decoratore di {@link OpenApiUpdater} che esegue {@link SpecValidator} prima di ogni conversione
+ * e rifiuta gli input non validi con {@link InvalidSpecException}, senza arrivare al parser di
+ * Swagger. Gli stream vengono trattenuti in memoria durante la validazione per poterli rileggere;
+ * le conversioni con resolver esterno vengono delegate senza validazione.
+ */
+public class ValidatingOpenApiUpdater implements OpenApiUpdater {
+
+  private static final SpecVersion EXPECTED = SpecVersion.SWAGGER_2;
+
+  private final OpenApiUpdater delegate;
+  private final LimitedReaders readers;
+
+  public ValidatingOpenApiUpdater(OpenApiUpdater delegate) {
+    this(delegate, ConversionLimits.DEFAULT);
+  }
+
+  /**
+   * Crea il decoratore con limiti sull'input: la validazione si interrompe con una
+   * {@link com.patred.openapi.limits.LimitExceededException} appena l'input li supera, senza
+   * trattenerne in memoria più del limite sulla dimensione.
+   *
+   * @param delegate converter a cui passare gli input validi
+   * @param limits   limiti da applicare, di solito gli stessi del converter
+   */
+  public ValidatingOpenApiUpdater(OpenApiUpdater delegate, ConversionLimits limits) {
+    this.delegate = delegate;
+    this.readers = LimitedReaders.of(limits);
+  }
+
+  @Override
+  public String convertToV3(String spec) throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    return delegate.convertToV3(spec);
+  }
+
+  @Override
+  public String convertToV3(String spec, Format format) throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    return delegate.convertToV3(spec, format);
+  }
+
+  @Override
+  public String convertToV3(String spec, OutputOptions options) throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    return delegate.convertToV3(spec, options);
+  }
+
+  @Override
+  public void convertToV3(InputStream spec, OutputStream out) throws Exception {
+    delegate.convertToV3(SpecValidator.requireValid(spec, EXPECTED, readers), out);
+  }
+
+  @Override
+  public void convertToV3(InputStream spec, OutputStream out, Format format) throws Exception {
+    delegate.convertToV3(SpecValidator.requireValid(spec, EXPECTED, readers), out, format);
+  }
+
+  @Override
+  public void convertToV3(InputStream spec, OutputStream out, OutputOptions options)
+      throws Exception {
+    delegate.convertToV3(SpecValidator.requireValid(spec, EXPECTED, readers), out, options);
+  }
+
+  @Override
+  public void convertToV3(Path spec, Path out) throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    delegate.convertToV3(spec, out);
+  }
+
+  @Override
+  public void convertToV3(Path spec, Path out, Format format) throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    delegate.convertToV3(spec, out, format);
+  }
+
+  @Override
+  public void convertToV3(ByteBuffer spec, WritableByteChannel out) throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    delegate.convertToV3(spec, out);
+  }
+
+  @Override
+  public void convertToV3(ByteBuffer spec, WritableByteChannel out, Format format)
+      throws Exception {
+    SpecValidator.requireValid(spec, EXPECTED, readers);
+    delegate.convertToV3(spec, out, format);
+  }
+
+  /**
+   * Delega senza validazione: i documenti vengono letti dal resolver, non dal chiamante.
+   */
+  @Override
+  public String convertToV3(ExternalRefResolver resolver, String root) throws Exception {
+    return delegate.convertToV3(resolver, root);
+  }
+
+  @Override
+  public String convertToV3(ExternalRefResolver resolver, String root, Format format)
+      throws Exception {
+    return delegate.convertToV3(resolver, root, format);
+  }
+
+  @Override
+  public void warmUp() throws Exception {
+    delegate.warmUp();
+  }
+
+  /**
+   * La validazione non cambia il risultato: la configurazione è quella del delegato.
+   */
+  @Override
+  public String toString() {
+    return "ValidatingOpenApiUpdater[" + delegate + "]";
+  }
+}
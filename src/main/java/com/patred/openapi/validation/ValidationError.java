@@ -0,0 +1,30 @@
+package com.patred.openapi.validation;
+
+/**
+ * Errore strutturale di una specifica, con la posizione in cui è stato trovato.
+ *
+ * @param pointer JSON Pointer dell'elemento errato (stringa vuota per la radice)
+ * @param line    riga nell'input, a partire da 1; -1 se non nota
+ * @param column  colonna nell'input, a partire da 1; -1 se non nota
+ * @param message descrizione dell'errore
+ */
+public record ValidationError(String pointer, int line, int column, String message) {
+
+  /**
+   * Errore senza posizione nell'input, ad esempio rilevato su un albero già letto.
+   *
+   * @param pointer JSON Pointer dell'elemento errato
+   * @param message descrizione dell'errore
+   * @return errore con riga e colonna -1
+   */
+  public static ValidationError at(String pointer, String message) {
+    return new ValidationError(pointer, -1, -1, message);
+  }
+
+  @Override
+  public String toString() {
+    String where = pointer.isEmpty() ? "/" : pointer;
+    return line < 0 ? where + ": " + message
+        : where + " (riga " + line + ", colonna " + column + "): " + message;
+  }
+}
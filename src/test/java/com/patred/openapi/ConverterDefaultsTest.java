@@ -0,0 +1,148 @@
+package com.patred.openapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.Selection;
+import com.patred.openapi.util.FormatUtils;
+import com.patred.openapi.util.Mappers;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.JsonNode;
+
+/**
+ * Un'implementazione esterna che definisce solo le varianti su {@code String} ottiene le altre
+ * dai metodi predefiniti, con lo stesso risultato delle implementazioni del progetto.
+ */
+public class ConverterDefaultsTest {
+
+  private final OpenApiDowngraderImpl downgraderImpl = new OpenApiDowngraderImpl();
+  private final OpenApiUpdaterImpl updaterImpl = new OpenApiUpdaterImpl();
+
+  private final OpenApiDowngrader downgrader = new OpenApiDowngrader() {
+    @Override
+    public String convertToV2(String spec) throws Exception {
+      return downgraderImpl.convertToV2(spec);
+    }
+
+    @Override
+    public String convertToV2(String spec, Format format) throws Exception {
+      return downgraderImpl.convertToV2(spec, format);
+    }
+  };
+
+  private final OpenApiUpdater updater = new OpenApiUpdater() {
+    @Override
+    public String convertToV3(String spec) throws Exception {
+      return updaterImpl.convertToV3(spec);
+    }
+
+    @Override
+    public String convertToV3(String spec, Format format) throws Exception {
+      return updaterImpl.convertToV3(spec, format);
+    }
+  };
+
+  @TempDir
+  Path dir;
+
+  private static String read(String name) throws Exception {
+    return Files.readString(Path.of("src/test/resources", name));
+  }
+
+  @Test
+  void testDowngraderDefaults() throws Exception {
+    String spec = read("sample-openapi3.yaml");
+    OutputOptions options = OutputOptions.of(Format.JSON).compact().sorted()
+        .withSelection(Selection.ALL.withPathPrefixes("/"));
+
+    assertEquals(downgraderImpl.convertToV2(spec, options), downgrader.convertToV2(spec, options));
+
+    StringWriter writer = new StringWriter();
+    downgrader.convertToV2(new StringReader(spec), writer, Format.JSON);
+    assertEquals(downgraderImpl.convertToV2(spec, Format.JSON), writer.toString());
+
+    JsonNode tree = Mappers.reader(Format.YAML).readTree(spec);
+    assertEquals(downgraderImpl.convertToV2(tree), downgrader.convertToV2(tree));
+  }
+
+  @Test
+  void testUpdaterDefaults() throws Exception {
+    String spec = read("sample-swagger2.yaml");
+    OutputOptions options = OutputOptions.of(Format.YAML).withCompression(
+        OutputOptions.Compression.GZIP);
+
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    updaterImpl.convertToV3(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)),
+        expected, options);
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    updater.convertToV3(new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8)), actual,
+        options);
+    assertEquals(gunzip(expected.toByteArray()), gunzip(actual.toByteArray()));
+
+    Path input = dir.resolve("api.yaml");
+    Files.writeString(input, spec);
+    updater.convertToV3(input, dir.resolve("api.json"), Format.JSON);
+    assertEquals(updaterImpl.convertToV3(spec, Format.JSON),
+        Files.readString(dir.resolve("api.json")));
+  }
+
+  @Test
+  void testDefaultsKeepTheInputFormatOfBaselineImplementations() throws Exception {
+    // Come l'implementazione storica: ogni formato diverso da YAML produce JSON
+    OpenApiDowngrader baselineDowngrader = new OpenApiDowngrader() {
+      @Override
+      public String convertToV2(String spec) throws Exception {
+        return convertToV2(spec, FormatUtils.isYaml(spec) ? Format.YAML : Format.JSON);
+      }
+
+      @Override
+      public String convertToV2(String spec, Format format) throws Exception {
+        return downgraderImpl.convertToV2(spec, format == Format.YAML ? Format.YAML : Format.JSON);
+      }
+    };
+    OpenApiUpdater baselineUpdater = new OpenApiUpdater() {
+      @Override
+      public String convertToV3(String spec) throws Exception {
+        return convertToV3(spec, FormatUtils.isYaml(spec) ? Format.YAML : Format.JSON);
+      }
+
+      @Override
+      public String convertToV3(String spec, Format format) throws Exception {
+        return updaterImpl.convertToV3(spec, format == Format.YAML ? Format.YAML : Format.JSON);
+      }
+    };
+    String openApi = read("sample-openapi3.yaml");
+    String swagger = "swagger: \"2.0\"\ninfo:\n  title: t\n  version: \"1\"\npaths: {}\n";
+
+    StringWriter writer = new StringWriter();
+    baselineDowngrader.convertToV2(new StringReader(openApi), writer);
+    assertEquals(downgraderImpl.convertToV2(openApi), writer.toString());
+    assertEquals(downgraderImpl.convertToV2(openApi), baselineDowngrader.convertToV2(openApi,
+        OutputOptions.DEFAULT));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    baselineUpdater.convertToV3(new ByteArrayInputStream(swagger.getBytes(StandardCharsets.UTF_8)),
+        out);
+    assertEquals(updaterImpl.convertToV3(swagger), out.toString(StandardCharsets.UTF_8));
+    Path input = Files.writeString(dir.resolve("swagger.yaml"), swagger);
+    baselineUpdater.convertToV3(input, dir.resolve("openapi.yaml"));
+    assertEquals(updaterImpl.convertToV3(swagger), Files.readString(dir.resolve("openapi.yaml")));
+  }
+
+  private static String gunzip(byte[] bytes) throws Exception {
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+  }
+}
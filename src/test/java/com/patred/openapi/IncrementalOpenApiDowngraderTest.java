@@ -0,0 +1,84 @@
+package com.patred.openapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.patred.openapi.IncrementalOpenApiDowngrader.IncrementalStats;
+import com.patred.openapi.limits.ConversionLimits;
+import com.patred.openapi.limits.LimitExceededException;
+import com.patred.openapi.metrics.ConversionMetrics;
+import com.patred.openapi.model.Format;
+import org.junit.jupiter.api.Test;
+
+public class IncrementalOpenApiDowngraderTest {
+
+  private final OpenApiDowngraderImpl full = new OpenApiDowngraderImpl();
+
+  private static String spec(String petsSummary, boolean withOwners) {
+    String owners = withOwners ? """
+        ,
+            "/owners": {
+              "get": { "responses": { "200": { "description": "ok" } } }
+            }""" : "";
+    return """
+        {
+          "openapi": "3.0.1",
+          "info": { "title": "Pet API", "version": "1.0.0" },
+          "paths": {
+            "/pets": {
+              "get": {
+                "summary": "%s",
+                "responses": { "200": { "description": "ok" } }
+              }
+            },
+            "/pets/{id}": {
+              "delete": { "responses": { "204": { "description": "deleted" } } }
+            }%s
+          },
+          "components": { "schemas": { "Pet": { "type": "object" } } }
+        }
+        """.formatted(petsSummary, owners);
+  }
+
+  @Test
+  void testOnlyChangedPathsAreReconverted() throws Exception {
+    IncrementalOpenApiDowngrader incremental = new IncrementalOpenApiDowngrader();
+
+    String first = spec("List pets", true);
+    assertEquals(full.convertToV2(first, Format.JSON), incremental.convertToV2(first, Format.JSON));
+    assertEquals(new IncrementalStats(0, 3, 0), incremental.lastStats());
+
+    String second = spec("List all pets", true);
+    assertEquals(full.convertToV2(second, Format.JSON),
+        incremental.convertToV2(second, Format.JSON));
+    assertEquals(new IncrementalStats(2, 1, 0), incremental.lastStats());
+
+    String third = spec("List all pets", false);
+    assertEquals(full.convertToV2(third, Format.YAML), incremental.convertToV2(third, Format.YAML));
+    assertEquals(new IncrementalStats(2, 0, 1), incremental.lastStats());
+  }
+
+  @Test
+  void testResetForgetsPreviousConversion() throws Exception {
+    IncrementalOpenApiDowngrader incremental = new IncrementalOpenApiDowngrader();
+    String spec = spec("List pets", false);
+
+    incremental.convertToV2(spec);
+    incremental.reset();
+    incremental.convertToV2(spec);
+    assertEquals(new IncrementalStats(0, 2, 0), incremental.lastStats());
+  }
+
+  @Test
+  void testConfiguredConverterLimitsApply() throws Exception {
+    String spec = spec("List pets", false);
+    ConversionLimits tiny = ConversionLimits.DEFAULT.withMaxInputBytes(100);
+    IncrementalOpenApiDowngrader limited = new IncrementalOpenApiDowngrader(
+        new OpenApiDowngraderImpl(ConversionMetrics.NOOP, false, tiny));
+    assertThrows(LimitExceededException.class, () -> limited.convertToV2(spec));
+
+    IncrementalOpenApiDowngrader configured = new IncrementalOpenApiDowngrader(
+        new OpenApiDowngraderImpl(ConversionMetrics.NOOP, false, ConversionLimits.UNTRUSTED));
+    assertEquals(full.convertToV2(spec), configured.convertToV2(spec));
+  }
+}
@@ -1,14 +1,39 @@
 package com.patred.openapi;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.patred.openapi.metrics.ConversionMetrics;
+import com.github.luben.zstd.ZstdInputStream;
 import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.OutputOptions.Compression;
+import com.patred.openapi.model.OutputOptions.Encoding;
+import com.patred.openapi.model.OutputOptions.YamlStyle;
+import io.swagger.models.Swagger;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.parser.OpenAPIV3Parser;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.node.ObjectNode;
+import tools.jackson.dataformat.smile.SmileMapper;
+import tools.jackson.dataformat.yaml.YAMLFactory;
 
 public class OpenApiDowngraderImplTest {
 
@@ -197,4 +222,347 @@ public class OpenApiDowngraderImplTest {
     assertTrue(swagger.contains("\"2.0\""));
   }
 
+  @Test
+  void testStreamingMatchesTreeConversion() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    converter.convertToV2(
+        new ByteArrayInputStream(openApi3Json.getBytes(StandardCharsets.UTF_8)), out);
+
+    ObjectMapper mapper = new ObjectMapper();
+    assertEquals(mapper.readTree(converter.convertToV2(openApi3Json)),
+        mapper.readTree(out.toString(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void testStreamingYamlFile() throws Exception {
+    final String openApiYaml = new String(Files.readAllBytes(
+        Path.of("src/test/resources/sample-openapi3.yaml")));
+
+    StringWriter out = new StringWriter();
+    converter.convertToV2(new StringReader(openApiYaml), out, Format.YAML);
+
+    String swagger = out.toString();
+    assertTrue(swagger.replaceAll("[\\r\\n]+", " ").replaceAll(" +", " ").trim().startsWith("--- swagger"));
+    ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+    assertEquals(mapper.readTree(converter.convertToV2(openApiYaml, Format.YAML)),
+        mapper.readTree(swagger));
+  }
+
+  @Test
+  void testStreamingMissingOpenApiField() {
+    String invalid = "{ \"info\": { \"title\": \"No OpenAPI\" } }";
+    Exception ex = assertThrows(IllegalArgumentException.class,
+        () -> converter.convertToV2(new StringReader(invalid), new StringWriter(), Format.JSON));
+    assertEquals("Specifica non valida: manca il campo 'openapi'", ex.getMessage());
+  }
+
+  @Test
+  void testPathConversion(@TempDir Path dir) throws Exception {
+    Path out = dir.resolve("swagger2.json");
+    converter.convertToV2(Path.of("src/test/resources/sample-openapi3.yaml"), out, Format.JSON);
+
+    String swagger = Files.readString(out);
+    assertTrue(swagger.replaceAll("[\\r\\n]+", " ").replaceAll(" +", " ").trim().startsWith("{ \"swagger\""));
+    assertTrue(swagger.contains("\"definitions\""));
+  }
+
+  @Test
+  void testByteBufferConversion() throws Exception {
+    byte[] bytes = openApi3Json.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    converter.convertToV2(buffer, Channels.newChannel(out));
+
+    assertEquals(0, buffer.position());
+    ObjectMapper mapper = new ObjectMapper();
+    assertEquals(mapper.readTree(converter.convertToV2(openApi3Json)),
+        mapper.readTree(out.toString(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void testSwagger2InputRejected() throws Exception {
+    final String swagger = new String(Files.readAllBytes(
+        Path.of("src/test/resources/sample-swagger2.yaml")));
+    Exception ex = assertThrows(IllegalArgumentException.class,
+        () -> converter.convertToV2(swagger));
+    assertEquals("Specifica non valida: manca il campo 'openapi'", ex.getMessage());
+  }
+
+  @Test
+  void testWarmUpDoesNotAffectConversions() throws Exception {
+    final String openApi = new String(Files.readAllBytes(
+        Path.of("src/test/resources/sample-openapi3.yaml")));
+    String expected = converter.convertToV2(openApi, Format.JSON);
+    converter.warmUp();
+    converter.warmUp();
+    assertEquals(expected, converter.convertToV2(openApi, Format.JSON));
+  }
+
+  @Test
+  void testParametersAndSharedResponses() throws Exception {
+    String spec = """
+        openapi: 3.0.1
+        info:
+          title: Shared
+          version: 1.0.0
+        paths:
+          /a:
+            put:
+              parameters:
+                - name: id
+                  in: query
+              requestBody:
+                content:
+                  application/json:
+                    schema:
+                      $ref: '#/components/schemas/Pet'
+              responses:
+                "404":
+                  description: not found
+          /b:
+            get:
+              parameters:
+                - name: id
+                  in: query
+              responses:
+                "404":
+                  description: not found
+        """;
+
+    JsonNode swagger = new ObjectMapper().readTree(converter.convertToV2(spec, Format.JSON));
+
+    JsonNode putParams = swagger.at("/paths/~1a/put/parameters");
+    assertEquals(2, putParams.size());
+    assertEquals("id", putParams.get(0).get("name").asString());
+    assertEquals("body", putParams.get(1).get("in").asString());
+    assertEquals(1, swagger.at("/paths/~1b/get/parameters").size());
+    assertEquals(swagger.at("/paths/~1a/put/responses/404"),
+        swagger.at("/paths/~1b/get/responses/404"));
+    assertEquals("not found", swagger.at("/paths/~1b/get/responses/404/description").asString());
+  }
+
+  private static final String CYCLIC_SPEC = """
+      openapi: 3.0.1
+      info:
+        title: Tree
+        version: 1.0.0
+      paths:
+        /nodes:
+          get:
+            responses:
+              "200":
+                description: ok
+                content:
+                  application/json:
+                    schema:
+                      $ref: '#/components/schemas/Node'
+      components:
+        schemas:
+          Node:
+            type: object
+            properties:
+              label:
+                $ref: '#/components/schemas/Label'
+              children:
+                type: array
+                items:
+                  $ref: '#/components/schemas/Node'
+          Label:
+            type: string
+      """;
+
+  @Test
+  void testRefsRewrittenToDefinitions() throws Exception {
+    JsonNode swagger = new ObjectMapper().readTree(converter.convertToV2(openApi3Json, Format.JSON));
+
+    assertEquals("#/definitions/Pet",
+        swagger.at("/paths/~1pets/get/responses/200/schema/items/$ref").asString());
+    assertEquals("#/definitions/Pet",
+        swagger.at("/paths/~1pets/post/parameters/0/schema/$ref").asString());
+    assertFalse(swagger.toString().contains("#/components/schemas"));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    converter.convertToV2(new ByteArrayInputStream(CYCLIC_SPEC.getBytes(StandardCharsets.UTF_8)),
+        out, Format.JSON);
+    JsonNode streamed = new ObjectMapper().readTree(out.toString(StandardCharsets.UTF_8));
+    assertEquals("#/definitions/Node",
+        streamed.at("/definitions/Node/properties/children/items/$ref").asString());
+    assertEquals(new ObjectMapper().readTree(converter.convertToV2(CYCLIC_SPEC, Format.JSON)),
+        streamed);
+  }
+
+  @Test
+  void testDereferenceInlinesSchemasAndKeepsCycles() throws Exception {
+    OpenApiDowngraderImpl dereferencing = new OpenApiDowngraderImpl(ConversionMetrics.NOOP, true);
+    JsonNode swagger = new ObjectMapper().readTree(
+        dereferencing.convertToV2(CYCLIC_SPEC, Format.JSON));
+
+    JsonNode schema = swagger.at("/paths/~1nodes/get/responses/200/schema");
+    assertEquals("object", schema.get("type").asString());
+    assertEquals("string", schema.at("/properties/label/type").asString());
+    assertEquals("#/definitions/Node", schema.at("/properties/children/items/$ref").asString());
+    assertEquals("string", swagger.at("/definitions/Node/properties/label/type").asString());
+
+    StringWriter out = new StringWriter();
+    dereferencing.convertToV2(new StringReader(CYCLIC_SPEC), out, Format.JSON);
+    assertEquals(swagger, new ObjectMapper().readTree(out.toString()));
+  }
+
+  @Test
+  void testTreeInputMatchesTextConversion() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    JsonNode input = mapper.readTree(openApi3Json);
+    String before = input.toString();
+
+    JsonNode swagger = converter.convertToV2(input);
+    assertEquals(mapper.readTree(converter.convertToV2(openApi3Json, Format.JSON)), swagger);
+    assertEquals(swagger, mapper.readTree(converter.convertToV2(input, Format.JSON)));
+    assertEquals(before, input.toString());
+
+    // Il risultato non condivide nodi con l'input: modificarlo non altera né l'input né le
+    // conversioni successive
+    JsonNode copy = swagger.deepCopy();
+    ((ObjectNode) swagger.get("info")).put("title", "changed");
+    ((ObjectNode) swagger.at("/paths/~1pets/post/parameters/0/schema")).put("$ref", "#/x");
+    assertEquals(before, input.toString());
+    assertEquals(copy, converter.convertToV2(input));
+  }
+
+  @Test
+  void testModelInput() throws Exception {
+    OpenAPI model = new OpenAPIV3Parser().readContents(openApi3Json).getOpenAPI();
+
+    JsonNode swagger = converter.convertToV2(model);
+    assertEquals("2.0", swagger.get("swagger").asString());
+    assertEquals("api.example.com", swagger.get("host").asString());
+    assertEquals("#/definitions/Pet",
+        swagger.at("/paths/~1pets/post/parameters/0/schema/$ref").asString());
+    assertEquals(swagger, new ObjectMapper().readTree(converter.convertToV2(model, Format.JSON)));
+
+    Swagger swaggerModel = converter.convertToV2Model(model);
+    assertEquals("Pet API", swaggerModel.getInfo().getTitle());
+    assertEquals("listPets", swaggerModel.getPath("/pets").getGet().getOperationId());
+    assertTrue(swaggerModel.getDefinitions().containsKey("Pet"));
+    assertTrue(swaggerModel.getSecurityDefinitions().containsKey("api_key"));
+  }
+
+  @Test
+  void testTextOutputOptions() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    JsonNode expected = mapper.readTree(converter.convertToV2(openApi3Json));
+
+    String compact = converter.convertToV2(openApi3Json, OutputOptions.DEFAULT.compact());
+    assertFalse(compact.contains("\n"));
+    assertEquals(expected, mapper.readTree(compact));
+
+    // Con l'ordinamento anche la variante a stream passa dall'albero
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    converter.convertToV2(new ByteArrayInputStream(openApi3Json.getBytes(StandardCharsets.UTF_8)),
+        out, OutputOptions.DEFAULT.sorted());
+    String sorted = out.toString(StandardCharsets.UTF_8);
+    assertTrue(sorted.indexOf("\"basePath\"") < sorted.indexOf("\"definitions\""));
+    assertTrue(sorted.indexOf("\"paths\"") < sorted.indexOf("\"swagger\""));
+    assertEquals(expected, mapper.readTree(sorted));
+
+    String flow = converter.convertToV2(openApi3Json, OutputOptions.of(Format.YAML)
+        .withYamlStyle(YamlStyle.FLOW).withMinimizedQuotes());
+    assertTrue(flow.contains("{swagger: "));
+    assertEquals(expected, new ObjectMapper(new YAMLFactory()).readTree(flow));
+  }
+
+  @Test
+  void testBinaryCompressedOutput() throws Exception {
+    JsonNode expected = new ObjectMapper().readTree(converter.convertToV2(openApi3Json));
+    OutputOptions options = OutputOptions.DEFAULT.withEncoding(Encoding.SMILE)
+        .withCompression(Compression.ZSTD);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    converter.convertToV2(new ByteArrayInputStream(openApi3Json.getBytes(StandardCharsets.UTF_8)),
+        out, options);
+    try (ZstdInputStream in = new ZstdInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+      assertEquals(expected, new SmileMapper().readTree(in));
+    }
+
+    out.reset();
+    converter.convertToV2(new ByteArrayInputStream(openApi3Json.getBytes(StandardCharsets.UTF_8)),
+        out, options.withEncoding(Encoding.JSON).withCompression(Compression.GZIP));
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+      assertEquals(expected, new ObjectMapper().readTree(in));
+    }
+    assertThrows(IllegalArgumentException.class,
+        () -> converter.convertToV2(openApi3Json, options));
+  }
+
+  @Test
+  void testParallelConversionMatchesSequential() throws Exception {
+    StringBuilder spec = new StringBuilder(
+        "{\"openapi\": \"3.0.1\", \"info\": {\"title\": \"t\", \"version\": \"1\"}, \"paths\": {");
+    for (int i = 0; i < 200; i++) {
+      spec.append(i == 0 ? "" : ",").append("\"/items").append(i)
+          .append("\": {\"get\": {\"operationId\": \"get").append(i)
+          .append("\", \"responses\": {\"200\": {\"description\": \"ok\", \"content\": ")
+          .append("{\"application/json\": {\"schema\": {\"$ref\": \"#/components/schemas/Item")
+          .append(i % 50).append("\"}}}}}}}");
+    }
+    spec.append("}, \"components\": {\"schemas\": {");
+    for (int i = 0; i < 50; i++) {
+      // Catena senza cicli: dove un ciclo viene interrotto dipende da dove inizia la risoluzione
+      spec.append(i == 0 ? "" : ",").append("\"Item").append(i)
+          .append("\": {\"type\": \"object\", \"properties\": {\"next\": ")
+          .append(i == 49 ? "{\"type\": \"string\"}}}"
+              : "{\"$ref\": \"#/components/schemas/Item" + (i + 1) + "\"}}}");
+    }
+    spec.append("}}}");
+
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (boolean dereference : new boolean[] {false, true}) {
+        String sequential = new OpenApiDowngraderImpl(ConversionMetrics.NOOP, dereference)
+            .convertToV2(spec.toString(), Format.JSON);
+        String parallel = new OpenApiDowngraderImpl(ConversionMetrics.NOOP, dereference, pool, 8)
+            .convertToV2(spec.toString(), Format.JSON);
+        assertEquals(sequential, parallel);
+      }
+    } finally {
+      pool.shutdown();
+    }
+    assertThrows(IllegalArgumentException.class,
+        () -> new OpenApiDowngraderImpl(ConversionMetrics.NOOP, false, pool, 0));
+  }
+
+  @Test
+  void testParallelDereferenceOfNestedPointers() throws Exception {
+    // Ogni blocco risolve puntatori dentro gli schemi, che non sono nell'indice di components
+    StringBuilder spec = new StringBuilder(
+        "{\"openapi\": \"3.0.1\", \"info\": {\"title\": \"t\", \"version\": \"1\"}, \"paths\": {");
+    for (int i = 0; i < 400; i++) {
+      spec.append(i == 0 ? "" : ",").append("\"/items").append(i)
+          .append("\": {\"get\": {\"responses\": {\"200\": {\"description\": \"ok\", ")
+          .append("\"content\": {\"application/json\": {\"schema\": {\"$ref\": ")
+          .append("\"#/components/schemas/A").append(i % 100).append("/properties/b\"}}}}}}}");
+    }
+    spec.append("}, \"components\": {\"schemas\": {");
+    for (int i = 0; i < 100; i++) {
+      spec.append(i == 0 ? "" : ",").append("\"A").append(i)
+          .append("\": {\"type\": \"object\", \"properties\": {\"b\": {\"type\": \"string\", ")
+          .append("\"maxLength\": ").append(i).append("}}}");
+    }
+    spec.append("}}}");
+
+    String sequential = new OpenApiDowngraderImpl(ConversionMetrics.NOOP, true)
+        .convertToV2(spec.toString(), Format.JSON);
+    ForkJoinPool pool = new ForkJoinPool(8);
+    try {
+      OpenApiDowngraderImpl parallel =
+          new OpenApiDowngraderImpl(ConversionMetrics.NOOP, true, pool, 4);
+      for (int run = 0; run < 20; run++) {
+        assertEquals(sequential, parallel.convertToV2(spec.toString(), Format.JSON));
+      }
+    } finally {
+      pool.shutdown();
+    }
+    JsonNode swagger = new ObjectMapper().readTree(sequential);
+    assertEquals(7, swagger.at("/paths/~1items107/get/responses/200/schema/maxLength").asInt());
+  }
 }
@@ -1,13 +1,34 @@
 package com.patred.openapi;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.OutputOptions.Compression;
+import com.patred.openapi.model.OutputOptions.Encoding;
+import com.patred.openapi.model.OutputOptions.YamlStyle;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.yaml.YAMLFactory;
 
 public class OpenApiUpdaterTest {
 
@@ -119,4 +140,178 @@ public class OpenApiUpdaterTest {
     assertTrue(result.contains("openapi"), "Output deve contenere 'openapi'");
     System.out.println(result);
   }
+
+  @Test
+  void testStreamMatchesStringConversion() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    converter.convertToV3(new ByteArrayInputStream(SAMPLE_YAML.getBytes(StandardCharsets.UTF_8)),
+        out, Format.JSON);
+
+    ObjectMapper mapper = new ObjectMapper();
+    assertEquals(mapper.readTree(converter.convertToV3(SAMPLE_YAML, Format.JSON)),
+        mapper.readTree(out.toString(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void testPathConversion(@TempDir Path dir) throws Exception {
+    Path out = dir.resolve("openapi3.json");
+    converter.convertToV3(Path.of("src/test/resources/sample-swagger2.yaml"), out);
+
+    String result = Files.readString(out);
+    assertTrue(result.replaceAll("[\\r\\n]+", " ").replaceAll(" +", " ").trim()
+        .startsWith("{ \"openapi\""));
+    assertTrue(result.contains("/validate-file"));
+  }
+
+  @Test
+  void testByteBufferConversion() throws Exception {
+    byte[] bytes = SAMPLE_JSON.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    converter.convertToV3(buffer, Channels.newChannel(out), Format.YAML);
+
+    assertEquals(0, buffer.position());
+    assertTrue(out.toString(StandardCharsets.UTF_8).contains("openapi:"));
+  }
+
+  @Test
+  void testInvalidStreamThrows() {
+    assertThrows(IllegalArgumentException.class, () -> converter.convertToV3(
+        new ByteArrayInputStream("- swagger\n- wrong".getBytes(StandardCharsets.UTF_8)),
+        new ByteArrayOutputStream()));
+  }
+
+  @Test
+  void testConcurrentConversions() throws Exception {
+    String expected = converter.convertToV3(SAMPLE_YAML, Format.JSON);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < 64; i++) {
+        Format format = i % 2 == 0 ? Format.JSON : Format.YAML;
+        results.add(executor.submit(() -> converter.convertToV3(SAMPLE_YAML, format)));
+      }
+      for (int i = 0; i < results.size(); i += 2) {
+        assertEquals(expected, results.get(i).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testOpenApi3InputRejected() {
+    String openApi3 = "openapi: 3.0.1\ninfo:\n  title: x\n  version: 1\npaths: {}\n";
+    Exception ex = assertThrows(IllegalArgumentException.class,
+        () -> converter.convertToV3(openApi3));
+    assertTrue(ex.getMessage().toLowerCase().contains("non valida"));
+  }
+
+  @Test
+  void testWarmUpDoesNotAffectConversions() throws Exception {
+    String expected = converter.convertToV3(SAMPLE_YAML, Format.JSON);
+    converter.warmUp();
+    converter.warmUp();
+    assertEquals(expected, converter.convertToV3(SAMPLE_YAML, Format.JSON));
+  }
+
+  @Test
+  void testDefinitionsDoNotLeakBetweenConversions() throws Exception {
+    String withDefinitions = SAMPLE_YAML + "definitions:\n  Pet:\n    type: object\n";
+    assertTrue(converter.convertToV3(withDefinitions, Format.JSON).contains("\"Pet\""));
+    assertFalse(converter.convertToV3(SAMPLE_YAML, Format.JSON).contains("\"Pet\""));
+  }
+
+  @Test
+  void testAnchorsAndAliasesAreResolved() throws Exception {
+    String yaml = """
+        swagger: "2.0"
+        info:
+          title: Anchors
+          version: "1.0"
+        paths:
+          /a:
+            get:
+              responses:
+                "200": &ok
+                  description: ok
+                  schema:
+                    type: string
+          /b:
+            get:
+              responses:
+                "200": *ok
+        definitions:
+          Base: &base
+            type: object
+            properties:
+              id:
+                type: string
+          Named:
+            <<: *base
+            description: named
+        """;
+    ObjectMapper mapper = new ObjectMapper();
+
+    tools.jackson.databind.JsonNode result = mapper.readTree(converter.convertToV3(yaml,
+        Format.JSON));
+
+    assertEquals(result.at("/paths/~1a/get/responses/200"),
+        result.at("/paths/~1b/get/responses/200"));
+    assertEquals("string", result.at("/paths/~1b/get/responses/200/content/*~1*/schema/type")
+        .asString());
+    assertEquals("string", result.at("/components/schemas/Named/properties/id/type").asString());
+    assertEquals("named", result.at("/components/schemas/Named/description").asString());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    converter.convertToV3(new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)), out,
+        Format.JSON);
+    assertEquals(result, mapper.readTree(out.toString(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void testMalformedModelIsInvalidSpec() {
+    String yaml = SAMPLE_YAML.replaceAll("200:\\s+description: Success", "200: ok");
+    Exception ex = assertThrows(IllegalArgumentException.class,
+        () -> converter.convertToV3(yaml));
+    assertTrue(ex.getMessage().toLowerCase().contains("non valida"));
+  }
+
+  @Test
+  void testTextOutputOptions() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    String pretty = converter.convertToV3(SAMPLE_YAML, Format.JSON);
+
+    String compact = converter.convertToV3(SAMPLE_YAML, OutputOptions.of(Format.JSON).compact());
+    assertFalse(compact.contains("\n"));
+    assertTrue(compact.length() < pretty.length());
+    assertEquals(mapper.readTree(pretty), mapper.readTree(compact));
+
+    String sorted = converter.convertToV3(SAMPLE_YAML, OutputOptions.of(Format.JSON).sorted());
+    assertTrue(sorted.indexOf("\"info\"") < sorted.indexOf("\"openapi\""));
+    assertTrue(sorted.indexOf("\"openapi\"") < sorted.indexOf("\"paths\""));
+    assertEquals(mapper.readTree(pretty), mapper.readTree(sorted));
+
+    String flow = converter.convertToV3(SAMPLE_YAML,
+        OutputOptions.of(Format.YAML).withYamlStyle(YamlStyle.FLOW));
+    assertTrue(flow.contains("{openapi: "));
+    assertEquals(mapper.readTree(pretty),
+        new ObjectMapper(new YAMLFactory()).readTree(flow));
+  }
+
+  @Test
+  void testBinaryCompressedOutput() throws Exception {
+    OutputOptions options = OutputOptions.DEFAULT.withEncoding(Encoding.CBOR)
+        .withCompression(Compression.GZIP);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    converter.convertToV3(new ByteArrayInputStream(SAMPLE_YAML.getBytes(StandardCharsets.UTF_8)),
+        out, options);
+
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+      assertEquals(new ObjectMapper().readTree(converter.convertToV3(SAMPLE_YAML, Format.JSON)),
+          new CBORMapper().readTree(in));
+    }
+    assertThrows(IllegalArgumentException.class, () -> converter.convertToV3(SAMPLE_YAML, options));
+  }
 }
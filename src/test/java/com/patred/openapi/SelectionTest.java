@@ -0,0 +1,220 @@
+package com.patred.openapi;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.model.Selection;
+import com.patred.openapi.util.Mappers;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+
+public class SelectionTest {
+
+  private static final String OPENAPI = """
+      {
+        "openapi": "3.0.1",
+        "info": {"title": "Pets", "version": "1"},
+        "tags": [{"name": "pets"}, {"name": "store"}],
+        "paths": {
+          "/pets": {
+            "get": {
+              "tags": ["pets"],
+              "operationId": "listPets",
+              "responses": {"200": {"$ref": "#/components/responses/PetList"}}
+            },
+            "post": {
+              "tags": ["store"],
+              "operationId": "addPet",
+              "requestBody": {"content": {"application/json":
+                  {"schema": {"$ref": "#/components/schemas/NewPet"}}}},
+              "responses": {"201": {"description": "created"}}
+            }
+          },
+          "/pets/{id}": {
+            "get": {
+              "tags": ["pets"],
+              "operationId": "getPet",
+              "parameters": [{"$ref": "#/components/parameters/Id"}],
+              "responses": {"200": {"description": "ok", "content": {"application/json":
+                  {"schema": {"$ref": "#/components/schemas/Pet"}}}}}
+            }
+          },
+          "/petshop": {
+            "get": {
+              "tags": ["store"],
+              "operationId": "getShop",
+              "responses": {"200": {"description": "ok", "content": {"application/json":
+                  {"schema": {"$ref": "#/components/schemas/Shop"}}}}}
+            }
+          }
+        },
+        "components": {
+          "schemas": {
+            "Pet": {
+              "type": "object",
+              "properties": {"owner": {"$ref": "#/components/schemas/Owner"}},
+              "discriminator": {"propertyName": "kind", "mapping": {"dog": "Dog"}}
+            },
+            "Owner": {"type": "object", "properties": {"name": {"type": "string"}}},
+            "Dog": {"allOf": [{"$ref": "#/components/schemas/Pet"}]},
+            "NewPet": {"type": "object"},
+            "Shop": {"type": "object"},
+            "Unused": {"type": "object"}
+          },
+          "responses": {
+            "PetList": {"description": "ok", "content": {"application/json": {"schema":
+                {"type": "array", "items": {"$ref": "#/components/schemas/Pet"}}}}}
+          },
+          "parameters": {
+            "Id": {"name": "id", "in": "path", "required": true, "schema": {"type": "string"}}
+          },
+          "securitySchemes": {
+            "key": {"type": "apiKey", "name": "X-Key", "in": "header"}
+          }
+        }
+      }
+      """;
+
+  private static final String SWAGGER = """
+      {
+        "swagger": "2.0",
+        "info": {"title": "Pets", "version": "1"},
+        "tags": [{"name": "pets"}, {"name": "store"}],
+        "paths": {
+          "/pets/{id}": {
+            "get": {
+              "tags": ["pets"],
+              "operationId": "getPet",
+              "parameters": [{"$ref": "#/parameters/Id"}],
+              "responses": {"200": {"$ref": "#/responses/PetFound"}}
+            }
+          },
+          "/orders": {
+            "post": {
+              "tags": ["store"],
+              "operationId": "addOrder",
+              "parameters": [{"name": "body", "in": "body",
+                  "schema": {"$ref": "#/definitions/Order"}}],
+              "responses": {"201": {"description": "created"}}
+            }
+          }
+        },
+        "parameters": {
+          "Id": {"name": "id", "in": "path", "required": true, "type": "string"}
+        },
+        "responses": {
+          "PetFound": {"description": "ok", "schema": {"$ref": "#/definitions/Pet"}}
+        },
+        "definitions": {
+          "Pet": {"type": "object", "properties": {"tag": {"$ref": "#/definitions/Tag"}}},
+          "Tag": {"type": "object"},
+          "Order": {"type": "object"}
+        }
+      }
+      """;
+
+  private static JsonNode tree(String json) {
+    return Mappers.reader(Format.JSON).readTree(json);
+  }
+
+  private static List<String> names(JsonNode node) {
+    List<String> names = new ArrayList<>();
+    if (node != null) {
+      node.propertyNames().forEach(names::add);
+    }
+    return names;
+  }
+
+  private static OutputOptions select(Selection selection) {
+    return OutputOptions.of(Format.JSON).withSelection(selection);
+  }
+
+  @Test
+  void testDowngradeByTagKeepsReachableComponents() {
+    JsonNode swagger = tree(new OpenApiDowngraderImpl().convertToV2(OPENAPI,
+        select(Selection.ALL.withTags("pets"))));
+
+    assertEquals(List.of("/pets", "/pets/{id}"), names(swagger.get("paths")));
+    assertEquals(List.of("get"), names(swagger.path("paths").get("/pets")));
+    // Owner attraverso Pet, Dog attraverso il mapping del discriminator
+    assertEquals(List.of("Pet", "Owner", "Dog"), names(swagger.get("definitions")));
+    assertEquals(List.of("key"), names(swagger.get("securityDefinitions")));
+  }
+
+  @Test
+  void testCriteriaAreCombined() {
+    OpenApiDowngraderImpl downgrader = new OpenApiDowngraderImpl();
+
+    // Il prefisso confronta segmenti interi: /pets non comprende /petshop
+    JsonNode byPath = tree(downgrader.convertToV2(OPENAPI,
+        select(Selection.ALL.withPathPrefixes("/pets"))));
+    assertEquals(List.of("/pets", "/pets/{id}"), names(byPath.get("paths")));
+
+    JsonNode byPathAndTag = tree(downgrader.convertToV2(OPENAPI,
+        select(Selection.ALL.withPathPrefixes("/pets").withTags("store"))));
+    assertEquals(List.of("/pets"), names(byPathAndTag.get("paths")));
+    assertEquals(List.of("post"), names(byPathAndTag.path("paths").get("/pets")));
+    assertEquals(List.of("NewPet"), names(byPathAndTag.get("definitions")));
+
+    JsonNode byIds = tree(downgrader.convertToV2(OPENAPI,
+        select(Selection.ALL.withOperationIds("getShop", "addPet"))));
+    assertEquals(List.of("/pets", "/petshop"), names(byIds.get("paths")));
+    assertEquals(List.of("NewPet", "Shop"), names(byIds.get("definitions")));
+
+    JsonNode none = tree(downgrader.convertToV2(OPENAPI,
+        select(Selection.ALL.withOperationIds("missing"))));
+    assertTrue(none.get("paths").isEmpty());
+    assertFalse(none.has("definitions"));
+  }
+
+  @Test
+  void testStreamMatchesString() throws Exception {
+    OpenApiDowngraderImpl downgrader = new OpenApiDowngraderImpl();
+    OutputOptions options = select(Selection.ALL.withTags("store"));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    downgrader.convertToV2(new ByteArrayInputStream(OPENAPI.getBytes(StandardCharsets.UTF_8)), out,
+        options);
+
+    assertEquals(downgrader.convertToV2(OPENAPI, options), out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testUpdateByOperationId() throws Exception {
+    OpenApiUpdaterImpl updater = new OpenApiUpdaterImpl();
+
+    JsonNode openApi = tree(updater.convertToV3(SWAGGER,
+        select(Selection.ALL.withOperationIds("getPet"))));
+
+    assertEquals(List.of("/pets/{id}"), names(openApi.get("paths")));
+    assertEquals(List.of("Pet", "Tag"), names(openApi.path("components").get("schemas")));
+    assertEquals(1, openApi.get("tags").size());
+    assertEquals("pets", openApi.get("tags").get(0).get("name").asString());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    updater.convertToV3(new ByteArrayInputStream(SWAGGER.getBytes(StandardCharsets.UTF_8)), out,
+        select(Selection.ALL.withOperationIds("getPet")));
+    assertEquals(openApi, tree(out.toString(StandardCharsets.UTF_8)));
+  }
+
+  @Test
+  void testSelectionValues() {
+    assertTrue(Selection.ALL.isAll());
+    assertSame(Selection.ALL, OutputOptions.DEFAULT.selection());
+    assertEquals(Selection.ALL.withTags("a", "b"), Selection.ALL.withTags("a").withTags("b"));
+    assertTrue(Selection.ALL.withPathPrefixes("/").matchesPath("/pets"));
+    assertTrue(Selection.ALL.withPathPrefixes("/pets/").matchesPath("/pets/{id}"));
+    assertFalse(Selection.ALL.withPathPrefixes("/pets/").matchesPath("/pets"));
+    assertThrows(IllegalArgumentException.class, () -> Selection.ALL.withPathPrefixes("pets"));
+  }
+}
@@ -0,0 +1,200 @@
+package com.patred.openapi.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.metrics.ConversionMetrics;
+import com.patred.openapi.model.OutputOptions;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class CancellationTest {
+
+  private static final Duration LONG = Duration.ofSeconds(30);
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static String read(String name) throws IOException {
+    return Files.readString(Path.of("src/test/resources", name));
+  }
+
+  private static String manyPaths(int count) {
+    StringBuilder spec = new StringBuilder(
+        "{\"openapi\":\"3.0.1\",\"info\":{\"title\":\"t\",\"version\":\"1\"},\"paths\":{");
+    for (int i = 0; i < count; i++) {
+      spec.append(i == 0 ? "" : ",").append("\"/item").append(i).append("\":{\"get\":")
+          .append("{\"responses\":{\"200\":{\"description\":\"ok\"}}}}");
+    }
+    return spec.append("}}").toString();
+  }
+
+  @Test
+  void testAsyncConversions() throws Exception {
+    OpenApiUpdater updater = new OpenApiUpdaterImpl();
+    OpenApiDowngrader downgrader = new OpenApiDowngraderImpl();
+    String swagger = read("sample-swagger2.yaml");
+    String openApi = read("sample-openapi3.yaml");
+
+    assertEquals(updater.convertToV3(swagger, OutputOptions.DEFAULT),
+        updater.convertToV3Async(swagger, OutputOptions.DEFAULT, executor, LONG).get());
+    assertEquals(downgrader.convertToV2(openApi, OutputOptions.DEFAULT),
+        downgrader.convertToV2Async(openApi, OutputOptions.DEFAULT, executor, LONG).get());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    downgrader.convertToV2Async(new ByteArrayInputStream(openApi.getBytes(StandardCharsets.UTF_8)),
+        out, OutputOptions.DEFAULT, executor, LONG).get();
+    assertEquals(downgrader.convertToV2(openApi, OutputOptions.DEFAULT),
+        out.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testParallelConversion() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(2);
+    try {
+      OpenApiDowngrader parallel = new OpenApiDowngraderImpl(ConversionMetrics.NOOP, false, pool,
+          10);
+      String spec = manyPaths(200);
+
+      assertEquals(new OpenApiDowngraderImpl().convertToV2(spec),
+          Cancellation.create().call(() -> parallel.convertToV2(spec)));
+
+      Cancellation cancelled = Cancellation.create();
+      assertThrows(ConversionCancelledException.class, () -> cancelled.call(() -> {
+        cancelled.cancel();
+        return parallel.convertToV2(spec);
+      }));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void testStreamingStopsBetweenPaths() {
+    byte[] spec = manyPaths(5_000).getBytes(StandardCharsets.UTF_8);
+    Cancellation cancellation = Cancellation.create();
+    long[] read = new long[1];
+    InputStream in = new FilterInputStream(new ByteArrayInputStream(spec)) {
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        read[0] += Math.max(n, 0);
+        // Annullata mentre la conversione è a metà dei path
+        cancellation.cancel();
+        return n;
+      }
+    };
+
+    ConversionCancelledException e = assertThrows(ConversionCancelledException.class,
+        () -> cancellation.call(() -> {
+          new OpenApiDowngraderImpl().convertToV2(in, new ByteArrayOutputStream());
+          return null;
+        }));
+
+    assertFalse(e.timedOut());
+    assertTrue(read[0] < spec.length / 2, "letti " + read[0] + " byte su " + spec.length);
+  }
+
+  @Test
+  void testTimeoutWhileQueued() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(() -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    AtomicBoolean ran = new AtomicBoolean();
+
+    CompletableFuture<String> future = Cancellation.supplyAsync(() -> {
+      ran.set(true);
+      return "x";
+    }, executor, Duration.ofMillis(50));
+
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> future.get(10, TimeUnit.SECONDS));
+    assertInstanceOf(TimeoutException.class, e.getCause());
+    release.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    assertFalse(ran.get());
+  }
+
+  @Test
+  void testCancelStopsRunningConversion() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CompletableFuture<String> future = Cancellation.supplyAsync(() -> {
+      started.countDown();
+      while (true) {
+        Cancellation.checkpoint();
+        Thread.onSpinWait();
+      }
+    }, executor, LONG);
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+
+    future.cancel(false);
+
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    assertTrue(future.isCancelled());
+  }
+
+  @Test
+  void testDeadlineStopsRunningConversion() throws Exception {
+    CompletableFuture<String> future = Cancellation.supplyAsync(() -> {
+      while (true) {
+        Cancellation.checkpoint();
+        Thread.onSpinWait();
+      }
+    }, executor, Duration.ofMillis(20));
+
+    ExecutionException e = assertThrows(ExecutionException.class,
+        () -> future.get(10, TimeUnit.SECONDS));
+    assertInstanceOf(TimeoutException.class, e.getCause());
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void testOutsideAsyncNothingChanges() throws Exception {
+    Cancellation.current().cancel();
+    Cancellation.checkpoint();
+    assertFalse(Cancellation.current().isCancelled());
+
+    executor.shutdown();
+    CompletableFuture<String> rejected = Cancellation.supplyAsync(() -> "x", executor, LONG);
+    assertThrows(ExecutionException.class, rejected::get);
+    assertThrows(IllegalArgumentException.class,
+        () -> Cancellation.supplyAsync(() -> "x", executor, Duration.ZERO));
+  }
+}
@@ -0,0 +1,123 @@
+package com.patred.openapi.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.model.Format;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BatchConverterTest {
+
+  private final BatchConverter batch =
+      new BatchConverter(new OpenApiUpdaterImpl(), new OpenApiDowngraderImpl(), 4);
+
+  private static String openApi(int i) {
+    return """
+        openapi: 3.0.1
+        info:
+          title: API %d
+          version: 1.0.0
+        paths:
+          /item%d:
+            get:
+              responses:
+                "200":
+                  description: ok
+        """.formatted(i, i);
+  }
+
+  @Test
+  void testResultsKeepInputOrder() {
+    List<String> specs = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      specs.add(openApi(i));
+    }
+
+    BatchResult<String> result = batch.convertToV2(specs, Format.JSON);
+
+    assertEquals(50, result.items().size());
+    assertEquals(50, result.successes());
+    for (int i = 0; i < 50; i++) {
+      assertEquals(i, result.items().get(i).index());
+      assertTrue(result.items().get(i).value().contains("/item" + i + "\""));
+    }
+    assertTrue(result.throughput() > 0);
+  }
+
+  @Test
+  void testFailuresDoNotAbortBatch() {
+    List<String> specs = List.of(openApi(0), "{ \"info\": {} }", openApi(2));
+
+    BatchResult<String> result = batch.convertToV2(specs);
+
+    assertEquals(2, result.successes());
+    assertEquals(1, result.failures().size());
+    BatchItem<String> failed = result.failures().get(0);
+    assertEquals(1, failed.index());
+    assertFalse(failed.isSuccess());
+    assertInstanceOf(IllegalArgumentException.class, failed.error());
+  }
+
+  @Test
+  void testConvertDirectory(@TempDir Path dir) throws Exception {
+    Path in = Files.createDirectories(dir.resolve("in"));
+    Files.copy(Path.of("src/test/resources/sample-swagger2.yaml"), in.resolve("a.yaml"));
+    Files.writeString(in.resolve("b.json"), "[]");
+    Files.writeString(in.resolve("notes.txt"), "ignored");
+
+    BatchResult<Path> result = batch.convertDirectoryToV3(in, dir.resolve("out"), Format.JSON);
+
+    assertEquals(2, result.items().size());
+    assertEquals(1, result.successes());
+    Path converted = result.items().get(0).value();
+    assertEquals("a.json", converted.getFileName().toString());
+    assertTrue(Files.readString(converted).contains("\"openapi\""));
+  }
+
+  @Test
+  void testErrorsAreKeptPerItem() {
+    OpenApiDowngrader downgrader = new OpenApiDowngrader() {
+      @Override
+      public String convertToV2(String spec) {
+        if (spec.isEmpty()) {
+          throw new StackOverflowError();
+        }
+        return spec;
+      }
+
+      @Override
+      public String convertToV2(String spec, Format format) {
+        return convertToV2(spec);
+      }
+    };
+    BatchConverter failing = new BatchConverter(new OpenApiUpdaterImpl(), downgrader, 2);
+
+    BatchResult<String> result = failing.convertToV2(List.of("a", "", "c"));
+
+    assertEquals(2, result.successes());
+    assertInstanceOf(StackOverflowError.class, result.items().get(1).error());
+    assertEquals("c", result.items().get(2).value());
+  }
+
+  @Test
+  void testStreamIsConsumedInOrder() {
+    BatchResult<String> result =
+        batch.convertToV2(IntStream.range(0, 20).mapToObj(BatchConverterTest::openApi), null);
+
+    assertEquals(20, result.successes());
+    for (int i = 0; i < 20; i++) {
+      assertTrue(result.items().get(i).value().contains("/item" + i + ":"));
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package com.patred.openapi.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.limits.ConversionLimits;
+import com.patred.openapi.metrics.ConversionMetrics;
+import com.patred.openapi.model.Format;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ConversionCacheTest {
+
+  private static final String OPENAPI_YAML = """
+      openapi: 3.0.1
+      info:
+        title: Sample API
+        version: 1.0.0
+      paths:
+        /test:
+          get:
+            responses:
+              "200":
+                description: ok
+      """;
+
+  @Test
+  void testHitAndMiss() throws Exception {
+    ConversionCache cache = new ConversionCache(10, 1 << 20);
+    CachingOpenApiDowngrader converter =
+        new CachingOpenApiDowngrader(new OpenApiDowngraderImpl(), cache);
+
+    String first = converter.convertToV2(OPENAPI_YAML);
+    String second = converter.convertToV2(OPENAPI_YAML);
+    converter.convertToV2(OPENAPI_YAML, Format.JSON);
+
+    assertEquals(first, second);
+    CacheStats stats = cache.stats();
+    assertEquals(1, stats.hits());
+    assertEquals(2, stats.misses());
+    assertEquals(2, stats.entries());
+  }
+
+  @Test
+  void testLruEviction() throws Exception {
+    ConversionCache cache = new ConversionCache(2, 1 << 20);
+    AtomicInteger calls = new AtomicInteger();
+
+    cache.getOrConvert("v2", Format.JSON, "a", () -> "A" + calls.incrementAndGet());
+    cache.getOrConvert("v2", Format.JSON, "b", () -> "B" + calls.incrementAndGet());
+    // "a" diventa la voce usata più di recente, quindi viene eliminata "b"
+    cache.getOrConvert("v2", Format.JSON, "a", () -> "A" + calls.incrementAndGet());
+    cache.getOrConvert("v2", Format.JSON, "c", () -> "C" + calls.incrementAndGet());
+
+    assertEquals("A1", cache.getOrConvert("v2", Format.JSON, "a", () -> "x"));
+    assertEquals("x", cache.getOrConvert("v2", Format.JSON, "b", () -> "x"));
+    assertEquals(2, cache.stats().evictions());
+  }
+
+  @Test
+  void testMaxBytes() throws Exception {
+    ConversionCache cache = new ConversionCache(100, 10);
+
+    cache.getOrConvert("v2", Format.JSON, "a", () -> "12345");
+    cache.getOrConvert("v2", Format.JSON, "b", () -> "12345");
+
+    CacheStats stats = cache.stats();
+    assertEquals(1, stats.entries());
+    assertEquals(10, stats.bytes());
+    assertEquals(1, stats.evictions());
+  }
+
+  @Test
+  void testFailuresAreNotCached() throws Exception {
+    ConversionCache cache = new ConversionCache(10, 1 << 20);
+
+    assertThrows(IllegalStateException.class, () -> cache.getOrConvert("v2", Format.JSON, "a",
+        () -> {
+          throw new IllegalStateException("boom");
+        }));
+    assertEquals("ok", cache.getOrConvert("v2", Format.JSON, "a", () -> "ok"));
+  }
+
+  @Test
+  void testDiskTierSurvivesRestart(@TempDir Path dir) throws Exception {
+    new ConversionCache(10, 1 << 20, dir).getOrConvert("v3", Format.YAML, "spec", () -> "out");
+
+    ConversionCache restarted = new ConversionCache(10, 1 << 20, dir);
+    assertEquals("out", restarted.getOrConvert("v3", Format.YAML, "spec", () -> "other"));
+    assertEquals(1, restarted.stats().diskHits());
+    assertEquals(0, restarted.stats().misses());
+  }
+
+  @Test
+  void testConfigurationIsPartOfTheKey() throws Exception {
+    ConversionCache cache = new ConversionCache(10, 1 << 20);
+    CachingOpenApiDowngrader plain =
+        new CachingOpenApiDowngrader(new OpenApiDowngraderImpl(), cache);
+    CachingOpenApiDowngrader dereferencing = new CachingOpenApiDowngrader(
+        new OpenApiDowngraderImpl(ConversionMetrics.NOOP, true, ConversionLimits.DEFAULT), cache);
+
+    plain.convertToV2(OPENAPI_YAML);
+    dereferencing.convertToV2(OPENAPI_YAML);
+    new CachingOpenApiDowngrader(new OpenApiDowngraderImpl(), cache).convertToV2(OPENAPI_YAML);
+
+    assertEquals(2, cache.stats().misses());
+    assertEquals(1, cache.stats().hits());
+  }
+
+  @Test
+  void testDiskTierIsPruned(@TempDir Path dir) throws Exception {
+    ConversionCache cache = new ConversionCache(10, 1 << 20, dir, 100);
+    Files.writeString(dir.resolve("notes.txt"), "x".repeat(200));
+
+    for (String spec : new String[] {"a", "b", "c", "d"}) {
+      cache.getOrConvert("v2", Format.JSON, spec, () -> "y".repeat(40));
+    }
+
+    long total;
+    try (Stream<Path> files = Files.list(dir)) {
+      total = files.filter(file -> file.getFileName().toString().startsWith("v2-"))
+          .mapToLong(file -> file.toFile().length())
+          .sum();
+    }
+    assertTrue(total <= 100, "byte su disco: " + total);
+    // Solo le voci della cache vengono potate
+    assertTrue(Files.exists(dir.resolve("notes.txt")));
+    assertEquals("y".repeat(40), cache.getOrConvert("v2", Format.JSON, "d", () -> "other"));
+  }
+}
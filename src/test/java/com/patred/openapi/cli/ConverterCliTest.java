@@ -0,0 +1,149 @@
+package com.patred.openapi.cli;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import com.patred.openapi.validation.ValidatingOpenApiDowngrader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ConverterCliTest {
+
+  private final OpenApiUpdater updater = new OpenApiUpdaterImpl();
+  private final OpenApiDowngrader downgrader = new OpenApiDowngraderImpl();
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+  private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+  @TempDir
+  Path dir;
+
+  private static String read(String name) throws IOException {
+    return Files.readString(Path.of("src/test/resources", name));
+  }
+
+  private int run(String stdin, String... args) {
+    ConverterCli cli = new ConverterCli(updater, new ValidatingOpenApiDowngrader(downgrader),
+        new ByteArrayInputStream(stdin.getBytes(StandardCharsets.UTF_8)),
+        new PrintStream(out, true, StandardCharsets.UTF_8),
+        new PrintStream(err, true, StandardCharsets.UTF_8));
+    return cli.run(args);
+  }
+
+  @Test
+  void testStdinToStdout() throws Exception {
+    String swagger = read("sample-swagger2.yaml");
+
+    assertEquals(ConverterCli.OK, run(swagger, "v3", "--compact"));
+
+    assertEquals(updater.convertToV3(swagger, OutputOptions.DEFAULT.compact()),
+        out.toString(StandardCharsets.UTF_8));
+    assertEquals("", err.toString(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  void testFileToFile() throws Exception {
+    Path input = dir.resolve("api.yaml");
+    Files.writeString(input, read("sample-openapi3.yaml"));
+    Path output = dir.resolve("api-v2.json");
+
+    int status = run("", "v2", input.toString(), "-o", output.toString(), "-f", "json");
+
+    assertEquals(ConverterCli.OK, status);
+    assertEquals(downgrader.convertToV2(read("sample-openapi3.yaml"), Format.JSON),
+        Files.readString(output));
+  }
+
+  @Test
+  void testGlobToDirectory() throws Exception {
+    Files.createDirectories(dir.resolve("specs/nested"));
+    Files.writeString(dir.resolve("specs/a.yaml"), read("sample-openapi3.yaml"));
+    Files.writeString(dir.resolve("specs/nested/b.yaml"), read("sample-openapi3.yaml"));
+    Files.writeString(dir.resolve("specs/notes.txt"), "non una specifica");
+    Path target = dir.resolve("out");
+
+    assertEquals(List.of(dir.resolve("specs/a.yaml"), dir.resolve("specs/nested/b.yaml")),
+        ConverterCli.expand(dir + "/specs/**.yaml"));
+
+    int status = run("", "v2", dir + "/specs/**.yaml", "--output", target.toString(),
+        "--format", "json");
+
+    assertEquals(ConverterCli.OK, status, err.toString(StandardCharsets.UTF_8));
+    String expected = downgrader.convertToV2(read("sample-openapi3.yaml"), Format.JSON);
+    assertEquals(expected, Files.readString(target.resolve("a.json")));
+    assertEquals(expected, Files.readString(target.resolve("nested/b.json")));
+  }
+
+  @Test
+  void testSameFileNamesKeepTheirDirectories() throws Exception {
+    Files.createDirectories(dir.resolve("specs/pets"));
+    Files.createDirectories(dir.resolve("specs/store"));
+    Files.writeString(dir.resolve("specs/pets/openapi.yaml"), read("sample-openapi3.yaml"));
+    Files.writeString(dir.resolve("specs/store/openapi.yaml"), read("sample-openapi3.yaml"));
+    Path target = dir.resolve("out");
+
+    assertEquals(ConverterCli.OK, run("", "v2", dir + "/specs/**/openapi.yaml", "-o",
+        target.toString()));
+    assertTrue(Files.exists(target.resolve("pets/openapi.yaml")));
+    assertTrue(Files.exists(target.resolve("store/openapi.yaml")));
+
+    // File indicati uno per uno: conta solo il nome, e due uguali non possono sovrascriversi
+    assertEquals(ConverterCli.USAGE, run("", "v2", dir + "/specs/pets/openapi.yaml",
+        dir + "/specs/store/openapi.yaml", "-o", dir.resolve("flat").toString()));
+    assertTrue(err.toString(StandardCharsets.UTF_8).contains("stesso output"));
+    assertFalse(Files.exists(dir.resolve("flat")));
+  }
+
+  @Test
+  void testFailuresAreReportedAndOthersConverted() throws Exception {
+    Files.writeString(dir.resolve("good.yaml"), read("sample-openapi3.yaml"));
+    Files.writeString(dir.resolve("old.yaml"), read("sample-swagger2.yaml"));
+    Path target = dir.resolve("out");
+
+    int status = run("", "v2", dir + "/*.yaml", "-o", target.toString());
+
+    assertEquals(ConverterCli.FAILED, status);
+    assertTrue(Files.exists(target.resolve("good.yaml")));
+    String errors = err.toString(StandardCharsets.UTF_8);
+    assertTrue(errors.startsWith(dir.resolve("old.yaml") + ": "), errors);
+    // Nessun file vuoto o parziale per l'input non convertito, e nessun file temporaneo
+    try (Stream<Path> written = Files.list(target)) {
+      assertEquals(List.of(target.resolve("good.yaml")), written.toList());
+    }
+
+    // Un output esistente non viene troncato da una conversione fallita
+    Path single = dir.resolve("single.yaml");
+    Files.writeString(single, "precedente");
+    assertEquals(ConverterCli.FAILED, run("", "v2", dir.resolve("old.yaml").toString(), "-o",
+        single.toString()));
+    assertEquals("precedente", Files.readString(single));
+  }
+
+  @Test
+  void testUsageErrors() {
+    assertEquals(ConverterCli.USAGE, run("", "v4"));
+    assertEquals(ConverterCli.USAGE, run("", "v3", "--format", "xml"));
+    assertEquals(ConverterCli.USAGE, run("", "v3", "-o"));
+    assertEquals(ConverterCli.USAGE, run("", "v3", "--path", "pets"));
+    assertEquals(ConverterCli.USAGE, run("", "v3", dir + "/*.yaml"));
+    assertTrue(err.toString(StandardCharsets.UTF_8).contains("Uso: openapi-converter"));
+
+    assertEquals(ConverterCli.OK, run("", "--help"));
+    assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("Uso: openapi-converter"));
+  }
+}
@@ -0,0 +1,230 @@
+package com.patred.openapi.limits;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.patred.openapi.OpenApiDowngrader;
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdater;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.limits.ConversionLimits.Limit;
+import com.patred.openapi.metrics.ConversionMetrics;
+import com.patred.openapi.util.YamlTranscoder;
+import com.patred.openapi.validation.ValidatingOpenApiDowngrader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ConversionLimitsTest {
+
+  private static final ConversionLimits SMALL = new ConversionLimits(64 * 1024, 20, 5_000, 1_000);
+
+  private final OpenApiDowngrader downgrader =
+      new OpenApiDowngraderImpl(ConversionMetrics.NOOP, false, SMALL);
+  private final OpenApiUpdater updater = new OpenApiUpdaterImpl(ConversionMetrics.NOOP, SMALL);
+
+  private static String openApi(String extension) {
+    return "{\"openapi\": \"3.0.1\", \"info\": {\"title\": \"t\", \"version\": \"1\"}, "
+        + "\"x-data\": " + extension + ", \"paths\": {}}";
+  }
+
+  private static String swagger(String extension) {
+    return "{\"swagger\": \"2.0\", \"info\": {\"title\": \"t\", \"version\": \"1\"}, "
+        + "\"x-data\": " + extension + ", \"paths\": {}}";
+  }
+
+  private static String nested(int depth) {
+    return "[".repeat(depth) + "]".repeat(depth);
+  }
+
+  private static String array(int items) {
+    return "[" + "1,".repeat(items - 1) + "1]";
+  }
+
+  private static InputStream stream(String spec) {
+    return new ByteArrayInputStream(spec.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Limit exceeded(Executable conversion) {
+    return assertThrows(LimitExceededException.class, conversion::run).limit();
+  }
+
+  @Test
+  void testNestingDepth() throws Exception {
+    String spec = openApi(nested(50));
+
+    assertEquals(Limit.NESTING_DEPTH, exceeded(() -> downgrader.convertToV2(spec)));
+    assertEquals(Limit.NESTING_DEPTH, exceeded(() -> downgrader.convertToV2(stream(spec),
+        new ByteArrayOutputStream())));
+    assertEquals(Limit.NESTING_DEPTH, exceeded(() -> updater.convertToV3(swagger(nested(50)))));
+    assertEquals(Limit.NESTING_DEPTH, exceeded(() -> updater.convertToV3(
+        stream(swagger(nested(50))), new ByteArrayOutputStream())));
+
+    // Sotto il limite la conversione procede
+    assertTrue(downgrader.convertToV2(openApi(nested(10))).contains("\"swagger\""));
+  }
+
+  @Test
+  void testTokenCount() throws Exception {
+    assertEquals(Limit.TOKENS, exceeded(() -> downgrader.convertToV2(openApi(array(6_000)))));
+    assertEquals(Limit.TOKENS, exceeded(() -> updater.convertToV3(swagger(array(6_000)))));
+  }
+
+  @Test
+  void testStringLength() throws Exception {
+    String title = "\"" + "x".repeat(2_000) + "\"";
+    String spec = openApi("{}").replace("\"t\"", title);
+
+    assertEquals(Limit.STRING_LENGTH, exceeded(() -> downgrader.convertToV2(spec)));
+    // In streaming le sezioni copiate token per token restano contenute solo dal limite
+    // sull'input; le operazioni invece diventano alberi
+    String operation = openApi("{}").replace("\"paths\": {}",
+        "\"paths\": {\"/a\": {\"get\": {\"description\": " + title + "}}}");
+    assertEquals(Limit.STRING_LENGTH, exceeded(() -> downgrader.convertToV2(
+        new StringReader(operation), new StringWriter())));
+    assertEquals(Limit.STRING_LENGTH, exceeded(() -> updater.convertToV3(
+        swagger("{}").replace("\"t\"", title))));
+  }
+
+  @Test
+  void testInputSizeStopsReading(@TempDir Path dir) throws Exception {
+    String value = "\"" + "x".repeat(900) + "\"";
+    String spec = openApi(array(400).replace("1", value));
+    byte[] bytes = spec.getBytes(StandardCharsets.UTF_8);
+    CountingStream in = new CountingStream(new ByteArrayInputStream(bytes));
+
+    LimitExceededException e = assertThrows(LimitExceededException.class,
+        () -> downgrader.convertToV2(in, new ByteArrayOutputStream()));
+
+    assertEquals(Limit.INPUT_BYTES, e.limit());
+    assertEquals(64 * 1024, e.max());
+    assertTrue(in.count < bytes.length / 2, "letti " + in.count + " byte su " + bytes.length);
+
+    assertEquals(Limit.INPUT_BYTES, exceeded(() -> downgrader.convertToV2(spec)));
+    Path file = Files.writeString(dir.resolve("spec.json"), spec);
+    assertEquals(Limit.INPUT_BYTES, exceeded(() -> updater.convertToV3(file,
+        dir.resolve("out.json"))));
+  }
+
+  @Test
+  void testYamlAliasesAreNotExpanded() throws Exception {
+    // Nove livelli di dieci alias: espanso sarebbe un miliardo di elementi
+    StringBuilder yaml = new StringBuilder("""
+        openapi: 3.0.1
+        info: {title: t, version: "1"}
+        paths: {}
+        x-bomb:
+          a0: &a0 [x, x, x, x, x, x, x, x, x, x]
+        """);
+    for (int i = 1; i < 10; i++) {
+      String prev = "*a" + (i - 1);
+      yaml.append("  a").append(i).append(": &a").append(i).append(" [")
+          .append((prev + ", ").repeat(9)).append(prev).append("]\n");
+    }
+
+    String result = new OpenApiDowngraderImpl(ConversionMetrics.NOOP, false,
+        ConversionLimits.UNTRUSTED).convertToV2(yaml.toString());
+
+    assertTrue(result.length() < 4 * yaml.length(), "output di " + result.length());
+  }
+
+  @Test
+  void testYamlAliasesResolvedForTheModelCountAsTokens() throws Exception {
+    StringBuilder yaml = new StringBuilder("""
+        swagger: "2.0"
+        info: {title: t, version: "1"}
+        paths: {}
+        x-bomb:
+          a0: &a0 [x, x, x, x, x, x, x, x, x, x]
+        """);
+    for (int i = 1; i < 10; i++) {
+      String prev = "*a" + (i - 1);
+      yaml.append("  a").append(i).append(": &a").append(i).append(" [")
+          .append((prev + ", ").repeat(9)).append(prev).append("]\n");
+    }
+
+    assertEquals(Limit.TOKENS, exceeded(() -> updater.convertToV3(yaml.toString())));
+    assertEquals(Limit.TOKENS, exceeded(() -> new OpenApiUpdaterImpl().convertToV3(
+        stream(yaml.toString()), new ByteArrayOutputStream())));
+  }
+
+  @Test
+  void testYamlFastPathKeepsLimits() throws Exception {
+    StringBuilder deep = new StringBuilder("x-deep:\n");
+    for (int i = 1; i < 30; i++) {
+      deep.append("  ".repeat(i)).append("k:\n");
+    }
+    String v3 = "openapi: 3.0.1\ninfo: {title: t, version: \"1\"}\npaths: {}\n" + deep;
+    String v2 = "swagger: \"2.0\"\ninfo: {title: t, version: \"1\"}\npaths: {}\n" + deep;
+    assertNotNull(YamlTranscoder.toJson(v3));
+
+    assertEquals(Limit.NESTING_DEPTH, exceeded(() -> downgrader.convertToV2(v3)));
+    assertEquals(Limit.NESTING_DEPTH, exceeded(() -> updater.convertToV3(v2)));
+    assertEquals(Limit.NESTING_DEPTH, exceeded(() -> updater.convertToV3(stream(v2),
+        new ByteArrayOutputStream())));
+  }
+
+  @Test
+  void testLargeYamlAllowedByInputLimit() throws Exception {
+    // SnakeYAML rifiuterebbe di suo un documento oltre circa 3 milioni di caratteri
+    String yaml = "openapi: 3.0.1\npaths: {}\ninfo: {title: t, version: \"1\", description: "
+        + "x".repeat(3_200_000) + "}\n";
+
+    String result = new OpenApiDowngraderImpl(ConversionMetrics.NOOP, false,
+        ConversionLimits.DEFAULT.withMaxInputBytes(8L << 20)).convertToV2(yaml);
+
+    assertTrue(result.length() > 3_200_000);
+  }
+
+  @Test
+  void testValidatingDecoratorAppliesLimits() throws Exception {
+    OpenApiDowngrader validating = new ValidatingOpenApiDowngrader(downgrader, SMALL);
+
+    assertEquals(Limit.NESTING_DEPTH, exceeded(() -> validating.convertToV2(stream(
+        openApi(nested(50))), new ByteArrayOutputStream())));
+    assertEquals(Limit.INPUT_BYTES, exceeded(() -> validating.convertToV2(
+        openApi("\"" + "x".repeat(70_000) + "\""))));
+  }
+
+  @Test
+  void testDefaults() throws Exception {
+    assertEquals(LimitedReaders.of(ConversionLimits.DEFAULT),
+        LimitedReaders.of(new ConversionLimits(ConversionLimits.NONE, 500, ConversionLimits.NONE,
+            20_000_000)));
+    assertEquals(2, SMALL.withMaxNestingDepth(2).max(Limit.NESTING_DEPTH));
+    assertThrows(IllegalArgumentException.class, () -> SMALL.withMaxTokens(-2));
+  }
+
+  @FunctionalInterface
+  private interface Executable {
+
+    void run() throws Exception;
+  }
+
+  private static final class CountingStream extends FilterInputStream {
+
+    private long count;
+
+    CountingStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      count += Math.max(n, 0);
+      return n;
+    }
+  }
+}
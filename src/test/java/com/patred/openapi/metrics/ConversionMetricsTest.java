@@ -0,0 +1,123 @@
+package com.patred.openapi.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.validation.InvalidSpecException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class ConversionMetricsTest {
+
+  private static final String SWAGGER_YAML = """
+      swagger: "2.0"
+      info:
+        title: Sample API
+        version: "1.0.0"
+      paths:
+        /hello:
+          get:
+            responses:
+              200:
+                description: Success
+          delete:
+            responses:
+              204:
+                description: Deleted
+      """;
+
+  private static final String OPENAPI_YAML = """
+      openapi: 3.0.1
+      info:
+        title: Sample API
+        version: 1.0.0
+      paths:
+        /a:
+          get:
+            responses:
+              "200":
+                description: ok
+        /b:
+          post:
+            responses:
+              "201":
+                description: créé
+      """;
+
+  private final InMemoryConversionMetrics metrics = new InMemoryConversionMetrics();
+
+  @Test
+  void testUpdaterRecordsPhasesSizesAndCounts() throws Exception {
+    String result = new OpenApiUpdaterImpl(metrics).convertToV3(SWAGGER_YAML, Format.JSON);
+
+    for (Phase phase : new Phase[] {Phase.DETECT, Phase.PARSE, Phase.TRANSFORM, Phase.SERIALIZE}) {
+      assertEquals(1, metrics.phase(Target.V3, phase).count(), phase.name());
+    }
+    assertEquals(0, metrics.phase(Target.V3, Phase.STREAM).count());
+    assertEquals(SWAGGER_YAML.length(), metrics.inputBytes(Target.V3).max());
+    assertEquals(result.length(), metrics.outputBytes(Target.V3).max());
+    assertEquals(1, metrics.paths(Target.V3).max());
+    assertEquals(2, metrics.operations(Target.V3).max());
+  }
+
+  @Test
+  void testDowngraderStreamCountsBytes() throws Exception {
+    byte[] input = OPENAPI_YAML.getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new OpenApiDowngraderImpl(metrics).convertToV2(new ByteArrayInputStream(input), out);
+
+    assertEquals(1, metrics.phase(Target.V2, Phase.STREAM).count());
+    assertEquals(input.length, metrics.inputBytes(Target.V2).max());
+    assertEquals(out.size(), metrics.outputBytes(Target.V2).max());
+    assertEquals(2, metrics.paths(Target.V2).max());
+    assertEquals(2, metrics.operations(Target.V2).max());
+  }
+
+  @Test
+  void testDowngraderStringRecordsUtf8Sizes() throws Exception {
+    String result = new OpenApiDowngraderImpl(metrics).convertToV2(OPENAPI_YAML);
+
+    assertEquals(1, metrics.phase(Target.V2, Phase.PATHS).count());
+    assertEquals(OPENAPI_YAML.getBytes(StandardCharsets.UTF_8).length,
+        metrics.inputBytes(Target.V2).max());
+    assertEquals(result.getBytes(StandardCharsets.UTF_8).length,
+        metrics.outputBytes(Target.V2).max());
+  }
+
+  @Test
+  void testFailuresAreCountedByType() {
+    OpenApiDowngraderImpl downgrader = new OpenApiDowngraderImpl(metrics);
+    assertThrows(IllegalArgumentException.class, () -> downgrader.convertToV2(SWAGGER_YAML));
+    assertThrows(IllegalArgumentException.class, () -> downgrader.convertToV2(SWAGGER_YAML));
+
+    assertEquals(Map.of(InvalidSpecException.class.getName(), 2L),
+        metrics.failures(Target.V2));
+    assertEquals(0, metrics.outputBytes(Target.V2).count());
+  }
+
+  @Test
+  void testHistogramPercentiles() {
+    Histogram histogram = new Histogram();
+    for (int i = 1; i <= 10_000; i++) {
+      histogram.record(i);
+    }
+
+    HistogramSnapshot snapshot = histogram.snapshot();
+    assertEquals(10_000, snapshot.count());
+    assertEquals(1, snapshot.min());
+    assertEquals(10_000, snapshot.max());
+    assertEquals(5000.5, snapshot.mean(), 1e-9);
+    assertTrue(Math.abs(snapshot.p50() - 5000) <= 5000 / 16, "p50 " + snapshot.p50());
+    assertTrue(Math.abs(snapshot.p99() - 9900) <= 9900 / 16, "p99 " + snapshot.p99());
+
+    histogram.reset();
+    assertEquals(0, histogram.snapshot().count());
+  }
+}
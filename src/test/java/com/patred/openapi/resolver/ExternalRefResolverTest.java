@@ -0,0 +1,236 @@
+package com.patred.openapi.resolver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.limits.ConversionLimits;
+import com.patred.openapi.limits.LimitExceededException;
+import com.patred.openapi.model.Format;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+public class ExternalRefResolverTest {
+
+  private static final String ROOT = """
+      openapi: 3.0.1
+      info:
+        title: Pets
+        version: 1.0.0
+      paths:
+        /pets:
+          get:
+            responses:
+              "200":
+                description: ok
+                content:
+                  application/json:
+                    schema:
+                      $ref: 'schemas/pet.yaml'
+              "500":
+                description: error
+                content:
+                  application/json:
+                    schema:
+                      $ref: 'common.yaml#/components/schemas/Error'
+      """;
+
+  private static final String PET = """
+      type: object
+      properties:
+        tag:
+          $ref: '../common.yaml#/components/schemas/Tag'
+      """;
+
+  private static final String COMMON = """
+      components:
+        schemas:
+          Error:
+            type: object
+            properties:
+              message:
+                type: string
+          Tag:
+            type: string
+      """;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  @Test
+  void testFileSystemSpecIsBundled(@TempDir Path dir) throws Exception {
+    Files.createDirectories(dir.resolve("schemas"));
+    Files.writeString(dir.resolve("root.yaml"), ROOT);
+    Files.writeString(dir.resolve("schemas/pet.yaml"), PET);
+    Files.writeString(dir.resolve("common.yaml"), COMMON);
+
+    ExternalRefResolver resolver = new ExternalRefResolver(new FileSystemSource());
+    String root = FileSystemSource.location(dir.resolve("root.yaml"));
+    JsonNode swagger = mapper.readTree(
+        new OpenApiDowngraderImpl().convertToV2(resolver, root, Format.JSON));
+
+    JsonNode responses = swagger.at("/paths/~1pets/get/responses");
+    assertEquals("string", responses.at("/200/schema/properties/tag/type").asString());
+    assertEquals("string", responses.at("/500/schema/properties/message/type").asString());
+    assertFalse(swagger.toString().contains("$ref"));
+    assertEquals(3, resolver.loads());
+  }
+
+  @Test
+  void testSharedDocumentsAreLoadedOncePerResolver(@TempDir Path dir) throws Exception {
+    Files.createDirectories(dir.resolve("schemas"));
+    Files.writeString(dir.resolve("a.yaml"), ROOT);
+    Files.writeString(dir.resolve("b.yaml"), ROOT.replace("title: Pets", "title: Other"));
+    Files.writeString(dir.resolve("schemas/pet.yaml"), PET);
+    Files.writeString(dir.resolve("common.yaml"), COMMON);
+
+    ExternalRefResolver resolver = new ExternalRefResolver(new FileSystemSource(), 4);
+    OpenApiDowngraderImpl downgrader = new OpenApiDowngraderImpl();
+    downgrader.convertToV2(resolver, FileSystemSource.location(dir.resolve("a.yaml")));
+    downgrader.convertToV2(resolver, FileSystemSource.location(dir.resolve("b.yaml")));
+    assertEquals(4, resolver.loads());
+    assertEquals(4, resolver.cachedDocuments());
+
+    // Un file modificato viene riletto, gli altri restano in cache
+    Path common = dir.resolve("common.yaml");
+    Files.writeString(common, COMMON.replace("type: string\n", "type: integer\n"));
+    Files.setLastModifiedTime(common,
+        FileTime.fromMillis(Files.getLastModifiedTime(common).toMillis() + 2000));
+    JsonNode swagger = mapper.readTree(downgrader.convertToV2(resolver,
+        FileSystemSource.location(dir.resolve("a.yaml")), Format.JSON));
+    assertEquals(5, resolver.loads());
+    assertEquals("integer",
+        swagger.at("/paths/~1pets/get/responses/200/schema/properties/tag/type").asString());
+  }
+
+  @Test
+  void testRecursiveSchemaIsHoisted() throws Exception {
+    String root = """
+        openapi: 3.0.1
+        info:
+          title: Tree
+          version: 1.0.0
+        paths:
+          /tree:
+            get:
+              responses:
+                "200":
+                  description: ok
+                  content:
+                    application/json:
+                      schema:
+                        $ref: 'node.json'
+        """;
+    String node = """
+        { "type": "object",
+          "properties": { "children": { "type": "array", "items": { "$ref": "#" } } } }
+        """;
+    ExternalRefResolver resolver = new ExternalRefResolver(
+        new InMemorySource(Map.of("api/root.yaml", root, "api/node.json", node)));
+
+    JsonNode swagger = mapper.readTree(
+        new OpenApiDowngraderImpl().convertToV2(resolver, "api/root.yaml", Format.JSON));
+    assertEquals("#/definitions/node",
+        swagger.at("/paths/~1tree/get/responses/200/schema/properties/children/items/$ref")
+            .asString());
+    assertEquals("object", swagger.at("/definitions/node/type").asString());
+  }
+
+  @Test
+  void testRecursiveSchemaIsHoistedIntoSwaggerDefinitions() throws Exception {
+    String root = """
+        swagger: "2.0"
+        info:
+          title: Tree
+          version: "1.0"
+        paths:
+          /tree:
+            get:
+              responses:
+                200:
+                  description: ok
+                  schema:
+                    $ref: 'node.json'
+        """;
+    String node = """
+        { "type": "object",
+          "properties": { "children": { "type": "array", "items": { "$ref": "#" } } } }
+        """;
+    ExternalRefResolver resolver = new ExternalRefResolver(
+        new InMemorySource(Map.of("api/root.yaml", root, "api/node.json", node)));
+
+    JsonNode bundled = resolver.bundle("api/root.yaml").document();
+    assertEquals("#/definitions/node",
+        bundled.at("/paths/~1tree/get/responses/200/schema/properties/children/items/$ref")
+            .asString());
+    assertEquals("object", bundled.at("/definitions/node/type").asString());
+    assertFalse(bundled.has("components"));
+
+    JsonNode openApi = mapper.readTree(
+        new OpenApiUpdaterImpl().convertToV3(resolver, "api/root.yaml", Format.JSON));
+    assertEquals("#/components/schemas/node", openApi.at("/components/schemas/node/properties"
+        + "/children/items/$ref").asString());
+  }
+
+  @Test
+  void testUpdaterResolvesExternalDefinitions() throws Exception {
+    String root = """
+        swagger: "2.0"
+        info:
+          title: Pets
+          version: "1.0"
+        paths:
+          /pets:
+            get:
+              responses:
+                200:
+                  description: ok
+                  schema:
+                    $ref: '#/definitions/Pet'
+        definitions:
+          Pet:
+            $ref: 'definitions/pet.yaml'
+        """;
+    ExternalRefResolver resolver = new ExternalRefResolver(
+        new InMemorySource(Map.of("root.yaml", root, "definitions/pet.yaml", PET,
+            "common.yaml", COMMON)));
+
+    JsonNode openApi = mapper.readTree(
+        new OpenApiUpdaterImpl().convertToV3(resolver, "root.yaml", Format.JSON));
+    assertEquals("object", openApi.at("/components/schemas/Pet/type").asString());
+    assertEquals("#/components/schemas/Pet", openApi.at(
+        "/paths/~1pets/get/responses/200/content/*~1*/schema/$ref").asString());
+  }
+
+  @Test
+  void testMissingReferences() {
+    ExternalRefResolver missingFile = new ExternalRefResolver(
+        new InMemorySource(Map.of("root.yaml", ROOT)));
+    assertThrows(NoSuchFileException.class, () -> missingFile.bundle("root.yaml"));
+
+    ExternalRefResolver missingPointer = new ExternalRefResolver(new InMemorySource(Map.of(
+        "root.yaml", ROOT, "schemas/pet.yaml", PET, "common.yaml", "components: {}\n")));
+    assertThrows(IllegalArgumentException.class, () -> missingPointer.bundle("root.yaml"));
+  }
+
+  @Test
+  void testLimitsApplyToReferencedDocuments() throws Exception {
+    String deep = "type: object\nexample: " + "{a: ".repeat(30) + "1" + "}".repeat(30) + "\n";
+    Map<String, String> documents = Map.of("root.yaml", ROOT, "schemas/pet.yaml", deep,
+        "common.yaml", COMMON);
+    ConversionLimits limits = ConversionLimits.DEFAULT.withMaxNestingDepth(20);
+
+    ExternalRefResolver limited = new ExternalRefResolver(new InMemorySource(documents), 2,
+        limits);
+    assertThrows(LimitExceededException.class, () -> limited.bundle("root.yaml"));
+    new ExternalRefResolver(new InMemorySource(documents)).bundle("root.yaml");
+  }
+}
@@ -0,0 +1,236 @@
+package com.patred.openapi.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.metrics.InMemoryConversionMetrics;
+import com.patred.openapi.model.OutputOptions;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+public class ConversionServerTest {
+
+  private static final InetSocketAddress LOCALHOST = new InetSocketAddress("127.0.0.1", 0);
+
+  private final HttpClient client = HttpClient.newHttpClient();
+  private final ObjectMapper mapper = new ObjectMapper();
+  private ConversionServer server;
+
+  @AfterEach
+  void tearDown() {
+    if (server != null) {
+      server.close();
+    }
+  }
+
+  private static String read(String name) throws Exception {
+    return Files.readString(Path.of("src/test/resources", name));
+  }
+
+  private HttpResponse<String> post(String path, String body) throws Exception {
+    return client.send(HttpRequest.newBuilder(uri(path))
+        .POST(BodyPublishers.ofString(body)).build(), BodyHandlers.ofString());
+  }
+
+  private URI uri(String path) {
+    return URI.create("http://127.0.0.1:" + server.address().getPort() + path);
+  }
+
+  private ConversionServer start(int maxConcurrent, int maxQueued) throws Exception {
+    server = new ConversionServer(LOCALHOST, maxConcurrent, maxQueued, Duration.ofSeconds(5));
+    server.start();
+    return server;
+  }
+
+  @Test
+  void testConversionEndpoints() throws Exception {
+    start(2, 2);
+
+    HttpResponse<String> v3 = post("/v3?format=json", read("sample-swagger2.yaml"));
+    assertEquals(200, v3.statusCode());
+    assertEquals("application/json", v3.headers().firstValue("Content-Type").orElseThrow());
+    assertTrue(mapper.readTree(v3.body()).get("openapi").asString().startsWith("3."));
+
+    HttpResponse<String> v2 = post("/v2", read("sample-openapi3.yaml"));
+    assertEquals(200, v2.statusCode());
+    assertEquals("application/yaml", v2.headers().firstValue("Content-Type").orElseThrow());
+    assertEquals(new OpenApiDowngraderImpl().convertToV2(read("sample-openapi3.yaml")),
+        v2.body());
+  }
+
+  @Test
+  void testLargeOutputIsStreamed() throws Exception {
+    start(2, 2);
+    StringBuilder spec = new StringBuilder(
+        "{\"openapi\":\"3.0.1\",\"info\":{\"title\":\"t\",\"version\":\"1\"},\"paths\":{");
+    for (int i = 0; i < 3000; i++) {
+      spec.append(i == 0 ? "" : ",").append("\"/item").append(i).append("\":{\"get\":")
+          .append("{\"responses\":{\"200\":{\"description\":\"ok\"}}}}");
+    }
+    spec.append("}}");
+
+    HttpResponse<String> response = post("/v2?compact", spec.toString());
+
+    assertEquals(200, response.statusCode());
+    assertTrue(response.body().length() > ConversionServer.COMMIT_BYTES);
+    assertEquals(new OpenApiDowngraderImpl().convertToV2(spec.toString(),
+        OutputOptions.DEFAULT.compact()), response.body());
+  }
+
+  @Test
+  void testGzipResponse() throws Exception {
+    start(2, 2);
+    HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(uri("/v2"))
+        .header("Accept-Encoding", "gzip")
+        .POST(BodyPublishers.ofString(read("sample-openapi3.yaml"))).build(),
+        BodyHandlers.ofInputStream());
+
+    assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElseThrow());
+    try (InputStream in = new GZIPInputStream(response.body())) {
+      assertEquals(new OpenApiDowngraderImpl().convertToV2(read("sample-openapi3.yaml")),
+          new String(in.readAllBytes(), StandardCharsets.UTF_8));
+    }
+  }
+
+  @Test
+  void testErrors() throws Exception {
+    start(2, 2);
+
+    HttpResponse<String> invalid = post("/v2", "{\"info\": {\"title\": \"t\", "
+        + "\"version\": \"1\"}, \"paths\": {}}");
+    assertEquals(400, invalid.statusCode());
+    JsonNode errors = mapper.readTree(invalid.body()).get("errors");
+    assertEquals("/openapi", errors.get(0).get("pointer").asString());
+    assertEquals(1, errors.get(0).get("line").asInt());
+
+    assertEquals(400, post("/v3?format=xml", read("sample-swagger2.yaml")).statusCode());
+
+    HttpResponse<String> deep = post("/v2", "{\"openapi\": \"3.0.1\", \"x-deep\": "
+        + "[".repeat(200) + "]".repeat(200) + "}");
+    assertEquals(413, deep.statusCode());
+    assertTrue(mapper.readTree(deep.body()).get("error").asString().contains("annidamento"));
+
+    HttpResponse<String> get = client.send(HttpRequest.newBuilder(uri("/v3")).build(),
+        BodyHandlers.ofString());
+    assertEquals(405, get.statusCode());
+    assertEquals("POST", get.headers().firstValue("Allow").orElseThrow());
+  }
+
+  @Test
+  void testBusyServerRejectsWith503() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    InMemoryConversionMetrics metrics = new InMemoryConversionMetrics();
+    OpenApiUpdaterImpl blocking = new OpenApiUpdaterImpl(metrics) {
+      @Override
+      public void convertToV3(InputStream spec, OutputStream out, OutputOptions options)
+          throws Exception {
+        entered.countDown();
+        assertTrue(release.await(10, TimeUnit.SECONDS));
+        super.convertToV3(spec, out, options);
+      }
+    };
+    server = new ConversionServer(blocking, new OpenApiDowngraderImpl(metrics), metrics,
+        LOCALHOST, 1, 1, Duration.ofMillis(200));
+    server.start();
+
+    CompletableFuture<HttpResponse<String>> first = client.sendAsync(
+        HttpRequest.newBuilder(uri("/v3")).POST(BodyPublishers.ofString(
+            read("sample-swagger2.yaml"))).build(), BodyHandlers.ofString());
+    assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+    HttpResponse<String> second = post("/v3", read("sample-swagger2.yaml"));
+    assertEquals(503, second.statusCode());
+    assertTrue(second.headers().firstValue("Retry-After").isPresent());
+
+    release.countDown();
+    assertEquals(200, first.get(10, TimeUnit.SECONDS).statusCode());
+
+    JsonNode body = mapper.readTree(client.send(HttpRequest.newBuilder(uri("/metrics")).build(),
+        BodyHandlers.ofString()).body());
+    assertEquals(1, body.get("server").get("completed").asLong());
+    assertEquals(1, body.get("server").get("rejected").asLong());
+    assertEquals(0, body.get("server").get("active").asLong());
+    assertEquals(1, body.get("conversions").get("v3").get("phases").get("detect").get("count")
+        .asLong());
+  }
+
+  @Test
+  void testFullQueueRejectsImmediately() throws Exception {
+    CountDownLatch entered = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    InMemoryConversionMetrics metrics = new InMemoryConversionMetrics();
+    OpenApiUpdaterImpl blocking = new OpenApiUpdaterImpl(metrics) {
+      @Override
+      public void convertToV3(InputStream spec, OutputStream out, OutputOptions options)
+          throws Exception {
+        entered.countDown();
+        assertTrue(release.await(30, TimeUnit.SECONDS));
+        super.convertToV3(spec, out, options);
+      }
+    };
+    // Senza posti in coda le richieste in eccesso non devono attendere il timeout
+    server = new ConversionServer(blocking, new OpenApiDowngraderImpl(metrics), metrics,
+        LOCALHOST, 1, 0, Duration.ofSeconds(30));
+    server.start();
+
+    CompletableFuture<HttpResponse<String>> first = client.sendAsync(
+        HttpRequest.newBuilder(uri("/v3")).POST(BodyPublishers.ofString(
+            read("sample-swagger2.yaml"))).build(), BodyHandlers.ofString());
+    assertTrue(entered.await(10, TimeUnit.SECONDS));
+
+    for (int i = 0; i < 3; i++) {
+      HttpResponse<String> rejected = client.send(HttpRequest.newBuilder(uri("/v3"))
+          .timeout(Duration.ofSeconds(5)).POST(BodyPublishers.ofString(
+              read("sample-swagger2.yaml"))).build(), BodyHandlers.ofString());
+      assertEquals(503, rejected.statusCode());
+    }
+    HttpResponse<String> health = client.send(HttpRequest.newBuilder(uri("/health"))
+        .timeout(Duration.ofSeconds(5)).build(), BodyHandlers.ofString());
+    assertEquals(200, health.statusCode());
+
+    release.countDown();
+    assertEquals(200, first.get(10, TimeUnit.SECONDS).statusCode());
+  }
+
+  @Test
+  void testInvalidLimits() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new ConversionServer(LOCALHOST, 0, 1, Duration.ofSeconds(1)));
+    assertThrows(IllegalArgumentException.class,
+        () -> new ConversionServer(LOCALHOST, 1, -1, Duration.ofSeconds(1)));
+  }
+
+  @Test
+  void testWarmUpIsNotRecorded() throws Exception {
+    start(1, 0);
+    JsonNode body = mapper.readTree(client.send(HttpRequest.newBuilder(uri("/metrics")).build(),
+        BodyHandlers.ofString()).body());
+    assertEquals(0, body.get("conversions").get("v2").get("phases").get("detect").get("count")
+        .asLong());
+    assertEquals("ok", client.send(HttpRequest.newBuilder(uri("/health")).build(),
+        BodyHandlers.ofString()).body());
+  }
+}
@@ -0,0 +1,64 @@
+package com.patred.openapi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.SpecInfo;
+import com.patred.openapi.model.SpecVersion;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+public class FormatUtilsTest {
+
+  @Test
+  void testDetectJsonWithLeadingWhitespace() {
+    SpecInfo info = FormatUtils.detect("\n\t  { \"openapi\" : \"3.0.1\", \"info\": {} }  \n");
+    assertEquals(Format.JSON, info.format());
+    assertEquals(SpecVersion.OPENAPI_3, info.version());
+  }
+
+  @Test
+  void testDetectYaml() {
+    SpecInfo info = FormatUtils.detect("---\n# commento\nswagger: \"2.0\"\ninfo:\n  title: x\n");
+    assertEquals(Format.YAML, info.format());
+    assertEquals(SpecVersion.SWAGGER_2, info.version());
+  }
+
+  @Test
+  void testNestedKeysAreIgnored() {
+    SpecInfo info = FormatUtils.detect("info:\n  description: 'openapi: 3.0'\n  swagger: 2\n");
+    assertEquals(SpecVersion.UNKNOWN, info.version());
+  }
+
+  @Test
+  void testBlankIsJson() {
+    assertFalse(FormatUtils.isYaml("   \n"));
+    assertEquals(SpecVersion.UNKNOWN, FormatUtils.detect("").version());
+  }
+
+  @Test
+  void testUtf8BomBytes() {
+    byte[] spec = "\uFEFF{\"swagger\":\"2.0\"}".getBytes(StandardCharsets.UTF_8);
+    SpecInfo info = FormatUtils.detect(spec);
+    assertEquals(Format.JSON, info.format());
+    assertEquals(SpecVersion.SWAGGER_2, info.version());
+  }
+
+  @Test
+  void testStreamIsReset() throws Exception {
+    InputStream in = new ByteArrayInputStream(
+        "openapi: 3.1.0\n".getBytes(StandardCharsets.UTF_8));
+    assertEquals(SpecVersion.OPENAPI_3, FormatUtils.detect(in).version());
+    assertEquals('o', in.read());
+
+    BufferedReader reader = new BufferedReader(new StringReader("\uFEFF[1]"));
+    assertFalse(FormatUtils.isYaml(reader));
+    assertTrue(reader.read() == '\uFEFF');
+  }
+}
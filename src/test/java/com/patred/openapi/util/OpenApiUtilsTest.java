@@ -0,0 +1,91 @@
+package com.patred.openapi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.swagger.v3.oas.models.Components;
+import io.swagger.v3.oas.models.OpenAPI;
+import io.swagger.v3.oas.models.PathItem;
+import io.swagger.v3.oas.models.Paths;
+import io.swagger.v3.oas.models.media.ObjectSchema;
+import io.swagger.v3.oas.models.media.Schema;
+import io.swagger.v3.oas.models.media.StringSchema;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class OpenApiUtilsTest {
+
+  @Test
+  void testNullMapValuesAreRemovedInPlace() {
+    Schema<?> pet = new ObjectSchema().addProperty("name", new StringSchema());
+    pet.getProperties().put("missing", null);
+    pet.addExtension("x-null", null);
+    pet.addExtension("x-ok", 1);
+    Paths paths = new Paths();
+    paths.addPathItem("/pets", new PathItem().$ref("#/components/pathItems/Pets"));
+    paths.put("/gone", null);
+    OpenAPI openApi = new OpenAPI()
+        .paths(paths)
+        .components(new Components().addSchemas("Pet", pet).addSchemas("Empty", null));
+    openApi.addExtension("x-top", null);
+
+    assertSame(openApi, OpenApiUtils.removeNullsInPlace(openApi));
+    assertEquals(Map.of("x-ok", 1), pet.getExtensions());
+    assertEquals(1, pet.getProperties().size());
+    assertFalse(paths.containsKey("/gone"));
+    assertEquals("#/components/pathItems/Pets", paths.get("/pets").get$ref());
+    assertFalse(openApi.getComponents().getSchemas().containsKey("Empty"));
+    assertTrue(openApi.getExtensions().isEmpty());
+    assertNull(openApi.getInfo());
+  }
+
+  @Test
+  void testDeeplyNestedSchemasDoNotOverflow() {
+    Schema<?> root = new ObjectSchema();
+    Schema<?> current = root;
+    for (int i = 0; i < 20_000; i++) {
+      Schema<?> child = new ObjectSchema();
+      current.addProperty("child", child);
+      current.getProperties().put("nothing", null);
+      current = child;
+    }
+    OpenApiUtils.removeNullsInPlace(
+        new OpenAPI().components(new Components().addSchemas("Deep", root)));
+
+    int depth = 0;
+    for (Schema<?> s = root; s.getProperties() != null; s = s.getProperties().get("child")) {
+      assertEquals(1, s.getProperties().size());
+      depth++;
+    }
+    assertEquals(20_000, depth);
+  }
+
+  @Test
+  void testRemoveNullsReturnsCleanCopy() {
+    Schema<?> pet = new ObjectSchema().addProperty("name", new StringSchema());
+    pet.getProperties().put("missing", null);
+    pet.addExtension("x-null", null);
+    OpenAPI openApi = new OpenAPI().components(new Components().addSchemas("Pet", pet));
+
+    OpenAPI cleaned = OpenApiUtils.removeNulls(openApi);
+
+    assertNotSame(openApi, cleaned);
+    Schema<?> copy = cleaned.getComponents().getSchemas().get("Pet");
+    assertEquals(1, copy.getProperties().size());
+    assertEquals("string", copy.getProperties().get("name").getType());
+    assertTrue(copy.getExtensions() == null || copy.getExtensions().isEmpty());
+    // L'originale resta com'era
+    assertTrue(pet.getProperties().containsKey("missing"));
+    assertTrue(pet.getExtensions().containsKey("x-null"));
+  }
+
+  @Test
+  void testNullIsTolerated() {
+    assertNull(OpenApiUtils.removeNulls(null));
+    assertNull(OpenApiUtils.removeNullsInPlace(null));
+  }
+}
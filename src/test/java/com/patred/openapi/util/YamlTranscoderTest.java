@@ -0,0 +1,156 @@
+package com.patred.openapi.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.OutputOptions;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import tools.jackson.core.json.JsonReadFeature;
+import tools.jackson.databind.JsonNode;
+
+public class YamlTranscoderTest {
+
+  /**
+   * Verifica che la traduzione avvenga e dia lo stesso albero del parser YAML, per entrambe le
+   * versioni di Jackson.
+   */
+  private static void assertTranscoded(String yaml) throws Exception {
+    String json = YamlTranscoder.toJson(yaml);
+    assertNotNull(json, yaml);
+    assertEquals(Mappers.reader(Format.YAML).readTree(yaml),
+        Mappers.reader(Format.JSON).with(JsonReadFeature.ALLOW_YAML_COMMENTS).readTree(json),
+        yaml);
+    assertEquals(ModelMappers.reader(Format.YAML).readTree(yaml),
+        ModelMappers.reader(Format.JSON).with(
+            com.fasterxml.jackson.core.json.JsonReadFeature.ALLOW_YAML_COMMENTS).readTree(json),
+        yaml);
+  }
+
+  private static void assertFallback(String yaml) {
+    assertNull(YamlTranscoder.toJson(yaml), yaml);
+  }
+
+  @Test
+  void testSamples() throws Exception {
+    assertTranscoded(Files.readString(Path.of("src/test/resources/sample-openapi3.yaml")));
+    assertTranscoded(Files.readString(Path.of("src/test/resources/sample-swagger2.yaml")));
+  }
+
+  @Test
+  void testWrittenYaml() throws Exception {
+    String spec = Files.readString(Path.of("src/test/resources/sample-openapi3.yaml"));
+    JsonNode tree = Mappers.reader(Format.YAML).readTree(spec);
+
+    assertTranscoded(Mappers.writer(Format.YAML, true).writeValueAsString(tree));
+    assertTranscoded(OutputWriters.writer(OutputOptions.of(Format.YAML).withMinimizedQuotes(),
+        Format.YAML).writeValueAsString(tree));
+  }
+
+  @Test
+  void testScalars() throws Exception {
+    assertTranscoded("""
+        a: 1
+        b: -2.5e3
+        c: true
+        d: null
+        e:
+        f: 1.0.0
+        g: 2024-01-01T00:00:00Z
+        h: "quoted \\"x\\" \\u00e8 \\t"
+        i: 'single ''x'' \\n'
+        j: a:b and c#d
+        k: text # commento
+        "quoted key": x
+        'single key': y
+        200: ok
+        l: [1, "a", b c, {x: 1, 'y': [true]}]
+        m: {}
+        """);
+  }
+
+  @Test
+  void testMultiLineScalars() throws Exception {
+    assertTranscoded("""
+        plain: prima riga
+          seconda riga
+
+          dopo una riga vuota
+        next: x
+        double: "prima   \s
+          seconda\\
+          terza"
+        single: 'prima
+
+          seconda'
+        items:
+          - uno
+            due
+          - "tre
+            quattro"
+        """);
+  }
+
+  @Test
+  void testBlockScalars() throws Exception {
+    assertTranscoded("""
+        literal: |
+          riga 1
+            indentata
+          riga 2
+
+        folded: >-
+          parole
+          unite
+
+          paragrafo
+        keep: |+
+          x
+
+        last: x
+        """);
+  }
+
+  @Test
+  void testCollections() throws Exception {
+    assertTranscoded("""
+        # commento iniziale
+        ---
+        list:
+        - a
+        - b: 1
+          c: 2
+        -
+          - nested
+        map:
+          key:
+            deep: true
+        empty list: []
+        """);
+    assertTranscoded("\uFEFFa: 1\r\nb:\r\n  - 2\r\n");
+    assertTranscoded("# commento\n{\"a\": [1, 2]}\n");
+  }
+
+  @Test
+  void testUnsupportedConstructs() {
+    assertFallback("a: &x 1\nb: *x\n");
+    assertFallback("a: !!str 1\n");
+    assertFallback("? complex\n: key\n");
+    assertFallback("a: 1\n---\nb: 2\n");
+    assertFallback("%YAML 1.2\n---\na: 1\n");
+    assertFallback("a:\n\t- 1\n");
+    assertFallback("a: [1,\n  2]\n");
+    assertFallback("a: |2\n   x\n");
+    // Tipi diversi tra YAML 1.1 e 1.2
+    assertFallback("a: yes\n");
+    assertFallback("a: ~\n");
+    assertFallback("a: 0x1F\n");
+    assertFallback("a: 1_000\n");
+    assertFallback("a: .5\n");
+    assertFallback("a: \"\\x41\"\n");
+    assertFallback("a: \"x\\/y\"\n");
+  }
+}
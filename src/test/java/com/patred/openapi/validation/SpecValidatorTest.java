@@ -0,0 +1,182 @@
+package com.patred.openapi.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.patred.openapi.OpenApiDowngraderImpl;
+import com.patred.openapi.OpenApiUpdaterImpl;
+import com.patred.openapi.model.Format;
+import com.patred.openapi.model.SpecVersion;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class SpecValidatorTest {
+
+  private static String read(String name) throws Exception {
+    return Files.readString(Path.of("src/test/resources", name));
+  }
+
+  @Test
+  void testValidSamples() throws Exception {
+    assertEquals(List.of(),
+        SpecValidator.validate(read("sample-swagger2.yaml"), SpecVersion.SWAGGER_2));
+    assertEquals(List.of(),
+        SpecValidator.validate(read("sample-openapi3.yaml"), SpecVersion.OPENAPI_3));
+  }
+
+  @Test
+  void testShapeErrorsWithLocations() {
+    String spec = """
+        {
+          "openapi": "3.0.1",
+          "info": {"title": "t"},
+          "paths": {
+            "items": {},
+            "/a": 1
+          },
+          "servers": {}
+        }
+        """;
+
+    List<ValidationError> errors = SpecValidator.validate(spec, SpecVersion.OPENAPI_3);
+
+    assertEquals(List.of("/info/version", "/paths/items", "/paths/~1a", "/servers"),
+        errors.stream().map(ValidationError::pointer).toList());
+    assertEquals(3, errors.get(0).line());
+    assertEquals(5, errors.get(1).line());
+    assertEquals(6, errors.get(2).line());
+  }
+
+  @Test
+  void testYamlLocations() {
+    String spec = """
+        swagger: "2.0"
+        info:
+          title: t
+          version: 1
+        paths:
+          /a: []
+        """;
+
+    List<ValidationError> errors = SpecValidator.validate(spec, SpecVersion.SWAGGER_2);
+
+    assertEquals(1, errors.size());
+    assertEquals("/paths/~1a", errors.get(0).pointer());
+    assertEquals(6, errors.get(0).line());
+  }
+
+  @Test
+  void testMissingRequiredFields() {
+    List<ValidationError> errors = SpecValidator.validate("{\"info\": {\"title\": \"t\", "
+        + "\"version\": \"1\"}}", SpecVersion.SWAGGER_2);
+
+    assertEquals(List.of("/swagger", "/paths"),
+        errors.stream().map(ValidationError::pointer).toList());
+    assertTrue(SpecValidator.validate("{\"openapi\": \"3.1.0\", \"info\": {\"title\": \"t\", "
+        + "\"version\": \"1\"}, \"webhooks\": {}}", SpecVersion.OPENAPI_3).isEmpty());
+  }
+
+  @Test
+  void testUnquotedVersions() throws Exception {
+    String swagger = "swagger: 2.0\ninfo:\n  title: t\n  version: 1\npaths: {}\n";
+
+    assertEquals(List.of(), SpecValidator.validate(swagger, SpecVersion.SWAGGER_2));
+    assertEquals(List.of(), SpecValidator.validate(
+        "openapi: 3.0\ninfo:\n  title: t\n  version: 1\npaths: {}\n", SpecVersion.OPENAPI_3));
+    assertEquals("versione non supportata: 2", SpecValidator.validate(
+        swagger.replace("2.0", "2"), SpecVersion.SWAGGER_2).get(0).message());
+    assertEquals("la versione deve essere una stringa", SpecValidator.validate(
+        swagger.replace("2.0", "true"), SpecVersion.SWAGGER_2).get(0).message());
+
+    assertEquals(new OpenApiUpdaterImpl().convertToV3(swagger),
+        new ValidatingOpenApiUpdater(new OpenApiUpdaterImpl()).convertToV3(swagger));
+  }
+
+  @Test
+  void testFatalErrorsStopReading() {
+    // Dopo la versione errata il resto del documento non è nemmeno sintatticamente valido
+    List<ValidationError> errors = SpecValidator.validate("{\"swagger\": \"2.0\", \"info\": [[[",
+        SpecVersion.OPENAPI_3);
+    assertEquals(1, errors.size());
+    assertEquals("/swagger", errors.get(0).pointer());
+
+    assertEquals("", SpecValidator.validate("[1, 2]", SpecVersion.OPENAPI_3).get(0).pointer());
+    assertEquals("documento vuoto",
+        SpecValidator.validate("", SpecVersion.OPENAPI_3).get(0).message());
+    assertTrue(SpecValidator.validate("{\"openapi\": \"3.0.1\", ", SpecVersion.OPENAPI_3)
+        .get(0).message().startsWith("sintassi non valida"));
+  }
+
+  @Test
+  void testRejectionReadsOnlyNeededBytes() {
+    byte[] spec = ("{\"openapi\": \"3.0.1\", \"x-padding\": \"" + "x".repeat(1 << 20) + "\"}")
+        .getBytes(StandardCharsets.UTF_8);
+    CountingStream in = new CountingStream(new ByteArrayInputStream(spec));
+
+    List<ValidationError> errors = SpecValidator.validate(in, Format.JSON, SpecVersion.SWAGGER_2);
+
+    assertEquals("/openapi", errors.get(0).pointer());
+    assertTrue(in.count < 64 * 1024, "letti " + in.count + " byte");
+  }
+
+  @Test
+  void testValidatingDecorators() throws Exception {
+    ValidatingOpenApiDowngrader downgrader =
+        new ValidatingOpenApiDowngrader(new OpenApiDowngraderImpl());
+    String openApi = read("sample-openapi3.yaml");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    downgrader.convertToV2(new ByteArrayInputStream(openApi.getBytes(StandardCharsets.UTF_8)),
+        out, Format.JSON);
+    assertEquals(new OpenApiDowngraderImpl().convertToV2(openApi, Format.JSON),
+        out.toString(StandardCharsets.UTF_8));
+
+    InvalidSpecException e = assertThrows(InvalidSpecException.class,
+        () -> downgrader.convertToV2(new ByteArrayInputStream(
+            "{\"openapi\": \"3.0.1\"}".getBytes(StandardCharsets.UTF_8)), out));
+    assertEquals(List.of("/info", "/paths"),
+        e.errors().stream().map(ValidationError::pointer).toList());
+
+    ValidatingOpenApiUpdater updater = new ValidatingOpenApiUpdater(new OpenApiUpdaterImpl());
+    assertEquals(new OpenApiUpdaterImpl().convertToV3(read("sample-swagger2.yaml")),
+        updater.convertToV3(read("sample-swagger2.yaml")));
+    assertThrows(InvalidSpecException.class, () -> updater.convertToV3(openApi));
+  }
+
+  @Test
+  void testConvertersReportStructuredErrors() {
+    InvalidSpecException missing = assertThrows(InvalidSpecException.class,
+        () -> new OpenApiDowngraderImpl().convertToV2("{\"info\": {}}"));
+    assertEquals("Specifica non valida: manca il campo 'openapi'", missing.getMessage());
+    assertEquals("/openapi", missing.errors().get(0).pointer());
+
+    InvalidSpecException syntax = assertThrows(InvalidSpecException.class,
+        () -> new OpenApiUpdaterImpl().convertToV3("{\"swagger\": \"2.0\", "));
+    assertTrue(syntax.errors().get(0).line() > 0);
+  }
+
+  private static final class CountingStream extends FilterInputStream {
+
+    private long count;
+
+    CountingStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int n = super.read(b, off, len);
+      count += Math.max(n, 0);
+      return n;
+    }
+  }
+}